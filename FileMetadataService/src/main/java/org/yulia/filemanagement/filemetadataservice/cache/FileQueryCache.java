@@ -0,0 +1,196 @@
+package org.yulia.filemanagement.filemetadataservice.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.yulia.filemanagement.filemetadataservice.dto.FilePageDto;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * In-process cache of listing pages, keyed by the normalized query. It is bounded both by the number of pages and by
+ * their weight, the total number of files they hold, and evicts the least recently used pages first.
+ * <p>
+ * Pages are invalidated precisely: a registered, updated or deleted file only removes the pages whose filters it
+ * matches. A page that was read while such a change was being made is not stored, so a listing that raced with a
+ * write cannot keep serving the state from before it.
+ */
+@Component
+@ConditionalOnProperty(name = "file.query.cache.enabled", havingValue = "true")
+public class FileQueryCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(FileQueryCache.class);
+
+    private final int maxEntries;
+    private final long maxWeight;
+
+    // in access order, so the first entry is the least recently used one
+    private final LinkedHashMap<Key, FilePageDto> pages = new LinkedHashMap<>(16, 0.75f, true);
+    private long weight;
+    private long generation;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+
+    public FileQueryCache(@Value("${file.query.cache.max.entries:1000}") int maxEntries,
+                          @Value("${file.query.cache.max.weight:100000}") long maxWeight) {
+        this.maxEntries = maxEntries;
+        this.maxWeight = maxWeight;
+    }
+
+    /**
+     * Returns the cached page of a query.
+     *
+     * @param key the normalized query
+     * @return the cached page, or null if it is not cached
+     */
+    public synchronized FilePageDto get(Key key) {
+        var page = pages.get(key);
+        if (page != null) {
+            hits++;
+        } else {
+            misses++;
+        }
+        return page;
+    }
+
+    /**
+     * Returns the current generation of the cache. It changes whenever pages are invalidated, and has to be read
+     * before the page that is going to be stored is read from the database.
+     *
+     * @return the current generation
+     */
+    public synchronized long generation() {
+        return generation;
+    }
+
+    /**
+     * Stores the page of a query, unless pages were invalidated since the given generation, and evicts the least
+     * recently used pages until the cache is within its bounds again.
+     *
+     * @param key        the normalized query
+     * @param page       the page read from the database
+     * @param generation the generation that was read before the page was read
+     */
+    public synchronized void put(Key key, FilePageDto page, long generation) {
+        if (generation != this.generation) {
+            logger.debug("Not caching page of {}, it may be stale", key);
+            return;
+        }
+        var pageWeight = weigh(page);
+        if (pageWeight > maxWeight) {
+            return;
+        }
+        var previous = pages.put(key, page);
+        if (previous != null) {
+            weight -= weigh(previous);
+        }
+        weight += pageWeight;
+
+        var iterator = pages.entrySet().iterator();
+        while ((pages.size() > maxEntries || weight > maxWeight) && iterator.hasNext()) {
+            var eldest = iterator.next();
+            weight -= weigh(eldest.getValue());
+            iterator.remove();
+            evictions++;
+        }
+    }
+
+    /**
+     * Removes the pages whose filters match a file that was registered, updated or deleted. It is called with the old
+     * and the new state of an updated file.
+     *
+     * @param fileType    the MIME type of the file
+     * @param fileSize    the size of the file in bytes
+     * @param contentHash the content hash of the file, or null if it was not recorded
+     */
+    public synchronized void invalidate(String fileType, long fileSize, String contentHash) {
+        generation++;
+        var iterator = pages.entrySet().iterator();
+        while (iterator.hasNext()) {
+            var entry = iterator.next();
+            if (entry.getKey().matches(fileType, fileSize, contentHash)) {
+                weight -= weigh(entry.getValue());
+                iterator.remove();
+                invalidations++;
+            }
+        }
+    }
+
+    /**
+     * Removes all pages, after a change to many files at once such as a bulk import, or a change to a file whose
+     * previous state is unknown.
+     */
+    public synchronized void invalidateAll() {
+        generation++;
+        invalidations += pages.size();
+        pages.clear();
+        weight = 0;
+    }
+
+    /**
+     * Returns the statistics of the cache: hits, misses, evictions, invalidations, and its current size and weight.
+     *
+     * @return the statistics by name
+     */
+    public synchronized Map<String, Object> getStats() {
+        var stats = new LinkedHashMap<String, Object>();
+        stats.put("hits", hits);
+        stats.put("misses", misses);
+        var lookups = hits + misses;
+        stats.put("hitRate", lookups == 0 ? 0.0 : (double) hits / lookups);
+        stats.put("evictions", evictions);
+        stats.put("invalidations", invalidations);
+        stats.put("size", pages.size());
+        stats.put("maxSize", maxEntries);
+        stats.put("weight", weight);
+        stats.put("maxWeight", maxWeight);
+        return stats;
+    }
+
+    // the weight of a page is the number of files it holds, an empty page still takes up an entry
+    private static long weigh(FilePageDto page) {
+        return page.files().size() + 1L;
+    }
+
+    /**
+     * The normalized query of a listing page. Sizes are in bytes; an exact size replaces the size range, as it does in
+     * the query itself.
+     * @param fileType    the file type filter, or null
+     * @param minSize     the minimum size in bytes, or null
+     * @param maxSize     the maximum size in bytes, or null
+     * @param equalSize   the exact size in bytes, or null
+     * @param contentHash the content hash filter, or null
+     * @param cursor      the cursor of the page, or null for the first page
+     * @param limit       the size of the page
+     */
+    public record Key(String fileType, Long minSize, Long maxSize, Long equalSize, String contentHash, String cursor,
+                      int limit) {
+
+        public Key {
+            if (equalSize != null) {
+                minSize = null;
+                maxSize = null;
+            }
+        }
+
+        // whether a file with these attributes passes the filters of the query, on any of its pages
+        boolean matches(String fileType, long fileSize, String contentHash) {
+            if (this.fileType != null && !this.fileType.equals(fileType)) {
+                return false;
+            }
+            if (this.contentHash != null && !this.contentHash.equals(contentHash)) {
+                return false;
+            }
+            if (equalSize != null) {
+                return equalSize == fileSize;
+            }
+            return (minSize == null || fileSize >= minSize) && (maxSize == null || fileSize <= maxSize);
+        }
+    }
+}
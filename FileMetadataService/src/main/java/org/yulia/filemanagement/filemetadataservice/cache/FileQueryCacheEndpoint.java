@@ -0,0 +1,29 @@
+package org.yulia.filemanagement.filemetadataservice.cache;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Actuator endpoint that shows the statistics of the listing cache, available at /actuator/filequerycache when the
+ * cache is enabled.
+ */
+@Component
+@ConditionalOnProperty(name = "file.query.cache.enabled", havingValue = "true")
+@Endpoint(id = "filequerycache")
+public class FileQueryCacheEndpoint {
+
+    private final FileQueryCache cache;
+
+    public FileQueryCacheEndpoint(FileQueryCache cache) {
+        this.cache = cache;
+    }
+
+    @ReadOperation
+    public Map<String, Object> stats() {
+        return cache.getStats();
+    }
+}
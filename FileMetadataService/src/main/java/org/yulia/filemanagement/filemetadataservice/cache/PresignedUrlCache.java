@@ -0,0 +1,86 @@
+package org.yulia.filemanagement.filemetadataservice.cache;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.yulia.filemanagement.filemetadataservice.storage.ObjectStorage;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+
+/**
+ * In-process cache of the presigned URLs handed out with file listings, keyed by file name. Only the name of a file
+ * is stored with its metadata, so listings sign a URL for every listed file; the cache keeps repeated listings of
+ * the same files from computing the signatures again.
+ * <p>
+ * A URL is served from the cache for at most the TTL, which is shorter than the validity of the URL, so every URL a
+ * listing returns stays valid for at least the difference. The cache is bounded by the number of entries and evicts
+ * the least recently used ones first.
+ */
+@Component
+public class PresignedUrlCache {
+
+    // the longest validity a presigned URL of S3 and Minio can have
+    private static final int MAX_EXPIRY_SECONDS = 7 * 24 * 60 * 60;
+
+    private final ObjectStorage objectStorage;
+    private final String bucketName;
+    private final int expirySeconds;
+    private final long ttlNanos;
+    private final int maxEntries;
+
+    // in access order, so the first entry is the least recently used one
+    private final LinkedHashMap<String, Entry> urls = new LinkedHashMap<>(16, 0.75f, true);
+
+    public PresignedUrlCache(ObjectStorage objectStorage,
+                             @Value("${minio.bucket-name}") String bucketName,
+                             @Value("${file.url.expiry.seconds:3600}") int expirySeconds,
+                             @Value("${file.url.cache.ttl.seconds:1800}") int ttlSeconds,
+                             @Value("${file.url.cache.max.entries:10000}") int maxEntries) {
+        if (expirySeconds < 1 || expirySeconds > MAX_EXPIRY_SECONDS) {
+            throw new IllegalArgumentException("URL expiry must be between 1 and " + MAX_EXPIRY_SECONDS + " seconds");
+        }
+        if (ttlSeconds < 0 || ttlSeconds >= expirySeconds) {
+            throw new IllegalArgumentException("URL cache TTL must not be negative and must be less than the expiry");
+        }
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("URL cache must hold at least one entry");
+        }
+        this.objectStorage = objectStorage;
+        this.bucketName = bucketName;
+        this.expirySeconds = expirySeconds;
+        this.ttlNanos = ttlSeconds * 1_000_000_000L;
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Returns a presigned URL of a file, from the cache if one was signed within the TTL, and newly signed otherwise.
+     *
+     * @param fileName the name of the file, which is the name of its object
+     * @return the presigned URL of the file
+     * @throws IOException if the URL could not be signed
+     */
+    public String get(String fileName) throws IOException {
+        synchronized (this) {
+            var entry = urls.get(fileName);
+            if (entry != null && System.nanoTime() - entry.signedAt < ttlNanos) {
+                return entry.url;
+            }
+        }
+        // signed outside the lock, so listings do not wait for each other's signatures
+        var url = objectStorage.getPresignedUrl(bucketName, fileName, expirySeconds);
+        put(fileName, url);
+        return url;
+    }
+
+    private synchronized void put(String fileName, String url) {
+        urls.put(fileName, new Entry(url, System.nanoTime()));
+        if (urls.size() > maxEntries) {
+            var eldest = urls.keySet().iterator();
+            eldest.next();
+            eldest.remove();
+        }
+    }
+
+    private record Entry(String url, long signedAt) {
+    }
+}
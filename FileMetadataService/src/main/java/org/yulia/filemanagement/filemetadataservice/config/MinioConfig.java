@@ -20,6 +20,10 @@ public class MinioConfig {
     @Value("${minio.secret-key}")
     private String secretKey;
 
+    // Region of the bucket; known up front, so presigned URLs are signed without asking Minio for it
+    @Value("${minio.region:us-east-1}")
+    private String region;
+
     /**
      * Configures and returns a MinioClient bean.
      *
@@ -30,6 +34,7 @@ public class MinioConfig {
         return MinioClient.builder()
                 .endpoint(minioUrl)
                 .credentials(accessKey, secretKey)
+                .region(region)
                 .build();
     }
 }
@@ -1,5 +1,8 @@
 package org.yulia.filemanagement.filemetadataservice.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -12,18 +15,36 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.yulia.filemanagement.filemetadataservice.constants.SizeUnit;
 import org.yulia.filemanagement.filemetadataservice.dto.ErrorResponse;
+import org.yulia.filemanagement.filemetadataservice.dto.FileImportDto;
+import org.yulia.filemanagement.filemetadataservice.dto.FileMetadataDto;
 import org.yulia.filemanagement.filemetadataservice.dto.FileQueryDto;
+import org.yulia.filemanagement.filemetadataservice.dto.FileRegistrationResultDto;
+import org.yulia.filemanagement.filemetadataservice.dto.FileUrlBatchDto;
 import org.yulia.filemanagement.filemetadataservice.dto.FileUrlDto;
+import org.yulia.filemanagement.filemetadataservice.dto.ImportResultDto;
+import org.yulia.filemanagement.filemetadataservice.dto.PagedSuccessResponse;
+import org.yulia.filemanagement.filemetadataservice.dto.StorageStatsDto;
 import org.yulia.filemanagement.filemetadataservice.dto.SuccessResponse;
-import org.yulia.filemanagement.filemetadataservice.entity.FileMetadata;
+import org.yulia.filemanagement.filemetadataservice.search.FileNameIndex;
+import org.yulia.filemanagement.filemetadataservice.service.FileImportService;
 import org.yulia.filemanagement.filemetadataservice.service.FileMetadataService;
+import org.yulia.filemanagement.filemetadataservice.stats.StorageStatistics;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
 import java.util.List;
 
 @RestController
@@ -32,16 +53,35 @@ import java.util.List;
 public class FileMetadataController {
 
     private static final Logger logger = LoggerFactory.getLogger(FileMetadataController.class);
+
+    private static final String NDJSON_VALUE = "application/x-ndjson";
+    private static final MediaType NDJSON = MediaType.parseMediaType(NDJSON_VALUE);
+    private static final int MAX_SEARCH_LIMIT = 1000;
+
     private final FileMetadataService fileMetadataService;
+    private final FileImportService fileImportService;
+    private final ObjectMapper objectMapper;
+    private final FileNameIndex fileNameIndex;
+    private final StorageStatistics storageStatistics;
 
     /**
      * Constructs a FileMetadataController with dependency injection for the FileMetadataService.
      *
      * @param fileMetadataService the service used to manage file metadata operations
+     * @param fileImportService   the service used to import file metadata in bulk
+     * @param objectMapper        the mapper used to read bulk imports and write streamed listings
+     * @param fileNameIndex       the in-memory index used to search file names
+     * @param storageStatistics   the in-memory storage statistics
      */
     @Autowired
-    public FileMetadataController(FileMetadataService fileMetadataService) {
+    public FileMetadataController(FileMetadataService fileMetadataService, FileImportService fileImportService,
+                                  ObjectMapper objectMapper, FileNameIndex fileNameIndex,
+                                  StorageStatistics storageStatistics) {
         this.fileMetadataService = fileMetadataService;
+        this.fileImportService = fileImportService;
+        this.objectMapper = objectMapper;
+        this.fileNameIndex = fileNameIndex;
+        this.storageStatistics = storageStatistics;
         logger.debug("FileMetadataController initialized with FileMetadataService");
     }
 
@@ -74,14 +114,102 @@ public class FileMetadataController {
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
+    @Operation(summary = "Registers the metadata of several files at once",
+            description = "This endpoint registers the metadata of several files, inserting new records and updating " +
+                    "the records of files that are already registered with one statement. The outcome of every file " +
+                    "is reported in the response data, in the order of the request: 201 if its record was inserted, " +
+                    "200 if it was updated")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "All files registered successfully",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = SuccessResponse.class),
+                            examples = @ExampleObject(value = "{ \"message\": \"Files registered successfully\", " +
+                                    "\"data\": [{ \"fileUrl\": \"...\", \"fileName\": \"example.pdf\", " +
+                                    "\"status\": 201, \"message\": \"File registered successfully\" }] }"))}),
+            @ApiResponse(responseCode = "200", description = "All files registered, some of them updated",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = SuccessResponse.class))),
+            @ApiResponse(responseCode = "207", description = "Some files could not be registered",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = SuccessResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Validation error",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "500", description = "Internal server error",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    @PostMapping("/register/batch")
+    public ResponseEntity<SuccessResponse> registerFiles(@RequestBody @NotNull FileUrlBatchDto batchDto) {
+        logger.info("Received request to register a batch of files");
+        if (batchDto == null || batchDto.files() == null || batchDto.files().isEmpty()) {
+            logger.error("Batch must contain at least one file URL");
+            throw new IllegalArgumentException("Batch must contain at least one file URL");
+        }
+        List<FileRegistrationResultDto> results = fileMetadataService.registerFiles(batchDto.files());
+
+        var allInserted = results.stream().allMatch(result -> result.status() == HttpStatus.CREATED.value());
+        if (allInserted) {
+            return ResponseEntity.status(HttpStatus.CREATED)
+                    .body(new SuccessResponse("Files registered successfully", results));
+        }
+        var allRegistered = results.stream().allMatch(result -> result.status() == HttpStatus.CREATED.value()
+                || result.status() == HttpStatus.OK.value());
+        if (allRegistered) {
+            return ResponseEntity.ok(new SuccessResponse("Files registered successfully", results));
+        }
+        return ResponseEntity.status(HttpStatus.MULTI_STATUS)
+                .body(new SuccessResponse("Some files could not be registered", results));
+    }
+
+    @Operation(summary = "Imports the metadata of many files at once",
+            description = "This endpoint stores the metadata given in a newline-delimited JSON body, one file per " +
+                    "line, without reading the files from storage. It is meant for backfilling the metadata of a " +
+                    "bucket. Files are inserted in chunks, each committed on its own, and files that are already " +
+                    "registered are skipped, so an interrupted import can be repeated")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Files imported successfully",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ImportResultDto.class),
+                            examples = @ExampleObject(value = "{ \"message\": \"Files imported successfully\", " +
+                                    "\"data\": { \"imported\": 5000, \"skipped\": 0, \"rejected\": 0, " +
+                                    "\"elapsedMs\": 250, \"rowsPerSecond\": 20000.0 } }"))}),
+            @ApiResponse(responseCode = "400", description = "Validation error",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "500", description = "Internal server error",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    @PostMapping(value = "/import", consumes = NDJSON_VALUE)
+    public ResponseEntity<SuccessResponse> importFiles(
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(description = "One file per line, e.g. " +
+                    "{\"fileUrl\": \"http://localhost:9000/file-storage/example.pdf\", \"fileType\": " +
+                    "\"application/pdf\", \"fileSize\": 1024, \"uploadDate\": \"2024-07-01T12:00:00\", " +
+                    "\"contentHash\": null}; fileName defaults to the last segment of the URL")
+            InputStream body) throws IOException {
+        logger.info("Received request to import files");
+        ImportResultDto result;
+        try (var lines = objectMapper.readerFor(FileImportDto.class).<FileImportDto>readValues(body)) {
+            result = fileImportService.importFiles(importLines(lines));
+        }
+        return ResponseEntity.ok(new SuccessResponse("Files imported successfully", result));
+    }
+
     @Operation(summary = "Retrieves a list of files based on filtering criteria",
-            description = "This endpoint returns a list of files that match the provided filtering criteria")
+            description = "This endpoint returns the files that match the provided filtering criteria, one page at a " +
+                    "time ordered by id. The next page is requested with the cursor returned in nextCursor, which is " +
+                    "null on the last page. With Accept: application/x-ndjson, all matching files are streamed as " +
+                    "newline-delimited JSON instead, one file per line ordered by id, without paging")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "File search completed successfully",
                     content = {@Content(mediaType = "application/json",
-                            schema = @Schema(implementation = SuccessResponse.class),
+                            schema = @Schema(implementation = PagedSuccessResponse.class),
                             examples = @ExampleObject(value = "{ \"message\": \"File search completed successfully\"," +
-                                    " \"data\": [...] }"))}),
+                                    " \"data\": [...], \"nextCursor\": \"aWQ6MTAw\" }")),
+                            @Content(mediaType = NDJSON_VALUE,
+                                    examples = @ExampleObject(value = "{\"id\":1,\"fileName\":\"example.pdf\",...}\n" +
+                                            "{\"id\":2,\"fileName\":\"example.txt\",...}"))}),
             @ApiResponse(responseCode = "400", description = "Validation error",
                     content = @Content(mediaType = "application/json",
                             schema = @Schema(implementation = ErrorResponse.class))),
@@ -90,7 +218,7 @@ public class FileMetadataController {
                             schema = @Schema(implementation = ErrorResponse.class)))
     })
     @GetMapping("/files")
-    public ResponseEntity<SuccessResponse> getFiles(
+    public ResponseEntity<?> getFiles(
             @Parameter(description = "Optional file type to filter by, e.g application/pdf, text/plain, etc.")
             @RequestParam(required = false) String file_type,
             @Parameter(description = "Optional minimum file size to filter by")
@@ -102,6 +230,15 @@ public class FileMetadataController {
             @Parameter(description = "Optional unit of the size parameters, with a default if unspecified",
                     schema = @Schema(defaultValue = "bytes", allowableValues = {"bytes", "kb", "mb", "gb"}))
             @RequestParam(required = false) String size_unit,
+            @Parameter(description = "Optional SHA-256 hash of the file content to filter by, as a hex string")
+            @RequestParam(required = false) String content_hash,
+            @Parameter(description = "Optional maximum number of files on the page, with a default if unspecified")
+            @RequestParam(required = false) Integer limit,
+            @Parameter(description = "Optional cursor of the page to return, as returned in nextCursor of the " +
+                    "previous page")
+            @RequestParam(required = false) String after,
+            @Parameter(hidden = true)
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
             @Parameter(hidden = true)
             @Value("${default.size.unit}") String defaultUnit) {
 
@@ -109,12 +246,133 @@ public class FileMetadataController {
         validateRequestParam(min_size, max_size, equal_size);
 
         var sizeUnit = SizeUnit.fromString(size_unit, defaultUnit);
-        var queryDto = new FileQueryDto(file_type, min_size, max_size, equal_size, sizeUnit);
-        List<FileMetadata> files = fileMetadataService.findFiles(queryDto);
-        var response = new SuccessResponse("File search completed successfully", files);
+        var queryDto = new FileQueryDto(file_type, min_size, max_size, equal_size, sizeUnit, content_hash);
+        if (acceptsNdjson(accept)) {
+            return streamFiles(queryDto);
+        }
+        var page = fileMetadataService.findFiles(queryDto, after, limit);
+        var response = new PagedSuccessResponse("File search completed successfully", page.files(),
+                page.nextCursor());
+        return ResponseEntity.ok(response);
+    }
+
+    @Operation(summary = "Searches file names by prefix or substring",
+            description = "This endpoint returns the names of the files that start with or contain the given text, " +
+                    "ignoring case. The names are looked up in an in-memory index, without querying the database")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "File name search completed successfully",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = SuccessResponse.class),
+                            examples = @ExampleObject(value = "{ \"message\": \"File name search completed " +
+                                    "successfully\", \"data\": [\"report-2024.pdf\", \"report-2025.pdf\"] }"))}),
+            @ApiResponse(responseCode = "400", description = "Validation error",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    @GetMapping("/files/search")
+    public ResponseEntity<SuccessResponse> searchFileNames(
+            @Parameter(description = "The text to search for")
+            @RequestParam String name,
+            @Parameter(description = "Whether the names start with the text or contain it; substring search " +
+                    "requires at least three characters",
+                    schema = @Schema(defaultValue = "prefix", allowableValues = {"prefix", "substring"}))
+            @RequestParam(defaultValue = "prefix") String match,
+            @Parameter(description = "Optional maximum number of names to return")
+            @RequestParam(defaultValue = "100") int limit) {
+        logger.info("Received request to search file names");
+        if (name.isEmpty()) {
+            throw new IllegalArgumentException("Search text must not be empty");
+        }
+        if (limit < 1 || limit > MAX_SEARCH_LIMIT) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_SEARCH_LIMIT);
+        }
+        var names = switch (match.toLowerCase()) {
+            case "prefix" -> fileNameIndex.findByPrefix(name, limit);
+            case "substring" -> fileNameIndex.findBySubstring(name, limit);
+            default -> throw new IllegalArgumentException("Invalid match: " + match +
+                    ". Valid values are: prefix, substring.");
+        };
+        return ResponseEntity.ok(new SuccessResponse("File name search completed successfully", names));
+    }
+
+    @Operation(summary = "Retrieves storage statistics",
+            description = "This endpoint returns the number and total size of the registered files, overall, by file " +
+                    "type and by size bucket. The statistics are kept in memory and are periodically checked " +
+                    "against the database, so the table is never scanned to answer")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Storage statistics retrieved successfully",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = StorageStatsDto.class),
+                            examples = @ExampleObject(value = "{ \"message\": \"Storage statistics retrieved " +
+                                    "successfully\", \"data\": { \"files\": 2, \"bytes\": 3072, \"byFileType\": " +
+                                    "{ \"text/plain\": { \"files\": 2, \"bytes\": 3072 } }, \"bySize\": { ... }, " +
+                                    "\"lastReconciled\": \"2024-07-01T12:00:00\" } }"))})
+    })
+    @GetMapping("/stats")
+    public ResponseEntity<SuccessResponse> getStats() {
+        logger.info("Received request for storage statistics");
+        var response = new SuccessResponse("Storage statistics retrieved successfully", storageStatistics.getStats());
         return ResponseEntity.ok(response);
     }
 
+    @Operation(summary = "Deletes the metadata of many files at once",
+            description = "This endpoint deletes the files with the given names, or the files that match the given " +
+                    "filtering criteria, in chunks of one transaction each, and returns the number of deleted files. " +
+                    "With remove_objects=true the objects of the deleted files are also removed from storage, in " +
+                    "batches")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Files deleted successfully",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = SuccessResponse.class),
+                            examples = @ExampleObject(value = "{ \"message\": \"Files deleted successfully\", " +
+                                    "\"data\": { \"deleted\": 42, \"objectsRemoved\": 42, " +
+                                    "\"objectFailures\": [] } }"))}),
+            @ApiResponse(responseCode = "400", description = "Validation error",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "500", description = "Internal server error",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    @DeleteMapping("/files")
+    public ResponseEntity<SuccessResponse> deleteFiles(
+            @Parameter(description = "Names of the files to delete; cannot be combined with the filtering criteria")
+            @RequestParam(required = false) List<String> file_name,
+            @Parameter(description = "Optional file type to filter by, e.g application/pdf, text/plain, etc.")
+            @RequestParam(required = false) String file_type,
+            @Parameter(description = "Optional minimum file size to filter by")
+            @RequestParam(required = false) Long min_size,
+            @Parameter(description = "Optional maximum file size to filter by")
+            @RequestParam(required = false) Long max_size,
+            @Parameter(description = "Optional exact file size to filter by")
+            @RequestParam(required = false) Long equal_size,
+            @Parameter(description = "Optional unit of the size parameters, with a default if unspecified",
+                    schema = @Schema(defaultValue = "bytes", allowableValues = {"bytes", "kb", "mb", "gb"}))
+            @RequestParam(required = false) String size_unit,
+            @Parameter(description = "Optional SHA-256 hash of the file content to filter by, as a hex string")
+            @RequestParam(required = false) String content_hash,
+            @Parameter(description = "Whether to remove the objects of the deleted files from storage")
+            @RequestParam(defaultValue = "false") boolean remove_objects,
+            @Parameter(hidden = true)
+            @Value("${default.size.unit}") String defaultUnit) {
+
+        logger.info("Received request to delete files");
+        var filtered = file_type != null || min_size != null || max_size != null || equal_size != null
+                || content_hash != null;
+        var named = file_name != null && !file_name.isEmpty();
+        if (filtered == named) {
+            throw new IllegalArgumentException("Either file_name or filtering criteria must be given, but not both");
+        }
+        FileQueryDto queryDto = null;
+        if (filtered) {
+            validateRequestParam(min_size, max_size, equal_size);
+            var sizeUnit = SizeUnit.fromString(size_unit, defaultUnit);
+            queryDto = new FileQueryDto(file_type, min_size, max_size, equal_size, sizeUnit, content_hash);
+        }
+        var result = fileMetadataService.deleteFiles(queryDto, named ? file_name : null, remove_objects);
+        return ResponseEntity.ok(new SuccessResponse("Files deleted successfully", result));
+    }
+
     @Operation(summary = "Deletes metadata for a specified file name",
             description = "This endpoint deletes metadata for the file with the specified name")
     @ApiResponses(value = {
@@ -149,6 +407,72 @@ public class FileMetadataController {
         }
     }
 
+    // only an explicit request for NDJSON streams the listing, clients accepting anything get the paged JSON
+    private static boolean acceptsNdjson(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return false;
+        }
+        try {
+            return MediaType.parseMediaTypes(accept).stream().anyMatch(NDJSON::equalsTypeAndSubtype);
+        } catch (InvalidMediaTypeException e) {
+            return false;
+        }
+    }
+
+    // writes the matching files while they are read, one line of JSON per file
+    private ResponseEntity<StreamingResponseBody> streamFiles(FileQueryDto queryDto) {
+        logger.info("Streaming files based on provided criteria");
+        StreamingResponseBody body = outputStream -> {
+            try {
+                fileMetadataService.streamFiles(queryDto, file -> writeLine(outputStream, file));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            outputStream.flush();
+        };
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
+    }
+
+    // writes one file as a line of newline-delimited JSON
+    private void writeLine(OutputStream outputStream, FileMetadataDto file) {
+        try {
+            outputStream.write(objectMapper.writeValueAsBytes(file));
+            outputStream.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // reads the import one line at a time; the chunks before a malformed line are already imported when it is reached
+    private static Iterator<FileImportDto> importLines(MappingIterator<FileImportDto> lines) {
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                try {
+                    return lines.hasNextValue();
+                } catch (IOException e) {
+                    throw malformedImport(e);
+                }
+            }
+
+            @Override
+            public FileImportDto next() {
+                try {
+                    return lines.nextValue();
+                } catch (IOException e) {
+                    throw malformedImport(e);
+                }
+            }
+        };
+    }
+
+    private static RuntimeException malformedImport(IOException e) {
+        if (e instanceof JsonProcessingException jsonException) {
+            return new IllegalArgumentException("Malformed import line: " + jsonException.getOriginalMessage());
+        }
+        return new UncheckedIOException(e);
+    }
+
     /**
      * Validates the size parameters for file querying.
      *
@@ -0,0 +1,12 @@
+package org.yulia.filemanagement.filemetadataservice.dto;
+
+import java.util.List;
+
+/**
+ * Data Transfer Object describing the outcome of a bulk delete.
+ * @param deleted        the number of deleted metadata records
+ * @param objectsRemoved the number of objects removed from storage, 0 if the objects were kept
+ * @param objectFailures the names of the first files whose objects could not be removed from storage, at most 100
+ */
+public record BulkDeleteResultDto(long deleted, long objectsRemoved, List<String> objectFailures) {
+}
@@ -0,0 +1,17 @@
+package org.yulia.filemanagement.filemetadataservice.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Data Transfer Object with the metadata of one file of a bulk import, such as one line of a bucket inventory.
+ * The metadata is stored as given, without reading the file from storage.
+ * @param fileUrl     the URL of the file
+ * @param fileName    the name of the file, or null to take it from the URL
+ * @param fileType    the MIME type of the file, or null if it is unknown
+ * @param fileSize    the size of the file in bytes
+ * @param uploadDate  the time the file was uploaded, or null to use the time of the import
+ * @param contentHash the SHA-256 hash of the file content as a hex string, or null
+ */
+public record FileImportDto(String fileUrl, String fileName, String fileType, Long fileSize,
+                            LocalDateTime uploadDate, String contentHash) {
+}
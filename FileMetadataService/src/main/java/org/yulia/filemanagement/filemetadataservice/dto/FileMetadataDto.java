@@ -0,0 +1,34 @@
+package org.yulia.filemanagement.filemetadataservice.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Read-only view of the metadata of one file, as returned by file listings.
+ * It is selected directly by the listing queries, so listed files are never loaded as managed entities.
+ * @param id          the id of the file
+ * @param fileUrl     the presigned URL of the file, or null if URLs are not shown
+ * @param fileName    the name of the file
+ * @param fileType    the MIME type of the file
+ * @param fileSize    the size of the file in bytes
+ * @param uploadDate  the time the file was registered
+ * @param contentHash the SHA-256 hash of the file content as a hex string, or null if it was not recorded
+ */
+public record FileMetadataDto(Long id, String fileUrl, String fileName, String fileType, long fileSize,
+                              LocalDateTime uploadDate, String contentHash) {
+
+    // used by the listing queries; no URL is stored, it is signed for the file name when the file is listed
+    public FileMetadataDto(Long id, String fileName, String fileType, long fileSize, LocalDateTime uploadDate,
+                           String contentHash) {
+        this(id, null, fileName, fileType, fileSize, uploadDate, contentHash);
+    }
+
+    /**
+     * Returns a copy of the file with the given URL.
+     *
+     * @param fileUrl the presigned URL of the file
+     * @return the file with the URL
+     */
+    public FileMetadataDto withFileUrl(String fileUrl) {
+        return new FileMetadataDto(id, fileUrl, fileName, fileType, fileSize, uploadDate, contentHash);
+    }
+}
@@ -0,0 +1,11 @@
+package org.yulia.filemanagement.filemetadataservice.dto;
+
+import java.util.List;
+
+/**
+ * One page of a file listing.
+ * @param files      the files of the page, ordered by id
+ * @param nextCursor the opaque cursor of the next page, or null if this is the last page
+ */
+public record FilePageDto(List<FileMetadataDto> files, String nextCursor) {
+}
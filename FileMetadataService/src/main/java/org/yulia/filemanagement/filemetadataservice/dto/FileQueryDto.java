@@ -6,7 +6,7 @@ import org.yulia.filemanagement.filemetadataservice.constants.SizeUnit;
 
 /**
  * Data Transfer Object used for querying file metadata based on various criteria.
- * It supports filtering based on file type, size constraints, and size units.
+ * It supports filtering based on file type, size constraints, size units, and content hash.
  */
 public record FileQueryDto(
     // The type of the file to filter by, such as 'text/plain', etc.
@@ -22,6 +22,13 @@ public record FileQueryDto(
     @Min(value = 0, message = "The exact size must not be negative") Long equalSize,
 
     //The unit of measurement used for the size filters: bytes, kilobytes, megabytes, or gigabytes.
-    @NotNull(message = "Size unit must be specified") SizeUnit sizeUnit
+    @NotNull(message = "Size unit must be specified") SizeUnit sizeUnit,
+
+    // The SHA-256 hash of the content that the files must have, as a hex string.
+    String contentHash
 ) {
+
+    public FileQueryDto(String fileType, Long minSize, Long maxSize, Long equalSize, SizeUnit sizeUnit) {
+        this(fileType, minSize, maxSize, equalSize, sizeUnit, null);
+    }
 }
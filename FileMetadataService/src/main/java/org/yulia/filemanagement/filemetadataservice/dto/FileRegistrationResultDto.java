@@ -0,0 +1,11 @@
+package org.yulia.filemanagement.filemetadataservice.dto;
+
+/**
+ * Data Transfer Object describing the outcome of registering one file of a batch.
+ * @param fileUrl  the URL of the file as it was sent by the client
+ * @param fileName the name of the file, or null if the URL could not be processed
+ * @param status   the HTTP status code the registration would have had as a single request
+ * @param message  a human-readable description of the outcome
+ */
+public record FileRegistrationResultDto(String fileUrl, String fileName, int status, String message) {
+}
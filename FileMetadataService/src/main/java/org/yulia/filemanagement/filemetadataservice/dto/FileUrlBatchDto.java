@@ -0,0 +1,10 @@
+package org.yulia.filemanagement.filemetadataservice.dto;
+
+import java.util.List;
+
+/**
+ * Data Transfer Object for registering several files stored in MinIO with one request.
+ * @param files the URLs of the files to register
+ */
+public record FileUrlBatchDto(List<FileUrlDto> files) {
+}
@@ -3,7 +3,28 @@ package org.yulia.filemanagement.filemetadataservice.dto;
 /**
  * Data Transfer Object for holding the URL of a file stored in MinIO.
  * Constructs a new FileUrlDto.
- * @param fileUrl the URL of the file in MinIO. This should be a valid URL string.
+ * <p>
+ * The upload service may also pass the attributes it knew when it stored the object. If the size and the content type
+ * are present, the metadata service trusts them instead of reading them from MinIO.
+ *
+ * @param fileUrl     the URL of the file in MinIO. This should be a valid URL string.
+ * @param fileSize    the size of the stored object in bytes, or null if unknown
+ * @param contentType the content type of the stored object, or null if unknown
+ * @param etag        the ETag MinIO returned for the stored object, or null if unknown
+ * @param contentHash the SHA-256 of the content, or null if unknown
  */
-public record FileUrlDto(String fileUrl) {
+public record FileUrlDto(String fileUrl, Long fileSize, String contentType, String etag, String contentHash) {
+
+    public FileUrlDto(String fileUrl) {
+        this(fileUrl, null, null, null, null);
+    }
+
+    /**
+     * Tells whether the DTO carries the attributes needed to register the file without reading them from MinIO.
+     *
+     * @return true if the size and the content type are present
+     */
+    public boolean hasObjectAttributes() {
+        return fileSize != null && fileSize >= 0 && contentType != null;
+    }
 }
@@ -0,0 +1,12 @@
+package org.yulia.filemanagement.filemetadataservice.dto;
+
+/**
+ * Data Transfer Object describing the outcome of a bulk import.
+ * @param imported      the number of files that were stored
+ * @param skipped       the number of files that were already registered, or repeated in the import
+ * @param rejected      the number of lines that were missing a URL or a valid size
+ * @param elapsedMs     the duration of the import in milliseconds
+ * @param rowsPerSecond the number of stored files per second
+ */
+public record ImportResultDto(long imported, long skipped, long rejected, long elapsedMs, double rowsPerSecond) {
+}
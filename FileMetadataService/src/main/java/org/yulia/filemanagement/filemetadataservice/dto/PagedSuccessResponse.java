@@ -0,0 +1,9 @@
+package org.yulia.filemanagement.filemetadataservice.dto;
+
+/**
+ * Data Transfer Object for sending one page of a successful listing.
+ * Contains a message indicating the success, the data of the page and the cursor of the next page, which is null on
+ * the last page.
+ */
+public record PagedSuccessResponse(String message, Object data, String nextCursor) {
+}
@@ -0,0 +1,20 @@
+package org.yulia.filemanagement.filemetadataservice.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Data Transfer Object describing the outcome of a reconciliation of the bucket with the database.
+ * @param objectsScanned the number of objects listed in the bucket
+ * @param filesScanned   the number of files read from the database
+ * @param orphanObjects  the number of confirmed objects without a file record
+ * @param orphanFiles    the number of confirmed file records without an object
+ * @param objectsRemoved the number of orphan objects removed from the bucket
+ * @param filesDeleted   the number of orphan file records deleted from the database
+ * @param dryRun         whether the orphans were only reported and not repaired
+ * @param finishedAt     the time the reconciliation finished
+ * @param elapsedMs      the duration of the reconciliation in milliseconds
+ */
+public record ReconciliationResultDto(long objectsScanned, long filesScanned, long orphanObjects, long orphanFiles,
+                                      long objectsRemoved, long filesDeleted, boolean dryRun,
+                                      LocalDateTime finishedAt, long elapsedMs) {
+}
@@ -0,0 +1,24 @@
+package org.yulia.filemanagement.filemetadataservice.dto;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Data Transfer Object with the storage statistics of all registered files.
+ * @param files          the number of files
+ * @param bytes          the total size of the files in bytes
+ * @param byFileType     the number and total size of the files of every file type
+ * @param bySize         the number and total size of the files in every size bucket, from the smallest bucket up
+ * @param lastReconciled the time the statistics were last checked against the database, or null if they were not yet
+ */
+public record StorageStatsDto(long files, long bytes, Map<String, Totals> byFileType, Map<String, Totals> bySize,
+                              LocalDateTime lastReconciled) {
+
+    /**
+     * The number and total size of a group of files.
+     * @param files the number of files
+     * @param bytes the total size of the files in bytes
+     */
+    public record Totals(long files, long bytes) {
+    }
+}
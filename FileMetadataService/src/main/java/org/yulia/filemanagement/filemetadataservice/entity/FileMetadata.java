@@ -8,27 +8,35 @@ import java.time.LocalDateTime;
 
 /**
  * Entity class representing metadata for a file stored in the system.
- * This class includes details such as file URL, name, type, size, and upload date.
+ * This class includes details such as file name, type, size, upload date, and content hash. The name is the key of
+ * the stored object, so no URL is stored; presigned URLs are minted from the name when files are listed.
  * It is annotated with JPA annotations for ORM mapping.
  */
 @Setter
 @Getter
 @Entity
 @Table(name = "file_metadata", indexes = {
-        @Index(name = "idx_file_size", columnList = "file_size"),
-        @Index(name = "idx_file_type", columnList = "file_type"),
-        @Index(name = "idx_file_name", columnList = "file_name")
+        @Index(name = "idx_file_type_size_id", columnList = "file_type, file_size, id"),
+        @Index(name = "idx_file_type_id", columnList = "file_type, id"),
+        @Index(name = "idx_file_size_id", columnList = "file_size, id"),
+        @Index(name = "uq_file_name", columnList = "file_name", unique = true),
+        @Index(name = "idx_content_hash", columnList = "content_hash")
 })
 public class FileMetadata {
+
+    /**
+     * The number of ids taken from file_metadata_seq at a time, which is the increment of the sequence.
+     */
+    public static final int ID_ALLOCATION_SIZE = 50;
+
     // Getters and Setters
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "file_metadata_seq")
-    @SequenceGenerator(name = "file_metadata_seq", sequenceName = "file_metadata_seq", allocationSize = 1)
+    // equal to the increment the V4 migration sets; Hibernate refuses to start if the sequence has another one
+    @SequenceGenerator(name = "file_metadata_seq", sequenceName = "file_metadata_seq",
+            allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
-    @Column(name = "file_url", nullable = false, length = 1024)
-    private String fileUrl;
-
     @Column(name = "file_name", nullable = false)
     private String fileName;
 
@@ -40,4 +48,8 @@ public class FileMetadata {
 
     @Column(name = "upload_date", nullable = false)
     private LocalDateTime uploadDate;
+
+    // SHA-256 of the file content as a hex string; null for files stored before hashes were recorded
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
 }
\ No newline at end of file
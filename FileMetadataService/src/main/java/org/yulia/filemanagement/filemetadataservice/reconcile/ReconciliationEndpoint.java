@@ -0,0 +1,28 @@
+package org.yulia.filemanagement.filemetadataservice.reconcile;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.yulia.filemanagement.filemetadataservice.dto.ReconciliationResultDto;
+
+/**
+ * Actuator endpoint that shows the outcome of the last reconciliation, available at /actuator/reconciliation when the
+ * reconciliation is enabled. It is read-only: a run removes objects and records, so it only starts on the schedule.
+ */
+@Component
+@ConditionalOnProperty(name = "file.reconcile.enabled", havingValue = "true")
+@Endpoint(id = "reconciliation")
+public class ReconciliationEndpoint {
+
+    private final StorageReconciler reconciler;
+
+    public ReconciliationEndpoint(StorageReconciler reconciler) {
+        this.reconciler = reconciler;
+    }
+
+    @ReadOperation
+    public ReconciliationResultDto lastResult() {
+        return reconciler.getLastResult();
+    }
+}
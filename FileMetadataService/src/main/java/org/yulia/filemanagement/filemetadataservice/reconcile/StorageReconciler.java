@@ -0,0 +1,390 @@
+package org.yulia.filemanagement.filemetadataservice.reconcile;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.yulia.filemanagement.filemetadataservice.dto.ReconciliationResultDto;
+import org.yulia.filemanagement.filemetadataservice.entity.FileMetadata;
+import org.yulia.filemanagement.filemetadataservice.repository.FileMetadataRepository;
+import org.yulia.filemanagement.filemetadataservice.service.FileMetadataService;
+import org.yulia.filemanagement.filemetadataservice.service.FileObjectRemover;
+import org.yulia.filemanagement.filemetadataservice.storage.ObjectStat;
+import org.yulia.filemanagement.filemetadataservice.storage.ObjectStorage;
+
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Reconciles the objects in the bucket with the file records, which drift apart when the rollback of a failed
+ * upload fails. Both sides are read in the binary order of the names, the bucket with listObjects pages and the
+ * records with keyset pages, and merge-joined, so the memory used is bounded by one page and one repair batch however
+ * many objects there are.
+ * <p>
+ * An object without a record is removed from the bucket, and a record without an object is deleted. Objects and
+ * records younger than the grace period are left alone, as they may belong to an upload that is still being
+ * registered or rolled back, and every orphan is confirmed by a lookup of its own before it is repaired. The repair
+ * itself checks again: an object is only removed if it has not been written since it was listed, and a record only
+ * deleted if it has not been registered again within the grace period. Requests to the storage and to the database are
+ * paced, so a run does not compete with the regular load.
+ * <p>
+ * The grace period has to be longer than any registration can stay pending. An upload whose registration waits in the
+ * outbox of FileUploadService longer than that, for example while this service is down, leaves an object that looks
+ * like an orphan, and it would be removed before the registration arrives. Runs are therefore dry by default and only
+ * report the orphans; repairing them has to be switched on with file.reconcile.dry-run=false.
+ */
+@Component
+@ConditionalOnProperty(name = "file.reconcile.enabled", havingValue = "true")
+public class StorageReconciler {
+
+    private static final Logger logger = LoggerFactory.getLogger(StorageReconciler.class);
+
+    private final ObjectStorage objectStorage;
+    private final FileMetadataRepository fileMetadataRepository;
+    private final FileMetadataService fileMetadataService;
+    private final FileObjectRemover fileObjectRemover;
+    private final String bucketName;
+    private final int pageSize;
+    private final int batchSize;
+    private final double requestsPerSecond;
+    private final Duration gracePeriod;
+    private final boolean dryRun;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile ReconciliationResultDto lastResult;
+
+    public StorageReconciler(ObjectStorage objectStorage,
+                             FileMetadataRepository fileMetadataRepository,
+                             FileMetadataService fileMetadataService,
+                             FileObjectRemover fileObjectRemover,
+                             @Value("${minio.bucket-name}") String bucketName,
+                             @Value("${file.reconcile.page.size:1000}") int pageSize,
+                             @Value("${file.reconcile.batch.size:500}") int batchSize,
+                             @Value("${file.reconcile.requests.per.second:50}") double requestsPerSecond,
+                             @Value("${file.reconcile.grace.period.ms:3600000}") long gracePeriodMs,
+                             @Value("${file.reconcile.dry-run:true}") boolean dryRun) {
+        if (pageSize < 1 || pageSize > 1000) {
+            throw new IllegalArgumentException("Reconciliation page size must be between 1 and 1000");
+        }
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Reconciliation batch size must be positive");
+        }
+        if (requestsPerSecond <= 0) {
+            throw new IllegalArgumentException("Reconciliation request rate must be positive");
+        }
+        this.objectStorage = objectStorage;
+        this.fileMetadataRepository = fileMetadataRepository;
+        this.fileMetadataService = fileMetadataService;
+        this.fileObjectRemover = fileObjectRemover;
+        this.bucketName = bucketName;
+        this.pageSize = pageSize;
+        this.batchSize = batchSize;
+        this.requestsPerSecond = requestsPerSecond;
+        this.gracePeriod = Duration.ofMillis(gracePeriodMs);
+        this.dryRun = dryRun;
+    }
+
+    /**
+     * Merge-joins the objects in the bucket with the file records and repairs the orphans on either side.
+     *
+     * @return the outcome of the run; if it was interrupted, the outcome up to that point
+     * @throws IllegalStateException if a reconciliation is already running, or if the bucket could not be listed
+     */
+    @Scheduled(initialDelayString = "${file.reconcile.initial.delay.ms:3600000}",
+            fixedDelayString = "${file.reconcile.interval.ms:86400000}")
+    public ReconciliationResultDto reconcile() {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("A reconciliation is already running");
+        }
+        try {
+            var pass = new Pass();
+            try {
+                pass.run();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                logger.warn("Reconciliation interrupted, the remaining objects and files are not checked");
+            }
+            lastResult = pass.result();
+            logger.info("Reconciliation finished: {}", lastResult);
+            return lastResult;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * Returns the outcome of the last reconciliation.
+     *
+     * @return the outcome of the last reconciliation, or null if none has finished yet
+     */
+    public ReconciliationResultDto getLastResult() {
+        return lastResult;
+    }
+
+    // the instant of a modification time to the second; the listing reports milliseconds, a stat only the seconds of
+    // the Last-Modified header
+    private static Instant toSeconds(ZonedDateTime time) {
+        return time == null ? null : time.toInstant().truncatedTo(ChronoUnit.SECONDS);
+    }
+
+    // the order the storage lists names in: by their UTF-8 bytes, which is the order of their code points
+    static int compareNames(String first, String second) {
+        int i = 0;
+        int j = 0;
+        while (i < first.length() && j < second.length()) {
+            int firstCodePoint = first.codePointAt(i);
+            int secondCodePoint = second.codePointAt(j);
+            if (firstCodePoint != secondCodePoint) {
+                return Integer.compare(firstCodePoint, secondCodePoint);
+            }
+            i += Character.charCount(firstCodePoint);
+            j += Character.charCount(secondCodePoint);
+        }
+        return Integer.compare(first.length() - i, second.length() - j);
+    }
+
+    // one run of the merge join, with its counters and the orphans waiting to be repaired
+    private final class Pass {
+
+        private final long start = System.nanoTime();
+        private final LocalDateTime fileCutoff = LocalDateTime.now().minus(gracePeriod);
+        private final ZonedDateTime objectCutoff = ZonedDateTime.now().minus(gracePeriod);
+        private final Pacer pacer = new Pacer(requestsPerSecond);
+        private final List<ObjectStat> orphanObjectCandidates = new ArrayList<>();
+        private final List<String> orphanFileCandidates = new ArrayList<>();
+
+        private Iterator<ObjectStat> objects;
+        private List<FileMetadata> filePage = List.of();
+        private int filePageIndex;
+        private String lastFileName = "";
+        private boolean lastFilePage;
+
+        private long objectsScanned;
+        private long filesScanned;
+        private long orphanObjects;
+        private long orphanFiles;
+        private long objectsRemoved;
+        private long filesDeleted;
+
+        void run() throws InterruptedException {
+            try {
+                objects = objectStorage.listObjects(bucketName, pageSize);
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not list the objects of bucket " + bucketName, e);
+            }
+            var object = nextObject();
+            var file = nextFile();
+            while (object != null || file != null) {
+                int order = object == null ? 1 : file == null ? -1
+                        : compareNames(object.name(), file.getFileName());
+                if (order < 0) {
+                    objectWithoutFile(object);
+                    object = nextObject();
+                } else if (order > 0) {
+                    fileWithoutObject(file);
+                    file = nextFile();
+                } else {
+                    object = nextObject();
+                    file = nextFile();
+                }
+            }
+            repairObjects();
+            repairFiles();
+        }
+
+        ReconciliationResultDto result() {
+            return new ReconciliationResultDto(objectsScanned, filesScanned, orphanObjects, orphanFiles,
+                    objectsRemoved, filesDeleted, dryRun, LocalDateTime.now(), (System.nanoTime() - start) / 1_000_000);
+        }
+
+        // the next object of the listing; the listing requests the next page once the current one is consumed
+        private ObjectStat nextObject() throws InterruptedException {
+            if (objectsScanned % pageSize == 0) {
+                pacer.acquire();
+            }
+            try {
+                if (!objects.hasNext()) {
+                    return null;
+                }
+                objectsScanned++;
+                return objects.next();
+            } catch (RuntimeException e) {
+                throw new IllegalStateException("Could not list the objects of bucket " + bucketName, e);
+            }
+        }
+
+        // the next file record, read in keyset pages that continue after the last name read
+        private FileMetadata nextFile() throws InterruptedException {
+            if (filePageIndex == filePage.size()) {
+                if (lastFilePage) {
+                    return null;
+                }
+                pacer.acquire();
+                filePage = fileMetadataRepository.findNamesAfter(lastFileName, pageSize);
+                filePageIndex = 0;
+                lastFilePage = filePage.size() < pageSize;
+                if (filePage.isEmpty()) {
+                    return null;
+                }
+                lastFileName = filePage.get(filePage.size() - 1).getFileName();
+            }
+            filesScanned++;
+            return filePage.get(filePageIndex++);
+        }
+
+        private void objectWithoutFile(ObjectStat object) throws InterruptedException {
+            var lastModified = object.lastModified();
+            if (lastModified != null && lastModified.isAfter(objectCutoff)) {
+                return;
+            }
+            orphanObjectCandidates.add(object);
+            if (orphanObjectCandidates.size() >= batchSize) {
+                repairObjects();
+            }
+        }
+
+        private void fileWithoutObject(FileMetadata file) throws InterruptedException {
+            if (file.getUploadDate() != null && file.getUploadDate().isAfter(fileCutoff)) {
+                return;
+            }
+            orphanFileCandidates.add(file.getFileName());
+            if (orphanFileCandidates.size() >= batchSize) {
+                repairFiles();
+            }
+        }
+
+        // removes the objects that still have no record once they are looked up together, and that have not been
+        // written again since they were listed
+        private void repairObjects() throws InterruptedException {
+            if (orphanObjectCandidates.isEmpty()) {
+                return;
+            }
+            pacer.acquire();
+            var candidateNames = orphanObjectCandidates.stream().map(ObjectStat::name).toList();
+            Set<String> registered = fileMetadataRepository.findAllByFileNameIn(candidateNames).stream()
+                    .map(FileMetadata::getFileName)
+                    .collect(Collectors.toSet());
+            var confirmed = orphanObjectCandidates.stream()
+                    .filter(object -> !registered.contains(object.name()))
+                    .toList();
+            orphanObjectCandidates.clear();
+            orphanObjects += confirmed.size();
+            if (confirmed.isEmpty()) {
+                return;
+            }
+            if (dryRun) {
+                logger.warn("Found {} objects without a file record, not removing them", confirmed.size());
+                return;
+            }
+            logger.warn("Found {} objects without a file record, removing them", confirmed.size());
+            var unchanged = new ArrayList<String>();
+            for (var object : confirmed) {
+                pacer.acquire();
+                if (unchangedSinceListed(object)) {
+                    unchanged.add(object.name());
+                }
+            }
+            if (unchanged.isEmpty()) {
+                return;
+            }
+            pacer.acquire();
+            objectsRemoved += unchanged.size() - fileObjectRemover.removeObjects(unchanged).size();
+        }
+
+        // deletes the records whose objects are still missing once every object is looked up on its own
+        private void repairFiles() throws InterruptedException {
+            if (orphanFileCandidates.isEmpty()) {
+                return;
+            }
+            var confirmed = new ArrayList<String>();
+            for (var fileName : orphanFileCandidates) {
+                pacer.acquire();
+                if (!objectExists(fileName)) {
+                    confirmed.add(fileName);
+                }
+            }
+            orphanFileCandidates.clear();
+            orphanFiles += confirmed.size();
+            if (confirmed.isEmpty()) {
+                return;
+            }
+            if (dryRun) {
+                logger.warn("Found {} file records without an object, not deleting them", confirmed.size());
+            } else {
+                logger.warn("Found {} file records without an object, deleting them", confirmed.size());
+                pacer.acquire();
+                filesDeleted += fileMetadataService.deleteFilesUploadedBefore(confirmed, fileCutoff);
+            }
+        }
+
+        // an object that was uploaded again under the same name since it was listed has a new ETag or modification
+        // time and may be about to be registered, so it is kept; so is an object that is gone or cannot be looked up
+        private boolean unchangedSinceListed(ObjectStat listed) {
+            ObjectStat current;
+            try {
+                current = objectStorage.statObject(bucketName, listed.name());
+            } catch (NoSuchFileException e) {
+                return false;
+            } catch (Exception e) {
+                logger.warn("Could not check object {}: {}", listed.name(), e.getMessage());
+                return false;
+            }
+            if (listed.etag() != null && current.etag() != null && !listed.etag().equals(current.etag())) {
+                logger.info("Object {} was written again since it was listed, keeping it", listed.name());
+                return false;
+            }
+            if (!Objects.equals(toSeconds(listed.lastModified()), toSeconds(current.lastModified()))) {
+                logger.info("Object {} was modified since it was listed, keeping it", listed.name());
+                return false;
+            }
+            return true;
+        }
+
+        // an object whose existence cannot be determined counts as existing, so its record is kept
+        private boolean objectExists(String objectName) {
+            try {
+                objectStorage.statObject(bucketName, objectName);
+                return true;
+            } catch (NoSuchFileException e) {
+                return false;
+            } catch (Exception e) {
+                logger.warn("Could not check object {}: {}", objectName, e.getMessage());
+                return true;
+            }
+        }
+    }
+
+    // spaces requests out evenly, so that no more than the configured number are sent per second
+    private static final class Pacer {
+
+        private final long intervalNanos;
+        private long next = System.nanoTime();
+
+        Pacer(double requestsPerSecond) {
+            this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / requestsPerSecond);
+        }
+
+        void acquire() throws InterruptedException {
+            long now = System.nanoTime();
+            if (next > now) {
+                TimeUnit.NANOSECONDS.sleep(next - now);
+            }
+            next = Math.max(next, now) + intervalNanos;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package org.yulia.filemanagement.filemetadataservice.repository;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+
+// The databases the native statements of the repository fragments are written for
+enum DatabaseKind {
+    POSTGRES,
+    H2;
+
+    // the database of the Hibernate dialect in use
+    static DatabaseKind of(EntityManager entityManager) {
+        var dialect = entityManager.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices().getDialect();
+        if (dialect instanceof PostgreSQLDialect) {
+            return POSTGRES;
+        }
+        if (dialect instanceof H2Dialect) {
+            return H2;
+        }
+        throw new IllegalStateException("Native statements are not supported with " +
+                dialect.getClass().getSimpleName());
+    }
+}
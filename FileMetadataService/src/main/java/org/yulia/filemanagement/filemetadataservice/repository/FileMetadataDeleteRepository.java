@@ -0,0 +1,46 @@
+package org.yulia.filemanagement.filemetadataservice.repository;
+
+import org.yulia.filemanagement.filemetadataservice.entity.FileMetadata;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository fragment that deletes files with DELETE statements that return the deleted records instead of loading
+ * them first.
+ */
+public interface FileMetadataDeleteRepository {
+
+    /**
+     * Deletes the files with the given names.
+     *
+     * @param fileNames the names of the files, at least one
+     * @return the name, type, size and content hash of every deleted file
+     */
+    List<FileMetadata> deleteAllByFileNames(Collection<String> fileNames);
+
+    /**
+     * Deletes the files with the given names that were uploaded at or before the cutoff, or whose upload date is not
+     * known. A file registered again after the cutoff is kept, even if it had been selected for deletion before.
+     *
+     * @param fileNames the names of the files, at least one
+     * @param cutoff    the latest upload date of a deleted file
+     * @return the name, type, size and content hash of every deleted file
+     */
+    List<FileMetadata> deleteAllByFileNamesUploadedBefore(Collection<String> fileNames, LocalDateTime cutoff);
+
+    /**
+     * Deletes at most limit files that match all the given criteria, those with the lowest ids first; a null
+     * criterion matches every file. Calling it until fewer than limit files are deleted removes all matching files
+     * without locking them all in one transaction.
+     *
+     * @param fileType    the MIME type of the files, or null
+     * @param minSize     the minimum size of the files in bytes, or null
+     * @param maxSize     the maximum size of the files in bytes, or null
+     * @param contentHash the content hash of the files, or null
+     * @param limit       the maximum number of files to delete
+     * @return the name, type, size and content hash of every deleted file
+     */
+    List<FileMetadata> deleteAllMatching(String fileType, Long minSize, Long maxSize, String contentHash, int limit);
+}
@@ -0,0 +1,93 @@
+package org.yulia.filemanagement.filemetadataservice.repository;
+
+import jakarta.persistence.EntityManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.yulia.filemanagement.filemetadataservice.entity.FileMetadata;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Implementation of the delete fragment: DELETE ... RETURNING on PostgreSQL, and a DELETE wrapped in OLD TABLE on H2,
+ * which the tests run against.
+ */
+public class FileMetadataDeleteRepositoryImpl implements FileMetadataDeleteRepository {
+
+    private static final String DELETED_COLUMNS = "file_name, file_type, file_size, content_hash";
+
+    private final EntityManager entityManager;
+    private final boolean postgres;
+
+    public FileMetadataDeleteRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+        this.postgres = DatabaseKind.of(entityManager) == DatabaseKind.POSTGRES;
+    }
+
+    @Override
+    @Transactional
+    public List<FileMetadata> deleteAllByFileNames(Collection<String> fileNames) {
+        return delete("file_name IN (:fileNames)", Map.of("fileNames", fileNames));
+    }
+
+    @Override
+    @Transactional
+    public List<FileMetadata> deleteAllByFileNamesUploadedBefore(Collection<String> fileNames, LocalDateTime cutoff) {
+        return delete("file_name IN (:fileNames) AND (upload_date IS NULL OR upload_date <= :cutoff)",
+                Map.of("fileNames", fileNames, "cutoff", cutoff));
+    }
+
+    @Override
+    @Transactional
+    public List<FileMetadata> deleteAllMatching(String fileType, Long minSize, Long maxSize, String contentHash,
+                                                int limit) {
+        var conditions = new ArrayList<String>();
+        var parameters = new LinkedHashMap<String, Object>();
+        if (fileType != null) {
+            conditions.add("file_type = :fileType");
+            parameters.put("fileType", fileType);
+        }
+        if (minSize != null) {
+            conditions.add("file_size >= :minSize");
+            parameters.put("minSize", minSize);
+        }
+        if (maxSize != null) {
+            conditions.add("file_size <= :maxSize");
+            parameters.put("maxSize", maxSize);
+        }
+        if (contentHash != null) {
+            conditions.add("content_hash = :contentHash");
+            parameters.put("contentHash", contentHash);
+        }
+        parameters.put("limit", limit);
+        // the chunk is the slice of the matching files with the lowest ids, LIMIT alone would pick arbitrary rows
+        return delete("id IN (SELECT id FROM file_metadata WHERE "
+                + (conditions.isEmpty() ? "TRUE" : String.join(" AND ", conditions))
+                + " ORDER BY id LIMIT :limit)", parameters);
+    }
+
+    // runs one DELETE with the given condition and maps the rows it returns
+    private List<FileMetadata> delete(String condition, Map<String, Object> parameters) {
+        var delete = "DELETE FROM file_metadata WHERE " + condition;
+        var query = entityManager.createNativeQuery(postgres
+                ? delete + " RETURNING " + DELETED_COLUMNS
+                : "SELECT " + DELETED_COLUMNS + " FROM OLD TABLE (" + delete + ")");
+        parameters.forEach(query::setParameter);
+
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = query.getResultList();
+        var deleted = new ArrayList<FileMetadata>(rows.size());
+        for (var row : rows) {
+            var file = new FileMetadata();
+            file.setFileName((String) row[0]);
+            file.setFileType((String) row[1]);
+            file.setFileSize(((Number) row[2]).longValue());
+            file.setContentHash((String) row[3]);
+            deleted.add(file);
+        }
+        return deleted;
+    }
+}
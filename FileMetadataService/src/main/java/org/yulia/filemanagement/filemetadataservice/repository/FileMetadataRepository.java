@@ -2,16 +2,23 @@ package org.yulia.filemanagement.filemetadataservice.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
 import org.yulia.filemanagement.filemetadataservice.entity.FileMetadata;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Repository interface for accessing and manipulating FileMetadata entities.
- * Extends JpaRepository for basic CRUD operations and JpaSpecificationExecutor for specification-based queries.
+ * Extends JpaRepository for basic CRUD operations, JpaSpecificationExecutor for specification-based queries,
+ * FileMetadataUpsertRepository for atomic registration, FileMetadataDeleteRepository for single-statement deletes and
+ * FileMetadataScanRepository for reading the names in keyset pages.
  */
 public interface FileMetadataRepository extends JpaRepository<FileMetadata, Long>,
-        JpaSpecificationExecutor<FileMetadata> {
+        JpaSpecificationExecutor<FileMetadata>, FileMetadataUpsertRepository, FileMetadataDeleteRepository,
+        FileMetadataScanRepository {
 
     /**
      * Finds a FileMetadata entity by its file name.
@@ -22,9 +29,18 @@ public interface FileMetadataRepository extends JpaRepository<FileMetadata, Long
     Optional<FileMetadata> findByFileName(String fileName);
 
     /**
-     * Deletes a FileMetadata entity by its file name.
+     * Finds the FileMetadata entities of several files with a single query.
      *
-     * @param fileName the name of the file to delete
+     * @param fileNames the names of the files
+     * @return the FileMetadata entities that were found, in no particular order
      */
-    void deleteByFileName(String fileName);
+    List<FileMetadata> findAllByFileNameIn(Collection<String> fileNames);
+
+    /**
+     * Streams the names of all files. The stream has to be consumed and closed within a transaction.
+     *
+     * @return the names of all files, in no particular order
+     */
+    @Query("select f.fileName from FileMetadata f")
+    Stream<String> streamAllFileNames();
 }
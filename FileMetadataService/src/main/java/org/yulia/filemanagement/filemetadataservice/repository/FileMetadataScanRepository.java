@@ -0,0 +1,21 @@
+package org.yulia.filemanagement.filemetadataservice.repository;
+
+import org.yulia.filemanagement.filemetadataservice.entity.FileMetadata;
+
+import java.util.List;
+
+/**
+ * Repository fragment that reads the files in keyset pages ordered by name, in the binary order of the names that
+ * MinIO lists objects in.
+ */
+public interface FileMetadataScanRepository {
+
+    /**
+     * Finds the files whose names follow the given name in binary order.
+     *
+     * @param afterName the name the page starts after, or an empty string for the first page
+     * @param limit     the maximum number of files to return
+     * @return the name and upload date of every file found, in binary order of the names
+     */
+    List<FileMetadata> findNamesAfter(String afterName, int limit);
+}
@@ -0,0 +1,54 @@
+package org.yulia.filemanagement.filemetadataservice.repository;
+
+import jakarta.persistence.EntityManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.yulia.filemanagement.filemetadataservice.entity.FileMetadata;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Implementation of the scan fragment. PostgreSQL compares the names in the "C" collation, which is served by the
+ * index of V5__Add_file_name_binary_index.sql; H2, which the tests run against, compares strings in binary order by
+ * default.
+ */
+public class FileMetadataScanRepositoryImpl implements FileMetadataScanRepository {
+
+    private final EntityManager entityManager;
+    private final String scanQuery;
+
+    public FileMetadataScanRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+        var name = DatabaseKind.of(entityManager) == DatabaseKind.POSTGRES ? "file_name COLLATE \"C\"" : "file_name";
+        this.scanQuery = "SELECT file_name, upload_date FROM file_metadata WHERE " + name + " > :afterName ORDER BY " +
+                name + " LIMIT :limit";
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<FileMetadata> findNamesAfter(String afterName, int limit) {
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = entityManager.createNativeQuery(scanQuery)
+                .setParameter("afterName", afterName)
+                .setParameter("limit", limit)
+                .getResultList();
+        var files = new ArrayList<FileMetadata>(rows.size());
+        for (var row : rows) {
+            var file = new FileMetadata();
+            file.setFileName((String) row[0]);
+            file.setUploadDate(toLocalDateTime(row[1]));
+            files.add(file);
+        }
+        return files;
+    }
+
+    // drivers return TIMESTAMP columns of native queries as Timestamp or as LocalDateTime
+    private static LocalDateTime toLocalDateTime(Object value) {
+        if (value instanceof Timestamp timestamp) {
+            return timestamp.toLocalDateTime();
+        }
+        return (LocalDateTime) value;
+    }
+}
@@ -0,0 +1,50 @@
+package org.yulia.filemanagement.filemetadataservice.repository;
+
+import org.yulia.filemanagement.filemetadataservice.entity.FileMetadata;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Repository fragment that registers a file with a single atomic statement, keyed on its unique file name.
+ */
+public interface FileMetadataUpsertRepository {
+
+    /**
+     * Inserts the metadata of a file, or updates the record that has the same file name, in one statement. Concurrent
+     * upserts of the same name never create a second record.
+     *
+     * @param metadata the metadata of the file; its id is ignored
+     * @return whether the record was inserted and, if it was updated, its previous state
+     */
+    UpsertResult upsert(FileMetadata metadata);
+
+    /**
+     * Upserts the metadata of several files with one statement, as {@link #upsert(FileMetadata)} does for one file.
+     *
+     * @param files the metadata of the files, with distinct file names; their ids are ignored
+     * @return the outcome of each upsert, keyed by file name
+     */
+    Map<String, UpsertResult> upsertAll(Collection<FileMetadata> files);
+
+    /**
+     * Inserts the metadata of the files whose names are not registered yet and leaves the others untouched. The check
+     * and the insert are one statement, so a name registered concurrently is skipped instead of failing the insert.
+     * The ids are taken from the sequence a block at a time, as the entities take theirs.
+     *
+     * @param files the metadata of the files, with distinct file names; their ids are ignored
+     * @return the names of the files that were inserted
+     */
+    List<String> insertAbsent(Collection<FileMetadata> files);
+
+    /**
+     * The outcome of an upsert.
+     *
+     * @param inserted true if a new record was inserted, false if an existing one was updated
+     * @param previous the name, type, size and content hash of an updated record before the update, or null if the
+     *                 record was inserted or its previous state is unknown
+     */
+    record UpsertResult(boolean inserted, FileMetadata previous) {
+    }
+}
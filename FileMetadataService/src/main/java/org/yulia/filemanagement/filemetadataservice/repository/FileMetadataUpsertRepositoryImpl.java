@@ -0,0 +1,261 @@
+package org.yulia.filemanagement.filemetadataservice.repository;
+
+import jakarta.persistence.EntityManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.yulia.filemanagement.filemetadataservice.entity.FileMetadata;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Implementation of the upsert fragment with the native statement of the database in use: INSERT ... ON CONFLICT on
+ * PostgreSQL and MERGE on H2, which the tests run against.
+ */
+public class FileMetadataUpsertRepositoryImpl implements FileMetadataUpsertRepository {
+
+    // The previous state is read from the snapshot of the statement. ON CONFLICT also updates a row that was committed
+    // after the snapshot was taken, so under concurrent registrations of one name the previous state can be missing
+    // or outdated even though the row was updated; xmax is 0 only for a row this statement inserted
+    private static final String POSTGRES_UPSERT = """
+            WITH previous AS (
+                SELECT file_type, file_size, content_hash FROM file_metadata WHERE file_name = :fileName
+            ), upserted AS (
+                INSERT INTO file_metadata (id, file_name, file_type, file_size, upload_date, content_hash)
+                VALUES (nextval('file_metadata_seq'), :fileName, :fileType, :fileSize, :uploadDate, :contentHash)
+                ON CONFLICT (file_name) DO UPDATE SET file_type = EXCLUDED.file_type,
+                    file_size = EXCLUDED.file_size, upload_date = EXCLUDED.upload_date,
+                    content_hash = EXCLUDED.content_hash
+                RETURNING xmax = 0 AS inserted
+            )
+            SELECT upserted.inserted, previous.file_type, previous.file_size, previous.content_hash
+            FROM upserted LEFT JOIN previous ON TRUE""";
+
+    // OLD TABLE holds the row as it was before the update, and nothing for an inserted row
+    private static final String H2_UPSERT = """
+            SELECT TRUE, file_type, file_size, content_hash FROM OLD TABLE (
+                MERGE INTO file_metadata target
+                USING (VALUES (CAST(:fileName AS VARCHAR), CAST(:fileType AS VARCHAR), CAST(:fileSize AS BIGINT),
+                               CAST(:uploadDate AS TIMESTAMP), CAST(:contentHash AS VARCHAR)))
+                    AS source (file_name, file_type, file_size, upload_date, content_hash)
+                ON target.file_name = source.file_name
+                WHEN MATCHED THEN UPDATE SET file_type = source.file_type,
+                    file_size = source.file_size, upload_date = source.upload_date,
+                    content_hash = source.content_hash
+                WHEN NOT MATCHED THEN INSERT (id, file_name, file_type, file_size, upload_date, content_hash)
+                    VALUES (NEXT VALUE FOR file_metadata_seq, source.file_name, source.file_type,
+                            source.file_size, source.upload_date, source.content_hash))""";
+
+    // the statements for several files, with the parameters of every row numbered; the selected columns are laid out
+    // as in the statements for one file, followed by the file name
+    private static final String POSTGRES_UPSERT_ALL = """
+            WITH previous AS (
+                SELECT file_name, file_type, file_size, content_hash FROM file_metadata WHERE file_name IN (:fileNames)
+            ), upserted AS (
+                INSERT INTO file_metadata (id, file_name, file_type, file_size, upload_date, content_hash)
+                VALUES %s
+                ON CONFLICT (file_name) DO UPDATE SET file_type = EXCLUDED.file_type,
+                    file_size = EXCLUDED.file_size, upload_date = EXCLUDED.upload_date,
+                    content_hash = EXCLUDED.content_hash
+                RETURNING file_name, xmax = 0 AS inserted
+            )
+            SELECT upserted.inserted, previous.file_type, previous.file_size, previous.content_hash, upserted.file_name
+            FROM upserted LEFT JOIN previous ON previous.file_name = upserted.file_name""";
+
+    private static final String POSTGRES_ROW =
+            "(nextval('file_metadata_seq'), :fileName%1$d, :fileType%1$d, :fileSize%1$d, :uploadDate%1$d, "
+                    + ":contentHash%1$d)";
+
+    private static final String H2_UPSERT_ALL = """
+            SELECT TRUE, file_type, file_size, content_hash, file_name FROM OLD TABLE (
+                MERGE INTO file_metadata target
+                USING (VALUES %s)
+                    AS source (file_name, file_type, file_size, upload_date, content_hash)
+                ON target.file_name = source.file_name
+                WHEN MATCHED THEN UPDATE SET file_type = source.file_type,
+                    file_size = source.file_size, upload_date = source.upload_date,
+                    content_hash = source.content_hash
+                WHEN NOT MATCHED THEN INSERT (id, file_name, file_type, file_size, upload_date, content_hash)
+                    VALUES (NEXT VALUE FOR file_metadata_seq, source.file_name, source.file_type,
+                            source.file_size, source.upload_date, source.content_hash))""";
+
+    private static final String H2_ROW =
+            "(CAST(:fileName%1$d AS VARCHAR), CAST(:fileType%1$d AS VARCHAR), CAST(:fileSize%1$d AS BIGINT), "
+                    + "CAST(:uploadDate%1$d AS TIMESTAMP), CAST(:contentHash%1$d AS VARCHAR))";
+
+    private static final String POSTGRES_INSERT_ABSENT = """
+            INSERT INTO file_metadata (id, file_name, file_type, file_size, upload_date, content_hash)
+            VALUES %s
+            ON CONFLICT (file_name) DO NOTHING
+            RETURNING file_name""";
+
+    private static final String POSTGRES_ID_ROW =
+            "(:id%1$d, :fileName%1$d, :fileType%1$d, :fileSize%1$d, :uploadDate%1$d, :contentHash%1$d)";
+
+    // NEW TABLE holds the inserted rows only, as the statement updates none
+    private static final String H2_INSERT_ABSENT = """
+            SELECT file_name FROM NEW TABLE (
+                MERGE INTO file_metadata target
+                USING (VALUES %s)
+                    AS source (id, file_name, file_type, file_size, upload_date, content_hash)
+                ON target.file_name = source.file_name
+                WHEN NOT MATCHED THEN INSERT (id, file_name, file_type, file_size, upload_date, content_hash)
+                    VALUES (source.id, source.file_name, source.file_type, source.file_size, source.upload_date,
+                            source.content_hash))""";
+
+    private static final String H2_ID_ROW = "(CAST(:id%1$d AS BIGINT), CAST(:fileName%1$d AS VARCHAR), "
+            + "CAST(:fileType%1$d AS VARCHAR), CAST(:fileSize%1$d AS BIGINT), CAST(:uploadDate%1$d AS TIMESTAMP), "
+            + "CAST(:contentHash%1$d AS VARCHAR))";
+
+    private static final String POSTGRES_NEXT_IDS =
+            "SELECT nextval('file_metadata_seq') FROM generate_series(1, :blocks)";
+    private static final String H2_NEXT_IDS = "SELECT NEXT VALUE FOR file_metadata_seq FROM SYSTEM_RANGE(1, :blocks)";
+
+    // keeps the number of bind parameters of a statement well below the limit of the PostgreSQL protocol
+    private static final int ROWS_PER_STATEMENT = 1000;
+
+    private final EntityManager entityManager;
+    private final boolean postgres;
+
+    public FileMetadataUpsertRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+        this.postgres = DatabaseKind.of(entityManager) == DatabaseKind.POSTGRES;
+    }
+
+    @Override
+    @Transactional
+    public UpsertResult upsert(FileMetadata metadata) {
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = entityManager.createNativeQuery(postgres ? POSTGRES_UPSERT : H2_UPSERT)
+                .setParameter("fileName", metadata.getFileName())
+                .setParameter("fileType", metadata.getFileType())
+                .setParameter("fileSize", metadata.getFileSize())
+                .setParameter("uploadDate", metadata.getUploadDate())
+                .setParameter("contentHash", metadata.getContentHash())
+                .getResultList();
+
+        if (postgres) {
+            var row = rows.get(0);
+            if ((Boolean) row[0]) {
+                return new UpsertResult(true, null);
+            }
+            return new UpsertResult(false, row[1] == null ? null : previous(metadata.getFileName(), row));
+        }
+        // on H2 the statement returns the old row of an update, and no row for an insert
+        return rows.isEmpty()
+                ? new UpsertResult(true, null)
+                : new UpsertResult(false, previous(metadata.getFileName(), rows.get(0)));
+    }
+
+    @Override
+    @Transactional
+    public Map<String, UpsertResult> upsertAll(Collection<FileMetadata> files) {
+        var results = new HashMap<String, UpsertResult>();
+        if (files.isEmpty()) {
+            return results;
+        }
+        // the rows are written in the order of their names, so concurrent batches that share names lock them in the
+        // same order and cannot deadlock each other
+        var sorted = files.stream().sorted(Comparator.comparing(FileMetadata::getFileName)).toList();
+        var values = IntStream.range(0, sorted.size())
+                .mapToObj(i -> (postgres ? POSTGRES_ROW : H2_ROW).formatted(i))
+                .collect(Collectors.joining(", "));
+        var query = entityManager.createNativeQuery((postgres ? POSTGRES_UPSERT_ALL : H2_UPSERT_ALL).formatted(values));
+        for (int i = 0; i < sorted.size(); i++) {
+            var metadata = sorted.get(i);
+            query.setParameter("fileName" + i, metadata.getFileName())
+                    .setParameter("fileType" + i, metadata.getFileType())
+                    .setParameter("fileSize" + i, metadata.getFileSize())
+                    .setParameter("uploadDate" + i, metadata.getUploadDate())
+                    .setParameter("contentHash" + i, metadata.getContentHash());
+        }
+        if (postgres) {
+            query.setParameter("fileNames", sorted.stream().map(FileMetadata::getFileName).toList());
+        }
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = query.getResultList();
+
+        for (var row : rows) {
+            var fileName = (String) row[4];
+            if (postgres && (Boolean) row[0]) {
+                results.put(fileName, new UpsertResult(true, null));
+            } else {
+                results.put(fileName, new UpsertResult(false, row[1] == null ? null : previous(fileName, row)));
+            }
+        }
+        // on H2 the statement returns the old rows of the updated files only
+        for (var metadata : sorted) {
+            results.putIfAbsent(metadata.getFileName(), new UpsertResult(true, null));
+        }
+        return results;
+    }
+
+    @Override
+    @Transactional
+    public List<String> insertAbsent(Collection<FileMetadata> files) {
+        if (files.isEmpty()) {
+            return List.of();
+        }
+        var ids = nextIds(files.size());
+        int nextId = 0;
+        var inserted = new ArrayList<String>(files.size());
+        var rows = new ArrayList<>(files);
+        for (int from = 0; from < rows.size(); from += ROWS_PER_STATEMENT) {
+            var statementRows = rows.subList(from, Math.min(from + ROWS_PER_STATEMENT, rows.size()));
+            var values = IntStream.range(0, statementRows.size())
+                    .mapToObj(i -> (postgres ? POSTGRES_ID_ROW : H2_ID_ROW).formatted(i))
+                    .collect(Collectors.joining(", "));
+            var query = entityManager.createNativeQuery(
+                    (postgres ? POSTGRES_INSERT_ABSENT : H2_INSERT_ABSENT).formatted(values));
+            for (int i = 0; i < statementRows.size(); i++) {
+                var metadata = statementRows.get(i);
+                query.setParameter("id" + i, ids[nextId++])
+                        .setParameter("fileName" + i, metadata.getFileName())
+                        .setParameter("fileType" + i, metadata.getFileType())
+                        .setParameter("fileSize" + i, metadata.getFileSize())
+                        .setParameter("uploadDate" + i, metadata.getUploadDate())
+                        .setParameter("contentHash" + i, metadata.getContentHash());
+            }
+            @SuppressWarnings("unchecked")
+            List<String> names = query.getResultList();
+            inserted.addAll(names);
+        }
+        return inserted;
+    }
+
+    // Take enough blocks of ids from the sequence for the given number of rows. Like the pooled optimizer of the
+    // entities, a sequence value is the last id of its block; the first value of the sequence is a block of its own
+    private long[] nextIds(int rows) {
+        var ids = new long[rows];
+        int count = 0;
+        while (count < rows) {
+            int blocks = (rows - count + FileMetadata.ID_ALLOCATION_SIZE - 1) / FileMetadata.ID_ALLOCATION_SIZE;
+            @SuppressWarnings("unchecked")
+            List<Number> values = entityManager.createNativeQuery(postgres ? POSTGRES_NEXT_IDS : H2_NEXT_IDS)
+                    .setParameter("blocks", blocks)
+                    .getResultList();
+            for (var value : values) {
+                long last = value.longValue();
+                for (long id = Math.max(1, last - FileMetadata.ID_ALLOCATION_SIZE + 1); id <= last && count < rows;
+                     id++) {
+                    ids[count++] = id;
+                }
+            }
+        }
+        return ids;
+    }
+
+    private static FileMetadata previous(String fileName, Object[] row) {
+        var previous = new FileMetadata();
+        previous.setFileName(fileName);
+        previous.setFileType((String) row[1]);
+        previous.setFileSize(((Number) row[2]).longValue());
+        previous.setContentHash((String) row[3]);
+        return previous;
+    }
+}
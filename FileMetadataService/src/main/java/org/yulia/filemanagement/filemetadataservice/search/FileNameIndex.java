@@ -0,0 +1,277 @@
+package org.yulia.filemanagement.filemetadataservice.search;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.yulia.filemanagement.filemetadataservice.repository.FileMetadataRepository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory index of the file names, for case-insensitive prefix and substring search without touching the database.
+ * <p>
+ * Every name gets an int id. Prefixes are looked up in a sorted map of the lower-case names; substrings through
+ * trigram posting lists, which hold the ids of the names containing the trigram in ascending order, so they are
+ * intersected by merging. A removed name leaves its id behind in the posting lists until they are compacted.
+ * The index is built from the repository once the application is ready and is kept current by FileMetadataService.
+ */
+@Component
+public class FileNameIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(FileNameIndex.class);
+
+    private static final int GRAM = 3;
+    private static final int MIN_COMPACTION_GARBAGE = 1024;
+
+    private final FileMetadataRepository fileMetadataRepository;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // by id; null once the name is removed
+    private final List<String> names = new ArrayList<>();
+    private final List<String> lowerNames = new ArrayList<>();
+    private final Map<String, Integer> idByName = new HashMap<>();
+    private final TreeMap<String, IntList> idsByLowerName = new TreeMap<>();
+    private final Map<String, IntList> postings = new HashMap<>();
+    private int removed;
+
+    // names removed while the index is being built, so the build does not add them back
+    private Set<String> removedDuringBuild;
+
+    public FileNameIndex(FileMetadataRepository fileMetadataRepository) {
+        this.fileMetadataRepository = fileMetadataRepository;
+    }
+
+    /**
+     * Adds the names of all stored files to the index.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void build() {
+        long start = System.nanoTime();
+        withWriteLock(() -> removedDuringBuild = new HashSet<>());
+        try (var fileNames = fileMetadataRepository.streamAllFileNames()) {
+            fileNames.forEach(fileName -> withWriteLock(() -> {
+                if (!removedDuringBuild.contains(fileName)) {
+                    addLocked(fileName);
+                }
+            }));
+        } finally {
+            withWriteLock(() -> removedDuringBuild = null);
+        }
+        logger.info("File name index built with {} names in {} ms", size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Adds a file name to the index. Adding a name that is already indexed has no effect.
+     *
+     * @param fileName the name of the file
+     */
+    public void add(String fileName) {
+        withWriteLock(() -> addLocked(fileName));
+    }
+
+    /**
+     * Removes a file name from the index.
+     *
+     * @param fileName the name of the file
+     */
+    public void remove(String fileName) {
+        withWriteLock(() -> {
+            if (removedDuringBuild != null) {
+                removedDuringBuild.add(fileName);
+            }
+            var id = idByName.remove(fileName);
+            if (id == null) {
+                return;
+            }
+            var lowerName = lowerNames.get(id);
+            var ids = idsByLowerName.get(lowerName);
+            ids.remove(id);
+            if (ids.size == 0) {
+                idsByLowerName.remove(lowerName);
+            }
+            names.set(id, null);
+            lowerNames.set(id, null);
+            removed++;
+            if (removed >= MIN_COMPACTION_GARBAGE && removed > idByName.size()) {
+                compact();
+            }
+        });
+    }
+
+    /**
+     * Finds the file names that start with the given prefix, ignoring case.
+     *
+     * @param prefix the prefix of the names
+     * @param limit  the maximum number of names to return
+     * @return the matching names in alphabetical order of their lower-case form
+     */
+    public List<String> findByPrefix(String prefix, int limit) {
+        var lowerPrefix = prefix.toLowerCase(Locale.ROOT);
+        lock.readLock().lock();
+        try {
+            var result = new ArrayList<String>(Math.min(limit, 64));
+            for (var entry : idsByLowerName.tailMap(lowerPrefix, true).entrySet()) {
+                if (!entry.getKey().startsWith(lowerPrefix)) {
+                    break;
+                }
+                var ids = entry.getValue();
+                for (int i = 0; i < ids.size && result.size() < limit; i++) {
+                    result.add(names.get(ids.values[i]));
+                }
+                if (result.size() >= limit) {
+                    break;
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the file names that contain the given text, ignoring case.
+     *
+     * @param text  the text the names contain, at least three characters long
+     * @param limit the maximum number of names to return
+     * @return the matching names in the order they were indexed
+     * @throws IllegalArgumentException if the text is shorter than three characters
+     */
+    public List<String> findBySubstring(String text, int limit) {
+        if (text.length() < GRAM) {
+            throw new IllegalArgumentException("Substring search requires at least " + GRAM + " characters");
+        }
+        var lowerText = text.toLowerCase(Locale.ROOT);
+        lock.readLock().lock();
+        try {
+            var lists = new ArrayList<IntList>();
+            for (var gram : grams(lowerText)) {
+                var list = postings.get(gram);
+                if (list == null) {
+                    return List.of();
+                }
+                lists.add(list);
+            }
+            // walk the shortest list and look the candidates up in the others
+            lists.sort((first, second) -> Integer.compare(first.size, second.size));
+            var shortest = lists.get(0);
+            var result = new ArrayList<String>(Math.min(limit, 64));
+            for (int i = 0; i < shortest.size && result.size() < limit; i++) {
+                var id = shortest.values[i];
+                var lowerName = lowerNames.get(id);
+                if (lowerName != null && containsInAll(lists, id) && lowerName.contains(lowerText)) {
+                    result.add(names.get(id));
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the number of indexed names.
+     *
+     * @return the number of indexed names
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return idByName.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void addLocked(String fileName) {
+        if (fileName == null || idByName.containsKey(fileName)) {
+            return;
+        }
+        int id = names.size();
+        var lowerName = fileName.toLowerCase(Locale.ROOT);
+        names.add(fileName);
+        lowerNames.add(lowerName);
+        idByName.put(fileName, id);
+        idsByLowerName.computeIfAbsent(lowerName, key -> new IntList()).add(id);
+        // ids only grow, so every posting list stays sorted
+        for (var gram : grams(lowerName)) {
+            postings.computeIfAbsent(gram, key -> new IntList()).add(id);
+        }
+    }
+
+    // reassigns the ids of the remaining names, dropping the garbage of the removed ones from the posting lists
+    private void compact() {
+        var remaining = names.stream().filter(name -> name != null).toList();
+        names.clear();
+        lowerNames.clear();
+        idByName.clear();
+        idsByLowerName.clear();
+        postings.clear();
+        removed = 0;
+        remaining.forEach(this::addLocked);
+        logger.info("File name index compacted to {} names", remaining.size());
+    }
+
+    private void withWriteLock(Runnable action) {
+        lock.writeLock().lock();
+        try {
+            action.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static boolean containsInAll(List<IntList> lists, int id) {
+        for (int i = 1; i < lists.size(); i++) {
+            if (!lists.get(i).contains(id)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Set<String> grams(String lowerName) {
+        var grams = new HashSet<String>();
+        for (int i = 0; i + GRAM <= lowerName.length(); i++) {
+            grams.add(lowerName.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+
+    // a growable array of ascending ids, smaller than a list of boxed integers
+    private static final class IntList {
+        private int[] values = new int[2];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        boolean contains(int value) {
+            return Arrays.binarySearch(values, 0, size, value) >= 0;
+        }
+
+        void remove(int value) {
+            var index = Arrays.binarySearch(values, 0, size, value);
+            if (index >= 0) {
+                System.arraycopy(values, index + 1, values, index, size - index - 1);
+                size--;
+            }
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package org.yulia.filemanagement.filemetadataservice.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.yulia.filemanagement.filemetadataservice.cache.FileQueryCache;
+import org.yulia.filemanagement.filemetadataservice.dto.FileImportDto;
+import org.yulia.filemanagement.filemetadataservice.dto.ImportResultDto;
+import org.yulia.filemanagement.filemetadataservice.entity.FileMetadata;
+import org.yulia.filemanagement.filemetadataservice.repository.FileMetadataRepository;
+import org.yulia.filemanagement.filemetadataservice.search.FileNameIndex;
+import org.yulia.filemanagement.filemetadataservice.stats.StorageStatistics;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Service class for the bulk import of file metadata, such as the backfill of a bucket that was filled before its files
+ * were registered.
+ * <p>
+ * The metadata is stored as given, without reading the files from storage. The files are imported in chunks, each in
+ * a transaction of its own: the files of a chunk are inserted by one statement that skips the names already
+ * registered, their ids taken from the pooled sequence without a round trip per file. Files that are already
+ * registered, also by a concurrent registration, are skipped, so an import that stopped halfway can simply be
+ * repeated.
+ */
+@Service
+public class FileImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(FileImportService.class);
+
+    private static final String DEFAULT_FILE_TYPE = "unknown";
+
+    private final FileMetadataRepository fileMetadataRepository;
+    private final FileMetadataExtractor fileMetadataExtractor;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final Optional<FileQueryCache> queryCache;
+    private final FileNameIndex fileNameIndex;
+    private final StorageStatistics storageStatistics;
+
+    @Autowired
+    public FileImportService(FileMetadataRepository fileMetadataRepository,
+                             FileMetadataExtractor fileMetadataExtractor,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${file.import.chunk.size:1000}") int chunkSize,
+                             Optional<FileQueryCache> queryCache,
+                             FileNameIndex fileNameIndex,
+                             StorageStatistics storageStatistics) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Import chunk size must be positive");
+        }
+        this.fileMetadataRepository = fileMetadataRepository;
+        this.fileMetadataExtractor = fileMetadataExtractor;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        this.queryCache = queryCache;
+        this.fileNameIndex = fileNameIndex;
+        this.storageStatistics = storageStatistics;
+    }
+
+    /**
+     * Imports the metadata of the given files. The files are read from the iterator one chunk at a time, so the
+     * import does not hold more than one chunk in memory. A file without a URL or with a missing or negative size is
+     * rejected, as is a file whose URL has no name; a file whose name is already registered or was already imported
+     * is skipped.
+     *
+     * @param files the metadata of the files to import
+     * @return the number of imported, skipped and rejected files, and the import rate
+     */
+    public ImportResultDto importFiles(Iterator<FileImportDto> files) {
+        long start = System.nanoTime();
+        long imported = 0;
+        long skipped = 0;
+        long rejected = 0;
+
+        // the files of the current chunk by name; a name repeated within the chunk keeps its first file
+        var chunk = new LinkedHashMap<String, FileMetadata>();
+        while (files.hasNext()) {
+            var metadata = toMetadata(files.next());
+            if (metadata == null) {
+                rejected++;
+            } else if (chunk.putIfAbsent(metadata.getFileName(), metadata) != null) {
+                skipped++;
+            }
+            if (chunk.size() == chunkSize || (!files.hasNext() && !chunk.isEmpty())) {
+                int stored = importChunk(chunk);
+                imported += stored;
+                skipped += chunk.size() - stored;
+                chunk.clear();
+                logger.debug("Imported {} files so far", imported);
+            }
+        }
+
+        long elapsedNanos = System.nanoTime() - start;
+        double rowsPerSecond = elapsedNanos == 0 ? 0 : imported * 1_000_000_000.0 / elapsedNanos;
+        logger.info("Imported {} files in {} ms ({} files per second), {} skipped, {} rejected", imported,
+                elapsedNanos / 1_000_000, Math.round(rowsPerSecond), skipped, rejected);
+        return new ImportResultDto(imported, skipped, rejected, elapsedNanos / 1_000_000, rowsPerSecond);
+    }
+
+    // Insert the files of a chunk that are not registered yet in one transaction, and return how many were inserted;
+    // the others are counted as skipped from the rows the statement returns
+    private int importChunk(LinkedHashMap<String, FileMetadata> chunk) {
+        try {
+            var insertedNames = new HashSet<>(transactionTemplate.execute(
+                    status -> fileMetadataRepository.insertAbsent(chunk.values())));
+            var stored = chunk.values().stream()
+                    .filter(metadata -> insertedNames.contains(metadata.getFileName()))
+                    .toList();
+            filesImported(stored);
+            return stored.size();
+        } catch (DataAccessException ex) {
+            logger.error("Error during import of a chunk of {} files - Database error: {}", chunk.size(),
+                    ex.getMessage(), ex);
+            throw new RuntimeException("Database error: " + ex.getMessage(), ex);
+        }
+    }
+
+    // Bring the in-memory state derived from the table up to date with a committed chunk. Every listing page may
+    // include one of the files, so the query cache is cleared once instead of being invalidated file by file
+    private void filesImported(List<FileMetadata> files) {
+        if (files.isEmpty()) {
+            return;
+        }
+        queryCache.ifPresent(FileQueryCache::invalidateAll);
+        for (var file : files) {
+            fileNameIndex.add(file.getFileName());
+            storageStatistics.add(file.getFileType(), file.getFileSize());
+        }
+    }
+
+    // Create the entity of an imported file, or return null if the file lacks its URL, its name or a valid size
+    private FileMetadata toMetadata(FileImportDto file) {
+        if (file == null || file.fileUrl() == null || file.fileUrl().isBlank()
+                || file.fileSize() == null || file.fileSize() < 0) {
+            return null;
+        }
+        var fileName = file.fileName() != null && !file.fileName().isBlank()
+                ? file.fileName() : fileMetadataExtractor.extractName(file.fileUrl());
+        if (fileName.isEmpty()) {
+            return null;
+        }
+        var metadata = new FileMetadata();
+        metadata.setFileName(fileName);
+        metadata.setFileType(file.fileType() != null ? file.fileType() : DEFAULT_FILE_TYPE);
+        metadata.setFileSize(file.fileSize());
+        metadata.setUploadDate(file.uploadDate() != null ? file.uploadDate() : LocalDateTime.now());
+        metadata.setContentHash(file.contentHash());
+        return metadata;
+    }
+}
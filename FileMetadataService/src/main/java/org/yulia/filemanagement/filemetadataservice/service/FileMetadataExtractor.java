@@ -1,30 +1,42 @@
 package org.yulia.filemanagement.filemetadataservice.service;
 
-import io.minio.MinioClient;
 import io.minio.errors.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.yulia.filemanagement.filemetadataservice.dto.FileUrlDto;
 import org.yulia.filemanagement.filemetadataservice.entity.FileMetadata;
+import org.yulia.filemanagement.filemetadataservice.storage.ObjectStorage;
 
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
- * Service class for extracting metadata from files stored in a MinIO bucket.
+ * Service class for extracting metadata from files stored in the object storage.
  */
 @Service
 public class FileMetadataExtractor {
 
     private static final Logger logger = LoggerFactory.getLogger(FileMetadataExtractor.class);
 
-    private final MinioClient minioClient;
+    private final ObjectStorage objectStorage;
+    private final double verifyFraction;
 
     @Autowired
-    public FileMetadataExtractor(MinioClient minioClient) {
-        this.minioClient = minioClient;
+    public FileMetadataExtractor(ObjectStorage objectStorage,
+                                 @Value("${file.register.verify.fraction:0.01}") double verifyFraction) {
+        if (verifyFraction < 0 || verifyFraction > 1) {
+            throw new IllegalArgumentException("Verification fraction must be between 0 and 1");
+        }
+        this.objectStorage = objectStorage;
+        this.verifyFraction = verifyFraction;
     }
 
     /**
@@ -57,45 +69,96 @@ public class FileMetadataExtractor {
 
 
     /**
-     * Extracts metadata for a file stored in a MinIO bucket.
+     * Extracts metadata for a file stored in the object storage.
      *
-     * @param bucketName the name of the MinIO bucket
+     * @param bucketName the name of the bucket
      * @param fileUrl    the URL of the file to extract metadata from
-     * @return FileMetadata containing the extracted data
-     * Note: The returned URL is cleaned of all query parameters. If you need the full URL with query parameters,
-     * consider using the MinIO URL generator method.
+     * @return FileMetadata containing the extracted data. Only the name of the object is kept from the URL; listings
+     * mint fresh presigned URLs from it
      */
     public FileMetadata extractMetadata(String bucketName, String fileUrl) {
         validateInputs(fileUrl, bucketName);
 
         try {
-            // clean the URL to remove any query parameters
-            String cleanUrl = extractCleanUrl(fileUrl);
             String fileName = extractName(fileUrl);
 
-            var stat = minioClient.statObject(
-                    io.minio.StatObjectArgs.builder()
-                            .bucket(bucketName)
-                            .object(fileName)
-                            .build()
-            );
+            var stat = objectStorage.statObject(bucketName, fileName);
 
             long fileSize = stat.size();
             String fileType = determineFileType(stat.contentType());
 
             LocalDateTime uploadDate = determineUploadDate(stat.lastModified());
 
-            FileMetadata metadata = createFileMetadata(cleanUrl, fileName, fileType, fileSize, uploadDate);
+            FileMetadata metadata = createFileMetadata(fileName, fileType, fileSize, uploadDate);
+            metadata.setContentHash(extractContentHash(bucketName, fileName));
             logger.info("Extracted metadata - File URL: {}, File Name: {}, File Type: {}, File Size: {}, Upload Date:" +
                             " {}",
                     fileUrl, fileName, fileType, fileSize, uploadDate);
 
             return metadata;
         } catch (Exception e) {
-            throw handleMinioException(e);
+            throw handleStorageException(e);
+        }
+    }
+
+    /**
+     * Builds the metadata of a file from the attributes passed with its registration, without reading the object from
+     * the storage. A configurable fraction of these registrations is still verified against the stored object; if the
+     * attributes do not match it, the metadata is extracted from the storage instead. A DTO without attributes is
+     * handled like a plain URL.
+     *
+     * @param bucketName the name of the bucket
+     * @param fileUrlDto the URL of the file and the attributes of the stored object
+     * @return FileMetadata containing the passed or the extracted data
+     */
+    public FileMetadata extractMetadata(String bucketName, FileUrlDto fileUrlDto) {
+        var fileUrl = fileUrlDto.fileUrl();
+        if (!fileUrlDto.hasObjectAttributes()) {
+            return extractMetadata(bucketName, fileUrl);
+        }
+        validateInputs(fileUrl, bucketName);
+
+        String fileName = extractName(fileUrl);
+        if (isSampled() && !matchesStoredObject(bucketName, fileName, fileUrlDto)) {
+            return extractMetadata(bucketName, fileUrl);
+        }
+
+        String fileType = determineFileType(fileUrlDto.contentType());
+        FileMetadata metadata = createFileMetadata(fileName, fileType, fileUrlDto.fileSize(), LocalDateTime.now());
+        metadata.setContentHash(fileUrlDto.contentHash());
+        logger.info("Registered passed metadata - File URL: {}, File Name: {}, File Type: {}, File Size: {}",
+                fileUrl, fileName, fileType, fileUrlDto.fileSize());
+        return metadata;
+    }
+
+    private boolean isSampled() {
+        return verifyFraction > 0 && ThreadLocalRandom.current().nextDouble() < verifyFraction;
+    }
+
+    // compares the passed attributes with the stored object; the ETag is only compared if it was passed
+    private boolean matchesStoredObject(String bucketName, String fileName, FileUrlDto fileUrlDto) {
+        try {
+            var stat = objectStorage.statObject(bucketName, fileName);
+            boolean matches = stat.size() == fileUrlDto.fileSize()
+                    && Objects.equals(stat.contentType(), fileUrlDto.contentType())
+                    && (fileUrlDto.etag() == null
+                    || normalizeEtag(fileUrlDto.etag()).equals(normalizeEtag(stat.etag())));
+            if (!matches) {
+                logger.warn("Passed attributes of file {} do not match the stored object - size {} / {}, " +
+                                "type {} / {}, ETag {} / {}", fileName, fileUrlDto.fileSize(), stat.size(),
+                        fileUrlDto.contentType(), stat.contentType(), fileUrlDto.etag(), stat.etag());
+            }
+            return matches;
+        } catch (Exception e) {
+            throw handleStorageException(e);
         }
     }
 
+    // MinIO returns ETags with or without the surrounding quotes, depending on the call
+    private static String normalizeEtag(String etag) {
+        return etag == null ? "" : etag.replace("\"", "");
+    }
+
     private void validateInputs(String fileUrl, String bucketName) {
         if (fileUrl == null || bucketName == null) {
             throw new IllegalArgumentException("File URL and bucket name cannot be null");
@@ -107,7 +170,7 @@ public class FileMetadataExtractor {
         return fileType != null ? fileType : "unknown";
     }
 
-    // if there is no Upload Date in MinIO, set it to the current date and time
+    // if there is no Upload Date in the storage, set it to the current date and time
     private LocalDateTime determineUploadDate(ZonedDateTime lastModifiedDate) {
         if (lastModifiedDate != null) {
             return lastModifiedDate.toInstant().atZone(ZoneId.systemDefault()).toLocalDateTime();
@@ -117,10 +180,9 @@ public class FileMetadataExtractor {
     }
 
     // create a new FileMetadata object with the extracted metadata
-    private FileMetadata createFileMetadata(String fileUrl, String fileName, String fileType, long fileSize,
+    private FileMetadata createFileMetadata(String fileName, String fileType, long fileSize,
                                             LocalDateTime uploadDate) {
         FileMetadata metadata = new FileMetadata();
-        metadata.setFileUrl(fileUrl);
         metadata.setFileName(fileName);
         metadata.setFileType(fileType);
         metadata.setFileSize(fileSize);
@@ -128,9 +190,26 @@ public class FileMetadataExtractor {
         return metadata;
     }
 
-    // handle MinIO exceptions and convert them to runtime exceptions
-    private RuntimeException handleMinioException(Exception e) {
-        if (e instanceof InvalidResponseException) {
+    // the content hash is optional, so a file without it, or with unreadable tags, is registered without a hash
+    private String extractContentHash(String bucketName, String fileName) {
+        try {
+            return objectStorage.getContentHash(bucketName, fileName);
+        } catch (Exception e) {
+            logger.warn("Could not read content hash of file {}: {}", fileName, e.getMessage());
+            return null;
+        }
+    }
+
+    // handle storage exceptions and convert them to runtime exceptions; the Minio storage wraps the exceptions of its
+    // client, so the wrapped exception decides how the error is reported
+    private RuntimeException handleStorageException(Exception e) {
+        if (e instanceof IOException && e.getCause() instanceof Exception cause) {
+            e = cause;
+        }
+        if (e instanceof NoSuchFileException) {
+            logger.error("Object not found: {}", e.getMessage());
+            return new RuntimeException("Object not found in storage: " + e.getMessage(), e);
+        } else if (e instanceof InvalidResponseException) {
             logger.error("Security or response format error: {}", e.getMessage());
             return new RuntimeException("Security or response format error: " + e.getMessage(), e);
         } else if (e instanceof InternalException || e instanceof XmlParserException) {
@@ -140,8 +219,8 @@ public class FileMetadataExtractor {
             logger.error("Server-side error: {}", e.getMessage());
             return new RuntimeException("Server-side error: " + e.getMessage(), e);
         } else {
-            logger.error("Unhandled Minio exception: {}", e.getMessage());
-            return new RuntimeException("Unhandled Minio exception: " + e.getMessage(), e);
+            logger.error("Unhandled storage exception: {}", e.getMessage());
+            return new RuntimeException("Unhandled storage exception: " + e.getMessage(), e);
         }
     }
 }
\ No newline at end of file
@@ -1,24 +1,50 @@
 package org.yulia.filemanagement.filemetadataservice.service;
 
+import jakarta.persistence.EntityManager;
 import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
 import jakarta.persistence.criteria.Predicate;
 import jakarta.persistence.criteria.Root;
+import org.hibernate.jpa.HibernateHints;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.yulia.filemanagement.filemetadataservice.cache.FileQueryCache;
+import org.yulia.filemanagement.filemetadataservice.cache.PresignedUrlCache;
 import org.yulia.filemanagement.filemetadataservice.constants.SizeUnit;
+import org.yulia.filemanagement.filemetadataservice.dto.BulkDeleteResultDto;
+import org.yulia.filemanagement.filemetadataservice.dto.FileMetadataDto;
+import org.yulia.filemanagement.filemetadataservice.dto.FilePageDto;
 import org.yulia.filemanagement.filemetadataservice.dto.FileQueryDto;
+import org.yulia.filemanagement.filemetadataservice.dto.FileRegistrationResultDto;
 import org.yulia.filemanagement.filemetadataservice.dto.FileUrlDto;
 import org.yulia.filemanagement.filemetadataservice.entity.FileMetadata;
 import org.yulia.filemanagement.filemetadataservice.repository.FileMetadataRepository;
+import org.yulia.filemanagement.filemetadataservice.repository.FileMetadataUpsertRepository;
+import org.yulia.filemanagement.filemetadataservice.search.FileNameIndex;
+import org.yulia.filemanagement.filemetadataservice.stats.StorageStatistics;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * Service class for managing file metadata.
@@ -28,24 +54,66 @@ public class FileMetadataService {
 
     private static final Logger logger = LoggerFactory.getLogger(FileMetadataService.class);
 
+    private static final String CURSOR_PREFIX = "id:";
+    private static final int UPSERT_ATTEMPTS = 3;
+    private static final int MAX_REPORTED_OBJECT_FAILURES = 100;
+
     private final FileMetadataRepository fileMetadataRepository;
     private final FileMetadataExtractor fileMetadataExtractor;
     private final String bucketName;
     private final boolean showFileUrl;
+    private final int maxBatchSize;
+    private final int defaultPageSize;
+    private final int maxPageSize;
+    private final int streamFetchSize;
+    private final int deleteChunkSize;
+    private final EntityManager entityManager;
+    private final Optional<FileQueryCache> queryCache;
+    private final FileNameIndex fileNameIndex;
+    private final StorageStatistics storageStatistics;
+    private final FileObjectRemover fileObjectRemover;
+    private final PresignedUrlCache presignedUrlCache;
 
     @Autowired
     public FileMetadataService(FileMetadataRepository fileMetadataRepository,
                                FileMetadataExtractor fileMetadataExtractor,
                                @Value("${minio.bucket-name}") String bucketName,
-                               @Value("${file.metadata.showUrl}") boolean showFileUrl) {
+                               @Value("${file.metadata.showUrl}") boolean showFileUrl,
+                               @Value("${file.register.batch.max.size:500}") int maxBatchSize,
+                               @Value("${file.query.page.default.size:100}") int defaultPageSize,
+                               @Value("${file.query.page.max.size:1000}") int maxPageSize,
+                               @Value("${file.query.stream.fetch.size:500}") int streamFetchSize,
+                               @Value("${file.delete.chunk.size:1000}") int deleteChunkSize,
+                               EntityManager entityManager,
+                               Optional<FileQueryCache> queryCache,
+                               FileNameIndex fileNameIndex,
+                               StorageStatistics storageStatistics,
+                               FileObjectRemover fileObjectRemover,
+                               PresignedUrlCache presignedUrlCache) {
+        if (deleteChunkSize < 1) {
+            throw new IllegalArgumentException("Delete chunk size must be at least 1");
+        }
         this.fileMetadataRepository = fileMetadataRepository;
         this.fileMetadataExtractor = fileMetadataExtractor;
         this.bucketName = bucketName;
         this.showFileUrl = showFileUrl;
+        this.maxBatchSize = maxBatchSize;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
+        this.streamFetchSize = streamFetchSize;
+        this.deleteChunkSize = deleteChunkSize;
+        this.entityManager = entityManager;
+        this.queryCache = queryCache;
+        this.fileNameIndex = fileNameIndex;
+        this.storageStatistics = storageStatistics;
+        this.fileObjectRemover = fileObjectRemover;
+        this.presignedUrlCache = presignedUrlCache;
     }
 
     /**
-     * Registers a file by extracting its metadata and saving it to the repository.
+     * Registers a file by extracting its metadata and saving it to the repository. The record is inserted, or the
+     * record with the same file name is updated, by one atomic upsert, so concurrent registrations of the same name
+     * never create duplicates.
      *
      * @param fileUrlDto the DTO containing the URL of the file to register
      * @throws IllegalArgumentException if the fileUrlDto, fileUrl, or bucketName is null
@@ -58,26 +126,17 @@ public class FileMetadataService {
         var fileUrl = fileUrlDto.fileUrl();
 
         try {
-            var metadata = fileMetadataExtractor.extractMetadata(bucketName, fileUrl);
+            var metadata = extractMetadata(fileUrlDto);
 
             var fileName = fileMetadataExtractor.extractName(fileUrl);
-            //var cleanUrl = fileMetadataExtractor.extractCleanUrl(fileUrl);
-            var existingMetadata =
-                    fileMetadataRepository.findByFileName(fileName);
-
-            // check if file already exists in the database and update if necessary
-            if (existingMetadata.isPresent()) {
-                var updatedMetadata = existingMetadata.get();
-                updatedMetadata.setFileUrl(metadata.getFileUrl());
-                updatedMetadata.setFileSize(metadata.getFileSize());
-                updatedMetadata.setFileType(metadata.getFileType());
-                updatedMetadata.setUploadDate(metadata.getUploadDate());
-                fileMetadataRepository.save(updatedMetadata);
-                logger.info("File metadata updated successfully: {}", fileName);
-            } else {
-                // create new record if file does not exist
-                fileMetadataRepository.save(metadata);
+            metadata.setFileName(fileName);
+            var result = upsert(metadata);
+            applied(metadata, result);
+
+            if (result.inserted()) {
                 logger.info("File registered successfully: {}", fileName);
+            } else {
+                logger.info("File metadata updated successfully: {}", fileName);
             }
         } catch (Exception ex) {
             handleException(ex, "Error during file registration for URL: " + fileUrl);
@@ -85,37 +144,440 @@ public class FileMetadataService {
     }
 
     /**
-     * Finds files based on the specified query criteria.
+     * Registers several files at once. The metadata of every file is extracted individually, before anything is
+     * written, and all records are then inserted or updated by one upsert statement, so concurrent batches that share
+     * file names never fail on the unique name. A file whose metadata cannot be extracted does not prevent the
+     * registration of the others; its failure is reported in the result instead.
+     *
+     * @param files the DTOs containing the URLs of the files to register
+     * @return the outcome of every registration, in the order of the given files: 201 for an inserted record, 200 for
+     * an updated one
+     * @throws IllegalArgumentException if the batch is empty or larger than the allowed size
+     */
+    public List<FileRegistrationResultDto> registerFiles(List<FileUrlDto> files) {
+        if (files == null || files.isEmpty()) {
+            throw new IllegalArgumentException("Batch must contain at least one file URL");
+        }
+        if (files.size() > maxBatchSize) {
+            throw new IllegalArgumentException("Batch must not contain more than " + maxBatchSize + " file URLs");
+        }
+
+        var results = new ArrayList<FileRegistrationResultDto>(files.size());
+        // extracted metadata by file name; a file listed twice is registered with its last URL
+        var extracted = new LinkedHashMap<String, FileMetadata>();
+        // the names of the extracted files by position, whose results are added once the records are written
+        var fileNames = new String[files.size()];
+        for (var fileUrlDto : files) {
+            var fileUrl = fileUrlDto == null ? null : fileUrlDto.fileUrl();
+            if (fileUrl == null || fileUrl.trim().isEmpty()) {
+                results.add(new FileRegistrationResultDto(fileUrl, null, HttpStatus.BAD_REQUEST.value(),
+                        "File URL must not be empty"));
+                continue;
+            }
+            try {
+                var metadata = extractMetadata(fileUrlDto);
+                var fileName = fileMetadataExtractor.extractName(fileUrl);
+                metadata.setFileName(fileName);
+                extracted.put(fileName, metadata);
+                fileNames[results.size()] = fileName;
+                results.add(null);
+            } catch (IllegalArgumentException ex) {
+                logger.error("Invalid file URL in batch registration: {} - {}", fileUrl, ex.getMessage());
+                results.add(new FileRegistrationResultDto(fileUrl, null, HttpStatus.BAD_REQUEST.value(),
+                        ex.getMessage()));
+            } catch (RuntimeException ex) {
+                logger.error("Error during metadata extraction for URL: {} - {}", fileUrl, ex.getMessage());
+                results.add(new FileRegistrationResultDto(fileUrl, null,
+                        HttpStatus.INTERNAL_SERVER_ERROR.value(), ex.getMessage()));
+            }
+        }
+        if (extracted.isEmpty()) {
+            return results;
+        }
+
+        Map<String, FileMetadataUpsertRepository.UpsertResult> upserted = null;
+        try {
+            upserted = upsertAll(extracted);
+        } catch (Exception ex) {
+            handleException(ex, "Error during batch registration of " + extracted.size() + " files");
+        }
+        upserted.forEach((fileName, result) -> applied(extracted.get(fileName), result));
+        long inserted = upserted.values().stream().filter(FileMetadataUpsertRepository.UpsertResult::inserted).count();
+        logger.info("Batch registration saved {} files, {} of them updated", upserted.size(),
+                upserted.size() - inserted);
+
+        for (int i = 0; i < fileNames.length; i++) {
+            if (fileNames[i] == null) {
+                continue;
+            }
+            var fileUrl = files.get(i).fileUrl();
+            results.set(i, upserted.get(fileNames[i]).inserted()
+                    ? new FileRegistrationResultDto(fileUrl, fileNames[i], HttpStatus.CREATED.value(),
+                    "File registered successfully")
+                    : new FileRegistrationResultDto(fileUrl, fileNames[i], HttpStatus.OK.value(),
+                    "File metadata updated successfully"));
+        }
+        return results;
+    }
+
+    /**
+     * Finds one page of the files that match the specified query criteria. Pages are ordered by id and continue after
+     * the id encoded in the cursor, so every page is read with a range scan of the primary key, however deep it is.
+     * If the query cache is enabled, pages are served from it until a change to a matching file invalidates them.
+     * The URLs of the files are signed for every response, through the presigned URL cache, so cached pages never
+     * hand out expired URLs.
      *
      * @param queryDto the DTO containing the query criteria
-     * @return a list of FileMetadata objects that match the query criteria
+     * @param cursor   the cursor returned with the previous page, or null for the first page
+     * @param limit    the maximum number of files on the page, or null for the default page size
+     * @return the files of the page and the cursor of the next page
+     * @throws IllegalArgumentException if the cursor is invalid or the limit is out of range
      */
-    public List<FileMetadata> findFiles(FileQueryDto queryDto) {
+    public FilePageDto findFiles(FileQueryDto queryDto, String cursor, Integer limit) {
+        var pageSize = limit != null ? limit : defaultPageSize;
+        if (pageSize < 1 || pageSize > maxPageSize) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + maxPageSize);
+        }
+        var afterId = cursor != null ? decodeCursor(cursor) : null;
+
         try {
-            var spec = createSpecification(queryDto);
-            var files = fileMetadataRepository.findAll(spec);
-            if (!showFileUrl) {
-                files.forEach(file -> file.setFileUrl(null));
+            if (queryCache.isEmpty()) {
+                return withFileUrls(readPage(queryDto, afterId, pageSize));
             }
-            return files;
+            var cache = queryCache.get();
+            var key = cacheKey(queryDto, cursor, pageSize);
+            var cached = cache.get(key);
+            if (cached != null) {
+                return withFileUrls(cached);
+            }
+            // read before the page, so a page that races with a write is not cached
+            var generation = cache.generation();
+            var page = readPage(queryDto, afterId, pageSize);
+            cache.put(key, page, generation);
+            return withFileUrls(page);
         } catch (Exception ex) {
             handleException(ex, "Error during file retrieval with query: " + queryDto);
             return null;
         }
     }
 
+    /**
+     * Passes every file that matches the specified query criteria to the consumer, ordered by id. The rows are read
+     * through a database cursor in chunks of the fetch size and are never loaded as managed entities, so memory use
+     * does not grow with the number of matching files.
+     *
+     * @param queryDto the DTO containing the query criteria
+     * @param consumer receives the matching files one at a time
+     * @return the number of files passed to the consumer
+     */
+    @Transactional(readOnly = true)
+    public long streamFiles(FileQueryDto queryDto, Consumer<FileMetadataDto> consumer) {
+        long count = 0;
+        try (var files = entityManager.createQuery(createListingQuery(queryDto, null))
+                .setHint(HibernateHints.HINT_FETCH_SIZE, streamFetchSize)
+                .getResultStream()) {
+            for (var iterator = files.iterator(); iterator.hasNext(); ) {
+                consumer.accept(withFileUrl(iterator.next()));
+                count++;
+            }
+        }
+        logger.info("Streamed {} files for query: {}", count, queryDto);
+        return count;
+    }
+
     /**
      * Deletes metadata for a file by its name.
      *
      * @param fileName the name of the file whose metadata is to be deleted
      * @return true if the metadata was deleted successfully, false otherwise
      */
-    @Transactional
     public boolean deleteFileMetadata(String fileName) {
-        var countBefore = fileMetadataRepository.count();
-        fileMetadataRepository.deleteByFileName(fileName);
-        var countAfter = fileMetadataRepository.count();
-        return countBefore > countAfter;
+        var deleted = fileMetadataRepository.deleteAllByFileNames(List.of(fileName));
+        deleted.forEach(file -> fileRemoved(FileState.of(file), true));
+        return !deleted.isEmpty();
+    }
+
+    /**
+     * Deletes the metadata of the files with the given names that were uploaded at or before the cutoff. The upload
+     * date is checked by the delete itself, so a file registered again in the meantime keeps its metadata.
+     *
+     * @param fileNames the names of the files, at least one
+     * @param cutoff    the latest upload date of a deleted file
+     * @return the number of deleted files
+     */
+    public int deleteFilesUploadedBefore(List<String> fileNames, LocalDateTime cutoff) {
+        var deleted = fileMetadataRepository.deleteAllByFileNamesUploadedBefore(fileNames, cutoff);
+        filesDeleted(deleted);
+        return deleted.size();
+    }
+
+    /**
+     * Deletes the metadata of the files with the given names, or of the files that match the query criteria. The
+     * matching files are deleted in chunks of the lowest ids, each in its own transaction, so a broad filter does not
+     * lock the whole table. Optionally the objects of the deleted files are removed from storage after every chunk;
+     * an object that cannot be removed is reported in the result, its metadata stays deleted. If a chunk fails, the
+     * chunks before it stay deleted.
+     *
+     * @param queryDto      the DTO containing the query criteria, or null if file names are given
+     * @param fileNames     the names of the files to delete, or null if query criteria are given
+     * @param removeObjects whether to remove the objects of the deleted files from storage
+     * @return the number of deleted files and the outcome of the removal of their objects
+     * @throws IllegalArgumentException if both or neither of names and criteria are given, if the criteria are all
+     *                                  empty, or if there are more names than the allowed batch size
+     */
+    public BulkDeleteResultDto deleteFiles(FileQueryDto queryDto, List<String> fileNames, boolean removeObjects) {
+        if ((queryDto == null) == (fileNames == null || fileNames.isEmpty())) {
+            throw new IllegalArgumentException("Either file names or filter criteria must be given");
+        }
+
+        var tally = new BulkDeleteTally();
+        try {
+            if (queryDto != null) {
+                deleteMatching(queryDto, removeObjects, tally);
+            } else {
+                if (fileNames.size() > maxBatchSize) {
+                    throw new IllegalArgumentException("Batch must not contain more than " + maxBatchSize +
+                            " file names");
+                }
+                chunkDeleted(fileMetadataRepository.deleteAllByFileNames(fileNames), removeObjects, tally);
+            }
+        } catch (Exception ex) {
+            handleException(ex, "Error during bulk delete after " + tally.deleted + " deleted files");
+            return null;
+        }
+        logger.info("Bulk delete removed {} files", tally.deleted);
+        return new BulkDeleteResultDto(tally.deleted, tally.objectsRemoved, tally.objectFailures);
+    }
+
+    // trusts the attributes passed with the registration, if there are any, instead of reading them from MinIO
+    private FileMetadata extractMetadata(FileUrlDto fileUrlDto) {
+        return fileUrlDto.hasObjectAttributes()
+                ? fileMetadataExtractor.extractMetadata(bucketName, fileUrlDto)
+                : fileMetadataExtractor.extractMetadata(bucketName, fileUrlDto.fileUrl());
+    }
+
+    // Delete the files matching the criteria chunk by chunk, with the sizes converted to bytes; an exact size is a
+    // range of one
+    private void deleteMatching(FileQueryDto queryDto, boolean removeObjects, BulkDeleteTally tally) {
+        if (queryDto.fileType() == null && queryDto.minSize() == null && queryDto.maxSize() == null
+                && queryDto.equalSize() == null && queryDto.contentHash() == null) {
+            throw new IllegalArgumentException("At least one filter criterion must be given");
+        }
+        Long minSize = null;
+        Long maxSize = null;
+        if (queryDto.equalSize() != null) {
+            minSize = maxSize = convertSizeToBytes(queryDto.equalSize(), queryDto.sizeUnit());
+        } else {
+            if (queryDto.minSize() != null) {
+                minSize = convertSizeToBytes(queryDto.minSize(), queryDto.sizeUnit());
+            }
+            if (queryDto.maxSize() != null) {
+                maxSize = convertSizeToBytes(queryDto.maxSize(), queryDto.sizeUnit());
+            }
+        }
+
+        List<FileMetadata> chunk;
+        do {
+            chunk = fileMetadataRepository.deleteAllMatching(queryDto.fileType(), minSize, maxSize,
+                    queryDto.contentHash(), deleteChunkSize);
+            chunkDeleted(chunk, removeObjects, tally);
+        } while (chunk.size() == deleteChunkSize);
+    }
+
+    // Account for one committed chunk of a bulk delete and remove the objects of its files if requested. Only the
+    // first failures are listed, so the response stays small when the storage is down during a large delete
+    private void chunkDeleted(List<FileMetadata> files, boolean removeObjects, BulkDeleteTally tally) {
+        filesDeleted(files);
+        tally.deleted += files.size();
+        if (!removeObjects || files.isEmpty()) {
+            return;
+        }
+        var failures = fileObjectRemover.removeObjects(files.stream().map(FileMetadata::getFileName).toList());
+        tally.objectsRemoved += files.size() - failures.size();
+        failures.stream()
+                .limit(Math.max(0, MAX_REPORTED_OBJECT_FAILURES - tally.objectFailures.size()))
+                .forEach(tally.objectFailures::add);
+    }
+
+    // Upsert the record, retrying if a concurrent registration of the same name got in the way. PostgreSQL resolves
+    // such conflicts within the statement, the MERGE of H2 can fail with a duplicate key or a concurrent update
+    private FileMetadataUpsertRepository.UpsertResult upsert(FileMetadata metadata) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return fileMetadataRepository.upsert(metadata);
+            } catch (DataIntegrityViolationException | ConcurrencyFailureException ex) {
+                if (attempt == UPSERT_ATTEMPTS) {
+                    throw ex;
+                }
+                logger.debug("Upsert of {} conflicted with a concurrent registration, retrying", metadata.getFileName());
+            }
+        }
+    }
+
+    // Upsert the records of a batch, retrying the whole statement as upsert does for one record
+    private Map<String, FileMetadataUpsertRepository.UpsertResult> upsertAll(Map<String, FileMetadata> extracted) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return fileMetadataRepository.upsertAll(extracted.values());
+            } catch (DataIntegrityViolationException | ConcurrencyFailureException ex) {
+                if (attempt == UPSERT_ATTEMPTS) {
+                    throw ex;
+                }
+                logger.debug("Batch upsert of {} files conflicted with a concurrent registration, retrying",
+                        extracted.size());
+            }
+        }
+    }
+
+    // Bring the in-memory state up to date with an upserted record, depending on what the upsert replaced
+    private void applied(FileMetadata metadata, FileMetadataUpsertRepository.UpsertResult result) {
+        if (result.inserted()) {
+            fileStored(metadata);
+        } else if (result.previous() != null) {
+            fileRemoved(FileState.of(result.previous()), false);
+            fileStored(metadata);
+        } else {
+            fileReplaced(metadata);
+        }
+    }
+
+    // Sign the URLs of the files of a page, if URLs are shown
+    private FilePageDto withFileUrls(FilePageDto page) {
+        if (!showFileUrl) {
+            return page;
+        }
+        return new FilePageDto(page.files().stream().map(this::withFileUrl).toList(), page.nextCursor());
+    }
+
+    private FileMetadataDto withFileUrl(FileMetadataDto file) {
+        if (!showFileUrl) {
+            return file;
+        }
+        try {
+            return file.withFileUrl(presignedUrlCache.get(file.fileName()));
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not sign the URL of " + file.fileName(), ex);
+        }
+    }
+
+    // Read one page; one row more than requested tells whether there is a next page
+    private FilePageDto readPage(FileQueryDto queryDto, Long afterId, int pageSize) {
+        var files = new ArrayList<>(entityManager.createQuery(createListingQuery(queryDto, afterId))
+                .setMaxResults(pageSize + 1)
+                .getResultList());
+        String nextCursor = null;
+        if (files.size() > pageSize) {
+            files.subList(pageSize, files.size()).clear();
+            nextCursor = encodeCursor(files.get(pageSize - 1).id());
+        }
+        return new FilePageDto(List.copyOf(files), nextCursor);
+    }
+
+    // The cache key holds the sizes in bytes, so the same filter in different units shares one entry
+    private FileQueryCache.Key cacheKey(FileQueryDto queryDto, String cursor, int pageSize) {
+        return new FileQueryCache.Key(queryDto.fileType(),
+                queryDto.minSize() != null ? convertSizeToBytes(queryDto.minSize(), queryDto.sizeUnit()) : null,
+                queryDto.maxSize() != null ? convertSizeToBytes(queryDto.maxSize(), queryDto.sizeUnit()) : null,
+                queryDto.equalSize() != null ? convertSizeToBytes(queryDto.equalSize(), queryDto.sizeUnit()) : null,
+                queryDto.contentHash(), cursor, pageSize);
+    }
+
+    // Bring the in-memory state derived from the table up to date with a stored file, once the change is committed
+    private void fileStored(FileMetadata metadata) {
+        var file = FileState.of(metadata);
+        afterCommit(() -> {
+            queryCache.ifPresent(cache -> cache.invalidate(file.fileType(), file.fileSize(), file.contentHash()));
+            fileNameIndex.add(file.fileName());
+            storageStatistics.add(file.fileType(), file.fileSize());
+        });
+    }
+
+    // Bring the in-memory state derived from the table up to date with a file that was deleted, or with the old state
+    // of a file that was updated, once the change is committed. Invalidating only after the commit keeps a listing
+    // that runs in between from caching the state from before the change
+    private void fileRemoved(FileState file, boolean deleted) {
+        afterCommit(() -> {
+            queryCache.ifPresent(cache -> cache.invalidate(file.fileType(), file.fileSize(), file.contentHash()));
+            if (deleted) {
+                fileNameIndex.remove(file.fileName());
+            }
+            storageStatistics.remove(file.fileType(), file.fileSize());
+        });
+    }
+
+    // Bring the in-memory state up to date with the files of a bulk delete. The statement has committed, and any
+    // listing page may include one of the files, so the query cache is cleared once instead of file by file
+    private void filesDeleted(List<FileMetadata> files) {
+        if (files.isEmpty()) {
+            return;
+        }
+        queryCache.ifPresent(FileQueryCache::invalidateAll);
+        for (var file : files) {
+            fileNameIndex.remove(file.getFileName());
+            storageStatistics.remove(file.getFileType(), file.getFileSize());
+        }
+    }
+
+    // Bring the in-memory state up to date with a file that replaced a record whose previous state is unknown, as
+    // happens when it was inserted by a concurrent registration. Any cached page may hold the previous state, and the
+    // statistics keep counting it until the next reconciliation
+    private void fileReplaced(FileMetadata metadata) {
+        var fileName = metadata.getFileName();
+        afterCommit(() -> {
+            queryCache.ifPresent(FileQueryCache::invalidateAll);
+            fileNameIndex.add(fileName);
+        });
+        logger.debug("Previous state of {} is unknown, statistics are corrected at the next reconciliation", fileName);
+    }
+
+    // Run the action after the current transaction commits, or right away outside of a transaction
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    // Select the listed columns of the matching files after the given id, ordered by id
+    private CriteriaQuery<FileMetadataDto> createListingQuery(FileQueryDto queryDto, Long afterId) {
+        var criteriaBuilder = entityManager.getCriteriaBuilder();
+        var query = criteriaBuilder.createQuery(FileMetadataDto.class);
+        var root = query.from(FileMetadata.class);
+
+        query.select(criteriaBuilder.construct(FileMetadataDto.class, root.get("id"), root.get("fileName"),
+                root.get("fileType"), root.get("fileSize"), root.get("uploadDate"), root.get("contentHash")));
+
+        var predicate = createSpecification(queryDto).toPredicate(root, query, criteriaBuilder);
+        if (afterId != null) {
+            predicate = criteriaBuilder.and(predicate, criteriaBuilder.greaterThan(root.get("id"), afterId));
+        }
+        query.where(predicate);
+        query.orderBy(criteriaBuilder.asc(root.get("id")));
+        return query;
+    }
+
+    // Cursors are opaque to clients, so the way pages are keyed can change without breaking them
+    static String encodeCursor(long id) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((CURSOR_PREFIX + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    static long decodeCursor(String cursor) {
+        try {
+            var decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (decoded.startsWith(CURSOR_PREFIX)) {
+                return Long.parseLong(decoded.substring(CURSOR_PREFIX.length()));
+            }
+        } catch (IllegalArgumentException ex) {
+            // reported below like any other malformed cursor
+        }
+        throw new IllegalArgumentException("Invalid cursor: " + cursor);
     }
 
     // Create a specification for querying file metadata based on the provided criteria
@@ -127,6 +589,9 @@ public class FileMetadataService {
                 logger.info("Adding fileType predicate: {}", queryDto.fileType());
                 predicates.add(criteriaBuilder.equal(root.get("fileType"), queryDto.fileType()));
             }
+            if (queryDto.contentHash() != null) {
+                predicates.add(criteriaBuilder.equal(root.get("contentHash"), queryDto.contentHash()));
+            }
             return criteriaBuilder.and(predicates.toArray(new Predicate[0]));
         };
     }
@@ -180,4 +645,19 @@ public class FileMetadataService {
             throw new RuntimeException("Unexpected error: " + ex.getMessage(), ex);
         }
     }
+
+    // The outcome of a bulk delete, summed up over its chunks
+    private static class BulkDeleteTally {
+        private long deleted;
+        private long objectsRemoved;
+        private final List<String> objectFailures = new ArrayList<>();
+    }
+
+    // The attributes of a file that the in-memory state depends on, captured before the entity changes
+    private record FileState(String fileName, String fileType, long fileSize, String contentHash) {
+
+        static FileState of(FileMetadata file) {
+            return new FileState(file.getFileName(), file.getFileType(), file.getFileSize(), file.getContentHash());
+        }
+    }
 }
@@ -0,0 +1,59 @@
+package org.yulia.filemanagement.filemetadataservice.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.yulia.filemanagement.filemetadataservice.storage.ObjectStorage;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Service class that removes the objects of deleted files from the bucket, many objects per request.
+ */
+@Service
+public class FileObjectRemover {
+
+    private static final Logger logger = LoggerFactory.getLogger(FileObjectRemover.class);
+
+    private final ObjectStorage objectStorage;
+    private final String bucketName;
+    private final int batchSize;
+
+    @Autowired
+    public FileObjectRemover(ObjectStorage objectStorage,
+                             @Value("${minio.bucket-name}") String bucketName,
+                             @Value("${file.delete.objects.batch.size:1000}") int batchSize) {
+        if (batchSize < 1 || batchSize > 1000) {
+            throw new IllegalArgumentException("Object removal batch size must be between 1 and 1000");
+        }
+        this.objectStorage = objectStorage;
+        this.bucketName = bucketName;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Removes the objects with the given names, with one multi-object delete request per batch when the storage
+     * supports it. An object that does not exist counts as removed.
+     *
+     * @param objectNames the names of the objects
+     * @return the names of the objects that could not be removed
+     */
+    public List<String> removeObjects(List<String> objectNames) {
+        var failures = new ArrayList<String>();
+        for (int from = 0; from < objectNames.size(); from += batchSize) {
+            var batch = objectNames.subList(from, Math.min(from + batchSize, objectNames.size()));
+            try {
+                failures.addAll(objectStorage.removeObjects(bucketName, batch));
+            } catch (Exception e) {
+                logger.error("Could not remove a batch of {} objects: {}", batch.size(), e.getMessage());
+                failures.addAll(batch);
+            }
+        }
+        logger.info("Removed {} of {} objects from bucket {}", objectNames.size() - failures.size(),
+                objectNames.size(), bucketName);
+        return failures;
+    }
+}
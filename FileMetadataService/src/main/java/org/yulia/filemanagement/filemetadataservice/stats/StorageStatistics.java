@@ -0,0 +1,178 @@
+package org.yulia.filemanagement.filemetadataservice.stats;
+
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.yulia.filemanagement.filemetadataservice.dto.StorageStatsDto;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Storage statistics of the registered files: their number and total size, by file type and by size bucket.
+ * <p>
+ * The counters are kept in memory and updated by FileMetadataService whenever a file is registered, updated or
+ * deleted, so reading them never touches the table. They are reconciled periodically against a GROUP BY query, which
+ * also loads them at startup; a reconciliation that overlaps a change is skipped, as its result may already be stale.
+ */
+@Component
+public class StorageStatistics {
+
+    private static final Logger logger = LoggerFactory.getLogger(StorageStatistics.class);
+
+    // upper bounds of the size buckets in bytes, exclusive; the last bucket has no upper bound
+    private static final long[] BUCKET_BOUNDS = {1024L, 1024L * 1024, 10L * 1024 * 1024, 100L * 1024 * 1024,
+            1024L * 1024 * 1024};
+    private static final List<String> BUCKET_LABELS = List.of("<1KB", "1KB-1MB", "1MB-10MB", "10MB-100MB",
+            "100MB-1GB", ">=1GB");
+    private static final int RECONCILE_ATTEMPTS = 3;
+
+    private final EntityManager entityManager;
+    private final String reconcileQuery;
+
+    // {files, bytes} of every file type and of every size bucket
+    private Map<String, long[]> byFileType = new HashMap<>();
+    private long[][] bySize = newBuckets();
+    private long files;
+    private long bytes;
+    private long changes;
+    private LocalDateTime lastReconciled;
+
+    public StorageStatistics(EntityManager entityManager) {
+        this.entityManager = entityManager;
+        this.reconcileQuery = buildReconcileQuery();
+    }
+
+    /**
+     * Counts a file that was registered, or the new state of a file that was updated.
+     *
+     * @param fileType the MIME type of the file
+     * @param fileSize the size of the file in bytes
+     */
+    public synchronized void add(String fileType, long fileSize) {
+        apply(fileType, fileSize, 1);
+    }
+
+    /**
+     * Stops counting a file that was deleted, or the old state of a file that was updated.
+     *
+     * @param fileType the MIME type of the file
+     * @param fileSize the size of the file in bytes
+     */
+    public synchronized void remove(String fileType, long fileSize) {
+        apply(fileType, fileSize, -1);
+    }
+
+    /**
+     * Returns the current statistics, without querying the database.
+     *
+     * @return the current statistics
+     */
+    public synchronized StorageStatsDto getStats() {
+        var types = new TreeMap<String, StorageStatsDto.Totals>();
+        byFileType.forEach((fileType, totals) -> types.put(fileType, new StorageStatsDto.Totals(totals[0], totals[1])));
+        var sizes = new LinkedHashMap<String, StorageStatsDto.Totals>();
+        for (int bucket = 0; bucket < BUCKET_LABELS.size(); bucket++) {
+            sizes.put(BUCKET_LABELS.get(bucket), new StorageStatsDto.Totals(bySize[bucket][0], bySize[bucket][1]));
+        }
+        return new StorageStatsDto(files, bytes, types, sizes, lastReconciled);
+    }
+
+    /**
+     * Recounts the statistics with a GROUP BY query and replaces the counters with the result. If a file changes
+     * while the query runs, the result is discarded and the query is repeated.
+     *
+     * @return true if the counters were replaced, false if every attempt overlapped a change
+     */
+    @Scheduled(fixedDelayString = "${file.stats.reconcile.interval.ms:300000}")
+    public boolean reconcile() {
+        for (int attempt = 1; attempt <= RECONCILE_ATTEMPTS; attempt++) {
+            long changesBefore;
+            synchronized (this) {
+                changesBefore = changes;
+            }
+
+            @SuppressWarnings("unchecked")
+            List<Object[]> rows = entityManager.createNativeQuery(reconcileQuery).getResultList();
+            var countedByFileType = new HashMap<String, long[]>();
+            var countedBySize = newBuckets();
+            for (var row : rows) {
+                var bucket = ((Number) row[1]).intValue();
+                var rowFiles = ((Number) row[2]).longValue();
+                var rowBytes = ((Number) row[3]).longValue();
+                var totals = countedByFileType.computeIfAbsent((String) row[0], key -> new long[2]);
+                totals[0] += rowFiles;
+                totals[1] += rowBytes;
+                countedBySize[bucket][0] += rowFiles;
+                countedBySize[bucket][1] += rowBytes;
+            }
+
+            synchronized (this) {
+                if (changes != changesBefore) {
+                    logger.debug("Files changed during reconciliation attempt {}, discarding its result", attempt);
+                    continue;
+                }
+                var countedFiles = Arrays.stream(countedBySize).mapToLong(totals -> totals[0]).sum();
+                var countedBytes = Arrays.stream(countedBySize).mapToLong(totals -> totals[1]).sum();
+                if (lastReconciled != null && (countedFiles != files || countedBytes != bytes)) {
+                    logger.warn("Storage statistics drifted: {} files and {} bytes counted in memory, {} files and {} " +
+                            "bytes in the database", files, bytes, countedFiles, countedBytes);
+                }
+                byFileType = countedByFileType;
+                bySize = countedBySize;
+                files = countedFiles;
+                bytes = countedBytes;
+                lastReconciled = LocalDateTime.now();
+                return true;
+            }
+        }
+        logger.warn("Storage statistics were not reconciled, files changed during every attempt");
+        return false;
+    }
+
+    private void apply(String fileType, long fileSize, int sign) {
+        var totals = byFileType.computeIfAbsent(fileType, key -> new long[2]);
+        totals[0] += sign;
+        totals[1] += sign * fileSize;
+        if (totals[0] <= 0) {
+            byFileType.remove(fileType);
+        }
+        var bucket = bySize[bucketOf(fileSize)];
+        bucket[0] += sign;
+        bucket[1] += sign * fileSize;
+        files += sign;
+        bytes += sign * fileSize;
+        changes++;
+    }
+
+    private static int bucketOf(long fileSize) {
+        for (int bucket = 0; bucket < BUCKET_BOUNDS.length; bucket++) {
+            if (fileSize < BUCKET_BOUNDS[bucket]) {
+                return bucket;
+            }
+        }
+        return BUCKET_BOUNDS.length;
+    }
+
+    private static long[][] newBuckets() {
+        return new long[BUCKET_LABELS.size()][2];
+    }
+
+    // counts the files by type and size bucket; the bucket is computed in a derived table, so it can be grouped by
+    private static String buildReconcileQuery() {
+        var bucket = new StringBuilder("CASE");
+        for (int i = 0; i < BUCKET_BOUNDS.length; i++) {
+            bucket.append(" WHEN file_size < ").append(BUCKET_BOUNDS[i]).append(" THEN ").append(i);
+        }
+        bucket.append(" ELSE ").append(BUCKET_BOUNDS.length).append(" END");
+        return "SELECT file_type, bucket, COUNT(*), SUM(file_size) FROM (SELECT file_type, file_size, " + bucket +
+                " AS bucket FROM file_metadata) sized GROUP BY file_type, bucket";
+    }
+}
@@ -0,0 +1,160 @@
+package org.yulia.filemanagement.filemetadataservice.storage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Properties;
+
+/**
+ * Reads and removes the objects the upload service stores in a directory of the local file system. Selected by the
+ * 'local-storage' profile, which both services have to use with the same storage.local.root.
+ * <p>
+ * The content of an object is stored in {@code <root>/<bucket>/<name>}, and its content type and hash in
+ * {@code <root>/.attributes/<bucket>/<name>.properties}. The hash of the content doubles as its ETag.
+ */
+@Service
+@Profile("local-storage")
+public class LocalObjectStorage implements ObjectStorage {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocalObjectStorage.class);
+
+    private static final String ATTRIBUTES_DIRECTORY = ".attributes";
+    private static final String CONTENT_TYPE_ATTRIBUTE = "content-type";
+    private static final String CONTENT_HASH_ATTRIBUTE = "sha256";
+
+    private final Path root;
+
+    public LocalObjectStorage(@Value("${storage.local.root:data/storage}") String root) {
+        this.root = Path.of(root).toAbsolutePath().normalize();
+    }
+
+    @Override
+    public ObjectStat statObject(String bucketName, String objectName) throws IOException {
+        var content = contentPath(bucketName, objectName);
+        var fileAttributes = Files.readAttributes(content, BasicFileAttributes.class);
+        if (!fileAttributes.isRegularFile()) {
+            throw new NoSuchFileException(content.toString());
+        }
+        var attributes = readAttributes(bucketName, objectName);
+        return new ObjectStat(objectName, fileAttributes.size(), attributes.getProperty(CONTENT_TYPE_ATTRIBUTE),
+                attributes.getProperty(CONTENT_HASH_ATTRIBUTE),
+                fileAttributes.lastModifiedTime().toInstant().atZone(ZoneId.systemDefault()));
+    }
+
+    @Override
+    public String getContentHash(String bucketName, String objectName) throws IOException {
+        return readAttributes(bucketName, objectName).getProperty(CONTENT_HASH_ATTRIBUTE);
+    }
+
+    /**
+     * {@inheritDoc}
+     * The URL is the file URL of the object, as there is no server in front of the directory; it does not expire.
+     */
+    @Override
+    public String getPresignedUrl(String bucketName, String objectName, int expirySeconds) {
+        return contentPath(bucketName, objectName).toUri().toString();
+    }
+
+    /**
+     * {@inheritDoc}
+     * The names of all objects are read and sorted up front, as a directory has no order of its own; the attributes
+     * of an object are read once the iterator reaches it, and an object removed in between is skipped.
+     */
+    @Override
+    public Iterator<ObjectStat> listObjects(String bucketName, int pageSize) throws IOException {
+        var bucketDirectory = bucketDirectory(bucketName);
+        if (!Files.isDirectory(bucketDirectory)) {
+            return List.<ObjectStat>of().iterator();
+        }
+        List<String> names;
+        try (var paths = Files.walk(bucketDirectory)) {
+            names = paths.filter(Files::isRegularFile)
+                    .map(path -> bucketDirectory.relativize(path).toString().replace('\\', '/'))
+                    .sorted((first, second) -> Arrays.compareUnsigned(first.getBytes(StandardCharsets.UTF_8),
+                            second.getBytes(StandardCharsets.UTF_8)))
+                    .toList();
+        }
+        return names.stream()
+                .map(name -> statListed(bucketName, name))
+                .filter(Objects::nonNull)
+                .iterator();
+    }
+
+    @Override
+    public List<String> removeObjects(String bucketName, List<String> objectNames) {
+        var failures = new ArrayList<String>();
+        for (var objectName : objectNames) {
+            try {
+                Files.deleteIfExists(contentPath(bucketName, objectName));
+                Files.deleteIfExists(attributesPath(bucketName, objectName));
+            } catch (IOException | IllegalArgumentException e) {
+                logger.error("Could not remove object {}: {}", objectName, e.getMessage());
+                failures.add(objectName);
+            }
+        }
+        return failures;
+    }
+
+    // null if the object was removed after the directory was read
+    private ObjectStat statListed(String bucketName, String objectName) {
+        try {
+            return statObject(bucketName, objectName);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Path bucketDirectory(String bucketName) {
+        return resolve(root, bucketName);
+    }
+
+    private Path contentPath(String bucketName, String objectName) {
+        return resolve(bucketDirectory(bucketName), objectName);
+    }
+
+    private Path attributesPath(String bucketName, String objectName) {
+        return resolve(resolve(root.resolve(ATTRIBUTES_DIRECTORY), bucketName), objectName + ".properties");
+    }
+
+    // a name that would leave the directory, e.g. through "..", is rejected
+    private static Path resolve(Path directory, String name) {
+        if (name == null || name.isEmpty()) {
+            throw new IllegalArgumentException("Object and bucket names must not be empty");
+        }
+        var path = directory.resolve(name).normalize();
+        if (!path.startsWith(directory) || path.equals(directory)) {
+            throw new IllegalArgumentException("Invalid object or bucket name: " + name);
+        }
+        return path;
+    }
+
+    // an object stored without attributes has none, rather than failing to be read
+    private Properties readAttributes(String bucketName, String objectName) throws IOException {
+        var attributes = new Properties();
+        try (Reader reader = Files.newBufferedReader(attributesPath(bucketName, objectName), StandardCharsets.UTF_8)) {
+            attributes.load(reader);
+        } catch (NoSuchFileException e) {
+            logger.debug("Object {} has no attributes", objectName);
+        }
+        return attributes;
+    }
+}
@@ -0,0 +1,174 @@
+package org.yulia.filemanagement.filemetadataservice.storage;
+
+import io.minio.GetObjectTagsArgs;
+import io.minio.GetPresignedObjectUrlArgs;
+import io.minio.ListObjectsArgs;
+import io.minio.MinioClient;
+import io.minio.RemoveObjectsArgs;
+import io.minio.Result;
+import io.minio.StatObjectArgs;
+import io.minio.errors.ErrorResponseException;
+import io.minio.http.Method;
+import io.minio.messages.DeleteObject;
+import io.minio.messages.Item;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.NoSuchFileException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads and removes the objects of a Minio bucket. This is the default storage backend, used unless the
+ * 'local-storage' profile is active. Errors of the Minio client are wrapped in an IOException, and a missing object is
+ * reported as NoSuchFileException.
+ */
+@Service
+@Profile("!local-storage")
+public class MinioObjectStorage implements ObjectStorage {
+
+    private static final Logger logger = LoggerFactory.getLogger(MinioObjectStorage.class);
+
+    // object tag under which the upload service records the SHA-256 of the content
+    private static final String CONTENT_HASH_TAG = "sha256";
+    private static final String NO_SUCH_KEY = "NoSuchKey";
+
+    private final MinioClient minioClient;
+
+    public MinioObjectStorage(MinioClient minioClient) {
+        this.minioClient = minioClient;
+    }
+
+    @Override
+    public ObjectStat statObject(String bucketName, String objectName) throws IOException {
+        try {
+            var stat = minioClient.statObject(StatObjectArgs.builder()
+                    .bucket(bucketName)
+                    .object(objectName)
+                    .build());
+            return new ObjectStat(objectName, stat.size(), stat.contentType(), stat.etag(), stat.lastModified());
+        } catch (Exception e) {
+            throw toIOException(objectName, e);
+        }
+    }
+
+    @Override
+    public String getContentHash(String bucketName, String objectName) throws IOException {
+        try {
+            var tags = minioClient.getObjectTags(GetObjectTagsArgs.builder()
+                    .bucket(bucketName)
+                    .object(objectName)
+                    .build());
+            return tags == null ? null : tags.get().get(CONTENT_HASH_TAG);
+        } catch (Exception e) {
+            throw toIOException(objectName, e);
+        }
+    }
+
+    @Override
+    public String getPresignedUrl(String bucketName, String objectName, int expirySeconds) throws IOException {
+        try {
+            return minioClient.getPresignedObjectUrl(GetPresignedObjectUrlArgs.builder()
+                    .method(Method.GET)
+                    .bucket(bucketName)
+                    .object(objectName)
+                    .expiry(expirySeconds)
+                    .build());
+        } catch (Exception e) {
+            throw toIOException(objectName, e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * Minio lists the objects in pages of pageSize objects, and requests the next page once the current one is
+     * consumed.
+     */
+    @Override
+    public Iterator<ObjectStat> listObjects(String bucketName, int pageSize) {
+        var items = minioClient.listObjects(ListObjectsArgs.builder()
+                .bucket(bucketName)
+                .recursive(true)
+                .maxKeys(pageSize)
+                .build()).iterator();
+        return new ObjectIterator(items);
+    }
+
+    /**
+     * {@inheritDoc}
+     * The objects are removed with one multi-object delete request.
+     */
+    @Override
+    public List<String> removeObjects(String bucketName, List<String> objectNames) throws IOException {
+        var failures = new ArrayList<String>();
+        try {
+            var objects = objectNames.stream().map(DeleteObject::new).toList();
+            // the request is only sent while the results are iterated
+            for (var result : minioClient.removeObjects(RemoveObjectsArgs.builder()
+                    .bucket(bucketName)
+                    .objects(objects)
+                    .build())) {
+                var error = result.get();
+                logger.error("Could not remove object {}: {}", error.objectName(), error.message());
+                failures.add(error.objectName());
+            }
+        } catch (Exception e) {
+            throw toIOException(bucketName, e);
+        }
+        return failures;
+    }
+
+    private static IOException toIOException(String name, Exception e) {
+        if (e instanceof ErrorResponseException errorResponse && errorResponse.errorResponse() != null
+                && NO_SUCH_KEY.equals(errorResponse.errorResponse().code())) {
+            return new NoSuchFileException(name);
+        }
+        if (e instanceof IOException) {
+            return (IOException) e;
+        }
+        return new IOException("Minio error: " + e.getMessage(), e);
+    }
+
+    // the objects of a listing, without the prefixes Minio reports as directories
+    private static final class ObjectIterator implements Iterator<ObjectStat> {
+
+        private final Iterator<Result<Item>> items;
+        private ObjectStat next;
+
+        ObjectIterator(Iterator<Result<Item>> items) {
+            this.items = items;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (next == null && items.hasNext()) {
+                Item item;
+                try {
+                    item = items.next().get();
+                } catch (Exception e) {
+                    throw new UncheckedIOException(toIOException("listing", e));
+                }
+                if (!item.isDir()) {
+                    next = new ObjectStat(item.objectName(), item.size(), null, item.etag(), item.lastModified());
+                }
+            }
+            return next != null;
+        }
+
+        @Override
+        public ObjectStat next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            var object = next;
+            next = null;
+            return object;
+        }
+    }
+}
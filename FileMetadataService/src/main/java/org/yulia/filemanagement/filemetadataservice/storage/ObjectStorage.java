@@ -0,0 +1,67 @@
+package org.yulia.filemanagement.filemetadataservice.storage;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Storage backend holding the content of the registered files. The metadata service only reads the attributes of the
+ * stored objects, signs URLs to them and removes objects; the content itself is written by the upload service. The backend is selected
+ * by profile: Minio by default, and a directory of the local file system with the 'local-storage' profile.
+ */
+public interface ObjectStorage {
+
+    /**
+     * Returns the attributes of a stored object.
+     *
+     * @param bucketName the name of the bucket
+     * @param objectName the name of the object
+     * @return the attributes of the object
+     * @throws java.nio.file.NoSuchFileException if the object does not exist
+     * @throws IOException                       if the attributes could not be read
+     */
+    ObjectStat statObject(String bucketName, String objectName) throws IOException;
+
+    /**
+     * Returns the SHA-256 hash of the content that the upload service recorded with an object.
+     *
+     * @param bucketName the name of the bucket
+     * @param objectName the name of the object
+     * @return the hash as a hex string, or null if none was recorded
+     * @throws IOException if the hash could not be read
+     */
+    String getContentHash(String bucketName, String objectName) throws IOException;
+
+    /**
+     * Creates a URL from which the object can be downloaded without further credentials, valid for the given time.
+     * The URL is computed locally, without a request to the backend.
+     *
+     * @param bucketName    the name of the bucket
+     * @param objectName    the name of the object
+     * @param expirySeconds how long the URL stays valid, in seconds
+     * @return the URL of the object
+     * @throws IOException if the URL could not be created
+     */
+    String getPresignedUrl(String bucketName, String objectName, int expirySeconds) throws IOException;
+
+    /**
+     * Lists the objects of a bucket in the order of the UTF-8 bytes of their names. The objects are read while the
+     * iterator is consumed; an error while reading them is thrown by the iterator as an UncheckedIOException.
+     *
+     * @param bucketName the name of the bucket
+     * @param pageSize   the number of objects read at a time
+     * @return the objects of the bucket
+     * @throws IOException if the listing could not be started
+     */
+    Iterator<ObjectStat> listObjects(String bucketName, int pageSize) throws IOException;
+
+    /**
+     * Removes objects with as few requests as the backend allows. An object that does not exist counts as removed.
+     *
+     * @param bucketName  the name of the bucket
+     * @param objectNames the names of the objects
+     * @return the names of the objects that could not be removed
+     * @throws IOException if none of the objects could be removed, e.g. because the backend is not reachable
+     */
+    List<String> removeObjects(String bucketName, List<String> objectNames) throws IOException;
+}
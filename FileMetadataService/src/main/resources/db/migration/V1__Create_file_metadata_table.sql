@@ -1,7 +1,7 @@
 CREATE SEQUENCE IF NOT EXISTS file_metadata_seq START WITH 1 INCREMENT BY 1;
 
 CREATE TABLE IF NOT EXISTS file_metadata (
-                                             id BIGSERIAL PRIMARY KEY DEFAULT nextval('file_metadata_seq'),
+                                             id BIGINT PRIMARY KEY DEFAULT nextval('file_metadata_seq'),
                                              file_url VARCHAR(1024) NOT NULL,
                                              file_name VARCHAR(255) NOT NULL,
                                              file_type VARCHAR(50) NOT NULL,
@@ -0,0 +1,3 @@
+ALTER TABLE file_metadata ADD COLUMN IF NOT EXISTS content_hash VARCHAR(64);
+
+CREATE INDEX IF NOT EXISTS idx_content_hash ON file_metadata(content_hash);
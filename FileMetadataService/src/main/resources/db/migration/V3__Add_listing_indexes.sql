@@ -0,0 +1,17 @@
+-- Indexes for the predicates findFiles generates: an optional file_type equality, an optional file_size range and the
+-- keyset condition id > cursor, ordered by id. The trailing id lets the planner apply the cursor inside the index.
+CREATE INDEX IF NOT EXISTS idx_file_type_size_id ON file_metadata(file_type, file_size, id);
+CREATE INDEX IF NOT EXISTS idx_file_type_id ON file_metadata(file_type, id);
+CREATE INDEX IF NOT EXISTS idx_file_size_id ON file_metadata(file_size, id);
+
+-- findByFileName expects at most one record per name; keep the most recent one of any duplicates
+DELETE FROM file_metadata duplicate
+    USING file_metadata newer
+    WHERE duplicate.file_name = newer.file_name
+      AND duplicate.id < newer.id;
+CREATE UNIQUE INDEX IF NOT EXISTS uq_file_name ON file_metadata(file_name);
+
+-- covered by the indexes above
+DROP INDEX IF EXISTS idx_file_type;
+DROP INDEX IF EXISTS idx_file_size;
+DROP INDEX IF EXISTS idx_file_name;
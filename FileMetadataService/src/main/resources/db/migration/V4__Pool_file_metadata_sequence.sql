@@ -0,0 +1,9 @@
+-- Ids are allocated in blocks of 50 by Hibernate's pooled optimizer, which takes every value returned by nextval as
+-- the upper end of a block, so a block starts right after the ids that were handed out one at a time before.
+-- Keep the increment equal to the allocationSize of FileMetadata.
+ALTER SEQUENCE file_metadata_seq INCREMENT BY 50;
+
+-- The first block is only free if the sequence is not behind any stored id, e.g. of rows inserted with explicit ids
+-- while the schema was managed by Hibernate; move it to the largest id if it is.
+SELECT setval('file_metadata_seq', GREATEST((SELECT COALESCE(MAX(id), 1) FROM file_metadata),
+                                            (SELECT last_value FROM file_metadata_seq)));
@@ -0,0 +1,3 @@
+-- The reconciliation job reads the names in the binary order MinIO lists objects in. The "C" collation compares the
+-- bytes of the names, so keyset pages of file_name COLLATE "C" are range scans of this index instead of sorts.
+CREATE INDEX IF NOT EXISTS idx_file_name_c ON file_metadata(file_name COLLATE "C");
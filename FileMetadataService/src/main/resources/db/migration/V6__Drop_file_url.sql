@@ -0,0 +1,3 @@
+-- The object key of a file is its name, so the stored URL only repeated it. Listings mint presigned URLs from the
+-- name when they are shown, and rows and their pages no longer carry up to 1024 characters of URL.
+ALTER TABLE file_metadata DROP COLUMN IF EXISTS file_url;
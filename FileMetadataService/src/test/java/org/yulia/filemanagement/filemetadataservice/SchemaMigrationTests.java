@@ -0,0 +1,112 @@
+package org.yulia.filemanagement.filemetadataservice;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.yulia.filemanagement.filemetadataservice.entity.FileMetadata;
+import org.yulia.filemanagement.filemetadataservice.repository.FileMetadataRepository;
+
+import java.time.LocalDateTime;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the Flyway migrations against PostgreSQL, which the other tests never do: they use H2 with a schema created by
+ * Hibernate. The application starts with ddl-auto=validate, so the context only loads if the migrated schema matches
+ * the entities. Needs Docker for the PostgreSQL container and is skipped without it.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@SpringBootTest(properties = {"eureka.client.enabled=false", "file.reconcile.enabled=false"})
+class SchemaMigrationTests {
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private FileMetadataRepository fileMetadataRepository;
+
+    @Test
+    void whenDatabaseIsEmpty_thenAllMigrationsRunAndTheEntitiesCanBeStored() {
+        assertEquals("6", jdbcTemplate.queryForObject(
+                "SELECT version FROM flyway_schema_history WHERE success ORDER BY installed_rank DESC LIMIT 1",
+                String.class));
+        assertFalse(hasColumn(jdbcTemplate, "public", "file_url"));
+        assertEquals(50L, incrementOf(jdbcTemplate, "public"));
+
+        var saved = fileMetadataRepository.saveAll(IntStream.range(0, 120)
+                .mapToObj(i -> file("migrated" + i + ".txt"))
+                .toList());
+        assertEquals(120, saved.stream().map(FileMetadata::getId).distinct().count());
+    }
+
+    @Test
+    void whenSchemaWasCreatedByHibernate_thenItIsBaselinedAndMigrated() {
+        // the schema ddl-auto=update created before the migrations ran: a required file_url and ids one at a time
+        var dataSource = new DriverManagerDataSource(postgres.getJdbcUrl(), postgres.getUsername(),
+                postgres.getPassword());
+        var jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("CREATE SCHEMA legacy");
+        jdbc.execute("CREATE SEQUENCE legacy.file_metadata_seq START WITH 1 INCREMENT BY 1");
+        jdbc.execute("CREATE TABLE legacy.file_metadata (id BIGINT NOT NULL PRIMARY KEY, "
+                + "file_url VARCHAR(1024) NOT NULL, file_name VARCHAR(255) NOT NULL, file_type VARCHAR(255) NOT NULL, "
+                + "file_size BIGINT NOT NULL, upload_date TIMESTAMP(6) NOT NULL)");
+        for (int i = 0; i < 3; i++) {
+            jdbc.update("INSERT INTO legacy.file_metadata VALUES (nextval('legacy.file_metadata_seq'), ?, ?, "
+                    + "'text/plain', 1, now())", "http://localhost:9000/file-storage/old" + i + ".txt",
+                    "old" + i + ".txt");
+        }
+        // a row with an id the sequence has not reached yet
+        jdbc.update("INSERT INTO legacy.file_metadata VALUES (500, 'http://localhost:9000/file-storage/imported.txt', "
+                + "'imported.txt', 'text/plain', 1, now())");
+
+        Flyway.configure()
+                .dataSource(dataSource)
+                .schemas("legacy")
+                .locations("classpath:db/migration")
+                .baselineOnMigrate(true)
+                .baselineVersion("1")
+                .load()
+                .migrate();
+
+        assertFalse(hasColumn(jdbc, "legacy", "file_url"));
+        assertTrue(hasColumn(jdbc, "legacy", "content_hash"));
+        assertEquals(50L, incrementOf(jdbc, "legacy"));
+        assertEquals(4, jdbc.queryForObject("SELECT count(*) FROM legacy.file_metadata", Integer.class));
+        // the pooled optimizer uses the 50 ids up to a value of nextval, none of which may be taken already
+        long blockStart = jdbc.queryForObject("SELECT nextval('legacy.file_metadata_seq')", Long.class) - 49;
+        assertTrue(blockStart > 500, "first pooled block starts at " + blockStart);
+    }
+
+    private static boolean hasColumn(JdbcTemplate jdbc, String schema, String column) {
+        return jdbc.queryForObject("SELECT count(*) FROM information_schema.columns WHERE table_schema = ? "
+                + "AND table_name = 'file_metadata' AND column_name = ?", Integer.class, schema, column) > 0;
+    }
+
+    private static long incrementOf(JdbcTemplate jdbc, String schema) {
+        return jdbc.queryForObject("SELECT increment_by FROM pg_sequences WHERE schemaname = ? "
+                + "AND sequencename = 'file_metadata_seq'", Long.class, schema);
+    }
+
+    private static FileMetadata file(String fileName) {
+        var file = new FileMetadata();
+        file.setFileName(fileName);
+        file.setFileType("text/plain");
+        file.setFileSize(1);
+        file.setUploadDate(LocalDateTime.now());
+        return file;
+    }
+}
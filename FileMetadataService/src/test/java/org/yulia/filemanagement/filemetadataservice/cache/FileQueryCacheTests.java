@@ -0,0 +1,119 @@
+package org.yulia.filemanagement.filemetadataservice.cache;
+
+import org.junit.jupiter.api.Test;
+import org.yulia.filemanagement.filemetadataservice.dto.FileMetadataDto;
+import org.yulia.filemanagement.filemetadataservice.dto.FilePageDto;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class FileQueryCacheTests {
+
+    private static FileQueryCache.Key key(String fileType, Long minSize, Long maxSize) {
+        return new FileQueryCache.Key(fileType, minSize, maxSize, null, null, null, 100);
+    }
+
+    private static FilePageDto page(int files) {
+        var file = new FileMetadataDto(1L, "file.txt", "text/plain", 100L, null, null);
+        return new FilePageDto(Collections.nCopies(files, file), null);
+    }
+
+    @Test
+    void whenPageIsCached_thenItIsReturnedAndCountedAsHit() {
+        var cache = new FileQueryCache(10, 1000);
+        var key = key("text/plain", null, null);
+
+        assertNull(cache.get(key));
+        cache.put(key, page(2), cache.generation());
+
+        assertNotNull(cache.get(key));
+        assertEquals(1L, cache.getStats().get("hits"));
+        assertEquals(1L, cache.getStats().get("misses"));
+    }
+
+    @Test
+    void whenEntryLimitIsReached_thenLeastRecentlyUsedPageIsEvicted() {
+        var cache = new FileQueryCache(2, 1000);
+        var first = key("a", null, null);
+        var second = key("b", null, null);
+        var third = key("c", null, null);
+
+        cache.put(first, page(1), cache.generation());
+        cache.put(second, page(1), cache.generation());
+        cache.get(first);
+        cache.put(third, page(1), cache.generation());
+
+        assertNotNull(cache.get(first));
+        assertNull(cache.get(second), "The least recently used page should be evicted");
+        assertNotNull(cache.get(third));
+        assertEquals(1L, cache.getStats().get("evictions"));
+    }
+
+    @Test
+    void whenWeightLimitIsReached_thenPagesAreEvictedUntilItFits() {
+        var cache = new FileQueryCache(100, 10);
+        var small = key("a", null, null);
+        var large = key("b", null, null);
+
+        cache.put(small, page(3), cache.generation());
+        cache.put(large, page(7), cache.generation());
+
+        assertNull(cache.get(small));
+        assertNotNull(cache.get(large));
+        assertEquals(8L, cache.getStats().get("weight"));
+    }
+
+    @Test
+    void whenFileChanges_thenOnlyPagesWithMatchingFiltersAreInvalidated() {
+        var cache = new FileQueryCache(10, 1000);
+        var sameType = key("text/plain", null, null);
+        var otherType = key("image/png", null, null);
+        var inRange = key(null, 50L, 150L);
+        var outOfRange = key(null, 200L, null);
+        var exactSize = new FileQueryCache.Key(null, 0L, 1000L, 99L, null, null, 100);
+        for (var key : List.of(sameType, otherType, inRange, outOfRange, exactSize)) {
+            cache.put(key, page(1), cache.generation());
+        }
+
+        cache.invalidate("text/plain", 100L, null);
+
+        assertNull(cache.get(sameType));
+        assertNotNull(cache.get(otherType));
+        assertNull(cache.get(inRange));
+        assertNotNull(cache.get(outOfRange));
+        assertNotNull(cache.get(exactSize), "An exact size replaces the size range");
+        assertEquals(2L, cache.getStats().get("invalidations"));
+    }
+
+    @Test
+    void whenPageWasReadBeforeInvalidation_thenItIsNotCached() {
+        var cache = new FileQueryCache(10, 1000);
+        var key = key("text/plain", null, null);
+        var generation = cache.generation();
+
+        cache.invalidate("image/png", 1L, null);
+        cache.put(key, page(1), generation);
+
+        assertNull(cache.get(key));
+    }
+
+    @Test
+    void whenAllPagesAreInvalidated_thenCacheIsEmptyAndStalePutsAreIgnored() {
+        var cache = new FileQueryCache(10, 1000);
+        var first = key("a", null, null);
+        var second = key("b", 10L, 20L);
+        var generation = cache.generation();
+        cache.put(first, page(1), generation);
+
+        cache.invalidateAll();
+        cache.put(second, page(1), generation);
+
+        assertNull(cache.get(first));
+        assertNull(cache.get(second));
+        assertEquals(0L, cache.getStats().get("weight"));
+    }
+}
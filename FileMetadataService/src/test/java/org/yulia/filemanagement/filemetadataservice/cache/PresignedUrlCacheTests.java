@@ -0,0 +1,62 @@
+package org.yulia.filemanagement.filemetadataservice.cache;
+
+import org.junit.jupiter.api.Test;
+import org.yulia.filemanagement.filemetadataservice.storage.ObjectStorage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PresignedUrlCacheTests {
+
+    private final ObjectStorage objectStorage = mock(ObjectStorage.class);
+
+    @Test
+    void whenUrlIsCached_thenItIsNotSignedAgain() throws Exception {
+        when(objectStorage.getPresignedUrl("bucket", "file.txt", 3600)).thenReturn("http://minio/file.txt?sig=1");
+        var cache = new PresignedUrlCache(objectStorage, "bucket", 3600, 1800, 10);
+
+        assertEquals("http://minio/file.txt?sig=1", cache.get("file.txt"));
+        assertEquals("http://minio/file.txt?sig=1", cache.get("file.txt"));
+
+        verify(objectStorage, times(1)).getPresignedUrl("bucket", "file.txt", 3600);
+    }
+
+    @Test
+    void whenTtlIsZero_thenEveryUrlIsSignedAgain() throws Exception {
+        when(objectStorage.getPresignedUrl(anyString(), anyString(), anyInt()))
+                .thenReturn("http://minio/file.txt?sig=1", "http://minio/file.txt?sig=2");
+        var cache = new PresignedUrlCache(objectStorage, "bucket", 3600, 0, 10);
+
+        assertEquals("http://minio/file.txt?sig=1", cache.get("file.txt"));
+        assertEquals("http://minio/file.txt?sig=2", cache.get("file.txt"));
+    }
+
+    @Test
+    void whenEntryLimitIsReached_thenLeastRecentlyUsedUrlIsEvicted() throws Exception {
+        when(objectStorage.getPresignedUrl(anyString(), anyString(), anyInt()))
+                .thenAnswer(invocation -> "http://minio/" + invocation.getArgument(1));
+        var cache = new PresignedUrlCache(objectStorage, "bucket", 3600, 1800, 2);
+
+        cache.get("first.txt");
+        cache.get("second.txt");
+        cache.get("first.txt");
+        cache.get("third.txt");
+        cache.get("first.txt");
+        cache.get("second.txt");
+
+        verify(objectStorage, times(1)).getPresignedUrl("bucket", "first.txt", 3600);
+        verify(objectStorage, times(2)).getPresignedUrl("bucket", "second.txt", 3600);
+    }
+
+    @Test
+    void whenTtlIsNotShorterThanExpiry_thenCacheIsRejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new PresignedUrlCache(objectStorage, "bucket", 3600, 3600, 10));
+    }
+}
@@ -12,22 +12,45 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.context.WebApplicationContext;
 import org.springframework.web.filter.CharacterEncodingFilter;
+import org.yulia.filemanagement.filemetadataservice.constants.SizeUnit;
+import org.yulia.filemanagement.filemetadataservice.dto.BulkDeleteResultDto;
+import org.yulia.filemanagement.filemetadataservice.dto.FileImportDto;
+import org.yulia.filemanagement.filemetadataservice.dto.FileMetadataDto;
+import org.yulia.filemanagement.filemetadataservice.dto.FilePageDto;
 import org.yulia.filemanagement.filemetadataservice.dto.FileQueryDto;
+import org.yulia.filemanagement.filemetadataservice.dto.FileRegistrationResultDto;
+import org.yulia.filemanagement.filemetadataservice.dto.FileUrlBatchDto;
 import org.yulia.filemanagement.filemetadataservice.dto.FileUrlDto;
-import org.yulia.filemanagement.filemetadataservice.entity.FileMetadata;
+import org.yulia.filemanagement.filemetadataservice.dto.ImportResultDto;
+import org.yulia.filemanagement.filemetadataservice.dto.StorageStatsDto;
+import org.yulia.filemanagement.filemetadataservice.search.FileNameIndex;
+import org.yulia.filemanagement.filemetadataservice.service.FileImportService;
 import org.yulia.filemanagement.filemetadataservice.service.FileMetadataService;
+import org.yulia.filemanagement.filemetadataservice.stats.StorageStatistics;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 import java.util.stream.Stream;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(FileMetadataController.class)
@@ -39,6 +62,15 @@ public class FileMetadataControllerTests {
     @MockBean
     private FileMetadataService fileMetadataService;
 
+    @MockBean
+    private FileImportService fileImportService;
+
+    @MockBean
+    private FileNameIndex fileNameIndex;
+
+    @MockBean
+    private StorageStatistics storageStatistics;
+
     @Autowired
     private WebApplicationContext webApplicationContext;
 
@@ -86,14 +118,11 @@ public class FileMetadataControllerTests {
     @MethodSource("provideValidFileQueryParams")
     void whenGetFiles_withValidParams_thenReturnsFiles(String fileType, Long minSize, Long maxSize, Long equalSize,
                                                        String sizeUnit) throws Exception {
-        FileMetadata fileMetadata = new FileMetadata();
-        fileMetadata.setFileName("example.txt");
-        fileMetadata.setFileType("text/plain");
-        fileMetadata.setFileSize(1024L);
-        fileMetadata.setFileUrl("http://example.com/example.txt");
-        List<FileMetadata> files = Collections.singletonList(fileMetadata);
+        FileMetadataDto fileMetadata = new FileMetadataDto(1L, "http://example.com/example.txt", "example.txt",
+                "text/plain", 1024L, null, null);
+        List<FileMetadataDto> files = Collections.singletonList(fileMetadata);
 
-        when(fileMetadataService.findFiles(any(FileQueryDto.class))).thenReturn(files);
+        when(fileMetadataService.findFiles(any(FileQueryDto.class), any(), any())).thenReturn(new FilePageDto(files, null));
 
         mockMvc.perform(get("/api/metadata/files")
                         .param("file_type", fileType)
@@ -112,14 +141,11 @@ public class FileMetadataControllerTests {
 
     @Test
     void whenGetFiles_withoutParams_thenReturnsFiles() throws Exception {
-        FileMetadata fileMetadata = new FileMetadata();
-        fileMetadata.setFileName("example.txt");
-        fileMetadata.setFileType("text/plain");
-        fileMetadata.setFileSize(1024L);
-        fileMetadata.setFileUrl("http://example.com/example.txt");
-        List<FileMetadata> files = Collections.singletonList(fileMetadata);
+        FileMetadataDto fileMetadata = new FileMetadataDto(1L, "http://example.com/example.txt", "example.txt",
+                "text/plain", 1024L, null, null);
+        List<FileMetadataDto> files = Collections.singletonList(fileMetadata);
 
-        when(fileMetadataService.findFiles(any(FileQueryDto.class))).thenReturn(files);
+        when(fileMetadataService.findFiles(any(FileQueryDto.class), any(), any())).thenReturn(new FilePageDto(files, null));
 
         mockMvc.perform(get("/api/metadata/files")
                         .contentType(MediaType.APPLICATION_JSON))
@@ -131,6 +157,103 @@ public class FileMetadataControllerTests {
                 .andExpect(jsonPath("$.data[0].fileUrl").value("http://example.com/example.txt"));
     }
 
+    @Test
+    void whenGetFiles_withCursor_thenReturnsPageAndNextCursor() throws Exception {
+        FileMetadataDto fileMetadata = new FileMetadataDto(10L, "example.txt", "text/plain", 1024L, null, null);
+        when(fileMetadataService.findFiles(any(FileQueryDto.class), eq("aWQ6MTA"), eq(1)))
+                .thenReturn(new FilePageDto(List.of(fileMetadata), "aWQ6MTE"));
+
+        mockMvc.perform(get("/api/metadata/files")
+                        .param("limit", "1")
+                        .param("after", "aWQ6MTA")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[0].fileName").value("example.txt"))
+                .andExpect(jsonPath("$.nextCursor").value("aWQ6MTE"));
+    }
+
+    @Test
+    void whenGetFiles_acceptingNdjson_thenStreamsOneFilePerLine() throws Exception {
+        FileMetadataDto first = new FileMetadataDto(1L, "first.txt", "text/plain", 1024L, null, null);
+        FileMetadataDto second = new FileMetadataDto(2L, "second.txt", "text/plain", 2048L, null, null);
+        doAnswer(invocation -> {
+            Consumer<FileMetadataDto> consumer = invocation.getArgument(1);
+            consumer.accept(first);
+            consumer.accept(second);
+            return 2L;
+        }).when(fileMetadataService).streamFiles(any(FileQueryDto.class), any());
+
+        MvcResult result = mockMvc.perform(get("/api/metadata/files")
+                        .accept("application/x-ndjson"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andReturn().getResponse().getContentAsString();
+        List<String> lines = body.lines().toList();
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(0).contains("\"fileName\":\"first.txt\""));
+        assertTrue(lines.get(1).contains("\"fileName\":\"second.txt\""));
+        verify(fileMetadataService, never()).findFiles(any(FileQueryDto.class), any(), any());
+    }
+
+    @Test
+    void whenGetFiles_acceptingAnything_thenReturnsPagedJson() throws Exception {
+        when(fileMetadataService.findFiles(any(FileQueryDto.class), any(), any()))
+                .thenReturn(new FilePageDto(List.of(), null));
+
+        mockMvc.perform(get("/api/metadata/files")
+                        .accept(MediaType.ALL))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.message").value("File search completed successfully"));
+
+        verify(fileMetadataService, never()).streamFiles(any(FileQueryDto.class), any());
+    }
+
+    @Test
+    void whenSearchFileNames_bySubstring_thenReturnsNamesFromIndex() throws Exception {
+        when(fileNameIndex.findBySubstring("report", 50)).thenReturn(List.of("annual-report.pdf"));
+
+        mockMvc.perform(get("/api/metadata/files/search")
+                        .param("name", "report")
+                        .param("match", "substring")
+                        .param("limit", "50"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.message").value("File name search completed successfully"))
+                .andExpect(jsonPath("$.data[0]").value("annual-report.pdf"));
+
+        verifyNoInteractions(fileMetadataService);
+    }
+
+    @Test
+    void whenSearchFileNames_withInvalidMatch_thenReturnsBadRequest() throws Exception {
+        mockMvc.perform(get("/api/metadata/files/search")
+                        .param("name", "report")
+                        .param("match", "suffix"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors[0]").value("Invalid match: suffix. Valid values are: prefix, substring."));
+
+        verifyNoInteractions(fileNameIndex);
+    }
+
+    @Test
+    void whenGetStats_thenReturnsInMemoryStatistics() throws Exception {
+        when(storageStatistics.getStats()).thenReturn(new StorageStatsDto(2, 3072,
+                Map.of("text/plain", new StorageStatsDto.Totals(2, 3072)),
+                Map.of("1KB-1MB", new StorageStatsDto.Totals(2, 3072)), null));
+
+        mockMvc.perform(get("/api/metadata/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.files").value(2))
+                .andExpect(jsonPath("$.data.bytes").value(3072))
+                .andExpect(jsonPath("$.data.byFileType['text/plain'].files").value(2))
+                .andExpect(jsonPath("$.data.bySize['1KB-1MB'].bytes").value(3072));
+
+        verifyNoInteractions(fileMetadataService);
+    }
+
     @ParameterizedTest
     @MethodSource("provideInvalidFileQueryDtos")
     void whenGetFiles_withInvalidParameters_thenReturnsBadRequest(String fileType, Long minSize, Long maxSize,
@@ -147,7 +270,7 @@ public class FileMetadataControllerTests {
                 .andExpect(jsonPath("$.message").value("Invalid argument"))
                 .andExpect(jsonPath("$.errors[0]").value(expectedErrorMessage));
 
-        verify(fileMetadataService, times(0)).findFiles(any(FileQueryDto.class)); // Ensure findFiles is not called
+        verify(fileMetadataService, times(0)).findFiles(any(FileQueryDto.class), any(), any()); // Ensure findFiles is not called
     }
 
     @Test
@@ -164,6 +287,151 @@ public class FileMetadataControllerTests {
         verify(fileMetadataService).registerFile(fileUrlDto);
     }
 
+    @Test
+    public void testRegisterFiles_AllRegistered() throws Exception {
+        List<FileUrlDto> files = List.of(new FileUrlDto("http://example.com/a.txt"),
+                new FileUrlDto("http://example.com/b.txt"));
+        when(fileMetadataService.registerFiles(files)).thenReturn(List.of(
+                new FileRegistrationResultDto("http://example.com/a.txt", "a.txt", 201, "File registered successfully"),
+                new FileRegistrationResultDto("http://example.com/b.txt", "b.txt", 201, "File registered successfully")));
+
+        mockMvc.perform(post("/api/metadata/register/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(new ObjectMapper().writeValueAsString(new FileUrlBatchDto(files))))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.message").value("Files registered successfully"))
+                .andExpect(jsonPath("$.data[1].fileName").value("b.txt"));
+
+        verify(fileMetadataService).registerFiles(files);
+    }
+
+    @Test
+    public void testRegisterFiles_SomeUpdated() throws Exception {
+        List<FileUrlDto> files = List.of(new FileUrlDto("http://example.com/a.txt"),
+                new FileUrlDto("http://example.com/b.txt"));
+        when(fileMetadataService.registerFiles(files)).thenReturn(List.of(
+                new FileRegistrationResultDto("http://example.com/a.txt", "a.txt", 201, "File registered successfully"),
+                new FileRegistrationResultDto("http://example.com/b.txt", "b.txt", 200,
+                        "File metadata updated successfully")));
+
+        mockMvc.perform(post("/api/metadata/register/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(new ObjectMapper().writeValueAsString(new FileUrlBatchDto(files))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[1].status").value(200));
+    }
+
+    @Test
+    public void testRegisterFiles_PartialFailure() throws Exception {
+        List<FileUrlDto> files = List.of(new FileUrlDto("http://example.com/a.txt"),
+                new FileUrlDto("http://example.com/missing.txt"));
+        when(fileMetadataService.registerFiles(files)).thenReturn(List.of(
+                new FileRegistrationResultDto("http://example.com/a.txt", "a.txt", 201, "File registered successfully"),
+                new FileRegistrationResultDto("http://example.com/missing.txt", null, 500, "Server-side error")));
+
+        mockMvc.perform(post("/api/metadata/register/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(new ObjectMapper().writeValueAsString(new FileUrlBatchDto(files))))
+                .andExpect(status().isMultiStatus())
+                .andExpect(jsonPath("$.data[1].status").value(500));
+    }
+
+    @Test
+    public void testRegisterFiles_EmptyBatch() throws Exception {
+        mockMvc.perform(post("/api/metadata/register/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"files\": []}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Invalid argument"));
+
+        verify(fileMetadataService, never()).registerFiles(any());
+    }
+
+    @Test
+    public void testImportFiles_Success() throws Exception {
+        List<FileImportDto> received = new ArrayList<>();
+        when(fileImportService.importFiles(any())).thenAnswer(invocation -> {
+            Iterator<FileImportDto> files = invocation.getArgument(0);
+            files.forEachRemaining(received::add);
+            return new ImportResultDto(2, 0, 0, 10, 200.0);
+        });
+
+        mockMvc.perform(post("/api/metadata/import")
+                        .contentType("application/x-ndjson")
+                        .content("{\"fileUrl\": \"http://example.com/a.txt\", \"fileType\": \"text/plain\", " +
+                                "\"fileSize\": 100, \"uploadDate\": \"2024-07-01T12:00:00\"}\n" +
+                                "{\"fileUrl\": \"http://example.com/b.txt\", \"fileName\": \"renamed.txt\", " +
+                                "\"fileSize\": 200}\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.message").value("Files imported successfully"))
+                .andExpect(jsonPath("$.data.imported").value(2))
+                .andExpect(jsonPath("$.data.rowsPerSecond").value(200.0));
+
+        assertEquals(2, received.size());
+        assertEquals("text/plain", received.get(0).fileType());
+        assertEquals("renamed.txt", received.get(1).fileName());
+        assertEquals(200L, received.get(1).fileSize());
+    }
+
+    @Test
+    public void testImportFiles_MalformedLine() throws Exception {
+        when(fileImportService.importFiles(any())).thenAnswer(invocation -> {
+            Iterator<FileImportDto> files = invocation.getArgument(0);
+            files.forEachRemaining(file -> { });
+            return new ImportResultDto(0, 0, 0, 0, 0);
+        });
+
+        mockMvc.perform(post("/api/metadata/import")
+                        .contentType("application/x-ndjson")
+                        .content("{\"fileUrl\": \"http://example.com/a.txt\", \"fileSize\": 100}\n{\"fileUrl\": "))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Invalid argument"));
+    }
+
+    @Test
+    public void testDeleteFiles_ByFilter() throws Exception {
+        when(fileMetadataService.deleteFiles(any(FileQueryDto.class), isNull(), eq(false)))
+                .thenReturn(new BulkDeleteResultDto(42, 0, List.of()));
+
+        mockMvc.perform(delete("/api/metadata/files")
+                        .param("file_type", "text/plain")
+                        .param("min_size", "1")
+                        .param("size_unit", "mb"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.message").value("Files deleted successfully"))
+                .andExpect(jsonPath("$.data.deleted").value(42));
+
+        verify(fileMetadataService).deleteFiles(new FileQueryDto("text/plain", 1L, null, null,
+                SizeUnit.mb, null), null, false);
+    }
+
+    @Test
+    public void testDeleteFiles_ByNameWithObjects() throws Exception {
+        when(fileMetadataService.deleteFiles(null, List.of("a.txt", "b.txt"), true))
+                .thenReturn(new BulkDeleteResultDto(2, 1, List.of("b.txt")));
+
+        mockMvc.perform(delete("/api/metadata/files")
+                        .param("file_name", "a.txt", "b.txt")
+                        .param("remove_objects", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.objectsRemoved").value(1))
+                .andExpect(jsonPath("$.data.objectFailures[0]").value("b.txt"));
+    }
+
+    @Test
+    public void testDeleteFiles_NamesAndFilterTogether() throws Exception {
+        mockMvc.perform(delete("/api/metadata/files")
+                        .param("file_name", "a.txt")
+                        .param("file_type", "text/plain"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Invalid argument"));
+
+        mockMvc.perform(delete("/api/metadata/files"))
+                .andExpect(status().isBadRequest());
+
+        verify(fileMetadataService, never()).deleteFiles(any(), any(), anyBoolean());
+    }
+
     @Test
     public void testDeleteFileMetadata_Success() throws Exception {
         String fileName = "example.txt";
@@ -0,0 +1,173 @@
+package org.yulia.filemanagement.filemetadataservice.reconcile;
+
+import io.minio.MinioClient;
+import io.minio.Result;
+import io.minio.StatObjectArgs;
+import io.minio.StatObjectResponse;
+import io.minio.errors.ErrorResponseException;
+import io.minio.messages.ErrorResponse;
+import io.minio.messages.Item;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.yulia.filemanagement.filemetadataservice.entity.FileMetadata;
+import org.yulia.filemanagement.filemetadataservice.repository.FileMetadataRepository;
+import org.yulia.filemanagement.filemetadataservice.service.FileObjectRemover;
+
+import java.time.LocalDateTime;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest(properties = {"file.reconcile.enabled=true", "file.reconcile.dry-run=false",
+        "file.reconcile.page.size=2", "file.reconcile.batch.size=2", "file.reconcile.requests.per.second=1000"})
+@ActiveProfiles("test")
+class StorageReconcilerIntegrationTests {
+
+    private static final ZonedDateTime LISTED_MODIFIED = ZonedDateTime.now().minusDays(2);
+
+    @Autowired
+    private StorageReconciler storageReconciler;
+
+    @Autowired
+    private FileMetadataRepository fileMetadataRepository;
+
+    @MockBean
+    private MinioClient minioClient;
+
+    @MockBean
+    private FileObjectRemover fileObjectRemover;
+
+    @BeforeEach
+    void setUp() {
+        fileMetadataRepository.deleteAll();
+    }
+
+    @Test
+    void whenBucketAndRecordsDrifted_thenOldOrphansOnBothSidesAreRepaired() throws Exception {
+        // Given
+        var old = LocalDateTime.now().minusDays(2);
+        saveFile("a.txt", old);
+        saveFile("b.txt", old);
+        saveFile("c.txt", old);
+        saveFile("e.txt", LocalDateTime.now());
+        saveFile("g.txt", old);
+        listObjects(object("a.txt", false), object("b.txt", false), object("d.txt", false), object("f.txt", true),
+                object("g.txt", false), object("h.txt", false));
+        when(minioClient.statObject(any(StatObjectArgs.class))).thenThrow(noSuchKey("c.txt"));
+        statObject("d.txt", LISTED_MODIFIED);
+        statObject("h.txt", LISTED_MODIFIED);
+        when(fileObjectRemover.removeObjects(any())).thenReturn(List.of());
+
+        // When
+        var result = storageReconciler.reconcile();
+
+        // Then
+        assertEquals(6, result.objectsScanned());
+        assertEquals(5, result.filesScanned());
+        assertEquals(2, result.orphanObjects());
+        assertEquals(1, result.orphanFiles());
+        assertEquals(2, result.objectsRemoved());
+        assertEquals(1, result.filesDeleted());
+        assertFalse(fileMetadataRepository.findByFileName("c.txt").isPresent());
+        assertTrue(fileMetadataRepository.findByFileName("e.txt").isPresent(), "A young record is kept");
+        verify(fileObjectRemover).removeObjects(argThat(names -> names.equals(List.of("d.txt", "h.txt"))));
+        assertEquals(result, storageReconciler.getLastResult());
+    }
+
+    @Test
+    void whenOrphanObjectIsUploadedAgainBeforeItsRemoval_thenItIsKept() throws Exception {
+        // Given
+        listObjects(object("d.txt", false));
+        statObject("d.txt", ZonedDateTime.now());
+
+        // When
+        var result = storageReconciler.reconcile();
+
+        // Then
+        assertEquals(1, result.orphanObjects());
+        assertEquals(0, result.objectsRemoved());
+        verify(fileObjectRemover, never()).removeObjects(any());
+    }
+
+    @Test
+    void whenOrphanRecordIsRegisteredAgainBeforeItsDeletion_thenItIsKept() throws Exception {
+        // Given
+        saveFile("c.txt", LocalDateTime.now().minusDays(2));
+        listObjects();
+        // the registration of a new upload of c.txt arrives while the missing object is being confirmed
+        doAnswer(invocation -> {
+            var file = fileMetadataRepository.findByFileName("c.txt").orElseThrow();
+            file.setUploadDate(LocalDateTime.now());
+            fileMetadataRepository.save(file);
+            throw noSuchKey("c.txt");
+        }).when(minioClient).statObject(any(StatObjectArgs.class));
+
+        // When
+        var result = storageReconciler.reconcile();
+
+        // Then
+        assertEquals(1, result.orphanFiles());
+        assertEquals(0, result.filesDeleted());
+        assertTrue(fileMetadataRepository.findByFileName("c.txt").isPresent());
+    }
+
+    @Test
+    void whenNamesAreCompared_thenTheOrderOfTheirCodePointsIsUsed() {
+        assertTrue(StorageReconciler.compareNames("a.txt", "b.txt") < 0);
+        assertTrue(StorageReconciler.compareNames("file", "file.txt") < 0);
+        assertTrue(StorageReconciler.compareNames("B.txt", "a.txt") < 0);
+        // a supplementary character sorts after every character of the basic plane, as in UTF-8
+        assertTrue(StorageReconciler.compareNames("\uD83D\uDE00.txt", "\uFF5E.txt") > 0);
+        assertEquals(0, StorageReconciler.compareNames("same.txt", "same.txt"));
+    }
+
+    private void listObjects(Item... objects) {
+        when(minioClient.listObjects(any())).thenReturn(Arrays.stream(objects).map(Result::new).toList());
+    }
+
+    private static Item object(String objectName, boolean young) {
+        Item item = mock(Item.class);
+        when(item.objectName()).thenReturn(objectName);
+        when(item.lastModified()).thenReturn(young ? ZonedDateTime.now() : LISTED_MODIFIED);
+        return item;
+    }
+
+    // answers a stat of the object with the given modification time
+    private void statObject(String objectName, ZonedDateTime lastModified) throws Exception {
+        StatObjectResponse stat = mock(StatObjectResponse.class);
+        when(stat.lastModified()).thenReturn(lastModified);
+        doReturn(stat).when(minioClient).statObject(
+                argThat((StatObjectArgs args) -> args != null && objectName.equals(args.object())));
+    }
+
+    private static ErrorResponseException noSuchKey(String objectName) {
+        return new ErrorResponseException(
+                new ErrorResponse("NoSuchKey", "Object does not exist", "uploads", objectName, null, null, null),
+                null, null);
+    }
+
+    private void saveFile(String fileName, LocalDateTime uploadDate) {
+        FileMetadata metadata = new FileMetadata();
+        metadata.setFileName(fileName);
+        metadata.setFileSize(100);
+        metadata.setFileType("text/plain");
+        metadata.setUploadDate(uploadDate);
+        fileMetadataRepository.save(metadata);
+    }
+}
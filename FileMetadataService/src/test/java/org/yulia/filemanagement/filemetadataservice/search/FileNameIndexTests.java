@@ -0,0 +1,71 @@
+package org.yulia.filemanagement.filemetadataservice.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.yulia.filemanagement.filemetadataservice.repository.FileMetadataRepository;
+
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class FileNameIndexTests {
+
+    private FileNameIndex fileNameIndex;
+
+    @BeforeEach
+    void setUp() {
+        FileMetadataRepository fileMetadataRepository = mock(FileMetadataRepository.class);
+        when(fileMetadataRepository.streamAllFileNames())
+                .thenReturn(Stream.of("Report-2024.pdf", "report-2025.pdf", "holiday.jpg", "annual-report.docx"));
+        fileNameIndex = new FileNameIndex(fileMetadataRepository);
+        fileNameIndex.build();
+    }
+
+    @Test
+    void whenSearchingByPrefix_thenNamesStartingWithItAreReturnedIgnoringCase() {
+        assertEquals(List.of("Report-2024.pdf", "report-2025.pdf"), fileNameIndex.findByPrefix("REPORT", 10));
+        assertEquals(List.of("Report-2024.pdf"), fileNameIndex.findByPrefix("report", 1));
+        assertEquals(List.of(), fileNameIndex.findByPrefix("x", 10));
+    }
+
+    @Test
+    void whenSearchingBySubstring_thenNamesContainingItAreReturned() {
+        assertEquals(List.of("Report-2024.pdf", "report-2025.pdf", "annual-report.docx"),
+                fileNameIndex.findBySubstring("PORT", 10));
+        assertEquals(List.of("report-2025.pdf"), fileNameIndex.findBySubstring("2025", 10));
+        // every trigram is indexed, but no single name contains all of them
+        assertEquals(List.of(), fileNameIndex.findBySubstring("annual-report-2024", 10));
+    }
+
+    @Test
+    void whenSubstringIsTooShort_thenThrowsIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class, () -> fileNameIndex.findBySubstring("pd", 10));
+    }
+
+    @Test
+    void whenNamesAreAddedAndRemoved_thenSearchesReflectIt() {
+        fileNameIndex.add("reports.zip");
+        fileNameIndex.remove("Report-2024.pdf");
+        fileNameIndex.remove("missing.txt");
+
+        assertEquals(List.of("report-2025.pdf", "reports.zip"), fileNameIndex.findByPrefix("rep", 10));
+        assertEquals(List.of("report-2025.pdf", "annual-report.docx", "reports.zip"),
+                fileNameIndex.findBySubstring("report", 10));
+        assertEquals(4, fileNameIndex.size());
+    }
+
+    @Test
+    void whenMostNamesAreRemoved_thenIndexIsCompactedAndStillCorrect() {
+        IntStream.range(0, 3000).forEach(i -> fileNameIndex.add("bulk" + i + ".bin"));
+        IntStream.range(0, 3000).filter(i -> i != 1234).forEach(i -> fileNameIndex.remove("bulk" + i + ".bin"));
+
+        assertEquals(List.of("bulk1234.bin"), fileNameIndex.findBySubstring("ulk", 10));
+        assertEquals(List.of("bulk1234.bin"), fileNameIndex.findByPrefix("bulk", 10));
+        assertEquals(5, fileNameIndex.size());
+    }
+}
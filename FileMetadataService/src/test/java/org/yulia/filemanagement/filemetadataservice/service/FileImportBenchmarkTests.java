@@ -0,0 +1,110 @@
+package org.yulia.filemanagement.filemetadataservice.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.yulia.filemanagement.filemetadataservice.dto.FileImportDto;
+import org.yulia.filemanagement.filemetadataservice.dto.FileUrlDto;
+import org.yulia.filemanagement.filemetadataservice.entity.FileMetadata;
+import org.yulia.filemanagement.filemetadataservice.repository.FileMetadataRepository;
+
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.stream.LongStream;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+// Compares the rate of registering files one by one through registerFile, with the storage lookup mocked away, with the
+// rate of the bulk import. The in-memory database has no network round trips, so the gap is smaller than against
+// PostgreSQL, where every statement of the per-row path waits for one.
+// Run with ./gradlew :FileMetadataService:benchmark
+@Tag("benchmark")
+@SpringBootTest
+@ActiveProfiles("test")
+public class FileImportBenchmarkTests {
+
+    private static final Logger logger = LoggerFactory.getLogger(FileImportBenchmarkTests.class);
+
+    private static final int REGISTERED_ROWS = 5_000;
+    private static final int IMPORTED_ROWS = 200_000;
+
+    @Autowired
+    private FileMetadataRepository fileMetadataRepository;
+
+    @Autowired
+    private FileMetadataService fileMetadataService;
+
+    @Autowired
+    private FileImportService fileImportService;
+
+    @MockBean
+    private FileMetadataExtractor fileMetadataExtractor;
+
+    @BeforeEach
+    void setUp() {
+        fileMetadataRepository.deleteAllInBatch();
+        when(fileMetadataExtractor.extractName(anyString()))
+                .thenAnswer(invocation -> name(invocation.getArgument(0)));
+        when(fileMetadataExtractor.extractMetadata(anyString(), anyString())).thenAnswer(invocation -> {
+            String fileUrl = invocation.getArgument(1);
+            var metadata = new FileMetadata();
+            metadata.setFileName(name(fileUrl));
+            metadata.setFileType("text/plain");
+            metadata.setFileSize(fileUrl.length());
+            metadata.setUploadDate(LocalDateTime.now());
+            return metadata;
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        fileMetadataRepository.deleteAllInBatch();
+    }
+
+    @Test
+    public void benchmarkPerRowRegistrationAgainstBulkImport() {
+        // warm up both paths
+        register("warmup", 500);
+        fileImportService.importFiles(files("warmup-import", 5_000));
+        fileMetadataRepository.deleteAllInBatch();
+
+        long start = System.nanoTime();
+        register("registered", REGISTERED_ROWS);
+        double registeredPerSecond = REGISTERED_ROWS * 1_000_000_000.0 / (System.nanoTime() - start);
+
+        var result = fileImportService.importFiles(files("imported", IMPORTED_ROWS));
+
+        logger.info(String.format("%-24s %-12s %-14s", "path", "rows", "rows per second"));
+        logger.info(String.format("%-24s %-12d %-14.0f", "per-row registration", REGISTERED_ROWS,
+                registeredPerSecond));
+        logger.info(String.format("%-24s %-12d %-14.0f", "bulk import", result.imported(), result.rowsPerSecond()));
+        logger.info(String.format("speedup: %.1fx", result.rowsPerSecond() / registeredPerSecond));
+    }
+
+    private void register(String prefix, int rows) {
+        for (int i = 0; i < rows; i++) {
+            fileMetadataService.registerFile(new FileUrlDto("http://minio:9000/uploads/" + prefix + i + ".txt"));
+        }
+    }
+
+    // generates the import lazily, as the controller reads it from the request body
+    private static Iterator<FileImportDto> files(String prefix, int rows) {
+        var uploadDate = LocalDateTime.now();
+        return LongStream.range(0, rows)
+                .mapToObj(i -> new FileImportDto("http://minio:9000/uploads/" + prefix + i + ".txt", null,
+                        "text/plain", i, uploadDate, null))
+                .iterator();
+    }
+
+    private static String name(String fileUrl) {
+        return fileUrl.substring(fileUrl.lastIndexOf('/') + 1);
+    }
+}
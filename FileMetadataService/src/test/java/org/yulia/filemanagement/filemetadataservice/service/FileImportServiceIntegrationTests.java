@@ -0,0 +1,138 @@
+package org.yulia.filemanagement.filemetadataservice.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.yulia.filemanagement.filemetadataservice.dto.FileImportDto;
+import org.yulia.filemanagement.filemetadataservice.entity.FileMetadata;
+import org.yulia.filemanagement.filemetadataservice.repository.FileMetadataRepository;
+import org.yulia.filemanagement.filemetadataservice.search.FileNameIndex;
+import org.yulia.filemanagement.filemetadataservice.stats.StorageStatistics;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest(properties = "file.import.chunk.size=4")
+@ActiveProfiles("test")
+class FileImportServiceIntegrationTests {
+
+    @Autowired
+    private FileImportService fileImportService;
+
+    @Autowired
+    private FileMetadataRepository fileMetadataRepository;
+
+    @Autowired
+    private FileNameIndex fileNameIndex;
+
+    @Autowired
+    private StorageStatistics storageStatistics;
+
+    @MockBean
+    private FileMetadataExtractor fileMetadataExtractor;
+
+    @BeforeEach
+    void setUp() {
+        fileMetadataRepository.deleteAll();
+        when(fileMetadataExtractor.extractName(anyString()))
+                .thenAnswer(invocation -> invocation.<String>getArgument(0)
+                        .substring(invocation.<String>getArgument(0).lastIndexOf('/') + 1));
+    }
+
+    private static FileImportDto file(String fileName, long fileSize) {
+        return new FileImportDto("http://example.com/" + fileName, null, "application/imported", fileSize,
+                LocalDateTime.now(), null);
+    }
+
+    @Test
+    void whenFilesAreImported_thenTheyAreStoredAcrossChunksWithDistinctIds() {
+        var files = IntStream.range(0, 10).mapToObj(i -> file("import" + i + ".bin", 100 + i)).toList();
+
+        var result = fileImportService.importFiles(files.iterator());
+
+        assertEquals(10, result.imported());
+        assertEquals(0, result.skipped());
+        assertEquals(0, result.rejected());
+        assertTrue(result.rowsPerSecond() > 0);
+        var stored = fileMetadataRepository.findAll();
+        assertEquals(10, stored.size());
+        assertEquals(10, stored.stream().map(FileMetadata::getId).distinct().count());
+        assertEquals(104L, fileMetadataRepository.findByFileName("import4.bin").orElseThrow().getFileSize());
+    }
+
+    @Test
+    void whenFilesAreRegisteredOrRepeated_thenTheyAreSkipped() {
+        fileImportService.importFiles(List.of(file("existing.bin", 1)).iterator());
+
+        var result = fileImportService.importFiles(List.of(file("existing.bin", 2), file("new.bin", 3),
+                file("new.bin", 4)).iterator());
+
+        assertEquals(1, result.imported());
+        assertEquals(2, result.skipped());
+        assertEquals(1L, fileMetadataRepository.findByFileName("existing.bin").orElseThrow().getFileSize());
+        assertEquals(3L, fileMetadataRepository.findByFileName("new.bin").orElseThrow().getFileSize());
+    }
+
+    @Test
+    void whenFilesAreImportedBetweenSaves_thenIdsNeverCollide() {
+        var saved = new FileMetadata();
+        saved.setFileName("saved-before.bin");
+        saved.setFileType("application/saved");
+        saved.setFileSize(1);
+        saved.setUploadDate(LocalDateTime.now());
+        fileMetadataRepository.save(saved);
+
+        var result = fileImportService.importFiles(IntStream.range(0, 120)
+                .mapToObj(i -> file("pooled" + i + ".bin", i)).iterator());
+
+        var after = new FileMetadata();
+        after.setFileName("saved-after.bin");
+        after.setFileType("application/saved");
+        after.setFileSize(1);
+        after.setUploadDate(LocalDateTime.now());
+        fileMetadataRepository.save(after);
+
+        assertEquals(120, result.imported());
+        var stored = fileMetadataRepository.findAll();
+        assertEquals(122, stored.size());
+        assertEquals(122, stored.stream().map(FileMetadata::getId).distinct().count());
+    }
+
+    @Test
+    void whenFilesLackUrlOrSize_thenTheyAreRejected() {
+        var result = fileImportService.importFiles(List.of(
+                new FileImportDto(null, "nourl.bin", null, 1L, null, null),
+                new FileImportDto("http://example.com/nosize.bin", null, null, null, null, null),
+                new FileImportDto("http://example.com/", null, null, 1L, null, null),
+                new FileImportDto("http://example.com/defaults.bin", null, null, 5L, null, null)).iterator());
+
+        assertEquals(1, result.imported());
+        assertEquals(3, result.rejected());
+        var stored = fileMetadataRepository.findByFileName("defaults.bin").orElseThrow();
+        assertEquals("unknown", stored.getFileType());
+        assertTrue(stored.getUploadDate() != null);
+    }
+
+    @Test
+    void whenFilesAreImported_thenNameIndexAndStatisticsAreUpdated() {
+        var before = storageStatistics.getStats().byFileType().get("application/counted");
+        long filesBefore = before == null ? 0 : before.files();
+
+        fileImportService.importFiles(List.of(
+                new FileImportDto("http://example.com/counted-a.bin", null, "application/counted", 10L, null, null),
+                new FileImportDto("http://example.com/counted-b.bin", null, "application/counted", 20L, null, null))
+                .iterator());
+
+        assertEquals(List.of("counted-a.bin", "counted-b.bin"), fileNameIndex.findByPrefix("counted-", 10));
+        assertEquals(filesBefore + 2, storageStatistics.getStats().byFileType().get("application/counted").files());
+    }
+}
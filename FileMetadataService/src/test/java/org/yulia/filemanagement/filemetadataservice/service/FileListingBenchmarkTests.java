@@ -0,0 +1,175 @@
+package org.yulia.filemanagement.filemetadataservice.service;
+
+import io.minio.MinioClient;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.yulia.filemanagement.filemetadataservice.cache.PresignedUrlCache;
+import org.yulia.filemanagement.filemetadataservice.constants.SizeUnit;
+import org.yulia.filemanagement.filemetadataservice.dto.FileQueryDto;
+import org.yulia.filemanagement.filemetadataservice.entity.FileMetadata;
+import org.yulia.filemanagement.filemetadataservice.repository.FileMetadataRepository;
+import org.yulia.filemanagement.filemetadataservice.search.FileNameIndex;
+import org.yulia.filemanagement.filemetadataservice.stats.StorageStatistics;
+import org.yulia.filemanagement.filemetadataservice.storage.MinioObjectStorage;
+
+import java.lang.management.ManagementFactory;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+// Compares listing all files page by page as managed entities, the way findFiles used to, with the DTO projection it
+// uses now, with file URLs hidden, signed for every listing, and served from the presigned URL cache. CPU time and
+// allocated bytes are measured on the calling thread, which also runs the in-memory database, so they cover the query,
+// the hydration of the rows and the signing of the URLs. The URLs are signed locally, no Minio server is needed.
+// Run with ./gradlew :FileMetadataService:benchmark
+@Tag("benchmark")
+@SpringBootTest
+@ActiveProfiles("test")
+public class FileListingBenchmarkTests {
+
+    private static final Logger logger = LoggerFactory.getLogger(FileListingBenchmarkTests.class);
+
+    private static final int ROWS = 1_000_000;
+    private static final int PAGE_SIZE = 1000;
+    private static final int INSERT_BATCH_SIZE = 10_000;
+
+    @Autowired
+    private FileMetadataRepository fileMetadataRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private FileNameIndex fileNameIndex;
+
+    @Autowired
+    private StorageStatistics storageStatistics;
+
+    @Autowired
+    private FileObjectRemover fileObjectRemover;
+
+    @MockBean
+    private FileMetadataExtractor fileMetadataExtractor;
+
+    @BeforeEach
+    void setUp() {
+        fileMetadataRepository.deleteAllInBatch();
+        var uploadDate = Timestamp.valueOf(LocalDateTime.now());
+        var hash = "0".repeat(64);
+        var rows = new ArrayList<Object[]>(INSERT_BATCH_SIZE);
+        for (long id = 1; id <= ROWS; id++) {
+            rows.add(new Object[]{id, "file" + id + ".txt", "text/plain", id, uploadDate, hash});
+            if (rows.size() == INSERT_BATCH_SIZE || id == ROWS) {
+                jdbcTemplate.batchUpdate("INSERT INTO file_metadata (id, file_name, file_type, file_size, " +
+                        "upload_date, content_hash) VALUES (?, ?, ?, ?, ?, ?)", rows);
+                rows.clear();
+            }
+        }
+        logger.info("Seeded {} files", ROWS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        fileMetadataRepository.deleteAllInBatch();
+    }
+
+    @Test
+    public void benchmarkEntitiesAgainstProjections() {
+        var storage = new MinioObjectStorage(MinioClient.builder()
+                .endpoint("http://minio:9000")
+                .credentials("minioadmin", "minioadmin")
+                .region("us-east-1")
+                .build());
+        var hidden = createService(false, new PresignedUrlCache(storage, "uploads", 3600, 0, ROWS));
+        // a TTL of 0 signs the URL of every listed file again
+        var signed = createService(true, new PresignedUrlCache(storage, "uploads", 3600, 0, ROWS));
+        var cached = createService(true, new PresignedUrlCache(storage, "uploads", 3600, 1800, ROWS));
+
+        // warm up every path on a part of the table, and fill the URL cache with all files
+        listEntities(20);
+        listProjections(hidden, 20);
+        listProjections(signed, 20);
+        listProjections(cached, Integer.MAX_VALUE);
+
+        logger.info(String.format("%-28s %-12s %-14s %-12s", "listing", "rows", "cpu (ms)", "alloc (MB)"));
+        report("entities", () -> listEntities(Integer.MAX_VALUE));
+        report("projections, url hidden", () -> listProjections(hidden, Integer.MAX_VALUE));
+        report("projections, url signed", () -> listProjections(signed, Integer.MAX_VALUE));
+        report("projections, url cached", () -> listProjections(cached, Integer.MAX_VALUE));
+    }
+
+    private FileMetadataService createService(boolean showFileUrl, PresignedUrlCache presignedUrlCache) {
+        return new FileMetadataService(fileMetadataRepository, fileMetadataExtractor, "uploads", showFileUrl, 500,
+                PAGE_SIZE, PAGE_SIZE, 500, 1000, entityManager, Optional.empty(), fileNameIndex,
+                storageStatistics, fileObjectRemover, presignedUrlCache);
+    }
+
+    // runs one listing and logs the CPU time and the memory it allocated on this thread
+    private void report(String listing, Listing round) {
+        var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long cpuBefore = threads.getCurrentThreadCpuTime();
+        long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+
+        long rows = round.run();
+
+        long cpu = (threads.getCurrentThreadCpuTime() - cpuBefore) / 1_000_000;
+        long allocated = (threads.getCurrentThreadAllocatedBytes() - allocatedBefore) / (1024 * 1024);
+        logger.info(String.format("%-28s %-12d %-14d %-12d", listing, rows, cpu, allocated));
+    }
+
+    // lists the files as managed entities, as the listing did before the projection
+    private long listEntities(int maxPages) {
+        long rows = 0;
+        long afterId = 0;
+        for (int page = 0; page < maxPages; page++) {
+            List<FileMetadata> files = entityManager
+                    .createQuery("select f from FileMetadata f where f.id > :afterId order by f.id",
+                            FileMetadata.class)
+                    .setParameter("afterId", afterId)
+                    .setMaxResults(PAGE_SIZE)
+                    .getResultList();
+            if (files.isEmpty()) {
+                break;
+            }
+            rows += files.size();
+            afterId = files.get(files.size() - 1).getId();
+        }
+        return rows;
+    }
+
+    // lists the files through the service, following the cursors
+    private long listProjections(FileMetadataService service, int maxPages) {
+        var queryDto = new FileQueryDto(null, null, null, null, SizeUnit.bytes);
+        long rows = 0;
+        String cursor = null;
+        for (int page = 0; page < maxPages; page++) {
+            var filePage = service.findFiles(queryDto, cursor, PAGE_SIZE);
+            rows += filePage.files().size();
+            cursor = filePage.nextCursor();
+            if (cursor == null) {
+                break;
+            }
+        }
+        return rows;
+    }
+
+    @FunctionalInterface
+    private interface Listing {
+        long run();
+    }
+}
@@ -13,7 +13,9 @@ import org.junit.jupiter.api.function.Executable;
 import org.junit.jupiter.params.provider.Arguments;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.yulia.filemanagement.filemetadataservice.dto.FileUrlDto;
 import org.yulia.filemanagement.filemetadataservice.entity.FileMetadata;
+import org.yulia.filemanagement.filemetadataservice.storage.MinioObjectStorage;
 
 import okhttp3.MediaType;
 import okhttp3.Protocol;
@@ -21,6 +23,7 @@ import okhttp3.Request;
 import okhttp3.Response;
 import okhttp3.ResponseBody;
 import io.minio.messages.ErrorResponse;
+import io.minio.messages.Tags;
 
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.MethodSource;
@@ -31,6 +34,7 @@ import java.security.NoSuchAlgorithmException;
 import java.time.Duration;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.util.Map;
 import java.util.stream.Stream;
 
 import java.time.LocalDateTime;
@@ -47,7 +51,7 @@ public class FileMetadataExtractorTests {
     @BeforeEach
     public void setUp() {
         MockitoAnnotations.initMocks(this);
-        extractor = new FileMetadataExtractor(minioClient);
+        extractor = new FileMetadataExtractor(new MinioObjectStorage(minioClient), 0);
     }
 
     @Test
@@ -67,7 +71,6 @@ public class FileMetadataExtractorTests {
         FileMetadata metadata = extractor.extractMetadata(bucketName, fileUrl);
 
         assertNotNull(metadata);
-        assertEquals("http://minio.example.com/test-bucket/testfile.txt", metadata.getFileUrl()); // Ensure query parameters are not included
         assertEquals(fileName, metadata.getFileName());
         assertEquals(fileType, metadata.getFileType());
         assertEquals(fileSize, metadata.getFileSize());
@@ -76,6 +79,93 @@ public class FileMetadataExtractorTests {
         verify(minioClient).statObject(any());
     }
 
+    @Test
+    public void testExtractMetadata_ContentHashTag_IsExtracted() throws Exception {
+        String bucketName = "test-bucket";
+        String fileUrl = "http://minio.example.com/test-bucket/testfile.txt?query=string";
+        String contentHash = "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08";
+
+        StatObjectResponse statObjectResponse = mock(StatObjectResponse.class);
+        when(statObjectResponse.size()).thenReturn(4L);
+        when(statObjectResponse.contentType()).thenReturn("text/plain");
+        when(minioClient.statObject(any())).thenReturn(statObjectResponse);
+        when(minioClient.getObjectTags(any())).thenReturn(Tags.newObjectTags(Map.of("sha256", contentHash)));
+
+        FileMetadata metadata = extractor.extractMetadata(bucketName, fileUrl);
+
+        assertEquals(contentHash, metadata.getContentHash());
+    }
+
+    @Test
+    public void testExtractMetadata_UnreadableTags_NoContentHash() throws Exception {
+        String bucketName = "test-bucket";
+        String fileUrl = "http://minio.example.com/test-bucket/testfile.txt";
+
+        StatObjectResponse statObjectResponse = mock(StatObjectResponse.class);
+        when(statObjectResponse.size()).thenReturn(4L);
+        when(minioClient.statObject(any())).thenReturn(statObjectResponse);
+        when(minioClient.getObjectTags(any())).thenThrow(new IOException("Connection reset"));
+
+        FileMetadata metadata = extractor.extractMetadata(bucketName, fileUrl);
+
+        assertNotNull(metadata);
+        assertNull(metadata.getContentHash());
+    }
+
+    @Test
+    public void testExtractMetadata_PassedAttributes_SkipsStat() throws Exception {
+        String fileUrl = "http://minio.example.com/test-bucket/testfile.txt?query=string";
+        FileUrlDto fileUrlDto = new FileUrlDto(fileUrl, 2048L, "text/plain", "\"etag\"", "hash");
+
+        FileMetadata metadata = extractor.extractMetadata("test-bucket", fileUrlDto);
+
+        assertEquals("testfile.txt", metadata.getFileName());
+        assertEquals("text/plain", metadata.getFileType());
+        assertEquals(2048L, metadata.getFileSize());
+        assertEquals("hash", metadata.getContentHash());
+        verifyNoInteractions(minioClient);
+    }
+
+    @Test
+    public void testExtractMetadata_SampledAttributesMatch_TrustsThem() throws Exception {
+        extractor = new FileMetadataExtractor(new MinioObjectStorage(minioClient), 1);
+        FileUrlDto fileUrlDto = new FileUrlDto("http://minio.example.com/test-bucket/testfile.txt", 2048L,
+                "text/plain", "etag", "hash");
+        when(statObjectResponse.size()).thenReturn(2048L);
+        when(statObjectResponse.contentType()).thenReturn("text/plain");
+        when(statObjectResponse.etag()).thenReturn("\"etag\"");
+        when(minioClient.statObject(any())).thenReturn(statObjectResponse);
+
+        FileMetadata metadata = extractor.extractMetadata("test-bucket", fileUrlDto);
+
+        assertEquals("hash", metadata.getContentHash());
+        verify(minioClient).statObject(any());
+        verify(minioClient, never()).getObjectTags(any());
+    }
+
+    @Test
+    public void testExtractMetadata_SampledAttributesMismatch_ExtractsFromMinio() throws Exception {
+        extractor = new FileMetadataExtractor(new MinioObjectStorage(minioClient), 1);
+        FileUrlDto fileUrlDto = new FileUrlDto("http://minio.example.com/test-bucket/testfile.txt", 2048L,
+                "text/plain", "etag", "hash");
+        when(statObjectResponse.size()).thenReturn(4096L);
+        when(statObjectResponse.contentType()).thenReturn("text/plain");
+        when(statObjectResponse.etag()).thenReturn("other");
+        when(minioClient.statObject(any())).thenReturn(statObjectResponse);
+
+        FileMetadata metadata = extractor.extractMetadata("test-bucket", fileUrlDto);
+
+        assertEquals(4096L, metadata.getFileSize());
+        assertNull(metadata.getContentHash());
+        verify(minioClient, times(2)).statObject(any());
+    }
+
+    @Test
+    public void testConstructor_InvalidVerifyFraction_ThrowsException() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new FileMetadataExtractor(new MinioObjectStorage(minioClient), 1.5));
+    }
+
     @Test
     public void testExtractMetadata_NullLink_ThrowsException() {
         String bucketName = "test-bucket";
@@ -187,7 +277,6 @@ public class FileMetadataExtractorTests {
         FileMetadata metadata = extractor.extractMetadata(bucketName, fileUrl);
 
         assertNotNull(metadata, "Metadata should not be null");
-        assertEquals("minio.example.comtestfile.txt", metadata.getFileUrl(), "File URL should be correctly extracted without parameters");
         assertEquals("minio.example.comtestfile.txt", metadata.getFileName(), "File name should match the URL path when no '/' present");
         assertEquals(1234L, metadata.getFileSize(), "File size should be correctly set");
         assertEquals("text/plain", metadata.getFileType(), "File type should be correctly set");
@@ -213,7 +302,6 @@ public class FileMetadataExtractorTests {
         FileMetadata metadata = extractor.extractMetadata("test-bucket", fileUrl);
 
         assertNotNull(metadata, "Metadata should not be null");
-        assertEquals(fileUrl.split("\\?")[0], metadata.getFileUrl(), "File URL should be correctly extracted without parameters");
         assertEquals(fileName, metadata.getFileName(), "File name should match the provided one");
         assertEquals(fileSize, metadata.getFileSize(), "File size should match the provided one");
     }
@@ -7,17 +7,37 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.test.context.ActiveProfiles;
 import org.yulia.filemanagement.filemetadataservice.constants.SizeUnit;
+import org.yulia.filemanagement.filemetadataservice.dto.FileMetadataDto;
+import org.yulia.filemanagement.filemetadataservice.dto.FilePageDto;
 import org.yulia.filemanagement.filemetadataservice.dto.FileQueryDto;
+import org.yulia.filemanagement.filemetadataservice.dto.FileRegistrationResultDto;
 import org.yulia.filemanagement.filemetadataservice.dto.FileUrlDto;
 import org.yulia.filemanagement.filemetadataservice.entity.FileMetadata;
 import org.yulia.filemanagement.filemetadataservice.repository.FileMetadataRepository;
+import org.yulia.filemanagement.filemetadataservice.search.FileNameIndex;
+import org.yulia.filemanagement.filemetadataservice.stats.StorageStatistics;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 
@@ -31,9 +51,18 @@ class FileMetadataServiceIntegrationTests {
     @Autowired
     private FileMetadataService fileMetadataService;
 
+    @Autowired
+    private FileNameIndex fileNameIndex;
+
+    @Autowired
+    private StorageStatistics storageStatistics;
+
     @MockBean
     private FileMetadataExtractor fileMetadataExtractor;
 
+    @MockBean
+    private FileObjectRemover fileObjectRemover;
+
     @BeforeEach
     void setUp() {
         fileMetadataRepository.deleteAll();
@@ -46,7 +75,6 @@ class FileMetadataServiceIntegrationTests {
         FileUrlDto fileUrlDto = new FileUrlDto(fileUrl);
         FileMetadata extractedMetadata = new FileMetadata();
         extractedMetadata.setFileName("file.txt");
-        extractedMetadata.setFileUrl(fileUrl);
         extractedMetadata.setFileSize(1234);
         extractedMetadata.setFileType("text/plain");
         extractedMetadata.setUploadDate(LocalDateTime.now());
@@ -63,12 +91,29 @@ class FileMetadataServiceIntegrationTests {
                 "successfully");
     }
 
+    @Test
+    void whenRegisterFile_withObjectAttributes_thenPassedAttributesAreUsed() {
+        String fileUrl = "http://example.com/passed.txt";
+        FileUrlDto fileUrlDto = new FileUrlDto(fileUrl, 2048L, "text/plain", "etag", null);
+        FileMetadata passedMetadata = new FileMetadata();
+        passedMetadata.setFileSize(2048);
+        passedMetadata.setFileType("text/plain");
+        passedMetadata.setUploadDate(LocalDateTime.now());
+
+        when(fileMetadataExtractor.extractName(fileUrl)).thenReturn("passed.txt");
+        when(fileMetadataExtractor.extractMetadata(anyString(), eq(fileUrlDto))).thenReturn(passedMetadata);
+
+        fileMetadataService.registerFile(fileUrlDto);
+
+        assertEquals(2048, fileMetadataRepository.findByFileName("passed.txt").orElseThrow().getFileSize());
+        verify(fileMetadataExtractor, never()).extractMetadata(anyString(), anyString());
+    }
+
     @Test
     void whenAddNewFile_andTableHasDifferentFile_thenTwoRecordsInTable() {
         // Given
         FileMetadata existingMetadata = new FileMetadata();
         existingMetadata.setFileName("existingFile.txt");
-        existingMetadata.setFileUrl("http://example.com/existingFile.txt");
         existingMetadata.setFileSize(2048);
         existingMetadata.setFileType("application/pdf");
         existingMetadata.setUploadDate(LocalDateTime.now());
@@ -78,7 +123,6 @@ class FileMetadataServiceIntegrationTests {
         FileUrlDto fileUrlDto = new FileUrlDto(fileUrl);
         FileMetadata extractedMetadata = new FileMetadata();
         extractedMetadata.setFileName("newFile.txt");
-        extractedMetadata.setFileUrl(fileUrl);
         extractedMetadata.setFileSize(1234);
         extractedMetadata.setFileType("text/plain");
         extractedMetadata.setUploadDate(LocalDateTime.now());
@@ -102,7 +146,6 @@ class FileMetadataServiceIntegrationTests {
         // Given
         FileMetadata existingMetadata = new FileMetadata();
         existingMetadata.setFileName("existingFile.txt");
-        existingMetadata.setFileUrl("http://example.com/existingFile.txt");
         existingMetadata.setFileSize(1234);
         existingMetadata.setFileType("text/plain");
         existingMetadata.setUploadDate(LocalDateTime.now());
@@ -112,7 +155,6 @@ class FileMetadataServiceIntegrationTests {
         FileUrlDto fileUrlDto = new FileUrlDto(fileUrl);
         FileMetadata extractedMetadata = new FileMetadata();
         extractedMetadata.setFileName("newFile.txt");
-        extractedMetadata.setFileUrl(fileUrl);
         extractedMetadata.setFileSize(1234);
         extractedMetadata.setFileType("text/plain");
         extractedMetadata.setUploadDate(LocalDateTime.now());
@@ -136,7 +178,6 @@ class FileMetadataServiceIntegrationTests {
         // Given
         FileMetadata existingMetadata = new FileMetadata();
         existingMetadata.setFileName("existingFile.txt");
-        existingMetadata.setFileUrl("http://example.com/existingFile.txt");
         existingMetadata.setFileSize(1234);
         existingMetadata.setFileType("text/plain");
         existingMetadata.setUploadDate(LocalDateTime.now());
@@ -147,7 +188,6 @@ class FileMetadataServiceIntegrationTests {
         FileUrlDto fileUrlDto = new FileUrlDto(fileUrl);
         FileMetadata extractedMetadata = new FileMetadata();
         //extractedMetadata.setFileName("existingFile.txt");
-        extractedMetadata.setFileUrl(fileUrl);
         extractedMetadata.setFileSize(1234);
         extractedMetadata.setFileType("text/plain");
         extractedMetadata.setUploadDate(LocalDateTime.now());
@@ -170,8 +210,6 @@ class FileMetadataServiceIntegrationTests {
                 "File size should be the same");
         assertEquals(existingMetadata.getFileType(), retrievedMetadata.get().getFileType(),
                 "File type should be the same");
-        assertEquals(existingMetadata.getFileUrl(), retrievedMetadata.get().getFileUrl(),
-                "File URL should be the same");
     }
 
     @Test
@@ -179,7 +217,6 @@ class FileMetadataServiceIntegrationTests {
         // Given
         FileMetadata existingMetadata = new FileMetadata();
         existingMetadata.setFileName("existingFile.txt");
-        existingMetadata.setFileUrl("http://example.com/existingFile.txt");
         existingMetadata.setFileSize(1234);
         existingMetadata.setFileType("text/plain");
         existingMetadata.setUploadDate(LocalDateTime.now());
@@ -189,7 +226,6 @@ class FileMetadataServiceIntegrationTests {
         FileUrlDto newFileUrlDto = new FileUrlDto(newFileUrl);
         FileMetadata extractedMetadata = new FileMetadata();
         extractedMetadata.setFileName("newFile.txt");
-        extractedMetadata.setFileUrl(newFileUrl);
         extractedMetadata.setFileSize(1234);
         extractedMetadata.setFileType("text/plain");
         extractedMetadata.setUploadDate(LocalDateTime.now());
@@ -211,8 +247,59 @@ class FileMetadataServiceIntegrationTests {
                 " same");
         assertEquals(extractedMetadata.getFileType(), retrievedMetadata.get().getFileType(), "File type should be the" +
                 " same");
-        assertEquals(extractedMetadata.getFileUrl(), retrievedMetadata.get().getFileUrl(), "File URL should be the " +
-                "same");
+    }
+
+    @Test
+    void whenRegisterFiles_withNewAndExistingFiles_thenAllAreSavedInOneBatch() {
+        // Given
+        FileMetadata existingMetadata = new FileMetadata();
+        existingMetadata.setFileName("existingFile.txt");
+        existingMetadata.setFileSize(1234);
+        existingMetadata.setFileType("text/plain");
+        existingMetadata.setUploadDate(LocalDateTime.now());
+        fileMetadataRepository.save(existingMetadata);
+        Long originalId = existingMetadata.getId();
+
+        String existingUrl = "http://example.com/existingFile.txt";
+        String newUrl = "http://example.com/newFile.txt";
+        String missingUrl = "http://example.com/missingFile.txt";
+        FileMetadata updatedMetadata = new FileMetadata();
+        updatedMetadata.setFileName("existingFile.txt");
+        updatedMetadata.setFileSize(4321);
+        updatedMetadata.setFileType("text/plain");
+        updatedMetadata.setUploadDate(LocalDateTime.now());
+        FileMetadata newMetadata = new FileMetadata();
+        newMetadata.setFileName("newFile.txt");
+        newMetadata.setFileSize(2048);
+        newMetadata.setFileType("application/pdf");
+        newMetadata.setUploadDate(LocalDateTime.now());
+
+        when(fileMetadataExtractor.extractName(existingUrl)).thenReturn("existingFile.txt");
+        when(fileMetadataExtractor.extractName(newUrl)).thenReturn("newFile.txt");
+        when(fileMetadataExtractor.extractMetadata(anyString(), eq(existingUrl))).thenReturn(updatedMetadata);
+        when(fileMetadataExtractor.extractMetadata(anyString(), eq(newUrl))).thenReturn(newMetadata);
+        when(fileMetadataExtractor.extractMetadata(anyString(), eq(missingUrl)))
+                .thenThrow(new RuntimeException("Server-side error: Object does not exist"));
+
+        // When
+        List<FileRegistrationResultDto> results = fileMetadataService.registerFiles(List.of(
+                new FileUrlDto(existingUrl), new FileUrlDto(newUrl), new FileUrlDto(missingUrl)));
+
+        // Then
+        assertEquals(List.of(200, 201, 500), results.stream().map(FileRegistrationResultDto::status).toList(),
+                "Every file should have its own outcome, in request order");
+        assertEquals(2, fileMetadataRepository.count(), "There should be two records in the repository");
+        Optional<FileMetadata> retrievedMetadata = fileMetadataRepository.findByFileName("existingFile.txt");
+        assertTrue(retrievedMetadata.isPresent(), "Existing file should be present in the repository");
+        assertEquals(originalId, retrievedMetadata.get().getId(), "The ID of the existing file should not change");
+        assertEquals(4321, retrievedMetadata.get().getFileSize(), "Existing file should be updated");
+        assertTrue(fileMetadataRepository.findByFileName("newFile.txt").isPresent(), "New file should be " +
+                "registered successfully");
+    }
+
+    @Test
+    void whenRegisterFiles_withEmptyBatch_thenThrowsException() {
+        assertThrows(IllegalArgumentException.class, () -> fileMetadataService.registerFiles(List.of()));
     }
 
     @Test
@@ -220,14 +307,12 @@ class FileMetadataServiceIntegrationTests {
         // Given
         FileMetadata file1 = new FileMetadata();
         file1.setFileName("file1.txt");
-        file1.setFileUrl("http://example.com/file1.txt");
         file1.setFileSize(1234);
         file1.setFileType("text/plain");
         file1.setUploadDate(LocalDateTime.now());
 
         FileMetadata file2 = new FileMetadata();
         file2.setFileName("file2.txt");
-        file2.setFileUrl("http://example.com/file2.txt");
         file2.setFileSize(2048);
         file2.setFileType("application/pdf");
         file2.setUploadDate(LocalDateTime.now());
@@ -238,13 +323,13 @@ class FileMetadataServiceIntegrationTests {
         FileQueryDto queryDto = new FileQueryDto(null, null, null, null, null);
 
         // When
-        List<FileMetadata> result = fileMetadataService.findFiles(queryDto);
+        List<FileMetadataDto> result = fileMetadataService.findFiles(queryDto, null, null).files();
 
         // Then
         assertEquals(2, result.size(), "All files should be returned");
-        assertTrue(result.stream().anyMatch(file -> file.getFileName().equals("file1.txt")), "file1.txt should be " +
+        assertTrue(result.stream().anyMatch(file -> file.fileName().equals("file1.txt")), "file1.txt should be " +
                 "present");
-        assertTrue(result.stream().anyMatch(file -> file.getFileName().equals("file2.txt")), "file2.txt should be " +
+        assertTrue(result.stream().anyMatch(file -> file.fileName().equals("file2.txt")), "file2.txt should be " +
                 "present");
     }
 
@@ -253,28 +338,24 @@ class FileMetadataServiceIntegrationTests {
         // Given
         FileMetadata file1 = new FileMetadata();
         file1.setFileName("file1.txt");
-        file1.setFileUrl("http://example.com/file1.txt");
         file1.setFileSize(500 * 1024 * 1024); // 500 MB
         file1.setFileType("text/plain");
         file1.setUploadDate(LocalDateTime.now());
 
         FileMetadata file2 = new FileMetadata();
         file2.setFileName("file2.txt");
-        file2.setFileUrl("http://example.com/file2.txt");
         file2.setFileSize(2 * 1024 * 1024 * 1024L); // 2 GB
         file2.setFileType("application/pdf");
         file2.setUploadDate(LocalDateTime.now());
 
         FileMetadata file3 = new FileMetadata();
         file3.setFileName("file3.txt");
-        file3.setFileUrl("http://example.com/file3.txt");
         file3.setFileSize(5 * 1024 * 1024 * 1024L); // 5 GB
         file3.setFileType("application/pdf");
         file3.setUploadDate(LocalDateTime.now());
 
         FileMetadata file4 = new FileMetadata();
         file4.setFileName("file4.txt");
-        file4.setFileUrl("http://example.com/file4.txt");
         file4.setFileSize(1024L); // 1 KB
         file4.setFileType("unknown");
         file4.setUploadDate(LocalDateTime.now());
@@ -286,54 +367,292 @@ class FileMetadataServiceIntegrationTests {
 
         // Test case 1: SizeUnit = gb, excluding equalSize
         FileQueryDto queryDto1 = new FileQueryDto(null, 1L, 4L, null, SizeUnit.gb);
-        List<FileMetadata> result1 = fileMetadataService.findFiles(queryDto1);
+        List<FileMetadataDto> result1 = fileMetadataService.findFiles(queryDto1, null, null).files();
         assertEquals(1, result1.size(), "Only one file should match the criteria");
-        assertTrue(result1.stream().anyMatch(file -> file.getFileName().equals("file2.txt")), "file2.txt should be " +
+        assertTrue(result1.stream().anyMatch(file -> file.fileName().equals("file2.txt")), "file2.txt should be " +
                 "present");
 
         // Test case 2: excluding SizeUnit, max and min size, checking equalSize in bytes
         FileQueryDto queryDto2 = new FileQueryDto(null, null, null, 1024L, SizeUnit.bytes);
-        List<FileMetadata> result2 = fileMetadataService.findFiles(queryDto2);
+        List<FileMetadataDto> result2 = fileMetadataService.findFiles(queryDto2, null, null).files();
         assertEquals(1, result2.size(), "Only one file should match the criteria");
-        assertTrue(result2.stream().anyMatch(file -> file.getFileName().equals("file4.txt")), "file4.txt should be " +
+        assertTrue(result2.stream().anyMatch(file -> file.fileName().equals("file4.txt")), "file4.txt should be " +
                 "present");
 
         // Test case 3: Filter only by file type
         FileQueryDto queryDto3 = new FileQueryDto("application/pdf", null, null, null, SizeUnit.bytes);
-        List<FileMetadata> result3 = fileMetadataService.findFiles(queryDto3);
+        List<FileMetadataDto> result3 = fileMetadataService.findFiles(queryDto3, null, null).files();
         assertEquals(2, result3.size(), "Two files should match the criteria");
-        assertTrue(result3.stream().anyMatch(file -> file.getFileName().equals("file2.txt")), "file2.txt should be " +
+        assertTrue(result3.stream().anyMatch(file -> file.fileName().equals("file2.txt")), "file2.txt should be " +
                 "present");
-        assertTrue(result3.stream().anyMatch(file -> file.getFileName().equals("file3.txt")), "file3.txt should be " +
+        assertTrue(result3.stream().anyMatch(file -> file.fileName().equals("file3.txt")), "file3.txt should be " +
                 "present");
 
         // Test case 4: Filter by file type unknown
         FileQueryDto queryDto4 = new FileQueryDto("unknown", null, null, null, SizeUnit.bytes);
-        List<FileMetadata> result4 = fileMetadataService.findFiles(queryDto4);
+        List<FileMetadataDto> result4 = fileMetadataService.findFiles(queryDto4, null, null).files();
         assertEquals(1, result4.size(), "Only one file should match the criteria");
-        assertTrue(result4.stream().anyMatch(file -> file.getFileName().equals("file4.txt")), "file4.txt should be " +
+        assertTrue(result4.stream().anyMatch(file -> file.fileName().equals("file4.txt")), "file4.txt should be " +
                 "present");
 
         // Test case 5: no parameters at all with SizeUnit = bytes
         FileQueryDto queryDto5 = new FileQueryDto(null, null, null, null, SizeUnit.bytes);
-        List<FileMetadata> result5 = fileMetadataService.findFiles(queryDto5);
+        List<FileMetadataDto> result5 = fileMetadataService.findFiles(queryDto5, null, null).files();
         assertEquals(4, result5.size(), "All files match criteria");
-        assertTrue(result5.stream().anyMatch(file -> file.getFileName().equals("file1.txt")), "file1.txt should be " +
+        assertTrue(result5.stream().anyMatch(file -> file.fileName().equals("file1.txt")), "file1.txt should be " +
                 "present");
 
         // Test case 6: no parameters at all with SizeUnit = null
         FileQueryDto queryDto6 = new FileQueryDto(null, null, null, null, null);
-        List<FileMetadata> result6 = fileMetadataService.findFiles(queryDto6);
+        List<FileMetadataDto> result6 = fileMetadataService.findFiles(queryDto6, null, null).files();
         assertEquals(4, result6.size(), "All files match criteria");
-        assertTrue(result6.stream().anyMatch(file -> file.getFileName().equals("file1.txt")), "file1.txt should be " +
+        assertTrue(result6.stream().anyMatch(file -> file.fileName().equals("file1.txt")), "file1.txt should be " +
                 "present");
 
         // Test case 7: no files match criteria
         FileQueryDto queryDto7 = new FileQueryDto(null, 100L, null, null, SizeUnit.gb);
-        List<FileMetadata> result7 = fileMetadataService.findFiles(queryDto7);
+        List<FileMetadataDto> result7 = fileMetadataService.findFiles(queryDto7, null, null).files();
         assertEquals(0, result7.size(), "No files match criteria");
     }
 
+    @Test
+    void whenFindFiles_withLimit_thenPagesFollowCursor() {
+        // Given
+        for (int i = 1; i <= 5; i++) {
+            FileMetadata file = new FileMetadata();
+            file.setFileName("file" + i + ".txt");
+            file.setFileSize(i * 100L);
+            file.setFileType(i % 2 == 0 ? "application/pdf" : "text/plain");
+            file.setUploadDate(LocalDateTime.now());
+            fileMetadataRepository.save(file);
+        }
+        FileQueryDto queryDto = new FileQueryDto("text/plain", null, null, null, SizeUnit.bytes);
+
+        // When
+        FilePageDto firstPage = fileMetadataService.findFiles(queryDto, null, 2);
+        FilePageDto secondPage = fileMetadataService.findFiles(queryDto, firstPage.nextCursor(), 2);
+
+        // Then
+        assertEquals(List.of("file1.txt", "file3.txt"),
+                firstPage.files().stream().map(FileMetadataDto::fileName).toList());
+        assertNotNull(firstPage.nextCursor(), "A cursor should be returned while more files match");
+        assertEquals(List.of("file5.txt"), secondPage.files().stream().map(FileMetadataDto::fileName).toList());
+        assertNull(secondPage.nextCursor(), "No cursor should be returned on the last page");
+    }
+
+    @Test
+    void whenStreamFiles_thenMatchingFilesArePassedInIdOrder() {
+        // Given
+        for (int i = 1; i <= 5; i++) {
+            FileMetadata file = new FileMetadata();
+            file.setFileName("file" + i + ".txt");
+            file.setFileSize(i * 100L);
+            file.setFileType(i % 2 == 0 ? "application/pdf" : "text/plain");
+            file.setUploadDate(LocalDateTime.now());
+            fileMetadataRepository.save(file);
+        }
+        FileQueryDto queryDto = new FileQueryDto("text/plain", null, null, null, SizeUnit.bytes);
+        List<FileMetadataDto> streamed = new ArrayList<>();
+
+        // When
+        long count = fileMetadataService.streamFiles(queryDto, streamed::add);
+
+        // Then
+        assertEquals(3, count);
+        assertEquals(List.of("file1.txt", "file3.txt", "file5.txt"),
+                streamed.stream().map(FileMetadataDto::fileName).toList());
+    }
+
+    @Test
+    void whenFileIsRegisteredAndDeleted_thenNameIndexFollows() {
+        // Given
+        String fileUrl = "http://example.com/indexed-name.txt";
+        FileMetadata extractedMetadata = new FileMetadata();
+        extractedMetadata.setFileName("indexed-name.txt");
+        extractedMetadata.setFileSize(1234);
+        extractedMetadata.setFileType("text/plain");
+        extractedMetadata.setUploadDate(LocalDateTime.now());
+        when(fileMetadataExtractor.extractName(fileUrl)).thenReturn("indexed-name.txt");
+        when(fileMetadataExtractor.extractMetadata(anyString(), anyString())).thenReturn(extractedMetadata);
+
+        // When
+        fileMetadataService.registerFile(new FileUrlDto(fileUrl));
+
+        // Then
+        assertEquals(List.of("indexed-name.txt"), fileNameIndex.findBySubstring("xed-na", 10));
+
+        // When
+        fileMetadataService.deleteFileMetadata("indexed-name.txt");
+
+        // Then
+        assertEquals(List.of(), fileNameIndex.findByPrefix("indexed-name", 10));
+    }
+
+    @Test
+    void whenFilesAreRegisteredUpdatedAndDeleted_thenStorageStatisticsFollow() {
+        // Given
+        assertTrue(storageStatistics.reconcile(), "The empty table should be counted");
+        String fileUrl = "http://example.com/counted.txt";
+        FileMetadata firstVersion = new FileMetadata();
+        firstVersion.setFileName("counted.txt");
+        firstVersion.setFileSize(100);
+        firstVersion.setFileType("text/plain");
+        firstVersion.setUploadDate(LocalDateTime.now());
+        FileMetadata secondVersion = new FileMetadata();
+        secondVersion.setFileName("counted.txt");
+        secondVersion.setFileSize(4096);
+        secondVersion.setFileType("application/pdf");
+        secondVersion.setUploadDate(LocalDateTime.now());
+        when(fileMetadataExtractor.extractName(fileUrl)).thenReturn("counted.txt");
+        when(fileMetadataExtractor.extractMetadata(anyString(), eq(fileUrl))).thenReturn(firstVersion, secondVersion);
+
+        // When the file is registered and then updated in place
+        fileMetadataService.registerFile(new FileUrlDto(fileUrl));
+        fileMetadataService.registerFile(new FileUrlDto(fileUrl));
+
+        // Then only its new state is counted
+        var stats = storageStatistics.getStats();
+        assertEquals(1, stats.files());
+        assertEquals(4096, stats.bytes());
+        assertNull(stats.byFileType().get("text/plain"));
+        assertEquals(4096, stats.byFileType().get("application/pdf").bytes());
+        assertEquals(1, stats.bySize().get("1KB-1MB").files());
+
+        // When
+        fileMetadataService.deleteFileMetadata("counted.txt");
+
+        // Then
+        assertEquals(0, storageStatistics.getStats().files());
+        assertEquals(0, storageStatistics.getStats().bytes());
+    }
+
+    @Test
+    void whenSameNamesAreRegisteredConcurrently_thenEachNameHasExactlyOneRecord() throws Exception {
+        // Given
+        int names = 50;
+        int registrations = 2000;
+        assertTrue(storageStatistics.reconcile(), "The empty table should be counted");
+        when(fileMetadataExtractor.extractName(anyString())).thenAnswer(invocation -> {
+            String fileUrl = invocation.getArgument(0);
+            return fileUrl.substring(fileUrl.lastIndexOf('/') + 1);
+        });
+        when(fileMetadataExtractor.extractMetadata(anyString(), anyString())).thenAnswer(invocation -> {
+            FileMetadata metadata = new FileMetadata();
+            metadata.setFileSize(ThreadLocalRandom.current().nextLong(1, 10_000));
+            metadata.setFileType("text/concurrent");
+            metadata.setUploadDate(LocalDateTime.now());
+            return metadata;
+        });
+
+        // When every name is registered 40 times from 16 threads at once
+        var executor = Executors.newFixedThreadPool(16);
+        var start = new CountDownLatch(1);
+        var futures = new ArrayList<Future<?>>();
+        try {
+            for (int i = 0; i < registrations; i++) {
+                var fileUrl = new FileUrlDto("http://example.com/concurrent" + (i % names) + ".txt");
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    fileMetadataService.registerFile(fileUrl);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (var future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Then
+        assertEquals(names, fileMetadataRepository.count(), "There should be one record per name");
+        for (int i = 0; i < names; i++) {
+            assertTrue(fileMetadataRepository.findByFileName("concurrent" + i + ".txt").isPresent());
+        }
+        assertEquals(names, fileNameIndex.findByPrefix("concurrent", 100).size());
+        assertEquals(names, storageStatistics.getStats().byFileType().get("text/concurrent").files());
+    }
+
+    @Test
+    void whenBatchesWithSameNamesAreRegisteredConcurrently_thenEachNameHasExactlyOneRecord() throws Exception {
+        // Given
+        int names = 20;
+        int batches = 100;
+        when(fileMetadataExtractor.extractName(anyString())).thenAnswer(invocation -> {
+            String fileUrl = invocation.getArgument(0);
+            return fileUrl.substring(fileUrl.lastIndexOf('/') + 1);
+        });
+        when(fileMetadataExtractor.extractMetadata(anyString(), anyString())).thenAnswer(invocation -> {
+            FileMetadata metadata = new FileMetadata();
+            metadata.setFileSize(ThreadLocalRandom.current().nextLong(1, 10_000));
+            metadata.setFileType("text/batch");
+            metadata.setUploadDate(LocalDateTime.now());
+            return metadata;
+        });
+
+        // When every batch registers all names, in its own order, from 16 threads at once
+        var executor = Executors.newFixedThreadPool(16);
+        var start = new CountDownLatch(1);
+        var futures = new ArrayList<Future<List<FileRegistrationResultDto>>>();
+        try {
+            for (int i = 0; i < batches; i++) {
+                var files = new ArrayList<FileUrlDto>();
+                for (int name = 0; name < names; name++) {
+                    files.add(new FileUrlDto("http://example.com/batch" + name + ".txt"));
+                }
+                Collections.shuffle(files, new Random(i));
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return fileMetadataService.registerFiles(files);
+                }));
+            }
+            start.countDown();
+            for (var future : futures) {
+                for (var result : future.get(60, TimeUnit.SECONDS)) {
+                    assertTrue(result.status() == 200 || result.status() == 201, result.message());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Then
+        assertEquals(names, fileMetadataRepository.count(), "There should be one record per name");
+        assertEquals(names, fileNameIndex.findByPrefix("batch", 100).size());
+    }
+
+    @Test
+    void whenStatisticsAreReconciled_thenFilesWrittenPastTheServiceAreCounted() {
+        // Given
+        FileMetadata file = new FileMetadata();
+        file.setFileName("uncounted.txt");
+        file.setFileSize(2L * 1024 * 1024);
+        file.setFileType("image/png");
+        file.setUploadDate(LocalDateTime.now());
+        fileMetadataRepository.save(file);
+
+        // When
+        assertTrue(storageStatistics.reconcile());
+
+        // Then
+        var stats = storageStatistics.getStats();
+        assertEquals(1, stats.files());
+        assertEquals(2L * 1024 * 1024, stats.byFileType().get("image/png").bytes());
+        assertEquals(1, stats.bySize().get("1MB-10MB").files());
+        assertNotNull(stats.lastReconciled());
+    }
+
+    @Test
+    void whenFindFiles_withInvalidCursorOrLimit_thenThrowsIllegalArgumentException() {
+        FileQueryDto queryDto = new FileQueryDto(null, null, null, null, SizeUnit.bytes);
+
+        assertThrows(IllegalArgumentException.class, () -> fileMetadataService.findFiles(queryDto, "not-a-cursor",
+                null));
+        assertThrows(IllegalArgumentException.class, () -> fileMetadataService.findFiles(queryDto, null, 0));
+        assertThrows(IllegalArgumentException.class, () -> fileMetadataService.findFiles(queryDto, null, 100000));
+    }
+
     @Test
     void testDeleteFileMetadata_WhenTableIsEmpty() {
         // Given
@@ -354,7 +673,6 @@ class FileMetadataServiceIntegrationTests {
         // Given
         FileMetadata existingMetadata = new FileMetadata();
         existingMetadata.setFileName("existingFile.txt");
-        existingMetadata.setFileUrl("http://example.com/existingFile.txt");
         existingMetadata.setFileSize(1234);
         existingMetadata.setFileType("text/plain");
         existingMetadata.setUploadDate(LocalDateTime.now());
@@ -378,7 +696,6 @@ class FileMetadataServiceIntegrationTests {
         // Given
         FileMetadata existingMetadata = new FileMetadata();
         existingMetadata.setFileName("existingFile.txt");
-        existingMetadata.setFileUrl("http://example.com/existingFile.txt");
         existingMetadata.setFileSize(1234);
         existingMetadata.setFileType("text/plain");
         existingMetadata.setUploadDate(LocalDateTime.now());
@@ -397,5 +714,88 @@ class FileMetadataServiceIntegrationTests {
         assertTrue(fileMetadataRepository.findByFileName("existingFile.txt").isPresent(), "Existing file should still be present in the repository");
     }
 
+    @Test
+    void whenFilesAreDeletedByFilter_thenOnlyMatchingFilesAreDeletedAndCounted() {
+        // Given
+        assertTrue(storageStatistics.reconcile(), "The empty table should be counted");
+        saveFile("small.log", "text/bulk", 100);
+        saveFile("large.log", "text/bulk", 5000);
+        saveFile("other.log", "text/kept", 100);
+        assertTrue(storageStatistics.reconcile());
+        var queryDto = new FileQueryDto("text/bulk", 1L, null, null, SizeUnit.kb);
+
+        // When
+        var result = fileMetadataService.deleteFiles(queryDto, null, false);
+
+        // Then
+        assertEquals(1, result.deleted());
+        assertEquals(0, result.objectsRemoved());
+        assertEquals(2, fileMetadataRepository.count());
+        assertFalse(fileMetadataRepository.findByFileName("large.log").isPresent());
+        assertEquals(2, storageStatistics.getStats().files());
+        verifyNoInteractions(fileObjectRemover);
+    }
+
+    @Test
+    void whenFilesAreDeletedByName_thenTheirObjectsAreRemoved() {
+        // Given
+        saveFile("first.bin", "application/octet-stream", 10);
+        saveFile("second.bin", "application/octet-stream", 20);
+        saveFile("third.bin", "application/octet-stream", 30);
+        when(fileObjectRemover.removeObjects(anyList())).thenReturn(List.of("second.bin"));
+
+        // When
+        var result = fileMetadataService.deleteFiles(null, List.of("first.bin", "second.bin", "missing.bin"), true);
 
+        // Then
+        assertEquals(2, result.deleted());
+        assertEquals(1, result.objectsRemoved());
+        assertEquals(List.of("second.bin"), result.objectFailures());
+        assertEquals(1, fileMetadataRepository.count());
+        verify(fileObjectRemover).removeObjects(argThat(names -> names.size() == 2
+                && names.containsAll(List.of("first.bin", "second.bin"))));
+    }
+
+    @Test
+    void whenManyFilesMatchTheFilter_thenTheyAreDeletedInChunks() {
+        // Given
+        for (int i = 0; i < 5; i++) {
+            saveFile("chunked" + i + ".bin", "application/chunked", 10);
+        }
+        saveFile("kept.bin", "application/kept", 10);
+        when(fileObjectRemover.removeObjects(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        var queryDto = new FileQueryDto("application/chunked", null, null, null, SizeUnit.bytes);
+
+        // When
+        var result = fileMetadataService.deleteFiles(queryDto, null, true);
+
+        // Then
+        assertEquals(5, result.deleted());
+        assertEquals(0, result.objectsRemoved());
+        assertEquals(5, result.objectFailures().size());
+        assertEquals(1, fileMetadataRepository.count());
+        // the test profile deletes two files per chunk
+        verify(fileObjectRemover, times(3)).removeObjects(anyList());
+    }
+
+    @Test
+    void whenBulkDeleteHasNoOrBothSelections_thenThrowsIllegalArgumentException() {
+        var emptyQuery = new FileQueryDto(null, null, null, null, SizeUnit.bytes);
+        var typeQuery = new FileQueryDto("text/plain", null, null, null, SizeUnit.bytes);
+
+        assertThrows(IllegalArgumentException.class, () -> fileMetadataService.deleteFiles(null, null, false));
+        assertThrows(IllegalArgumentException.class, () -> fileMetadataService.deleteFiles(null, List.of(), false));
+        assertThrows(IllegalArgumentException.class,
+                () -> fileMetadataService.deleteFiles(typeQuery, List.of("a.txt"), false));
+        assertThrows(IllegalArgumentException.class, () -> fileMetadataService.deleteFiles(emptyQuery, null, false));
+    }
+
+    private void saveFile(String fileName, String fileType, long fileSize) {
+        FileMetadata metadata = new FileMetadata();
+        metadata.setFileName(fileName);
+        metadata.setFileSize(fileSize);
+        metadata.setFileType(fileType);
+        metadata.setUploadDate(LocalDateTime.now());
+        fileMetadataRepository.save(metadata);
+    }
 }
@@ -0,0 +1,54 @@
+package org.yulia.filemanagement.filemetadataservice.service;
+
+import io.minio.MinioClient;
+import io.minio.RemoveObjectsArgs;
+import io.minio.Result;
+import io.minio.messages.DeleteError;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.yulia.filemanagement.filemetadataservice.storage.MinioObjectStorage;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class FileObjectRemoverTests {
+
+    private MinioClient minioClient;
+    private FileObjectRemover fileObjectRemover;
+
+    @BeforeEach
+    void setUp() {
+        minioClient = mock(MinioClient.class);
+        fileObjectRemover = new FileObjectRemover(new MinioObjectStorage(minioClient), "test-bucket", 2);
+    }
+
+    @Test
+    void whenObjectsAreRemoved_thenOneRequestIsSentPerBatch() {
+        when(minioClient.removeObjects(any(RemoveObjectsArgs.class))).thenReturn(List.of());
+
+        var failures = fileObjectRemover.removeObjects(IntStream.range(0, 5).mapToObj(i -> "file" + i).toList());
+
+        assertEquals(List.of(), failures);
+        verify(minioClient, times(3)).removeObjects(any(RemoveObjectsArgs.class));
+    }
+
+    @Test
+    void whenObjectsCannotBeRemoved_thenTheyAreReported() {
+        var error = mock(DeleteError.class);
+        when(error.objectName()).thenReturn("file1");
+        when(minioClient.removeObjects(any(RemoveObjectsArgs.class)))
+                .thenReturn(List.of(new Result<>(error)))
+                .thenThrow(new IllegalStateException("connection refused"));
+
+        var failures = fileObjectRemover.removeObjects(List.of("file0", "file1", "file2"));
+
+        assertEquals(List.of("file1", "file2"), failures);
+    }
+}
@@ -0,0 +1,107 @@
+package org.yulia.filemanagement.filemetadataservice.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.yulia.filemanagement.filemetadataservice.constants.SizeUnit;
+import org.yulia.filemanagement.filemetadataservice.dto.FileMetadataDto;
+import org.yulia.filemanagement.filemetadataservice.dto.FileQueryDto;
+import org.yulia.filemanagement.filemetadataservice.dto.FileUrlDto;
+import org.yulia.filemanagement.filemetadataservice.entity.FileMetadata;
+import org.yulia.filemanagement.filemetadataservice.repository.FileMetadataRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest(properties = "file.query.cache.enabled=true")
+@ActiveProfiles("test")
+class FileQueryCacheIntegrationTests {
+
+    @Autowired
+    private FileMetadataRepository fileMetadataRepository;
+
+    @Autowired
+    private FileMetadataService fileMetadataService;
+
+    @MockBean
+    private FileMetadataExtractor fileMetadataExtractor;
+
+    @BeforeEach
+    void setUp() {
+        fileMetadataRepository.deleteAll();
+    }
+
+    // every test lists its own file type, so the pages cached by one test do not affect the others
+    private List<String> listNames(String fileType) {
+        var queryDto = new FileQueryDto(fileType, null, null, null, SizeUnit.bytes);
+        return fileMetadataService.findFiles(queryDto, null, null).files().stream()
+                .map(FileMetadataDto::fileName).toList();
+    }
+
+    private void register(String fileName, String fileType, long fileSize) {
+        String fileUrl = "http://example.com/" + fileName;
+        FileMetadata metadata = new FileMetadata();
+        metadata.setFileName(fileName);
+        metadata.setFileSize(fileSize);
+        metadata.setFileType(fileType);
+        metadata.setUploadDate(LocalDateTime.now());
+        when(fileMetadataExtractor.extractName(fileUrl)).thenReturn(fileName);
+        when(fileMetadataExtractor.extractMetadata(anyString(), eq(fileUrl))).thenReturn(metadata);
+        fileMetadataService.registerFile(new FileUrlDto(fileUrl));
+    }
+
+    @Test
+    void whenFileIsRegistered_thenCachedPagesOfItsTypeAreRefreshed() {
+        register("first.txt", "text/cached", 100);
+        assertEquals(List.of("first.txt"), listNames("text/cached"));
+
+        register("second.txt", "text/cached", 200);
+
+        assertEquals(List.of("first.txt", "second.txt"), listNames("text/cached"));
+    }
+
+    @Test
+    void whenFileIsUpdated_thenPagesOfItsOldTypeAreRefreshed() {
+        register("moved.txt", "text/old", 100);
+        assertEquals(List.of("moved.txt"), listNames("text/old"));
+
+        register("moved.txt", "text/new", 100);
+
+        assertEquals(List.of(), listNames("text/old"));
+        assertEquals(List.of("moved.txt"), listNames("text/new"));
+    }
+
+    @Test
+    void whenFileIsDeleted_thenCachedPagesOfItsTypeAreRefreshed() {
+        register("deleted.txt", "text/deleted", 100);
+        assertEquals(List.of("deleted.txt"), listNames("text/deleted"));
+
+        fileMetadataService.deleteFileMetadata("deleted.txt");
+
+        assertEquals(List.of(), listNames("text/deleted"));
+    }
+
+    @Test
+    void whenOtherFileIsRegistered_thenPageIsServedFromCache() {
+        assertEquals(List.of(), listNames("text/untouched"));
+
+        // written past the service, so only a page that is still cached hides it
+        FileMetadata metadata = new FileMetadata();
+        metadata.setFileName("hidden.txt");
+        metadata.setFileSize(100);
+        metadata.setFileType("text/untouched");
+        metadata.setUploadDate(LocalDateTime.now());
+        fileMetadataRepository.save(metadata);
+        register("other.txt", "text/other", 100);
+
+        assertEquals(List.of(), listNames("text/untouched"));
+    }
+}
@@ -0,0 +1,50 @@
+package org.yulia.filemanagement.filemetadataservice.stats;
+
+import org.junit.jupiter.api.Test;
+import org.yulia.filemanagement.filemetadataservice.dto.StorageStatsDto;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class StorageStatisticsTests {
+
+    // the counters never query the database, so no entity manager is needed
+    private final StorageStatistics storageStatistics = new StorageStatistics(null);
+
+    @Test
+    void whenFilesAreAdded_thenTheyAreCountedByTypeAndSizeBucket() {
+        storageStatistics.add("text/plain", 100);
+        storageStatistics.add("text/plain", 2048);
+        storageStatistics.add("image/png", 5L * 1024 * 1024);
+        storageStatistics.add("video/mp4", 2L * 1024 * 1024 * 1024);
+
+        var stats = storageStatistics.getStats();
+
+        assertEquals(4, stats.files());
+        assertEquals(100 + 2048 + 5L * 1024 * 1024 + 2L * 1024 * 1024 * 1024, stats.bytes());
+        assertEquals(new StorageStatsDto.Totals(2, 2148), stats.byFileType().get("text/plain"));
+        assertEquals(List.of("<1KB", "1KB-1MB", "1MB-10MB", "10MB-100MB", "100MB-1GB", ">=1GB"),
+                List.copyOf(stats.bySize().keySet()));
+        assertEquals(new StorageStatsDto.Totals(1, 100), stats.bySize().get("<1KB"));
+        assertEquals(new StorageStatsDto.Totals(1, 2048), stats.bySize().get("1KB-1MB"));
+        assertEquals(new StorageStatsDto.Totals(1, 5L * 1024 * 1024), stats.bySize().get("1MB-10MB"));
+        assertEquals(new StorageStatsDto.Totals(0, 0), stats.bySize().get("100MB-1GB"));
+        assertEquals(new StorageStatsDto.Totals(1, 2L * 1024 * 1024 * 1024), stats.bySize().get(">=1GB"));
+    }
+
+    @Test
+    void whenFilesAreRemoved_thenEmptyTypesAreDropped() {
+        storageStatistics.add("text/plain", 100);
+        storageStatistics.add("image/png", 1024);
+
+        storageStatistics.remove("text/plain", 100);
+
+        var stats = storageStatistics.getStats();
+        assertEquals(1, stats.files());
+        assertEquals(1024, stats.bytes());
+        assertFalse(stats.byFileType().containsKey("text/plain"));
+        assertEquals(new StorageStatsDto.Totals(0, 0), stats.bySize().get("<1KB"));
+    }
+}
@@ -0,0 +1,49 @@
+package org.yulia.filemanagement.filemetadataservice.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LocalObjectStorageContractTests extends ObjectStorageContractTests {
+
+    @TempDir
+    private Path root;
+
+    private LocalObjectStorage storage;
+
+    @BeforeEach
+    void setUp() {
+        storage = new LocalObjectStorage(root.toString());
+    }
+
+    @Override
+    protected ObjectStorage storage() {
+        return storage;
+    }
+
+    // writes the object in the layout of the local storage of the upload service
+    @Override
+    protected void putObject(String objectName, byte[] content, String contentType, String contentHash)
+            throws Exception {
+        var contentPath = root.resolve(BUCKET).resolve(objectName);
+        Files.createDirectories(contentPath.getParent());
+        Files.write(contentPath, content);
+        var attributes = new StringBuilder("content-type=" + contentType + "\n");
+        if (contentHash != null) {
+            attributes.append("sha256=").append(contentHash).append('\n');
+        }
+        var attributesPath = root.resolve(".attributes").resolve(BUCKET).resolve(objectName + ".properties");
+        Files.createDirectories(attributesPath.getParent());
+        Files.writeString(attributesPath, attributes);
+    }
+
+    @Test
+    void whenNameLeavesTheBucket_thenThrowsIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class, () -> storage.statObject(BUCKET, "../outside.txt"));
+    }
+}
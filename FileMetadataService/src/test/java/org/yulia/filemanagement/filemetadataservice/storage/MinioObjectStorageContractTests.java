@@ -0,0 +1,60 @@
+package org.yulia.filemanagement.filemetadataservice.storage;
+
+import io.minio.BucketExistsArgs;
+import io.minio.ListObjectsArgs;
+import io.minio.MakeBucketArgs;
+import io.minio.MinioClient;
+import io.minio.PutObjectArgs;
+import io.minio.RemoveObjectArgs;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+
+import java.io.ByteArrayInputStream;
+import java.util.Map;
+
+/**
+ * Runs the storage contract against a real Minio server, which is only available when MINIO_CONTRACT_URL is set. The
+ * bucket is emptied before every test.
+ */
+@EnabledIfEnvironmentVariable(named = "MINIO_CONTRACT_URL", matches = ".+")
+class MinioObjectStorageContractTests extends ObjectStorageContractTests {
+
+    private MinioClient minioClient;
+    private MinioObjectStorage storage;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        minioClient = MinioClient.builder()
+                .endpoint(System.getenv("MINIO_CONTRACT_URL"))
+                .credentials(System.getenv().getOrDefault("MINIO_CONTRACT_ACCESS_KEY", "minioadmin"),
+                        System.getenv().getOrDefault("MINIO_CONTRACT_SECRET_KEY", "minioadmin"))
+                .build();
+        if (!minioClient.bucketExists(BucketExistsArgs.builder().bucket(BUCKET).build())) {
+            minioClient.makeBucket(MakeBucketArgs.builder().bucket(BUCKET).build());
+        }
+        for (var result : minioClient.listObjects(ListObjectsArgs.builder().bucket(BUCKET).recursive(true).build())) {
+            minioClient.removeObject(RemoveObjectArgs.builder().bucket(BUCKET).object(result.get().objectName()).build());
+        }
+        storage = new MinioObjectStorage(minioClient);
+    }
+
+    @Override
+    protected ObjectStorage storage() {
+        return storage;
+    }
+
+    // stores the object the way the upload service does, with the content hash as an object tag
+    @Override
+    protected void putObject(String objectName, byte[] content, String contentType, String contentHash)
+            throws Exception {
+        var args = PutObjectArgs.builder()
+                .bucket(BUCKET)
+                .object(objectName)
+                .stream(new ByteArrayInputStream(content), content.length, -1)
+                .contentType(contentType);
+        if (contentHash != null) {
+            args.tags(Map.of("sha256", contentHash));
+        }
+        minioClient.putObject(args.build());
+    }
+}
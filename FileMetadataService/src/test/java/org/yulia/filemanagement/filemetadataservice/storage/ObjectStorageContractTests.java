@@ -0,0 +1,92 @@
+package org.yulia.filemanagement.filemetadataservice.storage;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The behavior every storage backend has to provide. Each backend runs these tests through a subclass that supplies
+ * an empty bucket and stores the objects the tests need the way the upload service does.
+ */
+abstract class ObjectStorageContractTests {
+
+    protected static final String BUCKET = "storage-contract-tests";
+
+    private static final byte[] CONTENT = "contract".getBytes(StandardCharsets.UTF_8);
+
+    protected abstract ObjectStorage storage();
+
+    protected abstract void putObject(String objectName, byte[] content, String contentType, String contentHash)
+            throws Exception;
+
+    @Test
+    void whenObjectIsStored_thenItsAttributesAreReturned() throws Exception {
+        putObject("report.pdf", CONTENT, "application/pdf", "abc123");
+
+        var stat = storage().statObject(BUCKET, "report.pdf");
+
+        assertEquals("report.pdf", stat.name());
+        assertEquals(CONTENT.length, stat.size());
+        assertEquals("application/pdf", stat.contentType());
+        assertNotNull(stat.etag());
+        assertNotNull(stat.lastModified());
+        assertEquals("abc123", storage().getContentHash(BUCKET, "report.pdf"));
+    }
+
+    @Test
+    void whenObjectHasNoContentHash_thenNullIsReturned() throws Exception {
+        putObject("plain.txt", CONTENT, "text/plain", null);
+
+        assertNull(storage().getContentHash(BUCKET, "plain.txt"));
+    }
+
+    @Test
+    void whenObjectIsMissing_thenThrowsNoSuchFileException() {
+        assertThrows(NoSuchFileException.class, () -> storage().statObject(BUCKET, "missing.txt"));
+    }
+
+    @Test
+    void whenUrlIsSigned_thenItPointsAtTheObject() throws Exception {
+        putObject("report.pdf", CONTENT, "application/pdf", null);
+
+        var url = storage().getPresignedUrl(BUCKET, "report.pdf", 3600);
+
+        assertNotNull(url);
+        assertTrue(url.contains("report.pdf"));
+    }
+
+    @Test
+    void whenObjectsAreListed_thenTheyAreInTheOrderOfTheirUtf8Bytes() throws Exception {
+        for (var name : List.of("b.txt", "😀.txt", "a.txt", "dir/c.txt", "B.txt", "～.txt")) {
+            putObject(name, CONTENT, "text/plain", null);
+        }
+
+        var names = new ArrayList<String>();
+        storage().listObjects(BUCKET, 2).forEachRemaining(object -> names.add(object.name()));
+
+        assertEquals(List.of("B.txt", "a.txt", "b.txt", "dir/c.txt", "～.txt", "😀.txt"), names);
+    }
+
+    @Test
+    void whenObjectsAreRemoved_thenTheyAreMissingAndMissingObjectsCountAsRemoved() throws Exception {
+        putObject("first.txt", CONTENT, "text/plain", null);
+        putObject("second.txt", CONTENT, "text/plain", null);
+
+        var failures = storage().removeObjects(BUCKET, List.of("first.txt", "second.txt", "missing.txt"));
+
+        assertEquals(List.of(), failures);
+        assertThrows(NoSuchFileException.class, () -> storage().statObject(BUCKET, "first.txt"));
+        assertThrows(NoSuchFileException.class, () -> storage().statObject(BUCKET, "second.txt"));
+        assertFalse(storage().listObjects(BUCKET, 10).hasNext());
+    }
+}
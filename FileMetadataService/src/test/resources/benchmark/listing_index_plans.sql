@@ -0,0 +1,81 @@
+-- Records the PostgreSQL plans of the listing queries before and after the indexes of V3__Add_listing_indexes.sql, on
+-- a seeded table of 5 million files. It works in a schema of its own, which is dropped at the end.
+-- Run with: psql -h localhost -p 5433 -U file_user -d file_management_db -f listing_index_plans.sql > plans.txt
+
+\set ON_ERROR_STOP on
+\timing on
+
+DROP SCHEMA IF EXISTS listing_benchmark CASCADE;
+CREATE SCHEMA listing_benchmark;
+SET search_path TO listing_benchmark;
+
+-- the table and the indexes of V1 and V2
+CREATE TABLE file_metadata (
+    id           BIGSERIAL PRIMARY KEY,
+    file_url     VARCHAR(1024) NOT NULL,
+    file_name    VARCHAR(255)  NOT NULL,
+    file_type    VARCHAR(50)   NOT NULL,
+    file_size    BIGINT        NOT NULL,
+    upload_date  TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    content_hash VARCHAR(64)
+);
+
+-- 20 file types with a skewed distribution, and sizes spread up to 100 MB
+INSERT INTO file_metadata (file_url, file_name, file_type, file_size, upload_date, content_hash)
+SELECT 'http://minio:9000/file-storage/file' || n || '.bin',
+       'file' || n || '.bin',
+       'type/' || floor(20 * power(random(), 2))::int,
+       floor(random() * 100 * 1024 * 1024)::bigint,
+       now() - (n || ' seconds')::interval,
+       md5(n::text) || md5((n + 1)::text)
+FROM generate_series(1, 5000000) AS n;
+
+CREATE INDEX idx_file_size ON file_metadata(file_size);
+CREATE INDEX idx_file_type ON file_metadata(file_type);
+CREATE INDEX idx_file_name ON file_metadata(file_name);
+CREATE INDEX idx_content_hash ON file_metadata(content_hash);
+VACUUM ANALYZE file_metadata;
+
+-- the shapes findFiles generates: first and deep pages of type + size range, of a type, and of a size range
+PREPARE type_and_size(text, bigint, bigint, bigint) AS
+    SELECT id, file_url, file_name, file_type, file_size, upload_date, content_hash FROM file_metadata
+    WHERE file_type = $1 AND file_size >= $2 AND file_size <= $3 AND id > $4 ORDER BY id LIMIT 101;
+PREPARE type_only(text, bigint) AS
+    SELECT id, file_url, file_name, file_type, file_size, upload_date, content_hash FROM file_metadata
+    WHERE file_type = $1 AND id > $2 ORDER BY id LIMIT 101;
+PREPARE size_range(bigint, bigint, bigint) AS
+    SELECT id, file_url, file_name, file_type, file_size, upload_date, content_hash FROM file_metadata
+    WHERE file_size >= $1 AND file_size <= $2 AND id > $3 ORDER BY id LIMIT 101;
+PREPARE by_name(text) AS
+    SELECT * FROM file_metadata WHERE file_name = $1;
+
+\echo '==================== before: single-column indexes ===================='
+EXPLAIN (ANALYZE, BUFFERS) EXECUTE type_and_size('type/3', 1048576, 2097152, 0);
+EXPLAIN (ANALYZE, BUFFERS) EXECUTE type_and_size('type/3', 1048576, 2097152, 4000000);
+EXPLAIN (ANALYZE, BUFFERS) EXECUTE type_only('type/17', 0);
+EXPLAIN (ANALYZE, BUFFERS) EXECUTE type_only('type/17', 4000000);
+EXPLAIN (ANALYZE, BUFFERS) EXECUTE size_range(1048576, 1153434, 0);
+EXPLAIN (ANALYZE, BUFFERS) EXECUTE size_range(1048576, 1153434, 4000000);
+EXPLAIN (ANALYZE, BUFFERS) EXECUTE by_name('file4000000.bin');
+
+-- keep in sync with V3__Add_listing_indexes.sql
+CREATE INDEX idx_file_type_size_id ON file_metadata(file_type, file_size, id);
+CREATE INDEX idx_file_type_id ON file_metadata(file_type, id);
+CREATE INDEX idx_file_size_id ON file_metadata(file_size, id);
+CREATE UNIQUE INDEX uq_file_name ON file_metadata(file_name);
+DROP INDEX idx_file_type;
+DROP INDEX idx_file_size;
+DROP INDEX idx_file_name;
+VACUUM ANALYZE file_metadata;
+
+\echo '==================== after: composite indexes ===================='
+EXPLAIN (ANALYZE, BUFFERS) EXECUTE type_and_size('type/3', 1048576, 2097152, 0);
+EXPLAIN (ANALYZE, BUFFERS) EXECUTE type_and_size('type/3', 1048576, 2097152, 4000000);
+EXPLAIN (ANALYZE, BUFFERS) EXECUTE type_only('type/17', 0);
+EXPLAIN (ANALYZE, BUFFERS) EXECUTE type_only('type/17', 4000000);
+EXPLAIN (ANALYZE, BUFFERS) EXECUTE size_range(1048576, 1153434, 0);
+EXPLAIN (ANALYZE, BUFFERS) EXECUTE size_range(1048576, 1153434, 4000000);
+EXPLAIN (ANALYZE, BUFFERS) EXECUTE by_name('file4000000.bin');
+
+RESET search_path;
+DROP SCHEMA listing_benchmark CASCADE;
@@ -0,0 +1,175 @@
+package org.yulia.filemanagement.fileuploadservice.communication;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Circuit breaker for the calls to the metadata service. While it is closed, the outcome of the last calls is recorded
+ * in a sliding window, and the breaker opens once the failure rate in the window reaches the threshold. While it is
+ * open, calls are rejected without being sent. After the open duration, a limited number of probe calls is let
+ * through: if all of them succeed the breaker closes again, and if one of them fails it opens for another period.
+ * Every change of state starts a new generation, and the outcome of a call is only recorded if the call was permitted
+ * in the current generation, so a slow call sent before the breaker opened cannot close it or reopen it later.
+ */
+public class CircuitBreaker {
+
+    private static final Logger logger = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    /**
+     * Returned by {@link #tryAcquirePermission()} when a call is rejected.
+     */
+    public static final long REJECTED = -1;
+
+    private final String name;
+    private final int failureRateThreshold;
+    private final int minimumCalls;
+    private final long openDurationNanos;
+    private final int halfOpenProbes;
+
+    // outcomes of the last calls while closed, as a ring buffer; guarded by this
+    private final boolean[] window;
+    private int windowPosition;
+    private int recordedCalls;
+    private int recordedFailures;
+
+    private State state = State.CLOSED;
+    private long generation;
+    private long openedAt;
+    private int probesStarted;
+    private int probesSucceeded;
+    private long rejectedCalls;
+
+    /**
+     * Creates a closed circuit breaker.
+     *
+     * @param name                 the name used in log messages
+     * @param windowSize           the number of most recent calls the failure rate is computed over
+     * @param minimumCalls         the number of calls that must be recorded before the breaker can open
+     * @param failureRateThreshold the failure rate in percent at which the breaker opens
+     * @param openDurationMs       how long the breaker stays open before it lets probe calls through
+     * @param halfOpenProbes       the number of probe calls that must succeed to close the breaker again
+     */
+    public CircuitBreaker(String name, int windowSize, int minimumCalls, int failureRateThreshold,
+                          long openDurationMs, int halfOpenProbes) {
+        if (windowSize < 1 || halfOpenProbes < 1) {
+            throw new IllegalArgumentException("Window size and number of probes must be at least 1.");
+        }
+        this.name = name;
+        this.window = new boolean[windowSize];
+        this.minimumCalls = Math.min(Math.max(minimumCalls, 1), windowSize);
+        this.failureRateThreshold = failureRateThreshold;
+        this.openDurationNanos = TimeUnit.MILLISECONDS.toNanos(openDurationMs);
+        this.halfOpenProbes = halfOpenProbes;
+    }
+
+    /**
+     * Decides whether a call may be sent. Every permitted call must be followed by a call to
+     * {@link #onSuccess(long)} or {@link #onFailure(long)} with the returned permission.
+     *
+     * @return the permission of the call, which identifies the generation it was sent in, or {@link #REJECTED}
+     */
+    public synchronized long tryAcquirePermission() {
+        if (state == State.OPEN && System.nanoTime() - openedAt >= openDurationNanos) {
+            transitionTo(State.HALF_OPEN);
+        }
+        if (state == State.CLOSED || (state == State.HALF_OPEN && probesStarted < halfOpenProbes)) {
+            if (state == State.HALF_OPEN) {
+                probesStarted++;
+            }
+            return generation;
+        }
+        rejectedCalls++;
+        return REJECTED;
+    }
+
+    /**
+     * Records a call that was completed successfully, unless the breaker has changed its state since the call was
+     * permitted.
+     *
+     * @param permission the permission returned when the call was permitted
+     */
+    public synchronized void onSuccess(long permission) {
+        if (permission != generation) {
+            return;
+        }
+        if (state == State.HALF_OPEN) {
+            if (++probesSucceeded >= halfOpenProbes) {
+                transitionTo(State.CLOSED);
+            }
+        } else if (state == State.CLOSED) {
+            record(false);
+        }
+    }
+
+    /**
+     * Records a call that failed, unless the breaker has changed its state since the call was permitted.
+     *
+     * @param permission the permission returned when the call was permitted
+     */
+    public synchronized void onFailure(long permission) {
+        if (permission != generation) {
+            return;
+        }
+        if (state == State.HALF_OPEN) {
+            transitionTo(State.OPEN);
+        } else if (state == State.CLOSED) {
+            record(true);
+            if (recordedCalls >= minimumCalls && recordedFailures * 100 >= failureRateThreshold * recordedCalls) {
+                transitionTo(State.OPEN);
+            }
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * Returns the failure rate of the calls in the window.
+     *
+     * @return the failure rate in percent, or -1 if fewer than the minimum number of calls have been recorded
+     */
+    public synchronized float getFailureRate() {
+        return recordedCalls < minimumCalls ? -1 : recordedFailures * 100f / recordedCalls;
+    }
+
+    public synchronized long getRejectedCalls() {
+        return rejectedCalls;
+    }
+
+    private void record(boolean failure) {
+        if (recordedCalls == window.length) {
+            // the oldest outcome drops out of the window
+            if (window[windowPosition]) {
+                recordedFailures--;
+            }
+        } else {
+            recordedCalls++;
+        }
+        window[windowPosition] = failure;
+        if (failure) {
+            recordedFailures++;
+        }
+        windowPosition = (windowPosition + 1) % window.length;
+    }
+
+    private void transitionTo(State newState) {
+        logger.warn("Circuit breaker '{}' changed from {} to {}", name, state, newState);
+        state = newState;
+        generation++;
+        recordedCalls = 0;
+        recordedFailures = 0;
+        windowPosition = 0;
+        probesStarted = 0;
+        probesSucceeded = 0;
+        if (newState == State.OPEN) {
+            openedAt = System.nanoTime();
+        }
+    }
+}
@@ -1,15 +1,43 @@
 package org.yulia.filemanagement.fileuploadservice.communication;
 
+import org.json.JSONObject;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.yulia.filemanagement.fileuploadservice.dto.StoredObject;
 
+import java.util.List;
 import java.util.Map;
 
 @Service
 public interface CommunicationService {
     ResponseEntity<String> sendFileUrl(String fileUrl);
 
+    /**
+     * Sends the URL of an uploaded file to the metadata service together with the attributes it was stored with, so
+     * the metadata service does not have to read them from Minio. Implementations that cannot pass the attributes
+     * send the URL only.
+     */
+    default ResponseEntity<String> sendFileRegistration(StoredObject storedObject) {
+        return sendFileUrl(storedObject.fileUrl());
+    }
+
+    Map<String, ResponseEntity<String>> sendFileUrls(List<String> fileUrls);
+
     void sendDeleteMessage(String originalFilename);
 
     ResponseEntity<String> getFiles(Map<String, String> queryParams);
+
+    /**
+     * Builds the body of a registration request; attributes of the object that are not known are left out.
+     */
+    static JSONObject registrationBody(StoredObject storedObject) {
+        var json = new JSONObject().put("fileUrl", storedObject.fileUrl());
+        if (storedObject.size() >= 0) {
+            json.put("fileSize", storedObject.size());
+        }
+        json.putOpt("contentType", storedObject.contentType());
+        json.putOpt("etag", storedObject.etag());
+        json.putOpt("contentHash", storedObject.contentHash());
+        return json;
+    }
 }
@@ -1,5 +1,7 @@
 package org.yulia.filemanagement.fileuploadservice.communication;
 
+import org.json.JSONArray;
+import org.json.JSONException;
 import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -13,9 +15,13 @@ import org.springframework.web.client.HttpServerErrorException;
 import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.UriComponentsBuilder;
+import org.yulia.filemanagement.fileuploadservice.communication.MetadataServiceGuard.Operation;
+import org.yulia.filemanagement.fileuploadservice.dto.StoredObject;
 
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 @Service
@@ -26,29 +32,50 @@ public class HTTPCommunicationService implements CommunicationService {
 
     private final RestTemplate restTemplate;
     private final String metadataServiceUrl;
+    private final MetadataServiceGuard guard;
 
     @Autowired
     public HTTPCommunicationService(RestTemplate restTemplate,
-                                    @Value("${file.metadata.service.url}") String metadataServiceUrl) {
+                                    @Value("${file.metadata.service.url}") String metadataServiceUrl,
+                                    MetadataServiceGuard guard) {
         this.restTemplate = restTemplate;
         this.metadataServiceUrl = metadataServiceUrl;
+        this.guard = guard;
     }
 
     /**
      * Sends the URL of an uploaded file to the metadata service for registration.
      *
      * @param fileUrl the URL of the uploaded file
-     * @return a ResponseEntity containing the response from the metadata service
+     * @return a ResponseEntity containing the response from the metadata service, or 503 if the call was rejected
+     * by the circuit breaker or the bulkhead
      */
     @Override
     public ResponseEntity<String> sendFileUrl(String fileUrl) {
+        return sendFileRegistration(new StoredObject(fileUrl));
+    }
+
+    /**
+     * Sends the URL of an uploaded file to the metadata service for registration, together with the attributes it
+     * was stored with.
+     *
+     * @param storedObject the URL and the attributes of the uploaded file
+     * @return a ResponseEntity containing the response from the metadata service, or 503 if the call was rejected
+     * by the circuit breaker or the bulkhead
+     */
+    @Override
+    public ResponseEntity<String> sendFileRegistration(StoredObject storedObject) {
+        return guard.call(Operation.REGISTER, () -> postFileUrl(storedObject),
+                HTTPCommunicationService::isServerError, HTTPCommunicationService::rejectedResponse);
+    }
+
+    private ResponseEntity<String> postFileUrl(StoredObject storedObject) {
         try {
             var url = metadataServiceUrl + "/register";  // Building the URL for the POST request
-            logger.info("Sending file URL: {}", fileUrl); // Log the URL being sent
+            logger.info("Sending file URL: {}", storedObject.fileUrl()); // Log the URL being sent
             var headers = new HttpHeaders();
             headers.setContentType(MediaType.APPLICATION_JSON);
-            var json = new JSONObject();
-            json.put("fileUrl", fileUrl);
+            var json = CommunicationService.registrationBody(storedObject);
             var entity = new HttpEntity<>(json.toString(), headers);
             // Using service discovery to find the metadata service
             ResponseEntity<String> response = restTemplate.postForEntity(url, entity, String.class);
@@ -59,6 +86,48 @@ public class HTTPCommunicationService implements CommunicationService {
         }
     }
 
+    /**
+     * Sends the URLs of several uploaded files to the metadata service with one batch registration request.
+     * If the request as a whole fails, every file gets the response of the failed request.
+     *
+     * @param fileUrls the URLs of the uploaded files
+     * @return the response for every file URL, with the status the file was registered with
+     */
+    @Override
+    public Map<String, ResponseEntity<String>> sendFileUrls(List<String> fileUrls) {
+        var response = guard.call(Operation.REGISTER, () -> postFileUrls(fileUrls),
+                HTTPCommunicationService::isServerError, HTTPCommunicationService::rejectedResponse);
+
+        var responses = new LinkedHashMap<String, ResponseEntity<String>>();
+        if (response.getStatusCode().is2xxSuccessful()) {
+            responses.putAll(parseBatchResponse(response.getBody()));
+        }
+        for (var fileUrl : fileUrls) {
+            // files missing from the result are reported like a failed request, so they are retried
+            responses.putIfAbsent(fileUrl, response.getStatusCode().is2xxSuccessful()
+                    ? ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                            .body("{\"error\":\"No registration result received for file.\"}")
+                    : response);
+        }
+        return responses;
+    }
+
+    private ResponseEntity<String> postFileUrls(List<String> fileUrls) {
+        try {
+            var url = metadataServiceUrl + "/register/batch";
+            logger.info("Sending batch of {} file URLs", fileUrls.size());
+            var headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            var files = new JSONArray();
+            fileUrls.forEach(fileUrl -> files.put(new JSONObject().put("fileUrl", fileUrl)));
+            var entity = new HttpEntity<>(new JSONObject().put("files", files).toString(), headers);
+            return handleResponse(restTemplate.postForEntity(url, entity, String.class));
+        } catch (RestClientException ex) {
+            logger.error("Failed to send batch of file URLs due to an exception");
+            return handleRestClientException(ex);
+        }
+    }
+
     /**
      * Sends a request to the metadata service to delete a file entry.
      *
@@ -66,6 +135,14 @@ public class HTTPCommunicationService implements CommunicationService {
      */
     @Override
     public void sendDeleteMessage(String fileName) {
+        guard.call(Operation.DELETE, () -> deleteFile(fileName), delivered -> !delivered, reason -> {
+            logger.warn("Delete message for file {} was not sent: {}", fileName, reason);
+            return false;
+        });
+    }
+
+    // returns false if the delete message failed because the metadata service could not handle it
+    private boolean deleteFile(String fileName) {
         try {
             logger.info("Sending delete message for file: {}", fileName);
             // Building the URL for the DELETE request
@@ -74,9 +151,11 @@ public class HTTPCommunicationService implements CommunicationService {
             // send DELETE request to metadata service
             restTemplate.delete(url);
             logger.info("Delete message successfully sent to metadata service.");
+            return true;
         } catch (RestClientException ex) {
             logger.error("Failed sending delete message due to an exception", ex);
             logRestClientException(ex);
+            return ex instanceof HttpClientErrorException;
         }
     }
 
@@ -84,10 +163,16 @@ public class HTTPCommunicationService implements CommunicationService {
      * Retrieves files from the metadata service based on provided query parameters.
      *
      * @param queryParams a map of query parameters for filtering the files
-     * @return a ResponseEntity containing the response from the metadata service
+     * @return a ResponseEntity containing the response from the metadata service, or 503 if the call was rejected
+     * by the circuit breaker or the bulkhead
      */
     @Override
     public ResponseEntity<String> getFiles(Map<String, String> queryParams) {
+        return guard.call(Operation.LIST, () -> fetchFiles(queryParams), HTTPCommunicationService::isServerError,
+                HTTPCommunicationService::rejectedResponse);
+    }
+
+    private ResponseEntity<String> fetchFiles(Map<String, String> queryParams) {
         try {
             UriComponentsBuilder uriBuilder = UriComponentsBuilder.fromHttpUrl(metadataServiceUrl + "/files");
             queryParams.forEach(uriBuilder::queryParam);
@@ -106,6 +191,37 @@ public class HTTPCommunicationService implements CommunicationService {
         }
     }
 
+    private static boolean isServerError(ResponseEntity<String> response) {
+        return response.getStatusCode().is5xxServerError();
+    }
+
+    // the response for a call that was not sent because the circuit breaker or the bulkhead rejected it
+    private static ResponseEntity<String> rejectedResponse(String reason) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("{\"error\":\"" + reason + "\"}");
+    }
+
+    // splits the body of a batch registration response into one response per file URL
+    private Map<String, ResponseEntity<String>> parseBatchResponse(String body) {
+        var responses = new LinkedHashMap<String, ResponseEntity<String>>();
+        if (body == null) {
+            return responses;
+        }
+        try {
+            var results = new JSONObject(body).getJSONArray("data");
+            for (int i = 0; i < results.length(); i++) {
+                var result = results.getJSONObject(i);
+                var status = HttpStatus.valueOf(result.getInt("status"));
+                var message = new JSONObject().put("message", result.optString("message"));
+                responses.put(result.getString("fileUrl"), status.is5xxServerError()
+                        ? ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(message.toString())
+                        : ResponseEntity.status(status).body(message.toString()));
+            }
+        } catch (JSONException | IllegalArgumentException ex) {
+            logger.error("Unreadable batch registration response: {}", ex.getMessage());
+        }
+        return responses;
+    }
+
     // logs exception and returns response entity with error message
     private ResponseEntity<String> handleRestClientException(RestClientException ex) {
         if (ex instanceof HttpClientErrorException clientError) {
@@ -0,0 +1,154 @@
+package org.yulia.filemanagement.fileuploadservice.communication;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Protects the service from a slow or unavailable metadata service. Every call passes a circuit breaker shared by all
+ * operations, which fails calls fast while the metadata service is failing, and a bulkhead of its operation, which
+ * limits the calls in flight so a hanging operation cannot take all request threads. Each operation has its own
+ * limit, so listings cannot starve registrations.
+ */
+@Component
+public class MetadataServiceGuard {
+
+    private static final Logger logger = LoggerFactory.getLogger(MetadataServiceGuard.class);
+
+    /**
+     * The operations of the metadata service, each with a bulkhead of its own.
+     */
+    public enum Operation {
+        REGISTER, LIST, DELETE
+    }
+
+    private final CircuitBreaker circuitBreaker;
+    private final Map<Operation, Bulkhead> bulkheads = new EnumMap<>(Operation.class);
+
+    public MetadataServiceGuard(@Value("${metadata.breaker.window.size:20}") int windowSize,
+                                @Value("${metadata.breaker.minimum.calls:10}") int minimumCalls,
+                                @Value("${metadata.breaker.failure.rate.threshold:50}") int failureRateThreshold,
+                                @Value("${metadata.breaker.open.duration.ms:10000}") long openDurationMs,
+                                @Value("${metadata.breaker.half.open.probes:3}") int halfOpenProbes,
+                                @Value("${metadata.bulkhead.register.max.concurrent:20}") int maxConcurrentRegistrations,
+                                @Value("${metadata.bulkhead.list.max.concurrent:10}") int maxConcurrentListings,
+                                @Value("${metadata.bulkhead.delete.max.concurrent:5}") int maxConcurrentDeletes) {
+        this.circuitBreaker = new CircuitBreaker("metadata-service", windowSize, minimumCalls, failureRateThreshold,
+                openDurationMs, halfOpenProbes);
+        bulkheads.put(Operation.REGISTER, new Bulkhead(maxConcurrentRegistrations));
+        bulkheads.put(Operation.LIST, new Bulkhead(maxConcurrentListings));
+        bulkheads.put(Operation.DELETE, new Bulkhead(maxConcurrentDeletes));
+    }
+
+    /**
+     * Sends a call to the metadata service if the circuit breaker and the bulkhead of the operation permit it.
+     * A call that throws a runtime exception is recorded as a failure and the exception is rethrown.
+     *
+     * @param operation the operation the call belongs to
+     * @param call      the call to send
+     * @param isFailure decides whether the result of the call counts as a failure for the circuit breaker
+     * @param rejected  creates the result returned instead when the call is rejected, from the rejection reason
+     * @return the result of the call, or the rejection result
+     */
+    public <T> T call(Operation operation, Supplier<T> call, Predicate<T> isFailure,
+                      Function<String, T> rejected) {
+        return callAsync(operation, () -> CompletableFuture.completedFuture(call.get()), isFailure, rejected).join();
+    }
+
+    /**
+     * Sends a non-blocking call to the metadata service if the circuit breaker and the bulkhead of the operation
+     * permit it. The call holds its place in the bulkhead until the returned future completes; a future completed
+     * exceptionally is recorded as a failure.
+     *
+     * @param operation the operation the call belongs to
+     * @param call      starts the call and returns its result
+     * @param isFailure decides whether the result of the call counts as a failure for the circuit breaker
+     * @param rejected  creates the result returned instead when the call is rejected, from the rejection reason
+     * @return the result of the call, or a completed future of the rejection result
+     */
+    public <T> CompletableFuture<T> callAsync(Operation operation, Supplier<CompletableFuture<T>> call,
+                                              Predicate<T> isFailure, Function<String, T> rejected) {
+        var bulkhead = bulkheads.get(operation);
+        if (!bulkhead.tryAcquire()) {
+            logger.warn("Rejected {} call to metadata service, too many calls in flight", operation);
+            return CompletableFuture.completedFuture(rejected.apply("Too many concurrent requests to metadata service."));
+        }
+        var permission = circuitBreaker.tryAcquirePermission();
+        if (permission == CircuitBreaker.REJECTED) {
+            bulkhead.release();
+            logger.warn("Rejected {} call to metadata service, circuit breaker is open", operation);
+            return CompletableFuture.completedFuture(rejected.apply("Metadata service is unavailable."));
+        }
+
+        CompletableFuture<T> result;
+        try {
+            result = call.get();
+        } catch (RuntimeException e) {
+            circuitBreaker.onFailure(permission);
+            bulkhead.release();
+            throw e;
+        }
+        return result.whenComplete((response, error) -> {
+            if (error != null || isFailure.test(response)) {
+                circuitBreaker.onFailure(permission);
+            } else {
+                circuitBreaker.onSuccess(permission);
+            }
+            bulkhead.release();
+        });
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    /**
+     * Returns the state of the bulkheads for monitoring.
+     *
+     * @return the calls in flight, the limit and the number of rejected calls, by operation
+     */
+    public Map<Operation, Map<String, Object>> getBulkheadStatus() {
+        var status = new LinkedHashMap<Operation, Map<String, Object>>();
+        bulkheads.forEach((operation, bulkhead) -> status.put(operation, Map.of(
+                "maxConcurrentCalls", bulkhead.maxConcurrent,
+                "callsInFlight", bulkhead.maxConcurrent - bulkhead.permits.availablePermits(),
+                "rejectedCalls", bulkhead.rejected.get())));
+        return status;
+    }
+
+    // limits the calls of one operation in flight; calls over the limit are rejected instead of waiting
+    private static class Bulkhead {
+
+        private final int maxConcurrent;
+        private final Semaphore permits;
+        private final AtomicLong rejected = new AtomicLong();
+
+        Bulkhead(int maxConcurrent) {
+            this.maxConcurrent = maxConcurrent;
+            this.permits = new Semaphore(maxConcurrent);
+        }
+
+        boolean tryAcquire() {
+            if (permits.tryAcquire()) {
+                return true;
+            }
+            rejected.incrementAndGet();
+            return false;
+        }
+
+        void release() {
+            permits.release();
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package org.yulia.filemanagement.fileuploadservice.communication;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Actuator endpoint that shows the state of the circuit breaker and the bulkheads around the metadata service calls,
+ * available at /actuator/metadataservice.
+ */
+@Component
+@Endpoint(id = "metadataservice")
+public class MetadataServiceGuardEndpoint {
+
+    private final MetadataServiceGuard guard;
+
+    public MetadataServiceGuardEndpoint(MetadataServiceGuard guard) {
+        this.guard = guard;
+    }
+
+    @ReadOperation
+    public Map<String, Object> status() {
+        var circuitBreaker = guard.getCircuitBreaker();
+        var status = new LinkedHashMap<String, Object>();
+        status.put("circuitBreaker", Map.of(
+                "state", circuitBreaker.getState(),
+                "failureRate", circuitBreaker.getFailureRate(),
+                "rejectedCalls", circuitBreaker.getRejectedCalls()));
+        status.put("bulkheads", guard.getBulkheadStatus());
+        return status;
+    }
+}
@@ -0,0 +1,26 @@
+package org.yulia.filemanagement.fileuploadservice.communication;
+
+import org.springframework.http.ResponseEntity;
+import org.yulia.filemanagement.fileuploadservice.dto.StoredObject;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Non-blocking counterpart of {@link CommunicationService}. Nothing is sent before the returned publisher is
+ * subscribed to, and no thread is held while a request is in flight. Failed requests are not signalled as errors but
+ * mapped to responses the same way as in {@link CommunicationService}.
+ */
+public interface ReactiveCommunicationService {
+
+    Mono<ResponseEntity<String>> registerFileUrl(String fileUrl);
+
+    Mono<ResponseEntity<String>> registerFile(StoredObject storedObject);
+
+    Mono<Map<String, ResponseEntity<String>>> registerFileUrls(List<String> fileUrls);
+
+    Mono<Void> deleteFile(String fileName);
+
+    Mono<ResponseEntity<String>> listFiles(Map<String, String> queryParams);
+}
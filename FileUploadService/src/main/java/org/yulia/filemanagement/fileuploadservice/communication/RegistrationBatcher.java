@@ -0,0 +1,131 @@
+package org.yulia.filemanagement.fileuploadservice.communication;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coalesces the registrations of concurrently uploaded files into batch requests to the metadata service.
+ * A registration waits at most for the batch window; a batch is sent earlier as soon as it reaches its maximum size.
+ * Under bursty multi-file uploads this replaces one HTTP request and one database transaction per file with one per
+ * batch, while a single upload is delayed by the window at most.
+ */
+@Component
+@ConditionalOnProperty(name = "registration.batch.enabled", havingValue = "true")
+public class RegistrationBatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(RegistrationBatcher.class);
+
+    private final CommunicationService communicationService;
+    private final long window;
+    private final int maxBatchSize;
+    // schedules the window flushes and sends the batches one at a time
+    private final ScheduledExecutorService sender =
+            Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("registration-batch-"));
+
+    // registrations waiting for the next batch, by file URL; guarded by this
+    private Map<String, List<CompletableFuture<ResponseEntity<String>>>> pending = new LinkedHashMap<>();
+    private ScheduledFuture<?> scheduledFlush;
+
+    public RegistrationBatcher(CommunicationService communicationService,
+                               @Value("${registration.batch.window.ms:20}") long window,
+                               @Value("${registration.batch.max.size:50}") int maxBatchSize) {
+        if (window < 0) {
+            throw new IllegalArgumentException("Batch window must not be negative.");
+        }
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be at least 1.");
+        }
+        this.communicationService = communicationService;
+        this.window = window;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * Queues the registration of a file for the next batch.
+     *
+     * @param fileUrl the URL of the uploaded file
+     * @return a future that is completed with the response of the metadata service for this file
+     */
+    public CompletableFuture<ResponseEntity<String>> register(String fileUrl) {
+        var future = new CompletableFuture<ResponseEntity<String>>();
+        synchronized (this) {
+            pending.computeIfAbsent(fileUrl, url -> new ArrayList<>()).add(future);
+            if (pending.size() >= maxBatchSize) {
+                var batch = takePending();
+                sender.execute(() -> send(batch));
+            } else if (scheduledFlush == null) {
+                scheduledFlush = sender.schedule(this::flush, window, TimeUnit.MILLISECONDS);
+            }
+        }
+        return future;
+    }
+
+    /**
+     * Sends the registrations that are still waiting and stops the sender.
+     */
+    @PreDestroy
+    public void shutdown() {
+        flush();
+        sender.shutdown();
+    }
+
+    // sends the registrations collected within the window
+    private void flush() {
+        Map<String, List<CompletableFuture<ResponseEntity<String>>>> batch;
+        synchronized (this) {
+            batch = takePending();
+        }
+        if (!batch.isEmpty()) {
+            send(batch);
+        }
+    }
+
+    // removes the waiting registrations; the caller holds the monitor
+    private Map<String, List<CompletableFuture<ResponseEntity<String>>>> takePending() {
+        var batch = pending;
+        pending = new LinkedHashMap<>();
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+        return batch;
+    }
+
+    // sends one batch and completes the future of every registration in it
+    private void send(Map<String, List<CompletableFuture<ResponseEntity<String>>>> batch) {
+        var fileUrls = List.copyOf(batch.keySet());
+        try {
+            // a lone registration uses the single registration endpoint
+            Map<String, ResponseEntity<String>> responses = fileUrls.size() == 1
+                    ? Map.of(fileUrls.get(0), communicationService.sendFileUrl(fileUrls.get(0)))
+                    : communicationService.sendFileUrls(fileUrls);
+            batch.forEach((fileUrl, futures) -> {
+                var response = responses.getOrDefault(fileUrl, ResponseEntity
+                        .status(HttpStatus.INTERNAL_SERVER_ERROR)
+                        .body("{\"error\":\"No registration result received for file.\"}"));
+                futures.forEach(future -> future.complete(response));
+            });
+            logger.info("Sent batch of {} registration(s)", fileUrls.size());
+        } catch (RuntimeException e) {
+            logger.error("Failed to send batch of {} registration(s): {}", fileUrls.size(), e.getMessage());
+            batch.values().forEach(futures -> futures.forEach(future -> future.completeExceptionally(e)));
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package org.yulia.filemanagement.fileuploadservice.communication;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.yulia.filemanagement.fileuploadservice.dto.OutboxEntry;
+import org.yulia.filemanagement.fileuploadservice.storage.ObjectStorage;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Drains the registration outbox in the background. Pending registrations are sent to the metadata service in
+ * batches, one batch registration request per batch; a registration that fails with a server error is retried with
+ * exponential backoff until it is delivered, while one that is rejected with a client error is rolled back like a
+ * failed synchronous upload.
+ */
+@Component
+@ConditionalOnProperty(name = "registration.async.enabled", havingValue = "true")
+public class RegistrationDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(RegistrationDispatcher.class);
+
+    private final RegistrationOutbox outbox;
+    private final CommunicationService communicationService;
+    private final ObjectStorage objectStorage;
+    private final int batchSize;
+    private final long initialBackoff;
+    private final long maxBackoff;
+
+    // retry state of the entries that failed at least once, by entry id
+    private final Map<Long, RetryState> retries = new ConcurrentHashMap<>();
+
+    public RegistrationDispatcher(RegistrationOutbox outbox, CommunicationService communicationService,
+                                  ObjectStorage objectStorage,
+                                  @Value("${registration.dispatch.batch.size:50}") int batchSize,
+                                  @Value("${registration.dispatch.backoff.initial.ms:1000}") long initialBackoff,
+                                  @Value("${registration.dispatch.backoff.max.ms:60000}") long maxBackoff) {
+        this.outbox = outbox;
+        this.communicationService = communicationService;
+        this.objectStorage = objectStorage;
+        this.batchSize = batchSize;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+    }
+
+    /**
+     * Sends the registrations that are due and acknowledges the delivered ones. Runs periodically and drains the
+     * outbox batch by batch; a batch without any completed registration ends the run.
+     *
+     * @return the number of registrations that were delivered or rolled back
+     */
+    @Scheduled(fixedDelayString = "${registration.dispatch.interval.ms:200}")
+    public int dispatchPending() {
+        var now = System.currentTimeMillis();
+        int completed = 0;
+        int dispatched = 0;
+        long lastId = 0;
+        while (true) {
+            // only one batch is taken from the outbox at a time; entries that are waiting for a retry are skipped,
+            // so they do not hold back newer registrations
+            var batch = outbox.pending(lastId, batchSize, entry -> isDue(entry, now));
+            if (batch.isEmpty()) {
+                break;
+            }
+            lastId = batch.get(batch.size() - 1).id();
+            dispatched += batch.size();
+            var batchCompleted = dispatchBatch(batch);
+            completed += batchCompleted;
+            if (batchCompleted == 0 || batch.size() < batchSize) {
+                // a batch without any completed registration means the metadata service is most likely unavailable,
+                // the remaining batches wait for the next run
+                break;
+            }
+        }
+        if (dispatched > 0) {
+            logger.info("Completed {} of {} dispatched registration(s), {} pending", completed, dispatched,
+                    outbox.size());
+        }
+        return completed;
+    }
+
+    private boolean isDue(OutboxEntry entry, long now) {
+        var retry = retries.get(entry.id());
+        return retry == null || retry.nextAttemptAt <= now;
+    }
+
+    // sends the registrations of one batch with a single request and returns how many of them were completed
+    private int dispatchBatch(List<OutboxEntry> batch) {
+        Map<String, ResponseEntity<String>> responses;
+        try {
+            if (batch.size() == 1) {
+                var fileUrl = batch.get(0).fileUrl();
+                responses = Map.of(fileUrl, communicationService.sendFileUrl(fileUrl));
+            } else {
+                responses = communicationService.sendFileUrls(
+                        batch.stream().map(OutboxEntry::fileUrl).distinct().toList());
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Failed to send batch of {} registration(s): {}", batch.size(), e.getMessage());
+            batch.forEach(this::scheduleRetry);
+            return 0;
+        }
+
+        int completed = 0;
+        for (var entry : batch) {
+            if (complete(entry, responses.get(entry.fileUrl()))) {
+                completed++;
+            }
+        }
+        return completed;
+    }
+
+    // handles the response to one registration; returns true if it no longer needs to be retried
+    private boolean complete(OutboxEntry entry, ResponseEntity<String> response) {
+        if (response == null || response.getStatusCode().is5xxServerError()) {
+            scheduleRetry(entry);
+            return false;
+        }
+
+        try {
+            if (response.getStatusCode().is4xxClientError()) {
+                logger.error("Registration of file {} was rejected with {}, deleting file from the storage",
+                        entry.fileName(), response.getStatusCode());
+                objectStorage.deleteObject(entry.fileName());
+                communicationService.sendDeleteMessage(entry.fileName());
+            }
+            outbox.acknowledge(entry.id());
+            retries.remove(entry.id());
+            logger.info("Registration of file {} completed with {}", entry.fileName(), response.getStatusCode());
+            return true;
+        } catch (IOException e) {
+            logger.error("Failed to complete registration of file {}: {}", entry.fileName(), e.getMessage());
+            scheduleRetry(entry);
+            return false;
+        }
+    }
+
+    private void scheduleRetry(OutboxEntry entry) {
+        var previous = retries.get(entry.id());
+        var attempts = previous == null ? 1 : previous.attempts + 1;
+        var backoff = Math.min(maxBackoff, initialBackoff << Math.min(attempts - 1, 30));
+        retries.put(entry.id(), new RetryState(attempts, System.currentTimeMillis() + backoff));
+        logger.warn("Registration of file {} failed {} time(s), retrying in {} ms", entry.fileName(), attempts,
+                backoff);
+    }
+
+    private record RetryState(int attempts, long nextAttemptAt) {
+    }
+}
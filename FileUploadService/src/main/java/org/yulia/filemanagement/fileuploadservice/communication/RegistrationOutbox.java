@@ -0,0 +1,214 @@
+package org.yulia.filemanagement.fileuploadservice.communication;
+
+import jakarta.annotation.PreDestroy;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.yulia.filemanagement.fileuploadservice.dto.OutboxEntry;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+
+/**
+ * Crash-safe journal of file registrations that still have to be sent to the metadata service.
+ * The journal is an append-only file with one JSON record per line: a REG record when a file is stored and an ACK
+ * record once its registration has been delivered. Every append is forced to disk before it returns, so a
+ * registration that was accepted is never lost. On startup, registrations without an ACK are loaded again.
+ */
+@Component
+@ConditionalOnProperty(name = "registration.async.enabled", havingValue = "true")
+public class RegistrationOutbox {
+
+    private static final Logger logger = LoggerFactory.getLogger(RegistrationOutbox.class);
+
+    private static final String TYPE_REGISTRATION = "REG";
+    private static final String TYPE_ACKNOWLEDGEMENT = "ACK";
+
+    private final Path journalPath;
+    private final int compactionThreshold;
+
+    // pending registrations by id; ids grow with every append, so this is the order they were appended in
+    private final NavigableMap<Long, OutboxEntry> pending = new TreeMap<>();
+    private FileChannel journal;
+    private long nextId = 1;
+    private int acknowledgedSinceCompaction;
+
+    public RegistrationOutbox(@Value("${registration.outbox.path:data/registration-outbox.log}") String journalPath,
+                              @Value("${registration.outbox.compaction.threshold:1000}") int compactionThreshold)
+            throws IOException {
+        this.journalPath = Path.of(journalPath);
+        this.compactionThreshold = compactionThreshold;
+
+        if (this.journalPath.getParent() != null) {
+            Files.createDirectories(this.journalPath.getParent());
+        }
+        var tornTail = replay();
+        this.journal = openJournal();
+        if (tornTail) {
+            // terminates the torn record, so the next record starts on a line of its own
+            journal.write(ByteBuffer.wrap("\n".getBytes(StandardCharsets.UTF_8)));
+            journal.force(false);
+        }
+        logger.info("Opened registration outbox '{}' with {} pending registration(s)", this.journalPath,
+                pending.size());
+    }
+
+    /**
+     * Appends a registration to the journal. When this method returns, the registration is stored durably.
+     *
+     * @param fileName the name of the stored file
+     * @param fileUrl  the URL of the stored file
+     * @return the appended entry
+     * @throws IOException if the journal could not be written
+     */
+    public synchronized OutboxEntry append(String fileName, String fileUrl) throws IOException {
+        var entry = new OutboxEntry(nextId, fileName, fileUrl);
+        write(journal, registrationRecord(entry));
+        journal.force(false);
+        nextId++;
+        pending.put(entry.id(), entry);
+        return entry;
+    }
+
+    /**
+     * Marks a registration as delivered, so it is not sent again after a restart.
+     *
+     * @param id the id of the entry
+     * @throws IOException if the journal could not be written
+     */
+    public synchronized void acknowledge(long id) throws IOException {
+        if (pending.remove(id) == null) {
+            return;
+        }
+        write(journal, new JSONObject().put("type", TYPE_ACKNOWLEDGEMENT).put("id", id));
+        journal.force(false);
+        if (++acknowledgedSinceCompaction >= compactionThreshold) {
+            compact();
+        }
+    }
+
+    /**
+     * Returns the oldest pending registrations.
+     *
+     * @param limit the maximum number of entries to return
+     * @return the pending entries in the order they were appended
+     */
+    public synchronized List<OutboxEntry> pending(int limit) {
+        return pending(0, limit, entry -> true);
+    }
+
+    /**
+     * Returns the oldest pending registrations appended after the given entry that pass the filter. The entries are
+     * looked up from the given id on, so taking a batch does not walk the entries that were taken before.
+     *
+     * @param afterId the id of the last entry already taken, or 0 to start with the oldest entry
+     * @param limit   the maximum number of entries to return
+     * @param filter  decides which entries are returned; it is called while the outbox is locked
+     * @return the pending entries in the order they were appended
+     */
+    public synchronized List<OutboxEntry> pending(long afterId, int limit, Predicate<OutboxEntry> filter) {
+        var entries = new ArrayList<OutboxEntry>();
+        for (var entry : pending.tailMap(afterId, false).values()) {
+            if (entries.size() >= limit) {
+                break;
+            }
+            if (filter.test(entry)) {
+                entries.add(entry);
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Returns the number of registrations that have not been delivered yet.
+     *
+     * @return the number of pending registrations
+     */
+    public synchronized int size() {
+        return pending.size();
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        journal.close();
+    }
+
+    private static JSONObject registrationRecord(OutboxEntry entry) {
+        return new JSONObject()
+                .put("type", TYPE_REGISTRATION)
+                .put("id", entry.id())
+                .put("fileName", entry.fileName())
+                .put("fileUrl", entry.fileUrl());
+    }
+
+    private static void write(FileChannel channel, JSONObject record) throws IOException {
+        var line = ByteBuffer.wrap((record + "\n").getBytes(StandardCharsets.UTF_8));
+        while (line.hasRemaining()) {
+            channel.write(line);
+        }
+    }
+
+    // rebuilds the pending registrations from the journal; a torn last line left by a crash is skipped, and true is
+    // returned if the journal does not end with a complete line
+    private boolean replay() throws IOException {
+        if (!Files.exists(journalPath)) {
+            return false;
+        }
+        var content = Files.readString(journalPath, StandardCharsets.UTF_8);
+        for (var line : content.split("\n")) {
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                var record = new JSONObject(line);
+                var id = record.getLong("id");
+                if (TYPE_REGISTRATION.equals(record.getString("type"))) {
+                    pending.put(id, new OutboxEntry(id, record.getString("fileName"), record.getString("fileUrl")));
+                } else {
+                    pending.remove(id);
+                }
+                nextId = Math.max(nextId, id + 1);
+            } catch (JSONException e) {
+                logger.warn("Skipping unreadable outbox record: {}", line);
+            }
+        }
+        return !content.isEmpty() && !content.endsWith("\n");
+    }
+
+    // rewrites the journal with the pending registrations only, so it does not grow without bounds
+    private void compact() throws IOException {
+        var compacted = journalPath.resolveSibling(journalPath.getFileName() + ".compact");
+        try (var channel = FileChannel.open(compacted, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (var entry : pending.values()) {
+                write(channel, registrationRecord(entry));
+            }
+            channel.force(true);
+        }
+        journal.close();
+        Files.move(compacted, journalPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        journal = openJournal();
+        acknowledgedSinceCompaction = 0;
+        logger.info("Compacted registration outbox to {} pending registration(s)", pending.size());
+    }
+
+    private FileChannel openJournal() throws IOException {
+        return FileChannel.open(journalPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+    }
+}
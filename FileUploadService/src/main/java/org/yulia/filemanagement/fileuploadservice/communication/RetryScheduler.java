@@ -0,0 +1,193 @@
+package org.yulia.filemanagement.fileuploadservice.communication;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Runs requests to the metadata service with retries. A failed attempt is not retried after a sleep; the next attempt
+ * is scheduled on a timer, so no thread is parked while the service waits for the backoff to pass. The timer only
+ * starts the attempts: blocking requests run on a bounded pool of their own, so a slow metadata service cannot hold
+ * the timer threads and delay the retries of other requests.
+ * The backoff grows exponentially with a random extra delay, so clients that failed together do not retry together.
+ * A service-wide retry budget limits retries to a fraction of the requests, so retries cannot multiply the load on a
+ * metadata service that is already struggling.
+ */
+@Component
+public class RetryScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(RetryScheduler.class);
+
+    private final ScheduledExecutorService executor;
+    private final Executor requestExecutor;
+    private final int maxAttempts;
+    private final long initialBackoff;
+    private final long maxBackoff;
+    private final double jitterRatio;
+    private final double budgetRatio;
+    private final int minRetriesPerSecond;
+
+    // retry budget: every request earns budgetRatio tokens, every retry spends one, and minRetriesPerSecond tokens
+    // are earned per second regardless of traffic; guarded by this
+    private final double maxTokens;
+    private double tokens;
+    private long lastRefill = System.nanoTime();
+
+    public RetryScheduler(@Qualifier("retryExecutor") ScheduledExecutorService executor,
+                          @Qualifier("metadataRequestExecutor") Executor requestExecutor,
+                          @Value("${send.message.retry}") int maxAttempts,
+                          @Value("${send.sleep.between.retry.ms}") long initialBackoff,
+                          @Value("${send.retry.backoff.max.ms:30000}") long maxBackoff,
+                          @Value("${send.retry.jitter.ratio:0.5}") double jitterRatio,
+                          @Value("${send.retry.budget.ratio:0.2}") double budgetRatio,
+                          @Value("${send.retry.budget.min.per.second:10}") int minRetriesPerSecond) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("Number of attempts must be at least 1.");
+        }
+        this.executor = executor;
+        this.requestExecutor = requestExecutor;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = Math.max(maxBackoff, initialBackoff);
+        this.jitterRatio = jitterRatio;
+        this.budgetRatio = budgetRatio;
+        this.minRetriesPerSecond = minRetriesPerSecond;
+        // the budget never holds more than ten seconds worth of minimal retries, so a quiet period cannot save up
+        // for a retry storm
+        this.maxTokens = Math.max(10.0 * minRetriesPerSecond, 1);
+        this.tokens = minRetriesPerSecond;
+    }
+
+    /**
+     * Runs a blocking request until it succeeds, fails with a client error, runs out of attempts or the retry budget
+     * is exhausted. Every attempt runs on the request executor, so neither the calling thread nor the retry timer
+     * waits for the response.
+     *
+     * @param request the request to run; a response with a server error status is retried
+     * @return a future completed with the successful response, the client error response, or a service unavailable
+     * response if the request could not be completed or the request executor is full; completed exceptionally if the
+     * request throws
+     */
+    public CompletableFuture<ResponseEntity<String>> execute(Supplier<ResponseEntity<String>> request) {
+        return executeAsync(() -> CompletableFuture.supplyAsync(request, requestExecutor));
+    }
+
+    /**
+     * Runs a non-blocking request with the same retries as {@link #execute(Supplier)}. No thread waits for an attempt
+     * to complete; the next attempt is scheduled once the previous one has completed.
+     *
+     * @param request starts the request and returns its response; a response with a server error status is retried
+     * @return a future completed like the one of {@link #execute(Supplier)}
+     */
+    public CompletableFuture<ResponseEntity<String>> executeAsync(
+            Supplier<CompletableFuture<ResponseEntity<String>>> request) {
+        var result = new CompletableFuture<ResponseEntity<String>>();
+        synchronized (this) {
+            refill();
+            tokens = Math.min(maxTokens, tokens + budgetRatio);
+        }
+        attempt(request, 1, result);
+        return result;
+    }
+
+    private void attempt(Supplier<CompletableFuture<ResponseEntity<String>>> request, int attempt,
+                         CompletableFuture<ResponseEntity<String>> result) {
+        CompletableFuture<ResponseEntity<String>> response;
+        try {
+            response = request.get();
+        } catch (RejectedExecutionException e) {
+            logger.error("Request could not be started: {}", e.getMessage());
+            result.complete(serviceUnavailable("Service unavailable, too many pending requests."));
+            return;
+        } catch (RuntimeException e) {
+            result.completeExceptionally(e);
+            return;
+        }
+        response.whenComplete((completed, error) -> {
+            if (error != null) {
+                result.completeExceptionally(error instanceof CompletionException ? error.getCause() : error);
+            } else {
+                onResponse(request, attempt, completed, result);
+            }
+        });
+    }
+
+    // completes the result with the response of an attempt, or schedules the next attempt
+    private void onResponse(Supplier<CompletableFuture<ResponseEntity<String>>> request, int attempt,
+                            ResponseEntity<String> response, CompletableFuture<ResponseEntity<String>> result) {
+        if (response.getStatusCode().is2xxSuccessful()) {
+            logger.info("Successfully completed request on attempt: {}", attempt);
+            result.complete(ResponseEntity.ok(response.getBody()));
+            return;
+        }
+        if (response.getStatusCode().is4xxClientError()) {
+            logger.error("Client error received: {}, stopping retries.", response.getStatusCode());
+            result.complete(ResponseEntity.status(response.getStatusCode()).body(response.getBody()));
+            return;
+        }
+        if (attempt >= maxAttempts) {
+            logger.error("Failed to complete request after all retries. Last received status: {}",
+                    response.getStatusCode());
+            result.complete(serviceUnavailable("Service unavailable after multiple retries."));
+            return;
+        }
+        if (!withdrawRetry()) {
+            logger.error("Retry budget exhausted, not retrying request. Last received status: {}",
+                    response.getStatusCode());
+            result.complete(serviceUnavailable("Service unavailable, retry budget exhausted."));
+            return;
+        }
+
+        var delay = backoff(attempt);
+        logger.warn("Server error received: {}. Retrying in {} ms... Attempts left: {}", response.getStatusCode(),
+                delay, maxAttempts - attempt);
+        try {
+            executor.schedule(() -> attempt(request, attempt + 1, result), delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            logger.error("Retry could not be scheduled: {}", e.getMessage());
+            result.complete(serviceUnavailable("Service unavailable after multiple retries."));
+        }
+    }
+
+    // the delay before the given attempt is retried; the jitter is added on top, so the delay never drops below the
+    // exponential backoff
+    private long backoff(int attempt) {
+        var base = Math.min(maxBackoff, initialBackoff << Math.min(attempt - 1, 30));
+        var jitter = (long) (base * jitterRatio * ThreadLocalRandom.current().nextDouble());
+        return base + jitter;
+    }
+
+    private synchronized boolean withdrawRetry() {
+        refill();
+        if (tokens < 1) {
+            return false;
+        }
+        tokens--;
+        return true;
+    }
+
+    // adds the tokens earned by time since the last refill; the caller holds the monitor
+    private void refill() {
+        var now = System.nanoTime();
+        var earned = (now - lastRefill) / 1e9 * minRetriesPerSecond;
+        tokens = Math.min(maxTokens, tokens + earned);
+        lastRefill = now;
+    }
+
+    private static ResponseEntity<String> serviceUnavailable(String message) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("{\"error\":\"" + message + "\"}");
+    }
+}
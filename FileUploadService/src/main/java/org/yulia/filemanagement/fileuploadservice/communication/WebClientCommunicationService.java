@@ -0,0 +1,241 @@
+package org.yulia.filemanagement.fileuploadservice.communication;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.yulia.filemanagement.fileuploadservice.communication.MetadataServiceGuard.Operation;
+import org.yulia.filemanagement.fileuploadservice.dto.StoredObject;
+import reactor.core.publisher.Mono;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Communication with the metadata service on a non-blocking WebClient. Requests in flight do not hold a thread; the
+ * blocking methods of {@link CommunicationService} wait for the reactive ones, and are only used by callers that need
+ * the result on their own thread anyway. Responses are mapped like in {@link HTTPCommunicationService}, and every
+ * request passes the same circuit breaker and bulkheads.
+ */
+@Service
+@Profile("webclient")
+public class WebClientCommunicationService implements CommunicationService, ReactiveCommunicationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(WebClientCommunicationService.class);
+
+    private static final String SERVER_ERROR_BODY = "{\"error\":\"Internal server error. Please try again later.\"}";
+    private static final String COMMUNICATION_ERROR_BODY =
+            "{\"error\":\"Communication error with metadata service.\"}";
+
+    private final WebClient webClient;
+    private final MetadataServiceGuard guard;
+
+    public WebClientCommunicationService(WebClient.Builder metadataWebClientBuilder,
+                                         @Value("${file.metadata.service.url}") String metadataServiceUrl,
+                                         MetadataServiceGuard guard) {
+        this.webClient = metadataWebClientBuilder.baseUrl(metadataServiceUrl).build();
+        this.guard = guard;
+    }
+
+    /**
+     * Sends the URL of an uploaded file to the metadata service for registration.
+     *
+     * @param fileUrl the URL of the uploaded file
+     * @return a Mono of the response from the metadata service, or of 503 if the call was rejected by the circuit
+     * breaker or the bulkhead
+     */
+    @Override
+    public Mono<ResponseEntity<String>> registerFileUrl(String fileUrl) {
+        return registerFile(new StoredObject(fileUrl));
+    }
+
+    /**
+     * Sends the URL of an uploaded file to the metadata service for registration, together with the attributes it
+     * was stored with.
+     *
+     * @param storedObject the URL and the attributes of the uploaded file
+     * @return a Mono of the response from the metadata service, or of 503 if the call was rejected by the circuit
+     * breaker or the bulkhead
+     */
+    @Override
+    public Mono<ResponseEntity<String>> registerFile(StoredObject storedObject) {
+        return guarded(Operation.REGISTER, () -> {
+            logger.info("Sending file URL: {}", storedObject.fileUrl());
+            return webClient.post()
+                    .uri("/register")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .bodyValue(CommunicationService.registrationBody(storedObject).toString())
+                    .exchangeToMono(WebClientCommunicationService::toResponse)
+                    .onErrorResume(ex -> communicationError("Failed to send file URL", ex));
+        });
+    }
+
+    /**
+     * Sends the URLs of several uploaded files to the metadata service with one batch registration request.
+     * If the request as a whole fails, every file gets the response of the failed request.
+     *
+     * @param fileUrls the URLs of the uploaded files
+     * @return a Mono of the response for every file URL, with the status the file was registered with
+     */
+    @Override
+    public Mono<Map<String, ResponseEntity<String>>> registerFileUrls(List<String> fileUrls) {
+        return guarded(Operation.REGISTER, () -> {
+            logger.info("Sending batch of {} file URLs", fileUrls.size());
+            var files = new JSONArray();
+            fileUrls.forEach(fileUrl -> files.put(new JSONObject().put("fileUrl", fileUrl)));
+            return webClient.post()
+                    .uri("/register/batch")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .bodyValue(new JSONObject().put("files", files).toString())
+                    .exchangeToMono(WebClientCommunicationService::toResponse)
+                    .onErrorResume(ex -> communicationError("Failed to send batch of file URLs", ex));
+        }).map(response -> toBatchResponses(fileUrls, response));
+    }
+
+    /**
+     * Sends a request to the metadata service to delete a file entry. Failures are logged and not signalled.
+     *
+     * @param fileName the name of the file to be deleted
+     * @return a Mono that completes once the request has been answered or has failed
+     */
+    @Override
+    public Mono<Void> deleteFile(String fileName) {
+        return guarded(Operation.DELETE, () -> {
+            logger.info("Sending delete message for file: {}", fileName);
+            return webClient.delete()
+                    .uri(uriBuilder -> uriBuilder.path("/delete").queryParam("fileName", "{fileName}")
+                            .build(fileName))
+                    .exchangeToMono(WebClientCommunicationService::toResponse)
+                    .onErrorResume(ex -> communicationError("Failed sending delete message", ex));
+        }).doOnNext(response -> logger.info("Delete message for file {} answered with {}", fileName,
+                response.getStatusCode())).then();
+    }
+
+    /**
+     * Retrieves files from the metadata service based on provided query parameters.
+     *
+     * @param queryParams a map of query parameters for filtering the files
+     * @return a Mono of the response from the metadata service, or of 503 if the call was rejected by the circuit
+     * breaker or the bulkhead
+     */
+    @Override
+    public Mono<ResponseEntity<String>> listFiles(Map<String, String> queryParams) {
+        return guarded(Operation.LIST, () -> {
+            logger.info("Sending request to metadata service to retrieve files");
+            return webClient.get()
+                    .uri(uriBuilder -> {
+                        uriBuilder.path("/files");
+                        queryParams.forEach((name, value) -> uriBuilder.queryParam(name, "{" + name + "}"));
+                        return uriBuilder.build(queryParams);
+                    })
+                    .exchangeToMono(WebClientCommunicationService::toResponse)
+                    .onErrorResume(ex -> communicationError("Failed sending get files request", ex));
+        });
+    }
+
+    @Override
+    public ResponseEntity<String> sendFileUrl(String fileUrl) {
+        return registerFileUrl(fileUrl).block();
+    }
+
+    @Override
+    public ResponseEntity<String> sendFileRegistration(StoredObject storedObject) {
+        return registerFile(storedObject).block();
+    }
+
+    @Override
+    public Map<String, ResponseEntity<String>> sendFileUrls(List<String> fileUrls) {
+        return registerFileUrls(fileUrls).block();
+    }
+
+    /**
+     * Sends a request to the metadata service to delete a file entry without waiting for the response.
+     *
+     * @param fileName the name of the file to be deleted
+     */
+    @Override
+    public void sendDeleteMessage(String fileName) {
+        deleteFile(fileName).subscribe();
+    }
+
+    @Override
+    public ResponseEntity<String> getFiles(Map<String, String> queryParams) {
+        return listFiles(queryParams).block();
+    }
+
+    // sends a request through the circuit breaker and the bulkhead of its operation; nothing is sent before the
+    // returned Mono is subscribed to
+    private Mono<ResponseEntity<String>> guarded(Operation operation,
+                                                 Supplier<Mono<ResponseEntity<String>>> request) {
+        Predicate<ResponseEntity<String>> isFailure = response -> response.getStatusCode().is5xxServerError();
+        Function<String, ResponseEntity<String>> rejected = reason -> ResponseEntity
+                .status(HttpStatus.SERVICE_UNAVAILABLE).body("{\"error\":\"" + reason + "\"}");
+        return Mono.fromFuture(() -> guard.callAsync(operation, () -> request.get().toFuture(), isFailure,
+                rejected));
+    }
+
+    // maps the response of the metadata service like HTTPCommunicationService does: server errors are reported as
+    // 500 without their body
+    private static Mono<ResponseEntity<String>> toResponse(ClientResponse response) {
+        HttpStatusCode statusCode = response.statusCode();
+        return response.bodyToMono(String.class).defaultIfEmpty("").map(body -> {
+            if (statusCode.is2xxSuccessful()) {
+                logger.info("Operation successful with status: {}", statusCode);
+                return ResponseEntity.status(statusCode).body(body);
+            } else if (statusCode.is4xxClientError()) {
+                logger.warn("Client error from metadata service: {}", statusCode);
+                return ResponseEntity.status(statusCode).body(body);
+            }
+            logger.error("Server error from metadata service: {}", statusCode);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(SERVER_ERROR_BODY);
+        });
+    }
+
+    private static Mono<ResponseEntity<String>> communicationError(String message, Throwable ex) {
+        logger.error("{} due to an exception: {}", message, ex.toString());
+        return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(COMMUNICATION_ERROR_BODY));
+    }
+
+    // splits the response of a batch registration into one response per file URL; files missing from the result
+    // are reported like a failed request, so they are retried
+    private static Map<String, ResponseEntity<String>> toBatchResponses(List<String> fileUrls,
+                                                                         ResponseEntity<String> response) {
+        var responses = new LinkedHashMap<String, ResponseEntity<String>>();
+        if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
+            try {
+                var results = new JSONObject(response.getBody()).getJSONArray("data");
+                for (int i = 0; i < results.length(); i++) {
+                    var result = results.getJSONObject(i);
+                    var status = HttpStatus.valueOf(result.getInt("status"));
+                    var message = new JSONObject().put("message", result.optString("message")).toString();
+                    responses.put(result.getString("fileUrl"), status.is5xxServerError()
+                            ? ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(message)
+                            : ResponseEntity.status(status).body(message));
+                }
+            } catch (JSONException | IllegalArgumentException ex) {
+                logger.error("Unreadable batch registration response: {}", ex.getMessage());
+            }
+        }
+        for (var fileUrl : fileUrls) {
+            responses.putIfAbsent(fileUrl, response.getStatusCode().is2xxSuccessful()
+                    ? ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                            .body("{\"error\":\"No registration result received for file.\"}")
+                    : response);
+        }
+        return responses;
+    }
+}
@@ -1,15 +1,33 @@
 package org.yulia.filemanagement.fileuploadservice.config;
 
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.lang.NonNull;
 import org.springframework.web.multipart.MultipartResolver;
 import org.springframework.web.multipart.support.StandardServletMultipartResolver;
 
+import static org.yulia.filemanagement.fileuploadservice.controller.FileUploadController.STREAMING_UPLOAD_PATH;
+
 @Configuration
 public class AppConfig {
 
+    /**
+     * Configures the multipart resolver. Requests to the streaming upload endpoint are not treated as multipart here,
+     * so the servlet container does not buffer their parts and the controller can parse the body part by part.
+     *
+     * @param apiBasePath the base path of the file API
+     * @return the multipart resolver
+     */
     @Bean
-    public MultipartResolver multipartResolver() {
-        return new StandardServletMultipartResolver();
+    public MultipartResolver multipartResolver(@Value("${api.base.path}") String apiBasePath) {
+        var streamingUploadPath = apiBasePath + STREAMING_UPLOAD_PATH;
+        return new StandardServletMultipartResolver() {
+            @Override
+            public boolean isMultipart(@NonNull HttpServletRequest request) {
+                return !request.getRequestURI().endsWith(streamingUploadPath) && super.isMultipart(request);
+            }
+        };
     }
 }
@@ -0,0 +1,77 @@
+package org.yulia.filemanagement.fileuploadservice.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+public class ExecutorConfig {
+
+    /**
+     * Configures the bounded pool used to process the files of one upload request concurrently.
+     * When the queue is full the task runs on the submitting request thread, so an overloaded service degrades to
+     * sequential processing instead of rejecting uploads.
+     *
+     * @param parallelism   the number of files processed at the same time across all requests
+     * @param queueCapacity the number of files that may wait for a free worker
+     * @return the executor for per-file upload processing
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService fileUploadExecutor(@Value("${file.upload.parallelism:4}") int parallelism,
+                                              @Value("${file.upload.queue.capacity:100}") int queueCapacity) {
+        return new ThreadPoolExecutor(parallelism, parallelism, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(queueCapacity),
+                new CustomizableThreadFactory("file-upload-"),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * Configures the pool that uploads the parts of large objects to Minio. The pool is shared by all uploads, while
+     * the number of parts one upload keeps in flight is limited separately by minio.multipart.concurrency.
+     *
+     * @param threads the number of parts uploaded at the same time across all uploads
+     * @return the executor for multipart part uploads
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService minioPartExecutor(@Value("${minio.multipart.threads:8}") int threads) {
+        return Executors.newFixedThreadPool(threads, new CustomizableThreadFactory("minio-part-"));
+    }
+
+    /**
+     * Configures the timer that starts the retries of requests to the metadata service once their backoff has passed.
+     * The timer only starts the attempts and does not wait for their responses.
+     *
+     * @param threads the number of threads starting retries
+     * @return the executor for scheduled retries
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ScheduledExecutorService retryExecutor(@Value("${send.retry.threads:4}") int threads) {
+        return Executors.newScheduledThreadPool(threads, new CustomizableThreadFactory("send-retry-"));
+    }
+
+    /**
+     * Configures the bounded pool that runs the attempts of blocking requests to the metadata service, the first one
+     * and the retries. When the queue is full the attempt is rejected and answered with 503, so it never runs on the
+     * request thread or on the retry timer.
+     *
+     * @param threads       the number of blocking requests to the metadata service in flight at the same time
+     * @param queueCapacity the number of requests that may wait for a free worker
+     * @return the executor for blocking requests to the metadata service
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService metadataRequestExecutor(@Value("${send.request.threads:16}") int threads,
+                                                   @Value("${send.request.queue.capacity:1000}") int queueCapacity) {
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(queueCapacity),
+                new CustomizableThreadFactory("send-request-"),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+}
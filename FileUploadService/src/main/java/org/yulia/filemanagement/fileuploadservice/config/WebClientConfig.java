@@ -0,0 +1,41 @@
+package org.yulia.filemanagement.fileuploadservice.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.loadbalancer.LoadBalanced;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+
+@Configuration
+@Profile("webclient")
+public class WebClientConfig {
+
+    /**
+     * Configures the non-blocking client for the metadata service. Requests are resolved through service discovery
+     * like those of the RestTemplate, and share a bounded connection pool; requests waiting for a free connection
+     * are queued without holding a thread.
+     *
+     * @param timeout        the response timeout in milliseconds
+     * @param maxConnections the maximum number of open connections to the metadata service
+     * @return the builder the metadata service client is created from
+     */
+    @Bean
+    @LoadBalanced
+    public WebClient.Builder metadataWebClientBuilder(
+            @Value("${metadata.response.timeout.ms}") int timeout,
+            @Value("${metadata.webclient.max.connections:500}") int maxConnections) {
+        var connectionProvider = ConnectionProvider.builder("metadata-service")
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(-1)
+                .build();
+        var httpClient = HttpClient.create(connectionProvider)
+                .responseTimeout(Duration.ofMillis(timeout));
+        return WebClient.builder().clientConnector(new ReactorClientHttpConnector(httpClient));
+    }
+}
@@ -2,4 +2,5 @@ package org.yulia.filemanagement.fileuploadservice.constants;
 
 public class SuccessMessages {
     public static final String FILE_UPLOAD_SUCCESS = "File uploaded successfully";
+    public static final String FILE_UPLOAD_ACCEPTED = "File uploaded successfully, registration is in progress";
 }
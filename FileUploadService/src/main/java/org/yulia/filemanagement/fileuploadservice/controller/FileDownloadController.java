@@ -0,0 +1,174 @@
+package org.yulia.filemanagement.fileuploadservice.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.yulia.filemanagement.fileuploadservice.exception.ObjectChangedException;
+import org.yulia.filemanagement.fileuploadservice.service.ObjectStatCache;
+import org.yulia.filemanagement.fileuploadservice.storage.ObjectStat;
+import org.yulia.filemanagement.fileuploadservice.storage.ObjectStorage;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.file.NoSuchFileException;
+
+@RestController
+@RequestMapping("${api.base.path}")
+public class FileDownloadController {
+
+    public static final String CONTENT_PATH = "/{fileName}/content";
+
+    private static final Logger logger = LoggerFactory.getLogger(FileDownloadController.class);
+
+    // how often a download starts over when the file is replaced while it is being sent
+    private static final int READ_ATTEMPTS = 3;
+
+    private final ObjectStorage objectStorage;
+    private final ObjectStatCache objectStatCache;
+    private final int bufferSize;
+
+    public FileDownloadController(ObjectStorage objectStorage, ObjectStatCache objectStatCache,
+                                  @Value("${download.buffer.size.bytes:65536}") int bufferSize) {
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("Download buffer size must be positive");
+        }
+        this.objectStorage = objectStorage;
+        this.objectStatCache = objectStatCache;
+        this.bufferSize = bufferSize;
+    }
+
+    @GetMapping(CONTENT_PATH)
+    @Operation(summary = "Download a file",
+            description = "Streams the content of a stored file. A single byte range can be requested with the Range " +
+                    "header, e.g. to download a file in parallel parts or to resume a download; other ranges are " +
+                    "ignored and the whole file is sent. A request whose If-None-Match header matches the ETag of " +
+                    "the file is answered with 304 from the cached attributes of the file, without reading it.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "The content of the file"),
+            @ApiResponse(responseCode = "206", description = "The requested range of the file"),
+            @ApiResponse(responseCode = "304", description = "The file has not changed"),
+            @ApiResponse(responseCode = "404", description = "The file does not exist"),
+            @ApiResponse(responseCode = "416", description = "The requested range lies outside of the file")
+    })
+    public void downloadFile(
+            @Parameter(description = "Name of the file") @PathVariable String fileName,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.RANGE, required = false) String range,
+            @RequestHeader(value = HttpHeaders.IF_RANGE, required = false) String ifRange,
+            @Parameter(hidden = true) HttpServletResponse response) throws IOException {
+        for (int attempt = 1; ; attempt++) {
+            var stat = objectStatCache.get(fileName);
+            try {
+                send(fileName, stat, ifNoneMatch, range, ifRange, response);
+                return;
+            } catch (NoSuchFileException e) {
+                // the object was removed since its attributes were cached; nothing has been sent yet
+                objectStatCache.invalidate(fileName);
+                response.reset();
+                throw e;
+            } catch (ObjectChangedException e) {
+                // the object was replaced since its attributes were cached, so the headers describe the old version;
+                // nothing has been sent yet, and the download starts over with the attributes of the new one
+                objectStatCache.invalidate(fileName);
+                response.reset();
+                if (attempt == READ_ATTEMPTS) {
+                    throw e;
+                }
+                logger.debug("File {} changed while it was being sent, reading its attributes again", fileName);
+            }
+        }
+    }
+
+    // Sends the file, or the requested range of it, as the given version; the content is read pinned to its ETag
+    private void send(String fileName, ObjectStat stat, String ifNoneMatch, String range, String ifRange,
+                      HttpServletResponse response) throws IOException {
+        var etag = stat.etag() == null ? null : "\"" + stat.etag() + "\"";
+
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (etag != null) {
+            response.setHeader(HttpHeaders.ETAG, etag);
+        }
+        if (ifNoneMatch != null && matchesAny(ifNoneMatch, etag)) {
+            response.setStatus(HttpStatus.NOT_MODIFIED.value());
+            return;
+        }
+
+        long size = stat.size();
+        long offset = 0;
+        long length = size;
+        // a range is only served if the client still has the same version of the file
+        var byteRange = ifRange == null || ifRange.equals(etag) ? singleRange(range) : null;
+        if (byteRange != null) {
+            try {
+                offset = byteRange.getRangeStart(size);
+                length = byteRange.getRangeEnd(size) - offset + 1;
+            } catch (IllegalArgumentException e) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+                response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                return;
+            }
+            response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+            response.setHeader(HttpHeaders.CONTENT_RANGE,
+                    "bytes " + offset + "-" + (offset + length - 1) + "/" + size);
+        } else {
+            response.setStatus(HttpStatus.OK.value());
+        }
+        response.setContentType(stat.contentType() != null ? stat.contentType()
+                : MediaType.APPLICATION_OCTET_STREAM_VALUE);
+        response.setContentLengthLong(length);
+        response.setBufferSize(bufferSize);
+        if (length == 0) {
+            return;
+        }
+
+        // the servlet API only offers an output stream, so the content is copied through a buffer in the heap
+        objectStorage.transferTo(fileName, stat.etag(), offset, length,
+                Channels.newChannel(response.getOutputStream()));
+        logger.debug("Sent {} bytes of file {} from offset {}", length, fileName, offset);
+    }
+
+    // If-None-Match holds a list of ETags, or "*" for any version; weak ETags match as well
+    private static boolean matchesAny(String ifNoneMatch, String etag) {
+        if (etag == null) {
+            return false;
+        }
+        for (var candidate : ifNoneMatch.split(",")) {
+            var tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // a malformed Range header, or one asking for several ranges, is ignored and the whole file is sent
+    private static HttpRange singleRange(String range) {
+        if (range == null) {
+            return null;
+        }
+        try {
+            var ranges = HttpRange.parseRanges(range);
+            return ranges.size() == 1 ? ranges.get(0) : null;
+        } catch (IllegalArgumentException e) {
+            logger.debug("Ignoring malformed Range header '{}': {}", range, e.getMessage());
+            return null;
+        }
+    }
+}
@@ -7,50 +7,73 @@ import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import jakarta.servlet.http.HttpServletRequest;
+import org.apache.commons.fileupload.FileItemIterator;
+import org.apache.commons.fileupload.FileItemStream;
+import org.apache.commons.fileupload.FileUpload;
+import org.apache.commons.fileupload.FileUploadBase;
+import org.apache.commons.fileupload.FileUploadException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 import org.yulia.filemanagement.fileuploadservice.service.FileUploadService;
 
+import java.io.IOException;
+import java.io.PushbackInputStream;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Function;
 
 @RestController
 @RequestMapping("${api.base.path}")
 public class FileUploadController {
 
+    public static final String STREAMING_UPLOAD_PATH = "/upload/stream";
+
     private static final Logger logger = LoggerFactory.getLogger(FileUploadController.class);
 
+    private static final String FILE_PART_NAME = "file";
+
     private final FileUploadService fileUploadService;
 
     private final int maxFileUploadCount;
 
+    private final ExecutorService fileUploadExecutor;
+
     @Autowired
-    public FileUploadController(FileUploadService fileUploadService, @Value("${file.max.upload.count:10}") int maxFileUploadCount) {
+    public FileUploadController(FileUploadService fileUploadService,
+                                @Value("${file.max.upload.count:10}") int maxFileUploadCount,
+                                @Qualifier("fileUploadExecutor") ExecutorService fileUploadExecutor) {
         this.fileUploadService = fileUploadService;
         this.maxFileUploadCount = maxFileUploadCount;
+        this.fileUploadExecutor = fileUploadExecutor;
     }
 
     @PostMapping("/upload")
     @Operation(summary = "Upload files",
             description = "Processes the upload of multiple files sent in a multipart request. " +
                     "Use the 'file=' parameter to attach each file. Multiple 'file=' parameters can be included in a single request. " +
-                    "Each file is processed individually, and the method returns a detailed result for each file upload, " +
+                    "Each file is processed individually and concurrently with the others, and the method returns a detailed result for each file upload, " +
                     "including status and messages. FOR TESTING THIS SPECIFIC API USE POSTMAN OR CURL.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "All files were successfully processed"),
+            @ApiResponse(responseCode = "202", description = "All files were stored and their registration is in progress"),
             @ApiResponse(responseCode = "207", description = "Some files were successfully uploaded and others were not"),
             @ApiResponse(responseCode = "400", description = "All files failed to upload due to client-side errors such as empty files"),
             @ApiResponse(responseCode = "500", description = "Internal server error while processing the files")
     })
-    public ResponseEntity<?> uploadFiles(
+    public CompletableFuture<ResponseEntity<?>> uploadFiles(
             @RequestPart("file")
             @Parameter(description = "Files to be uploaded", required = true,
                     content = @Content(mediaType = "multipart/form-data",
@@ -61,24 +84,73 @@ public class FileUploadController {
         // Validate file upload
         ResponseEntity<?> validationResult = validateFileUpload(files);
         if (validationResult != null) {
-            return validationResult;
+            return CompletableFuture.completedFuture(validationResult);
         }
 
-        List<Map<String, Object>> fileResults = new ArrayList<>();
-        List<HttpStatus.Series> statusList = new ArrayList<>();
+        // the request thread is released once the files are stored; the response is sent when they are registered
+        return processFileUploads(files).thenApply(UploadResponses::determineFinalResponse);
+    }
 
-        for (MultipartFile file : files) {
-            Map<String, Object> fileResult = processFileUpload(file);
-            fileResults.add(fileResult);
-            int status = (Integer) fileResult.get("status");
-            statusList.add(HttpStatus.valueOf(status).series());
+    @PostMapping(value = STREAMING_UPLOAD_PATH, consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @Operation(summary = "Upload files as a stream",
+            description = "Same contract as the upload endpoint, but the multipart body is parsed part by part and " +
+                    "every file is piped straight to storage without being buffered in memory or on local disk. " +
+                    "Files are processed one after another in the order they are sent. Use the 'file=' parameter to " +
+                    "attach each file. FOR TESTING THIS SPECIFIC API USE POSTMAN OR CURL.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "All files were successfully processed"),
+            @ApiResponse(responseCode = "202", description = "All files were stored and their registration is in progress"),
+            @ApiResponse(responseCode = "207", description = "Some files were successfully uploaded and others were not"),
+            @ApiResponse(responseCode = "400", description = "All files failed to upload due to client-side errors such as empty files"),
+            @ApiResponse(responseCode = "500", description = "Internal server error while processing the files")
+    })
+    public CompletableFuture<ResponseEntity<?>> uploadFilesStreaming(
+            @Parameter(hidden = true) HttpServletRequest request) throws IOException {
+        var uploadContext = new ServletRequestUploadContext(request);
+        if (!FileUploadBase.isMultipartContent(uploadContext)) {
+            return CompletableFuture.completedFuture(
+                    ResponseEntity.badRequest().body("Invalid request. Ensure you have specified file to upload'."));
         }
 
-        return determineFinalResponse(statusList, fileResults);
+        // the files are read from the request one after another, while their registrations complete in the background
+        List<CompletableFuture<Map<String, Object>>> fileResults = new ArrayList<>();
+        int fileCount = 0;
+
+        try {
+            FileItemIterator items = new FileUpload().getItemIterator(uploadContext);
+            while (items.hasNext()) {
+                FileItemStream item = items.next();
+                if (item.isFormField() || !FILE_PART_NAME.equals(item.getFieldName())) {
+                    continue;
+                }
+
+                if (++fileCount > maxFileUploadCount) {
+                    logger.warn("Too many files detected for streaming upload. Skipping file {}.", item.getName());
+                    Map<String, Object> fileResult = new HashMap<>();
+                    fileResult.put("fileName", item.getName());
+                    fileResult.put("status", HttpStatus.BAD_REQUEST.value());
+                    fileResult.put("message", "Please limit file upload quantity to " + maxFileUploadCount + " files.");
+                    fileResults.add(CompletableFuture.completedFuture(fileResult));
+                } else {
+                    fileResults.add(processStreamedFile(item));
+                }
+            }
+        } catch (FileUploadException e) {
+            logger.warn("Malformed multipart request: {}", e.getMessage());
+            return CompletableFuture.completedFuture(
+                    ResponseEntity.badRequest().body("Invalid request. Ensure you have specified file to upload'."));
+        }
+
+        if (fileResults.isEmpty()) {
+            logger.warn("Streaming upload request does not contain 'file' parameter or file was not attached.");
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body("File parameter 'file' is missing or no file was attached. Please attach a file with the parameter 'file'."));
+        }
+
+        return allOf(fileResults).thenApply(UploadResponses::determineFinalResponse);
     }
 
     @Operation(summary = "Retrieve files with filters",
-            description = "Handles HTTP GET requests to retrieve a list of files with specified filters. This method attempts to fetch files from the metadata service with retries in case of failures.",
+            description = "Handles HTTP GET requests to retrieve a list of files with specified filters. This method attempts to fetch files from the metadata service with retries in case of failures. Files are returned one page at a time; the cursor of the next page is returned in nextCursor.",
             parameters = {
                     @Parameter(name = "file_type", description = "Optional file type to filter by, e.g., application/pdf, text/plain, etc.",
                             in = ParameterIn.QUERY),
@@ -91,6 +163,10 @@ public class FileUploadController {
                     @Parameter(name = "size_unit", description = "Optional unit of the size parameters, with a default if unspecified",
                             schema = @Schema(allowableValues = {"bytes", "kb", "mb", "gb"}, defaultValue = "bytes"),
                             in = ParameterIn.QUERY),
+                    @Parameter(name = "limit", description = "Optional maximum number of files on the page, with a default if unspecified",
+                            in = ParameterIn.QUERY),
+                    @Parameter(name = "after", description = "Optional cursor of the page to return, as returned in nextCursor of the previous page",
+                            in = ParameterIn.QUERY),
                     @Parameter(name = "custom_filter", description = "Additional custom filter - not yet supported by" +
                             " Metadata Service", in = ParameterIn.QUERY)
             })
@@ -100,18 +176,12 @@ public class FileUploadController {
             @ApiResponse(responseCode = "5xx", description = "Server error. The server failed to fulfill an apparently valid request.")
     })
     @GetMapping("")
-    public ResponseEntity<String> getFiles(
+    public CompletableFuture<ResponseEntity<String>> getFiles(
             @Parameter(hidden = true)
             @RequestParam Map<String, String> filters)
     {
         logger.info("Received request to get files with filters: {}", filters);
-        try {
-            return fileUploadService.getFiles(filters);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            logger.error("Thread was interrupted during file retrieval retries.", e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Failed to retrieve files due to interruption.");
-        }
+        return fileUploadService.getFiles(filters);
     }
 
     private ResponseEntity<?> validateFileUpload(List<MultipartFile> files) {
@@ -128,48 +198,57 @@ public class FileUploadController {
         return null; // Return null to indicate that validation passed
     }
 
-    // processFileUpload method is used to process a single file upload and add the result to the list of file results
-    private Map<String, Object> processFileUpload(MultipartFile file) {
-        Map<String, Object> fileResult = new HashMap<>();
-        fileResult.put("fileName", file.getOriginalFilename());
+    // processFileUploads method stores every file on the upload executor and collects the results in the order the
+    // files were sent. A single file is stored on the request thread to avoid the hand-off.
+    private CompletableFuture<List<Map<String, Object>>> processFileUploads(List<MultipartFile> files) {
+        if (files.size() == 1) {
+            return processFileUpload(files.get(0)).thenApply(List::of);
+        }
+
+        return allOf(files.stream()
+                .map(file -> CompletableFuture.supplyAsync(() -> processFileUpload(file), fileUploadExecutor)
+                        .thenCompose(Function.identity()))
+                .toList());
+    }
+
+    // allOf method completes with the results in the order of the futures; the first failure fails the request and is
+    // handled by the exception handler, the same way as an exception thrown on the request thread
+    private static CompletableFuture<List<Map<String, Object>>> allOf(
+            List<CompletableFuture<Map<String, Object>>> futures) {
+        return CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new))
+                .thenApply(ignored -> futures.stream().map(CompletableFuture::join).toList());
+    }
 
+    // processFileUpload method is used to process a single file upload and add the result to the list of file results
+    private CompletableFuture<Map<String, Object>> processFileUpload(MultipartFile file) {
         if (file.isEmpty()) {
-            fileResult.put("status", HttpStatus.BAD_REQUEST.value());
-            fileResult.put("message", "The file is empty. Please select a non-empty file to upload.");
-        } else {
-            var result = fileUploadService.uploadFile(file);
-            if (result == null || result.userMessage() == null || result.status() == null) {
-                fileResult.put("status", HttpStatus.INTERNAL_SERVER_ERROR.value());
-                fileResult.put("message", "File upload failed due to server error.");
-            } else if (result.success()) {
-                fileResult.put("status", HttpStatus.OK.value());
-                fileResult.put("message", result.userMessage());
-            } else {
-                fileResult.put("status", result.status().value());
-                fileResult.put("message", result.userMessage());
-            }
+            return CompletableFuture.completedFuture(emptyFileResult(file.getOriginalFilename()));
         }
-        return fileResult;
+        return fileUploadService.uploadFile(file)
+                .thenApply(result -> UploadResponses.toFileResult(file.getOriginalFilename(), result));
     }
 
-    // determineFinalResponse method is used to determine the final response based on the status of the file uploads
-    private ResponseEntity<?> determineFinalResponse(List<HttpStatus.Series> statusList, List<Map<String, Object>> fileResults) {
-        boolean anySuccess = statusList.stream().anyMatch(s -> s == HttpStatus.Series.SUCCESSFUL);
-        boolean anyFailures = statusList.stream().anyMatch(s -> s == HttpStatus.Series.CLIENT_ERROR || s == HttpStatus.Series.SERVER_ERROR);
-        boolean allServerErrors = statusList.stream().allMatch(s -> s == HttpStatus.Series.SERVER_ERROR);
-
-        // only server errors present
-        if (allServerErrors) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(fileResults);
-            // Mixed case when both successful and failed uploads
-        } else if (anySuccess && anyFailures) {
-            return ResponseEntity.status(HttpStatus.MULTI_STATUS).body(fileResults);
-            // Only success (with no failures)
-        } else if (anySuccess) {
-            return ResponseEntity.ok(fileResults);
-            // mixed case with no success at all
-        } else {
-            return ResponseEntity.badRequest().body(fileResults);
+    // processStreamedFile method uploads the content of one multipart item while it is being received
+    private CompletableFuture<Map<String, Object>> processStreamedFile(FileItemStream item) throws IOException {
+        var contentType = item.getContentType() != null ? item.getContentType() : MediaType.APPLICATION_OCTET_STREAM_VALUE;
+
+        try (PushbackInputStream data = new PushbackInputStream(item.openStream(), 1)) {
+            // the size is not known in advance, so an empty file is detected by reading its first byte
+            int firstByte = data.read();
+            if (firstByte == -1) {
+                return CompletableFuture.completedFuture(emptyFileResult(item.getName()));
+            }
+            data.unread(firstByte);
+            return fileUploadService.uploadStream(item.getName(), data, contentType)
+                    .thenApply(result -> UploadResponses.toFileResult(item.getName(), result));
         }
     }
+
+    private Map<String, Object> emptyFileResult(String fileName) {
+        Map<String, Object> fileResult = new HashMap<>();
+        fileResult.put("fileName", fileName);
+        fileResult.put("status", HttpStatus.BAD_REQUEST.value());
+        fileResult.put("message", "The file is empty. Please select a non-empty file to upload.");
+        return fileResult;
+    }
 }
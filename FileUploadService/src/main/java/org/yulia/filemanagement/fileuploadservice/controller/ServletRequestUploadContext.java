@@ -0,0 +1,46 @@
+package org.yulia.filemanagement.fileuploadservice.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.apache.commons.fileupload.UploadContext;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Adapts a Jakarta servlet request to the commons-fileupload request abstraction, so the multipart body can be parsed
+ * with the streaming API. The ServletFileUpload class of commons-fileupload 1.x is bound to javax.servlet.
+ */
+class ServletRequestUploadContext implements UploadContext {
+
+    private final HttpServletRequest request;
+
+    ServletRequestUploadContext(HttpServletRequest request) {
+        this.request = request;
+    }
+
+    @Override
+    public String getCharacterEncoding() {
+        return request.getCharacterEncoding();
+    }
+
+    @Override
+    public String getContentType() {
+        return request.getContentType();
+    }
+
+    @Override
+    @Deprecated
+    public int getContentLength() {
+        return request.getContentLength();
+    }
+
+    @Override
+    public long contentLength() {
+        return request.getContentLengthLong();
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        return request.getInputStream();
+    }
+}
@@ -0,0 +1,65 @@
+package org.yulia.filemanagement.fileuploadservice.controller;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.yulia.filemanagement.fileuploadservice.dto.UploadResult;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds the response of the upload endpoints, which lists the outcome of every file. It is shared by the regular
+ * and the resumable uploads, so a completed session answers the same way as an upload of a single file.
+ */
+class UploadResponses {
+
+    private UploadResponses() {
+    }
+
+    // toFileResult method converts the result of the upload service to the per-file entry of the response
+    static Map<String, Object> toFileResult(String fileName, UploadResult result) {
+        Map<String, Object> fileResult = new HashMap<>();
+        fileResult.put("fileName", fileName);
+
+        if (result == null || result.userMessage() == null || result.status() == null) {
+            fileResult.put("status", HttpStatus.INTERNAL_SERVER_ERROR.value());
+            fileResult.put("message", "File upload failed due to server error.");
+        } else if (result.success()) {
+            // an upload whose registration is still pending is reported as accepted
+            var status = result.status() == HttpStatus.ACCEPTED ? HttpStatus.ACCEPTED : HttpStatus.OK;
+            fileResult.put("status", status.value());
+            fileResult.put("message", result.userMessage());
+        } else {
+            fileResult.put("status", result.status().value());
+            fileResult.put("message", result.userMessage());
+        }
+        return fileResult;
+    }
+
+    // determineFinalResponse method is used to determine the final response based on the status of the file uploads
+    static ResponseEntity<?> determineFinalResponse(List<Map<String, Object>> fileResults) {
+        List<HttpStatus.Series> statusList = fileResults.stream()
+                .map(fileResult -> HttpStatus.valueOf((Integer) fileResult.get("status")).series())
+                .toList();
+        boolean anySuccess = statusList.stream().anyMatch(s -> s == HttpStatus.Series.SUCCESSFUL);
+        boolean anyFailures = statusList.stream().anyMatch(s -> s == HttpStatus.Series.CLIENT_ERROR || s == HttpStatus.Series.SERVER_ERROR);
+        boolean allServerErrors = statusList.stream().allMatch(s -> s == HttpStatus.Series.SERVER_ERROR);
+
+        // only server errors present
+        if (allServerErrors) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(fileResults);
+            // Mixed case when both successful and failed uploads
+        } else if (anySuccess && anyFailures) {
+            return ResponseEntity.status(HttpStatus.MULTI_STATUS).body(fileResults);
+            // Only success (with no failures), accepted if no registration has completed yet
+        } else if (anySuccess) {
+            boolean allAccepted = fileResults.stream()
+                    .allMatch(fileResult -> (Integer) fileResult.get("status") == HttpStatus.ACCEPTED.value());
+            return allAccepted ? ResponseEntity.accepted().body(fileResults) : ResponseEntity.ok(fileResults);
+            // mixed case with no success at all
+        } else {
+            return ResponseEntity.badRequest().body(fileResults);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package org.yulia.filemanagement.fileuploadservice.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import org.yulia.filemanagement.fileuploadservice.dto.UploadSessionStatus;
+import org.yulia.filemanagement.fileuploadservice.service.UploadSessionService;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Endpoints of the resumable uploads. They rely on Minio multipart uploads, so they are not mapped with the local
+ * storage.
+ */
+@RestController
+@RequestMapping("${api.base.path}")
+@Profile("!local-storage")
+public class UploadSessionController {
+
+    public static final String UPLOAD_SESSIONS_PATH = "/upload/sessions";
+
+    private static final String UPLOAD_OFFSET_HEADER = "Upload-Offset";
+
+    private static final Logger logger = LoggerFactory.getLogger(UploadSessionController.class);
+
+    private final UploadSessionService uploadSessionService;
+
+    public UploadSessionController(UploadSessionService uploadSessionService) {
+        this.uploadSessionService = uploadSessionService;
+    }
+
+    @PostMapping(UPLOAD_SESSIONS_PATH)
+    @Operation(summary = "Start a resumable upload",
+            description = "Creates an upload session for a file of known size. The file is then sent in chunks with " +
+                    "PUT requests to the returned session, and the session is completed once all chunks are stored. " +
+                    "If the connection drops, the client queries the committed offset and resumes from there.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "The session was created"),
+            @ApiResponse(responseCode = "400", description = "The file name or size is invalid"),
+            @ApiResponse(responseCode = "413", description = "The file is larger than the allowed size")
+    })
+    public ResponseEntity<UploadSessionStatus> createUploadSession(
+            @Parameter(description = "Name of the file to be uploaded") @RequestParam("file_name") String fileName,
+            @Parameter(description = "Total size of the file in bytes") @RequestParam("size") long size,
+            @Parameter(description = "Content type of the file") @RequestParam(value = "content_type", required = false)
+            String contentType) throws IOException {
+        logger.info("Received request to start a resumable upload of file {} with {} bytes.", fileName, size);
+        var session = uploadSessionService.createSession(fileName, size,
+                contentType != null ? contentType : MediaType.APPLICATION_OCTET_STREAM_VALUE);
+        var location = ServletUriComponentsBuilder.fromCurrentRequest()
+                .path("/{sessionId}")
+                .buildAndExpand(session.sessionId())
+                .toUri();
+        return ResponseEntity.created(location)
+                .header(UPLOAD_OFFSET_HEADER, String.valueOf(session.offset()))
+                .body(session);
+    }
+
+    @PutMapping(UPLOAD_SESSIONS_PATH + "/{sessionId}")
+    @Operation(summary = "Upload a chunk",
+            description = "Stores the request body as the next chunk of the file. The offset must equal the committed " +
+                    "offset of the session, and every chunk except the last one must be at least 5 MB.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "The chunk was stored"),
+            @ApiResponse(responseCode = "400",
+                    description = "The chunk has no Content-Length, is empty, too small or exceeds the file size"),
+            @ApiResponse(responseCode = "404", description = "The session does not exist or has expired"),
+            @ApiResponse(responseCode = "409",
+                    description = "The offset does not match the committed offset, or another chunk is in progress"),
+            @ApiResponse(responseCode = "413", description = "The chunk is larger than the allowed size")
+    })
+    public ResponseEntity<UploadSessionStatus> uploadChunk(
+            @PathVariable String sessionId,
+            @Parameter(description = "Position of the chunk in the file") @RequestParam("offset") long offset,
+            @Parameter(hidden = true) HttpServletRequest request) throws IOException {
+        // the length is checked against the session before any of the body is read
+        var session = uploadSessionService.uploadChunk(sessionId, offset, request.getContentLengthLong(),
+                request.getInputStream());
+        return ResponseEntity.ok()
+                .header(UPLOAD_OFFSET_HEADER, String.valueOf(session.offset()))
+                .body(session);
+    }
+
+    @GetMapping(UPLOAD_SESSIONS_PATH + "/{sessionId}")
+    @Operation(summary = "Get the state of a resumable upload",
+            description = "Returns the committed offset of the session, at which the next chunk has to start.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "The state of the session"),
+            @ApiResponse(responseCode = "404", description = "The session does not exist or has expired")
+    })
+    public ResponseEntity<UploadSessionStatus> getUploadSession(@PathVariable String sessionId) {
+        var session = uploadSessionService.getStatus(sessionId);
+        return ResponseEntity.ok()
+                .header(UPLOAD_OFFSET_HEADER, String.valueOf(session.offset()))
+                .body(session);
+    }
+
+    @PostMapping(UPLOAD_SESSIONS_PATH + "/{sessionId}/complete")
+    @Operation(summary = "Complete a resumable upload",
+            description = "Assembles the stored chunks into the file and registers it in the metadata service. The " +
+                    "response has the same format as the response of the upload endpoint.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "The file was successfully uploaded"),
+            @ApiResponse(responseCode = "404", description = "The session does not exist or has expired"),
+            @ApiResponse(responseCode = "409", description = "Not all chunks of the file have been stored yet"),
+            @ApiResponse(responseCode = "500", description = "Internal server error while processing the file")
+    })
+    public CompletableFuture<ResponseEntity<?>> completeUploadSession(@PathVariable String sessionId)
+            throws IOException {
+        var session = uploadSessionService.getStatus(sessionId);
+        return uploadSessionService.completeSession(sessionId)
+                .thenApply(result -> UploadResponses.determineFinalResponse(
+                        List.of(UploadResponses.toFileResult(session.fileName(), result))));
+    }
+
+    @DeleteMapping(UPLOAD_SESSIONS_PATH + "/{sessionId}")
+    @Operation(summary = "Abort a resumable upload", description = "Discards the session and the chunks stored so far.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "The session was aborted"),
+            @ApiResponse(responseCode = "404", description = "The session does not exist or has expired")
+    })
+    public ResponseEntity<Void> abortUploadSession(@PathVariable String sessionId) throws IOException {
+        uploadSessionService.abortSession(sessionId);
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -0,0 +1,15 @@
+package org.yulia.filemanagement.fileuploadservice.dto;
+
+/**
+ * Data Transfer Object (DTO) for representing a file registration that is waiting in the outbox journal.
+ */
+public record OutboxEntry(
+        // Sequence number of the entry in the journal, used to acknowledge it
+        long id,
+
+        // Name of the stored file, needed to roll the upload back
+        String fileName,
+
+        // URL of the stored file that is sent to the metadata service
+        String fileUrl) {
+}
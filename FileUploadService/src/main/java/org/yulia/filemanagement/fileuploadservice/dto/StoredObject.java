@@ -0,0 +1,41 @@
+package org.yulia.filemanagement.fileuploadservice.dto;
+
+/**
+ * Data Transfer Object (DTO) for a stored object, with the attributes known when it was stored. They are passed on
+ * with the registration, so the metadata service does not have to read them from the storage again.
+ */
+public record StoredObject(
+        // Presigned URL of the stored object
+        String fileUrl,
+
+        // Size of the object in bytes, or -1 if not known
+        long size,
+
+        // Content type the object was stored with, or null if not known
+        String contentType,
+
+        // ETag the storage returned for the object, or null if not known
+        String etag,
+
+        // SHA-256 of the content as a hex string, or null if not known
+        String contentHash) {
+
+    /**
+     * Creates a stored object of which only the URL is known, e.g. a copy made inside the storage.
+     *
+     * @param fileUrl the presigned URL of the stored object
+     */
+    public StoredObject(String fileUrl) {
+        this(fileUrl, -1, null, null, null);
+    }
+
+    /**
+     * Tells whether the size and the content type of the object are known, which the metadata service needs to
+     * register it without reading it from the storage.
+     *
+     * @return true if the size and the content type are known
+     */
+    public boolean hasAttributes() {
+        return size >= 0 && contentType != null;
+    }
+}
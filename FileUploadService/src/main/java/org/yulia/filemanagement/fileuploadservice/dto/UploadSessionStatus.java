@@ -0,0 +1,18 @@
+package org.yulia.filemanagement.fileuploadservice.dto;
+
+/**
+ * Data Transfer Object (DTO) for representing the state of a resumable upload session.
+ */
+public record UploadSessionStatus(
+        // Identifier of the session, used in the chunk and completion requests
+        String sessionId,
+
+        // Name of the file that is created when the session is completed
+        String fileName,
+
+        // Total size of the file in bytes
+        long size,
+
+        // Number of bytes stored so far; the next chunk has to start at this offset
+        long offset) {
+}
@@ -0,0 +1,9 @@
+package org.yulia.filemanagement.fileuploadservice.exception;
+
+import java.io.IOException;
+
+public class FileSizeLimitExceededException extends IOException {
+    public FileSizeLimitExceededException(String message) {
+        super(message);
+    }
+}
@@ -1,5 +1,6 @@
 package org.yulia.filemanagement.fileuploadservice.exception;
 
+import org.json.JSONObject;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 //import org.springframework.security.access.AccessDeniedException;
@@ -10,6 +11,8 @@ import org.springframework.web.multipart.MultipartException;
 import org.springframework.web.multipart.support.MissingServletRequestPartException;
 import org.springframework.web.servlet.resource.NoResourceFoundException;
 
+import java.nio.file.NoSuchFileException;
+
 /**
  * Global exception handler for the application.
  * We don't expose any internal details in the error messages at this point.
@@ -37,10 +40,57 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("{\"error\":\"Failed to communicate with the metadata service\"}");
     }
 
+    @ExceptionHandler(UploadSessionNotFoundException.class)
+    @SuppressWarnings("unused")
+    public ResponseEntity<String> handleUploadSessionNotFoundException(UploadSessionNotFoundException e) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(errorBody(e.getMessage()));
+    }
+
+    @ExceptionHandler(NoSuchFileException.class)
+    @SuppressWarnings("unused")
+    public ResponseEntity<String> handleNoSuchFileException(NoSuchFileException e) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(errorBody("File not found"));
+    }
+
+    @ExceptionHandler(ObjectChangedException.class)
+    @SuppressWarnings("unused")
+    public ResponseEntity<String> handleObjectChangedException(ObjectChangedException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(errorBody("File is being replaced, try again"));
+    }
+
+    @ExceptionHandler(UploadOffsetMismatchException.class)
+    @SuppressWarnings("unused")
+    public ResponseEntity<String> handleUploadOffsetMismatchException(UploadOffsetMismatchException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .header("Upload-Offset", String.valueOf(e.getCommittedOffset()))
+                .body(new JSONObject()
+                        .put("error", e.getMessage())
+                        .put("offset", e.getCommittedOffset())
+                        .toString());
+    }
+
+    @ExceptionHandler(FileSizeLimitExceededException.class)
+    @SuppressWarnings("unused")
+    public ResponseEntity<String> handleFileSizeLimitExceededException(FileSizeLimitExceededException e) {
+        return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(errorBody(e.getMessage()));
+    }
+
+    @ExceptionHandler(InvalidUploadRequestException.class)
+    @SuppressWarnings("unused")
+    public ResponseEntity<String> handleInvalidUploadRequestException(InvalidUploadRequestException e) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorBody(e.getMessage()));
+    }
+
     @ExceptionHandler(MultipartException.class)
     @SuppressWarnings("unused")
     public ResponseEntity<String> handleMultipartException(MultipartException e) {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                 .body("Invalid request. Ensure you have specified file to upload'.");
     }
+
+    // the messages may contain file names, so the body is built by the JSON library to escape them
+    private static String errorBody(String message) {
+        return new JSONObject().put("error", message).toString();
+    }
 }
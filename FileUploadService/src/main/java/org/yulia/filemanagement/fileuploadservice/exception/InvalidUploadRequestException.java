@@ -0,0 +1,7 @@
+package org.yulia.filemanagement.fileuploadservice.exception;
+
+public class InvalidUploadRequestException extends RuntimeException {
+    public InvalidUploadRequestException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,12 @@
+package org.yulia.filemanagement.fileuploadservice.exception;
+
+import java.io.IOException;
+
+/**
+ * Thrown when an object is read pinned to an ETag and has been replaced by another version since.
+ */
+public class ObjectChangedException extends IOException {
+    public ObjectChangedException(String filename, String etag) {
+        super("Object '" + filename + "' no longer has ETag " + etag);
+    }
+}
@@ -0,0 +1,15 @@
+package org.yulia.filemanagement.fileuploadservice.exception;
+
+public class UploadOffsetMismatchException extends RuntimeException {
+
+    private final long committedOffset;
+
+    public UploadOffsetMismatchException(String message, long committedOffset) {
+        super(message);
+        this.committedOffset = committedOffset;
+    }
+
+    public long getCommittedOffset() {
+        return committedOffset;
+    }
+}
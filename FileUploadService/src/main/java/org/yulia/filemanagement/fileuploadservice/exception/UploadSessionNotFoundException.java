@@ -0,0 +1,7 @@
+package org.yulia.filemanagement.fileuploadservice.exception;
+
+public class UploadSessionNotFoundException extends RuntimeException {
+    public UploadSessionNotFoundException(String sessionId) {
+        super("Upload session '" + sessionId + "' does not exist or has expired.");
+    }
+}
@@ -0,0 +1,97 @@
+package org.yulia.filemanagement.fileuploadservice.service;
+
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.yulia.filemanagement.fileuploadservice.communication.CommunicationService;
+import org.yulia.filemanagement.fileuploadservice.storage.ObjectStorage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.DigestInputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Avoids storing the same content twice. Before a file is written to the storage, its content is hashed locally and
+ * looked up by hash in the metadata service: if the file is already stored under the same name the write is skipped,
+ * and if it is stored under another name the existing object is copied inside the storage instead of being uploaded
+ * again.
+ */
+@Service
+@ConditionalOnProperty(name = "upload.dedup.enabled", havingValue = "true")
+public class ContentDeduplicator {
+
+    private static final Logger logger = LoggerFactory.getLogger(ContentDeduplicator.class);
+
+    private final ObjectStorage objectStorage;
+    private final CommunicationService communicationService;
+
+    public ContentDeduplicator(ObjectStorage objectStorage, CommunicationService communicationService) {
+        this.objectStorage = objectStorage;
+        this.communicationService = communicationService;
+    }
+
+    /**
+     * Stores a file without uploading its content if the same content is already stored.
+     *
+     * @param fileName the name under which the file has to be stored
+     * @param data     the content of the file, which must be available locally since it is read before the upload
+     * @return the presigned URL of the stored file, or empty if the content is not stored yet and has to be uploaded
+     * @throws IOException if the content could not be read
+     */
+    public Optional<String> storeDuplicate(String fileName, InputStream data) throws IOException {
+        var contentHash = hash(data);
+        var storedNames = findStoredNames(contentHash);
+        if (storedNames.isEmpty()) {
+            return Optional.empty();
+        }
+
+        try {
+            if (storedNames.contains(fileName)) {
+                logger.info("File '{}' is already stored with the same content, skipping upload", fileName);
+                return Optional.of(objectStorage.getPresignedUrl(fileName));
+            }
+            var sourceName = storedNames.get(0);
+            logger.info("Content of file '{}' is already stored as '{}', copying it inside the storage", fileName,
+                    sourceName);
+            return Optional.of(objectStorage.copyObject(sourceName, fileName));
+        } catch (IOException e) {
+            // the stored copy may have been deleted in the meantime, the file is then uploaded as usual
+            logger.warn("Could not reuse stored content for file '{}': {}", fileName, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    // hashes the local copy of the content
+    private static String hash(InputStream data) throws IOException {
+        try (var hashingData = new DigestInputStream(data, ObjectStorage.newContentDigest())) {
+            hashingData.transferTo(OutputStream.nullOutputStream());
+            return ObjectStorage.toHex(hashingData.getMessageDigest());
+        }
+    }
+
+    // names of the files with the given content according to the metadata service; empty if it cannot be asked
+    private List<String> findStoredNames(String contentHash) {
+        var names = new ArrayList<String>();
+        try {
+            var response = communicationService.getFiles(Map.of("content_hash", contentHash));
+            if (!response.getStatusCode().is2xxSuccessful() || response.getBody() == null) {
+                logger.warn("Content lookup failed with status {}, uploading file", response.getStatusCode());
+                return names;
+            }
+            var files = new JSONObject(response.getBody()).getJSONArray("data");
+            for (int i = 0; i < files.length(); i++) {
+                names.add(files.getJSONObject(i).getString("fileName"));
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Content lookup failed, uploading file: {}", e.getMessage());
+        }
+        return names;
+    }
+}
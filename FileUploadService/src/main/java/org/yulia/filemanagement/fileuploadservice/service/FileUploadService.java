@@ -2,21 +2,34 @@ package org.yulia.filemanagement.fileuploadservice.service;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 import org.yulia.filemanagement.fileuploadservice.communication.CommunicationService;
+import org.yulia.filemanagement.fileuploadservice.communication.ReactiveCommunicationService;
+import org.yulia.filemanagement.fileuploadservice.communication.RegistrationBatcher;
+import org.yulia.filemanagement.fileuploadservice.communication.RegistrationOutbox;
+import org.yulia.filemanagement.fileuploadservice.communication.RetryScheduler;
+import org.yulia.filemanagement.fileuploadservice.dto.StoredObject;
 import org.yulia.filemanagement.fileuploadservice.dto.UploadResult;
+import org.yulia.filemanagement.fileuploadservice.exception.FileSizeLimitExceededException;
+import org.yulia.filemanagement.fileuploadservice.storage.ObjectStorage;
 
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.util.Map;
 import java.util.Optional;
-import java.util.function.Supplier;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
 import static org.yulia.filemanagement.fileuploadservice.constants.InternalErrorMessages.*;
+import static org.yulia.filemanagement.fileuploadservice.constants.SuccessMessages.FILE_UPLOAD_ACCEPTED;
 import static org.yulia.filemanagement.fileuploadservice.constants.SuccessMessages.FILE_UPLOAD_SUCCESS;
 import static org.yulia.filemanagement.fileuploadservice.constants.UserErrorMessages.*;
 
@@ -25,84 +38,234 @@ public class FileUploadService {
 
     private static final Logger logger = LoggerFactory.getLogger(FileUploadService.class);
 
-    private final MinioService minioService;
+    private final ObjectStorage objectStorage;
     private final long maxFileSize;
     private final CommunicationService communicationService;
-    private final int maxRetries;
-    private final long sleepBetweenRetries;
+    private final Optional<ReactiveCommunicationService> reactiveCommunicationService;
+    private final RetryScheduler retryScheduler;
+    private final Optional<RegistrationOutbox> registrationOutbox;
+    private final Optional<RegistrationBatcher> registrationBatcher;
+    private final Optional<ContentDeduplicator> contentDeduplicator;
+    private final ObjectStatCache objectStatCache;
+    private final Executor rollbackExecutor;
 
-    public FileUploadService(MinioService minioService,
+    public FileUploadService(ObjectStorage objectStorage,
                              @Value("${file.max.size.bytes}") long maxFileSize,
                              CommunicationService communicationService,
-                             @Value("${send.message.retry}") int maxRetries,
-                             @Value("${send.sleep.between.retry.ms}") long sleepBetweenRetries) {
-        this.minioService = minioService;
+                             Optional<ReactiveCommunicationService> reactiveCommunicationService,
+                             RetryScheduler retryScheduler,
+                             Optional<RegistrationOutbox> registrationOutbox,
+                             Optional<RegistrationBatcher> registrationBatcher,
+                             Optional<ContentDeduplicator> contentDeduplicator,
+                             ObjectStatCache objectStatCache,
+                             @Qualifier("fileUploadExecutor") Executor rollbackExecutor) {
+        this.objectStorage = objectStorage;
         this.maxFileSize = maxFileSize;
         this.communicationService = communicationService;
-        this.maxRetries = maxRetries;
-        this.sleepBetweenRetries = sleepBetweenRetries;
+        this.reactiveCommunicationService = reactiveCommunicationService;
+        this.retryScheduler = retryScheduler;
+        this.registrationOutbox = registrationOutbox;
+        this.registrationBatcher = registrationBatcher;
+        this.contentDeduplicator = contentDeduplicator;
+        this.objectStatCache = objectStatCache;
+        this.rollbackExecutor = rollbackExecutor;
     }
 
     /**
-     * Uploads a file and returns the result of the upload operation.
+     * Uploads a file and returns the result of the upload operation. The file is stored on the calling thread; its
+     * registration is sent by the non-blocking client or on the pool for blocking requests, so the calling thread does
+     * not wait for the metadata service.
      *
      * @param file the file to be uploaded
-     * @return the result of the upload operation
+     * @return a future of the result of the upload operation, completed once the file is registered
      */
-    public UploadResult uploadFile(MultipartFile file) {
+    public CompletableFuture<UploadResult> uploadFile(MultipartFile file) {
         logger.info("Starting file upload.");
 
         // Validate the file
         Optional<UploadResult> validationResult = validateFile(file);
         if (validationResult.isPresent()) {
             logger.warn("File validation failed: {}", validationResult.get().internalMessage());
-            return validationResult.get();
-        }
-
-        try (InputStream inputStream = file.getInputStream()) {
-            var fileUrl = minioService.uploadObject(file.getOriginalFilename(), inputStream,
-                    file.getSize(), file.getContentType());
-            logger.info("File uploaded to Minio: {}", fileUrl);
-
-            // Sending file URL to MetadataService
-            ResponseEntity<String> response = performRequestWithRetry(() -> communicationService.sendFileUrl(fileUrl));
-
-            // If the response is not successful, delete the file from Minio and send a delete message to MetadataService
-            if (!response.getStatusCode().is2xxSuccessful()) {
-                var fileName = file.getOriginalFilename();
-
-                logger.error("Failed to send file {} URL after {} retries, deleting file from Minio: {}",
-                        fileName, maxRetries, fileUrl);
-                // delete from MinIO
-                minioService.deleteObject(fileName);
-                // send delete message to MetadataService - sending once since it's just a protection mechanism
-                communicationService.sendDeleteMessage(fileName);
-                logger.info("Sent request to delete from MetadataService file name: {}", fileName);
-                return new UploadResult(false, FILE_UPLOAD_FAILED, COMMUNICATION_MESSAGE_FAILURE,
-                        (HttpStatus) response.getStatusCode(), Optional.empty());
-            }
+            return CompletableFuture.completedFuture(validationResult.get());
+        }
 
-            logger.info("File URL successfully sent: {}", fileUrl);
-            return new UploadResult(true, FILE_UPLOAD_SUCCESS, FILE_UPLOAD_SUCCESS,
-                    HttpStatus.OK, Optional.ofNullable(fileUrl));
+        try {
+            // the content of a multipart file is available locally, so it can be checked for duplicates first
+            if (contentDeduplicator.isPresent()) {
+                Optional<String> storedUrl;
+                try (InputStream inputStream = file.getInputStream()) {
+                    storedUrl = contentDeduplicator.get().storeDuplicate(file.getOriginalFilename(), inputStream);
+                }
+                if (storedUrl.isPresent()) {
+                    return register(file.getOriginalFilename(), new StoredObject(storedUrl.get()));
+                }
+            }
+            try (InputStream inputStream = file.getInputStream()) {
+                return storeAndRegister(file.getOriginalFilename(), inputStream, file.getSize(),
+                        file.getContentType());
+            }
         } catch (Exception e) {
             logger.error("File upload failed: {}", e.getMessage());
-            return handleException(e);
+            return CompletableFuture.completedFuture(handleException(e));
+        }
+    }
+
+    /**
+     * Uploads a file of unknown size straight from the request stream and returns the result of the upload operation.
+     * The data is piped to the storage without being buffered locally; the size limit is enforced while the data is
+     * read.
+     *
+     * @param fileName    the name of the file to be uploaded
+     * @param data        the stream of the file content, which is read until its end
+     * @param contentType the content type of the file
+     * @return a future of the result of the upload operation, completed once the file is registered
+     */
+    public CompletableFuture<UploadResult> uploadStream(String fileName, InputStream data, String contentType) {
+        logger.info("Starting streaming file upload.");
+
+        if (data == null) {
+            logger.warn("File stream is null");
+            return CompletableFuture.completedFuture(new UploadResult(false, FILE_UPLOAD_FAILED, FILE_IS_NULL,
+                    HttpStatus.BAD_REQUEST, Optional.empty()));
+        }
+
+        try (InputStream inputStream = new SizeLimitedInputStream(data, maxFileSize)) {
+            return storeAndRegister(fileName, inputStream, -1, contentType);
+        } catch (Exception e) {
+            logger.error("Streaming file upload failed: {}", e.getMessage());
+            return CompletableFuture.completedFuture(handleException(e));
+        }
+    }
+
+    /**
+     * Registers a file that is already stored and returns the result of the upload operation. If the registration
+     * fails, the file is deleted from the storage again.
+     *
+     * @param fileName the name of the stored file
+     * @param fileUrl  the presigned URL of the stored file
+     * @return a future of the result of the upload operation, completed once the file is registered
+     */
+    public CompletableFuture<UploadResult> registerStoredFile(String fileName, String fileUrl) {
+        try {
+            return register(fileName, new StoredObject(fileUrl));
+        } catch (Exception e) {
+            logger.error("File registration failed: {}", e.getMessage());
+            return CompletableFuture.completedFuture(handleException(e));
         }
     }
 
     /**
-     * Attempts to retrieve files from the metadata service with retries. This method retries fetching files for a specified
-     * number of attempts with pauses between them if necessary. It differentiates between client-side and server-side errors
-     * to determine whether retries are appropriate.
+     * Attempts to retrieve files from the metadata service with retries. Server errors are retried with a growing
+     * backoff on the retry timer, so no thread waits between the attempts. It differentiates between client-side and
+     * server-side errors to determine whether retries are appropriate.
      *
      * @param filters the parameters to filter the files by, such as file type, size, or other criteria.
-     * @return ResponseEntity containing the JSON response with file data if successful, or an error message if not. For server errors,
-     *         retries are performed until successful or all retries are exhausted. For client errors, it returns immediately with the error.
-     * @throws InterruptedException if the thread is interrupted during sleep between retries, maintaining proper handling of thread interruption.
+     * @return a future of the ResponseEntity containing the JSON response with file data if successful, or an error message if not. For server errors,
+     *         retries are performed until successful, all retries are exhausted or the retry budget is used up. For client errors, it completes immediately with the error.
      */
-    public ResponseEntity<String> getFiles(Map<String, String> filters) throws InterruptedException {
-        return performRequestWithRetry(() -> communicationService.getFiles(filters));
+    public CompletableFuture<ResponseEntity<String>> getFiles(Map<String, String> filters) {
+        if (reactiveCommunicationService.isPresent()) {
+            return retryScheduler.executeAsync(() -> reactiveCommunicationService.get().listFiles(filters).toFuture());
+        }
+        return retryScheduler.execute(() -> communicationService.getFiles(filters));
+    }
+
+    /**
+     * Stores the file and registers its URL in the metadata service, together with the attributes it was stored with.
+     * If the registration fails, the file is deleted from the storage again.
+     *
+     * @param fileName    the name of the file
+     * @param data        the file content
+     * @param size        the size of the file, or -1 if it is not known in advance
+     * @param contentType the content type of the file
+     * @return a future of the result of the upload operation
+     */
+    private CompletableFuture<UploadResult> storeAndRegister(String fileName, InputStream data, long size, String contentType)
+            throws IOException {
+        var storedObject = objectStorage.uploadObject(fileName, data, size, contentType);
+        logger.info("File stored: {}", storedObject.fileUrl());
+
+        return register(fileName, storedObject);
+    }
+
+    // sends the file URL to the metadata service and rolls the upload back if that fails; the retries wait for their
+    // backoff on the retry timer, so no thread is held until the returned future completes
+    private CompletableFuture<UploadResult> register(String fileName, StoredObject storedObject) throws IOException {
+        // the object has just been written, so downloads must not see the attributes of a previous version
+        objectStatCache.stored(fileName, storedObject);
+        var fileUrl = storedObject.fileUrl();
+        if (registrationOutbox.isPresent()) {
+            return CompletableFuture.completedFuture(registerAsync(fileName, fileUrl));
+        }
+
+        // Sending file URL to MetadataService
+        return sendRegistration(storedObject)
+                .thenCompose(response -> {
+                    if (response.getStatusCode().is2xxSuccessful()) {
+                        logger.info("File URL successfully sent: {}", fileUrl);
+                        return CompletableFuture.completedFuture(new UploadResult(true, FILE_UPLOAD_SUCCESS,
+                                FILE_UPLOAD_SUCCESS, HttpStatus.OK, Optional.ofNullable(fileUrl)));
+                    }
+                    // the rollback blocks on the storage and the metadata service, so it must not run on the retry
+                    // timer or on the thread of the HTTP client that completed the registration
+                    return CompletableFuture.supplyAsync(() -> rollBack(fileName, fileUrl, response),
+                            rollbackExecutor);
+                })
+                .exceptionally(e -> {
+                    var cause = unwrap(e);
+                    logger.error("File registration failed: {}", cause.getMessage());
+                    return handleException(cause);
+                });
+    }
+
+    // deletes the stored file after its registration failed, and the record in case it was registered after all
+    private UploadResult rollBack(String fileName, String fileUrl, ResponseEntity<String> response) {
+        // If the response is not successful, delete the stored file and send a delete message to MetadataService
+        logger.error("Failed to send file {} URL, deleting file from the storage: {}", fileName, fileUrl);
+        try {
+            // delete from the storage
+            objectStorage.deleteObject(fileName);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        objectStatCache.invalidate(fileName);
+        // send delete message to MetadataService - sending once since it's just a protection mechanism
+        communicationService.sendDeleteMessage(fileName);
+        logger.info("Sent request to delete from MetadataService file name: {}", fileName);
+        return new UploadResult(false, FILE_UPLOAD_FAILED, COMMUNICATION_MESSAGE_FAILURE,
+                (HttpStatus) response.getStatusCode(), Optional.empty());
+    }
+
+    // sends the registration with retries on its own, with the attributes of the object if they are known, or as part
+    // of the next batch when batching is enabled; batches and the outbox carry the URL only. A non-blocking client
+    // sends the registration without holding a thread, a blocking one on the pool for blocking requests
+    private CompletableFuture<ResponseEntity<String>> sendRegistration(StoredObject storedObject) {
+        if (registrationBatcher.isPresent()) {
+            return retryScheduler.executeAsync(() -> registrationBatcher.get().register(storedObject.fileUrl()));
+        }
+        if (reactiveCommunicationService.isPresent()) {
+            return retryScheduler.executeAsync(() -> reactiveCommunicationService.get().registerFile(storedObject)
+                    .toFuture());
+        }
+        return retryScheduler.execute(() -> storedObject.hasAttributes()
+                ? communicationService.sendFileRegistration(storedObject)
+                : communicationService.sendFileUrl(storedObject.fileUrl()));
+    }
+
+    // appends the registration to the outbox, from where it is sent in the background, and accepts the upload
+    private UploadResult registerAsync(String fileName, String fileUrl) throws IOException {
+        try {
+            registrationOutbox.get().append(fileName, fileUrl);
+        } catch (IOException e) {
+            logger.error("Failed to append file {} to the registration outbox, deleting file from the storage",
+                    fileName);
+            objectStorage.deleteObject(fileName);
+            objectStatCache.invalidate(fileName);
+            throw e;
+        }
+        logger.info("File {} accepted, registration is pending in the outbox", fileName);
+        return new UploadResult(true, FILE_UPLOAD_ACCEPTED, FILE_UPLOAD_ACCEPTED, HttpStatus.ACCEPTED,
+                Optional.ofNullable(fileUrl));
     }
 
     /**
@@ -140,6 +303,11 @@ public class FileUploadService {
      * @return an UploadResult representing the error
      */
     private UploadResult handleException(Exception e) {
+        if (isFileSizeExceeded(e)) {
+            logger.warn("File size exceeds maximum allowed size while streaming: {}", maxFileSize);
+            return new UploadResult(false, FILE_SIZE_EXCEEDED, FILE_SIZE_EXCEEDED, HttpStatus.PAYLOAD_TOO_LARGE,
+                    Optional.empty());
+        }
         if (e instanceof IOException || e instanceof IllegalArgumentException) {
             logger.error("IOException occurred: {}", e.getMessage());
             return new UploadResult(false, FILE_UPLOAD_FAILED, e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR,
@@ -156,32 +324,71 @@ public class FileUploadService {
         return new UploadResult(false, FILE_UPLOAD_FAILED, errorMessage, status, Optional.empty());
     }
 
-    private ResponseEntity<String> performRequestWithRetry(Supplier<ResponseEntity<String>> requestSupplier) throws InterruptedException {
-        int retries = maxRetries;
-
-        while (retries > 0) {
-            ResponseEntity<String> response = requestSupplier.get();
-            if (response.getStatusCode().is2xxSuccessful()) {
-                logger.info("Successfully completed request on attempt: {}", maxRetries - retries + 1);
-                return ResponseEntity.ok(response.getBody());
-            } else {
-                if (response.getStatusCode().is4xxClientError()) {
-                    logger.error("Client error received: {}, stopping retries.", response.getStatusCode());
-                    return ResponseEntity.status(response.getStatusCode()).body(response.getBody());
-                }
-
-                if (retries > 1) {
-                    logger.warn("Server error received: {}. Retrying... Attempts left: {}", response.getStatusCode(), retries - 1);
-                    Thread.sleep(sleepBetweenRetries);
-                } else {
-                    logger.error("Failed to complete request after all retries. Last received status: {}", response.getStatusCode());
-                }
+    // the size limit may surface wrapped by the Minio client, so the whole cause chain is checked
+    private boolean isFileSizeExceeded(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof FileSizeLimitExceededException) {
+                return true;
             }
-            retries--;
         }
-        // If all retries are exhausted without success, return a service unavailable error
-        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("{\"error\":\"Service unavailable after multiple retries.\"}");
+        return false;
     }
-}
 
+    // failures reach the future wrapped in a CompletionException, and I/O errors of the rollback in an
+    // UncheckedIOException
+    private static Exception unwrap(Throwable e) {
+        var cause = e;
+        while ((cause instanceof CompletionException || cause instanceof UncheckedIOException)
+                && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause instanceof Exception exception ? exception : new CompletionException(cause);
+    }
 
+    /**
+     * Input stream that fails with a FileSizeLimitExceededException as soon as more than the allowed number of bytes
+     * has been read, so oversized files are rejected without reading them to the end first.
+     */
+    private static class SizeLimitedInputStream extends FilterInputStream {
+
+        private final long limit;
+        private long count;
+
+        SizeLimitedInputStream(InputStream in, long limit) {
+            super(in);
+            this.limit = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                count(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read > 0) {
+                count(read);
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count(skipped);
+            return skipped;
+        }
+
+        private void count(long read) throws FileSizeLimitExceededException {
+            count += read;
+            if (count > limit) {
+                throw new FileSizeLimitExceededException(FILE_SIZE_EXCEEDED);
+            }
+        }
+    }
+}
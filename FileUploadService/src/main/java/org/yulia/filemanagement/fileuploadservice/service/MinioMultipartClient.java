@@ -0,0 +1,150 @@
+package org.yulia.filemanagement.fileuploadservice.service;
+
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.Multimap;
+import io.minio.MinioClient;
+import io.minio.messages.Part;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Gives access to the individual steps of an S3 multipart upload. The Minio client only uses them internally in
+ * putObject, where the parts are uploaded one after another, so they are exposed here to let callers upload parts
+ * concurrently or over several requests.
+ */
+@Component
+public class MinioMultipartClient {
+
+    private static final Logger logger = LoggerFactory.getLogger(MinioMultipartClient.class);
+
+    private final MultipartClient client;
+
+    public MinioMultipartClient(MinioClient minioClient) {
+        this.client = new MultipartClient(minioClient);
+    }
+
+    /**
+     * Starts a multipart upload.
+     *
+     * @param bucketName  the name of the bucket
+     * @param objectName  the name of the object to be created
+     * @param contentType the content type of the object
+     * @return the upload ID that identifies the multipart upload
+     * @throws IOException if Minio rejects the request
+     */
+    public String createMultipartUpload(String bucketName, String objectName, String contentType) throws IOException {
+        try {
+            var uploadId = client.create(bucketName, objectName, contentType);
+            logger.info("Started multipart upload '{}' for object '{}'", uploadId, objectName);
+            return uploadId;
+        } catch (Exception e) {
+            throw toIOException("Failed to start multipart upload", e);
+        }
+    }
+
+    /**
+     * Uploads one part of a multipart upload.
+     *
+     * @param bucketName the name of the bucket
+     * @param objectName the name of the object
+     * @param uploadId   the upload ID returned by createMultipartUpload
+     * @param partNumber the number of the part, starting with 1
+     * @param data       the content of the part, which is read but not closed
+     * @param length     the number of bytes of data to upload
+     * @return the uploaded part with its ETag, as needed to complete the upload
+     * @throws IOException if the part could not be uploaded
+     */
+    public Part uploadPart(String bucketName, String objectName, String uploadId, int partNumber, InputStream data,
+                           long length) throws IOException {
+        try {
+            var etag = client.upload(bucketName, objectName, uploadId, partNumber, data, length);
+            logger.debug("Uploaded part {} ({} bytes) of object '{}'", partNumber, length, objectName);
+            return new Part(partNumber, etag);
+        } catch (Exception e) {
+            throw toIOException("Failed to upload part " + partNumber, e);
+        }
+    }
+
+    /**
+     * Completes a multipart upload, which makes the object visible in the bucket.
+     *
+     * @param bucketName the name of the bucket
+     * @param objectName the name of the object
+     * @param uploadId   the upload ID returned by createMultipartUpload
+     * @param parts      the uploaded parts ordered by part number
+     * @throws IOException if the upload could not be completed
+     */
+    public void completeMultipartUpload(String bucketName, String objectName, String uploadId, Part[] parts)
+            throws IOException {
+        try {
+            client.complete(bucketName, objectName, uploadId, parts);
+            logger.info("Completed multipart upload '{}' of object '{}' with {} parts", uploadId, objectName,
+                    parts.length);
+        } catch (Exception e) {
+            throw toIOException("Failed to complete multipart upload", e);
+        }
+    }
+
+    /**
+     * Aborts a multipart upload and releases the storage of its uploaded parts.
+     *
+     * @param bucketName the name of the bucket
+     * @param objectName the name of the object
+     * @param uploadId   the upload ID returned by createMultipartUpload
+     * @throws IOException if the upload could not be aborted
+     */
+    public void abortMultipartUpload(String bucketName, String objectName, String uploadId) throws IOException {
+        try {
+            client.abort(bucketName, objectName, uploadId);
+            logger.info("Aborted multipart upload '{}' of object '{}'", uploadId, objectName);
+        } catch (Exception e) {
+            throw toIOException("Failed to abort multipart upload", e);
+        }
+    }
+
+    private IOException toIOException(String message, Exception e) {
+        logger.error("{}: {}", message, e.getMessage());
+        if (e instanceof IOException ioException) {
+            return ioException;
+        }
+        return new IOException(message + ": " + e.getMessage(), e);
+    }
+
+    // the multipart operations are protected in the Minio client, so they are reached through a subclass that shares
+    // the configuration and HTTP client of the application's client
+    private static class MultipartClient extends MinioClient {
+
+        MultipartClient(MinioClient client) {
+            super(client);
+        }
+
+        String create(String bucketName, String objectName, String contentType) throws Exception {
+            Multimap<String, String> headers = HashMultimap.create();
+            if (contentType != null) {
+                headers.put("Content-Type", contentType);
+            }
+            return createMultipartUpload(bucketName, null, objectName, headers, null).result().uploadId();
+        }
+
+        String upload(String bucketName, String objectName, String uploadId, int partNumber, InputStream data,
+                      long length) throws Exception {
+            var stream = data instanceof BufferedInputStream buffered ? buffered : new BufferedInputStream(data);
+            // the part sizes of the service are far below 2 GB, the limit of the length in the Minio client
+            return uploadPart(bucketName, null, objectName, stream, Math.toIntExact(length), uploadId, partNumber, null,
+                    null).etag();
+        }
+
+        void complete(String bucketName, String objectName, String uploadId, Part[] parts) throws Exception {
+            completeMultipartUpload(bucketName, null, objectName, uploadId, parts, null, null);
+        }
+
+        void abort(String bucketName, String objectName, String uploadId) throws Exception {
+            abortMultipartUpload(bucketName, null, objectName, uploadId, null, null);
+        }
+    }
+}
@@ -1,69 +1,196 @@
 package org.yulia.filemanagement.fileuploadservice.service;
 
+import io.minio.CopyObjectArgs;
+import io.minio.CopySource;
+import io.minio.GetObjectArgs;
 import io.minio.GetPresignedObjectUrlArgs;
 import io.minio.MinioClient;
 import io.minio.PutObjectArgs;
-import io.minio.errors.MinioException;
+import io.minio.SetObjectTagsArgs;
+import io.minio.StatObjectArgs;
+import io.minio.errors.ErrorResponseException;
 import io.minio.http.Method;
 import io.minio.RemoveObjectArgs;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Service;
+import org.yulia.filemanagement.fileuploadservice.dto.StoredObject;
+import org.yulia.filemanagement.fileuploadservice.exception.ObjectChangedException;
+import org.yulia.filemanagement.fileuploadservice.storage.ObjectStat;
+import org.yulia.filemanagement.fileuploadservice.storage.ObjectStorage;
 
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.NoSuchFileException;
+import java.security.DigestInputStream;
+import java.util.Map;
 
 import static org.yulia.filemanagement.fileuploadservice.constants.InternalErrorMessages.BUCKET_NAME_EMPTY;
 
+/**
+ * Stores the objects in a Minio bucket. This is the default storage backend, used unless the 'local-storage' profile
+ * is active.
+ */
 @Service
-public class MinioService {
+@Profile("!local-storage")
+public class MinioService implements ObjectStorage {
 
     private static final Logger logger = LoggerFactory.getLogger(MinioService.class);
 
+    // object tag under which the SHA-256 of the content is recorded, read by the metadata service
+    public static final String CONTENT_HASH_TAG = "sha256";
+
+    private static final String NO_SUCH_KEY = "NoSuchKey";
+    private static final String PRECONDITION_FAILED = "PreconditionFailed";
+    private static final int TRANSFER_BUFFER_SIZE = 64 * 1024;
+
     private final MinioClient minioClient;
+    private final ParallelMultipartUploader multipartUploader;
     private final String bucketName;
+    private final long multipartThreshold;
 
-    public MinioService(MinioClient minioClient, @Value("${minio.bucket-name}") String bucketName) {
+    public MinioService(MinioClient minioClient, ParallelMultipartUploader multipartUploader,
+                        @Value("${minio.bucket-name}") String bucketName,
+                        @Value("${minio.multipart.threshold.bytes:16777216}") long multipartThreshold) {
         this.minioClient = minioClient;
+        this.multipartUploader = multipartUploader;
         this.bucketName = bucketName;
+        this.multipartThreshold = multipartThreshold;
     }
 
     /**
-     * Uploads an object to Minio and returns the presigned URL for accessing the object.
+     * Uploads an object to Minio and returns the presigned URL for accessing the object, together with the attributes
+     * the object was stored with. Objects larger than minio.multipart.threshold.bytes, and objects of unknown size,
+     * are uploaded as a multipart upload with several parts in flight at the same time. The content is hashed with
+     * SHA-256 while it is uploaded, and the hash is recorded as an object tag.
      *
      * @param filename    the name of the file to be uploaded
      * @param data        the input stream of the file data
-     * @param size        the size of the file
+     * @param size        the size of the file, or -1 if it is unknown and the stream has to be read until its end
      * @param contentType the content type of the file
-     * @return the presigned URL for accessing the uploaded object
+     * @return the presigned URL for accessing the uploaded object, with its size, content type, content hash and, if
+     * it was uploaded with a single request, its ETag
      * @throws IOException if an error occurs during upload or URL generation
      */
-    public String uploadObject(String filename, InputStream data, long size, String contentType) throws IOException {
+    @Override
+    public StoredObject uploadObject(String filename, InputStream data, long size, String contentType)
+            throws IOException {
         validateBucketName();
 
         logger.info("Uploading object '{}' to bucket '{}'", filename, bucketName);
+        var hashingData = new DigestInputStream(data, ObjectStorage.newContentDigest());
+
+        if (size < 0 || size > multipartThreshold) {
+            var countingData = new CountingInputStream(hashingData);
+            multipartUploader.upload(bucketName, filename, countingData, contentType);
+            logger.info("Successfully uploaded object '{}'", filename);
+            var contentHash = ObjectStorage.toHex(hashingData.getMessageDigest());
+            setContentHash(filename, contentHash);
+            // the ETag of a multipart upload is not the hash of the content, so it is left to the metadata service
+            return new StoredObject(getPresignedUrl(filename), countingData.count, contentType, null, contentHash);
+        }
 
         var args = PutObjectArgs.builder()
                 .bucket(bucketName)
                 .object(filename)
-                .stream(data, size, -1)
+                .stream(hashingData, size, -1)
                 .contentType(contentType)
                 .build();
+        String etag;
         try {
-            minioClient.putObject(args);
+            var response = minioClient.putObject(args);
+            etag = response == null ? null : response.etag();
             logger.info("Successfully uploaded object '{}'", filename);
+        } catch (Exception e) {
+            logger.error("Error uploading object '{}': {}", filename, e.getMessage());
+            if (e instanceof IOException) {
+                throw (IOException) e;
+            }
+            throw new IOException("Minio error: " + e.getMessage(), e);
+        }
+        var contentHash = ObjectStorage.toHex(hashingData.getMessageDigest());
+        setContentHash(filename, contentHash);
+        return new StoredObject(getPresignedUrl(filename), size, contentType, etag, contentHash);
+    }
+
+    /**
+     * Copies an object inside Minio without transferring its content through this service, and returns the presigned
+     * URL of the copy. The tags of the source object, including its content hash, are copied as well.
+     *
+     * @param sourceName the name of the existing object
+     * @param targetName the name of the copy
+     * @return the presigned URL for accessing the copy
+     * @throws IOException if the object could not be copied, e.g. because the source does not exist
+     */
+    @Override
+    public String copyObject(String sourceName, String targetName) throws IOException {
+        validateBucketName();
 
-            var urlArgs = GetPresignedObjectUrlArgs.builder()
-                    .method(Method.GET)
+        var args = CopyObjectArgs.builder()
+                .bucket(bucketName)
+                .object(targetName)
+                .source(CopySource.builder().bucket(bucketName).object(sourceName).build())
+                .build();
+        try {
+            minioClient.copyObject(args);
+            logger.info("Copied object '{}' to '{}' in bucket '{}'", sourceName, targetName, bucketName);
+        } catch (Exception e) {
+            logger.error("Error copying object '{}' to '{}': {}", sourceName, targetName, e.getMessage());
+            if (e instanceof IOException) {
+                throw (IOException) e;
+            }
+            throw new IOException("Minio error: " + e.getMessage(), e);
+        }
+        return getPresignedUrl(targetName);
+    }
+
+    /**
+     * Records the SHA-256 hash of the content of an object as an object tag. The hash is optional metadata, so a
+     * failure is logged and does not fail the upload.
+     *
+     * @param filename    the name of the object
+     * @param contentHash the SHA-256 hash of the content as a hex string
+     */
+    @Override
+    public void setContentHash(String filename, String contentHash) {
+        try {
+            minioClient.setObjectTags(SetObjectTagsArgs.builder()
                     .bucket(bucketName)
                     .object(filename)
-                    .build();
+                    .tags(Map.of(CONTENT_HASH_TAG, contentHash))
+                    .build());
+        } catch (Exception e) {
+            logger.warn("Failed to record content hash of object '{}': {}", filename, e.getMessage());
+        }
+    }
+
+    /**
+     * Generates a presigned URL for downloading an object from Minio.
+     *
+     * @param filename the name of the object
+     * @return the presigned URL for accessing the object
+     * @throws IOException if the URL could not be generated
+     */
+    @Override
+    public String getPresignedUrl(String filename) throws IOException {
+        validateBucketName();
+
+        var urlArgs = GetPresignedObjectUrlArgs.builder()
+                .method(Method.GET)
+                .bucket(bucketName)
+                .object(filename)
+                .build();
+        try {
             var url = minioClient.getPresignedObjectUrl(urlArgs);
             logger.info("Generated presigned URL for object '{}': {}", filename, url);
             return url;
         } catch (Exception e) {
-            logger.error("Error uploading object '{}': {}", filename, e.getMessage());
+            logger.error("Error generating presigned URL for object '{}': {}", filename, e.getMessage());
             if (e instanceof IOException) {
                 throw (IOException) e;
             }
@@ -71,12 +198,90 @@ public class MinioService {
         }
     }
 
+    /**
+     * Reads the attributes of an object from Minio.
+     *
+     * @param filename the name of the object
+     * @return the attributes of the object
+     * @throws NoSuchFileException if the object does not exist
+     * @throws IOException         if the attributes could not be read
+     */
+    @Override
+    public ObjectStat statObject(String filename) throws IOException {
+        validateBucketName();
+
+        try {
+            var stat = minioClient.statObject(StatObjectArgs.builder()
+                    .bucket(bucketName)
+                    .object(filename)
+                    .build());
+            var etag = stat.etag() == null ? null : stat.etag().replace("\"", "");
+            return new ObjectStat(filename, stat.size(), stat.contentType(), etag, stat.lastModified());
+        } catch (Exception e) {
+            throw toIOException(filename, e);
+        }
+    }
+
+    /**
+     * Streams a range of an object from Minio to a channel through a fixed-size buffer. Only the range is requested
+     * from Minio, with the ETag as an If-Match condition, so Minio refuses it once the object has been replaced.
+     *
+     * @param filename the name of the object
+     * @param etag     the ETag the object must have, or null to read the current version
+     * @param offset   the position of the first byte of the range
+     * @param length   the number of bytes in the range
+     * @param target   the channel to write to; it is not closed
+     * @return the number of bytes written
+     * @throws NoSuchFileException    if the object does not exist
+     * @throws ObjectChangedException if the object no longer has the ETag
+     * @throws IOException            if the content could not be read or written
+     */
+    @Override
+    public long transferTo(String filename, String etag, long offset, long length, WritableByteChannel target)
+            throws IOException {
+        validateBucketName();
+
+        var args = GetObjectArgs.builder()
+                .bucket(bucketName)
+                .object(filename)
+                .offset(offset)
+                .length(length)
+                .matchETag(etag)
+                .build();
+        InputStream content;
+        try {
+            content = minioClient.getObject(args);
+        } catch (ErrorResponseException e) {
+            if (PRECONDITION_FAILED.equals(e.errorResponse().code())) {
+                throw new ObjectChangedException(filename, etag);
+            }
+            throw toIOException(filename, e);
+        } catch (Exception e) {
+            throw toIOException(filename, e);
+        }
+        try (content) {
+            var buffer = ByteBuffer.allocate(TRANSFER_BUFFER_SIZE);
+            long transferred = 0;
+            int read;
+            while ((read = content.read(buffer.array())) != -1) {
+                buffer.limit(read);
+                while (buffer.hasRemaining()) {
+                    target.write(buffer);
+                }
+                buffer.clear();
+                transferred += read;
+            }
+            return transferred;
+        }
+    }
+
     /**
      * Deletes an object from Minio.
      *
      * @param filename the name of the file to be deleted
      * @throws IOException if an error occurs during deletion
      */
+    @Override
     public void deleteObject(String filename) throws IOException {
         validateBucketName();
 
@@ -107,5 +312,52 @@ public class MinioService {
             throw new IllegalArgumentException(BUCKET_NAME_EMPTY);
         }
     }
-}
 
+    // a missing object is reported as NoSuchFileException, like a missing file of the local storage
+    private IOException toIOException(String filename, Exception e) {
+        if (e instanceof ErrorResponseException errorResponse
+                && NO_SUCH_KEY.equals(errorResponse.errorResponse().code())) {
+            return new NoSuchFileException(filename);
+        }
+        logger.error("Error reading object '{}': {}", filename, e.getMessage());
+        if (e instanceof IOException) {
+            return (IOException) e;
+        }
+        return new IOException("Minio error: " + e.getMessage(), e);
+    }
+
+    // counts the bytes read from a stream of unknown size
+    private static class CountingInputStream extends FilterInputStream {
+
+        private long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package org.yulia.filemanagement.fileuploadservice.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.yulia.filemanagement.fileuploadservice.dto.StoredObject;
+import org.yulia.filemanagement.fileuploadservice.storage.ObjectStat;
+import org.yulia.filemanagement.fileuploadservice.storage.ObjectStorage;
+
+import java.io.IOException;
+import java.time.ZonedDateTime;
+import java.util.LinkedHashMap;
+
+/**
+ * In-process cache of the attributes of stored objects, so a download, and above all a conditional download that is
+ * answered with 304, does not have to ask the storage for the ETag and size of the object first.
+ * <p>
+ * Objects stored or deleted by this instance update the cache right away. Objects changed elsewhere, e.g. removed by
+ * the metadata service, are picked up once their entry expires, so the TTL bounds how long a stale ETag is served.
+ * The cache is bounded by the number of entries and evicts the least recently used ones first.
+ */
+@Component
+public class ObjectStatCache {
+
+    private final ObjectStorage objectStorage;
+    private final int maxEntries;
+    private final long ttlNanos;
+
+    // in access order, so the first entry is the least recently used one
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    public ObjectStatCache(ObjectStorage objectStorage,
+                           @Value("${download.stat.cache.max.entries:10000}") int maxEntries,
+                           @Value("${download.stat.cache.ttl.ms:60000}") long ttlMs) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("Object stat cache must hold at least one entry");
+        }
+        this.objectStorage = objectStorage;
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttlMs * 1_000_000;
+    }
+
+    /**
+     * Returns the attributes of an object, from the cache if they are cached and not expired, and from the storage
+     * otherwise.
+     *
+     * @param filename the name of the object
+     * @return the attributes of the object
+     * @throws java.nio.file.NoSuchFileException if the object does not exist
+     * @throws IOException                       if the attributes could not be read
+     */
+    public ObjectStat get(String filename) throws IOException {
+        synchronized (this) {
+            var entry = entries.get(filename);
+            if (entry != null && System.nanoTime() - entry.storedAt < ttlNanos) {
+                return entry.stat;
+            }
+        }
+        // the storage is asked outside the lock, so a slow lookup does not hold up the other downloads
+        var stat = objectStorage.statObject(filename);
+        put(stat);
+        return stat;
+    }
+
+    /**
+     * Records the attributes of an object this instance has just stored. An object whose ETag or size is not known
+     * is dropped from the cache instead, and read from the storage when it is downloaded.
+     *
+     * @param filename     the name of the object
+     * @param storedObject the attributes the object was stored with
+     */
+    public void stored(String filename, StoredObject storedObject) {
+        if (storedObject.etag() == null || storedObject.size() < 0) {
+            invalidate(filename);
+            return;
+        }
+        var etag = storedObject.etag().replace("\"", "");
+        put(new ObjectStat(filename, storedObject.size(), storedObject.contentType(), etag, ZonedDateTime.now()));
+    }
+
+    /**
+     * Drops the attributes of an object, e.g. because it was deleted.
+     *
+     * @param filename the name of the object
+     */
+    public synchronized void invalidate(String filename) {
+        entries.remove(filename);
+    }
+
+    private synchronized void put(ObjectStat stat) {
+        entries.put(stat.name(), new Entry(stat, System.nanoTime()));
+        if (entries.size() > maxEntries) {
+            var eldest = entries.keySet().iterator();
+            eldest.next();
+            eldest.remove();
+        }
+    }
+
+    private record Entry(ObjectStat stat, long storedAt) {
+    }
+}
@@ -0,0 +1,171 @@
+package org.yulia.filemanagement.fileuploadservice.service;
+
+import io.minio.MinioClient;
+import io.minio.ObjectWriteArgs;
+import io.minio.PutObjectArgs;
+import io.minio.messages.Part;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Uploads large objects to Minio as multipart uploads whose parts are sent concurrently.
+ * The input stream is read part by part on the calling thread while earlier parts are still being uploaded. At most
+ * minio.multipart.concurrency parts of one upload are held in memory, so the heap used by an upload does not depend
+ * on the size of the object.
+ */
+@Service
+public class ParallelMultipartUploader {
+
+    private static final Logger logger = LoggerFactory.getLogger(ParallelMultipartUploader.class);
+
+    private final MinioClient minioClient;
+    private final MinioMultipartClient multipartClient;
+    private final ExecutorService partExecutor;
+    private final int partSize;
+    private final int concurrency;
+
+    public ParallelMultipartUploader(MinioClient minioClient, MinioMultipartClient multipartClient,
+                                     @Qualifier("minioPartExecutor") ExecutorService partExecutor,
+                                     @Value("${minio.multipart.part.size.bytes:8388608}") long partSize,
+                                     @Value("${minio.multipart.concurrency:4}") int concurrency) {
+        if (partSize < ObjectWriteArgs.MIN_MULTIPART_SIZE || partSize > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Multipart part size must be between "
+                    + ObjectWriteArgs.MIN_MULTIPART_SIZE + " bytes and 2 GB, but was " + partSize);
+        }
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("Multipart concurrency must be at least 1, but was " + concurrency);
+        }
+        this.minioClient = minioClient;
+        this.multipartClient = multipartClient;
+        this.partExecutor = partExecutor;
+        this.partSize = (int) partSize;
+        this.concurrency = concurrency;
+    }
+
+    /**
+     * Uploads the content of the stream to Minio. Content that fits into a single part is uploaded with one request,
+     * larger content as a multipart upload, which is aborted if any of its parts fails.
+     *
+     * @param bucketName  the name of the bucket
+     * @param objectName  the name of the object to be created
+     * @param data        the content of the object, read until its end
+     * @param contentType the content type of the object
+     * @throws IOException if the content could not be read or uploaded
+     */
+    public void upload(String bucketName, String objectName, InputStream data, String contentType)
+            throws IOException {
+        var firstPart = data.readNBytes(partSize);
+        if (firstPart.length < partSize) {
+            putSinglePart(bucketName, objectName, firstPart, contentType);
+            return;
+        }
+
+        var uploadId = multipartClient.createMultipartUpload(bucketName, objectName, contentType);
+        var window = new Semaphore(concurrency);
+        List<CompletableFuture<Part>> parts = new ArrayList<>();
+        try {
+            var partData = firstPart;
+            while (partData.length > 0) {
+                if (parts.size() == ObjectWriteArgs.MAX_MULTIPART_COUNT) {
+                    throw new IOException("Object '" + objectName + "' exceeds the maximum of "
+                            + ObjectWriteArgs.MAX_MULTIPART_COUNT + " parts of " + partSize + " bytes");
+                }
+                window.acquire();
+                throwFirstFailure(parts);
+
+                var partNumber = parts.size() + 1;
+                var content = partData;
+                parts.add(CompletableFuture
+                        .supplyAsync(() -> uploadPart(bucketName, objectName, uploadId, partNumber, content),
+                                partExecutor)
+                        .whenComplete((part, e) -> window.release()));
+                partData = data.readNBytes(partSize);
+            }
+
+            var completedParts = new Part[parts.size()];
+            for (int i = 0; i < completedParts.length; i++) {
+                completedParts[i] = parts.get(i).get();
+            }
+            multipartClient.completeMultipartUpload(bucketName, objectName, uploadId, completedParts);
+        } catch (Exception e) {
+            // parts that are still in flight would otherwise be stored after the abort
+            CompletableFuture.allOf(parts.toArray(CompletableFuture[]::new)).exceptionally(ex -> null).join();
+            abortQuietly(bucketName, objectName, uploadId);
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            throw toIOException(objectName, e);
+        }
+    }
+
+    // uploads content smaller than one part with a single request
+    private void putSinglePart(String bucketName, String objectName, byte[] content, String contentType)
+            throws IOException {
+        var args = PutObjectArgs.builder()
+                .bucket(bucketName)
+                .object(objectName)
+                .stream(new ByteArrayInputStream(content), content.length, -1)
+                .contentType(contentType)
+                .build();
+        try {
+            minioClient.putObject(args);
+        } catch (Exception e) {
+            throw toIOException(objectName, e);
+        }
+    }
+
+    private Part uploadPart(String bucketName, String objectName, String uploadId, int partNumber, byte[] content) {
+        try {
+            return multipartClient.uploadPart(bucketName, objectName, uploadId, partNumber,
+                    new ByteArrayInputStream(content), content.length);
+        } catch (IOException e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    // stops reading the stream as soon as one of the parts has failed
+    private void throwFirstFailure(List<CompletableFuture<Part>> parts) throws ExecutionException,
+            InterruptedException {
+        for (var part : parts) {
+            if (part.isCompletedExceptionally()) {
+                part.get();
+            }
+        }
+    }
+
+    private void abortQuietly(String bucketName, String objectName, String uploadId) {
+        try {
+            multipartClient.abortMultipartUpload(bucketName, objectName, uploadId);
+        } catch (IOException e) {
+            logger.error("Failed to abort multipart upload '{}' of object '{}', its parts remain in storage",
+                    uploadId, objectName);
+        }
+    }
+
+    private IOException toIOException(String objectName, Exception e) {
+        Throwable cause = e;
+        while ((cause instanceof ExecutionException || cause instanceof CompletionException)
+                && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        logger.error("Error uploading object '{}': {}", objectName, cause.getMessage());
+        if (cause instanceof IOException ioException) {
+            return ioException;
+        }
+        return new IOException("Minio error: " + cause.getMessage(), cause);
+    }
+}
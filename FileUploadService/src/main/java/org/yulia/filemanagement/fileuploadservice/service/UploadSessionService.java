@@ -0,0 +1,328 @@
+package org.yulia.filemanagement.fileuploadservice.service;
+
+import io.minio.ObjectWriteArgs;
+import io.minio.messages.Part;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.yulia.filemanagement.fileuploadservice.dto.UploadResult;
+import org.yulia.filemanagement.fileuploadservice.dto.UploadSessionStatus;
+import org.yulia.filemanagement.fileuploadservice.exception.FileSizeLimitExceededException;
+import org.yulia.filemanagement.fileuploadservice.exception.InvalidUploadRequestException;
+import org.yulia.filemanagement.fileuploadservice.exception.UploadOffsetMismatchException;
+import org.yulia.filemanagement.fileuploadservice.exception.UploadSessionNotFoundException;
+import org.yulia.filemanagement.fileuploadservice.storage.ObjectStorage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.yulia.filemanagement.fileuploadservice.constants.UserErrorMessages.FILE_SIZE_EXCEEDED;
+
+/**
+ * Manages resumable uploads. A session is backed by a Minio multipart upload: every chunk the client sends becomes
+ * one part, and completing the session completes the multipart upload and registers the file like a regular upload.
+ * The content is hashed chunk by chunk, so the hash of the file is recorded without reading it again.
+ * Sessions are kept in memory, so they are bound to the instance that created them and do not survive a restart.
+ * As they rely on Minio multipart uploads, resumable uploads are not available with the local storage.
+ */
+@Service
+@Profile("!local-storage")
+public class UploadSessionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UploadSessionService.class);
+
+    private final MinioMultipartClient multipartClient;
+    private final MinioService minioService;
+    private final FileUploadService fileUploadService;
+    private final String bucketName;
+    private final long maxFileSize;
+    private final long maxChunkSize;
+    private final Duration sessionTtl;
+
+    private final Map<String, UploadSession> sessions = new ConcurrentHashMap<>();
+
+    public UploadSessionService(MinioMultipartClient multipartClient, MinioService minioService,
+                                FileUploadService fileUploadService,
+                                @Value("${minio.bucket-name}") String bucketName,
+                                @Value("${upload.session.max.file.size.bytes:${file.max.size.bytes}}") long maxFileSize,
+                                @Value("${upload.session.max.chunk.size.bytes:67108864}") long maxChunkSize,
+                                @Value("${upload.session.ttl.minutes:60}") long sessionTtlMinutes) {
+        this.multipartClient = multipartClient;
+        this.minioService = minioService;
+        this.fileUploadService = fileUploadService;
+        this.bucketName = bucketName;
+        this.maxFileSize = maxFileSize;
+        this.maxChunkSize = maxChunkSize;
+        this.sessionTtl = Duration.ofMinutes(sessionTtlMinutes);
+    }
+
+    /**
+     * Starts a resumable upload of a file of known size.
+     *
+     * @param fileName    the name of the file
+     * @param size        the total size of the file in bytes
+     * @param contentType the content type of the file
+     * @return the state of the new session
+     * @throws InvalidUploadRequestException  if the file name is empty or the size is not positive
+     * @throws FileSizeLimitExceededException if the file is larger than the allowed size
+     * @throws IOException                    if the multipart upload could not be started
+     */
+    public UploadSessionStatus createSession(String fileName, long size, String contentType) throws IOException {
+        if (fileName == null || fileName.isBlank()) {
+            throw new InvalidUploadRequestException("File name must not be empty.");
+        }
+        if (size <= 0) {
+            throw new InvalidUploadRequestException("File size must be greater than zero.");
+        }
+        if (size > maxFileSize) {
+            throw new FileSizeLimitExceededException(FILE_SIZE_EXCEEDED);
+        }
+
+        var uploadId = multipartClient.createMultipartUpload(bucketName, fileName, contentType);
+        var session = new UploadSession(UUID.randomUUID().toString(), fileName, size, uploadId);
+        sessions.put(session.id, session);
+        logger.info("Created upload session '{}' for file '{}' of {} bytes", session.id, fileName, size);
+        return session.status();
+    }
+
+    /**
+     * Returns the state of a session, most importantly the offset at which the next chunk has to start.
+     *
+     * @param sessionId the identifier of the session
+     * @return the state of the session
+     */
+    public UploadSessionStatus getStatus(String sessionId) {
+        var session = getSession(sessionId);
+        synchronized (session) {
+            return session.status();
+        }
+    }
+
+    /**
+     * Stores one chunk of the file as the next part of the multipart upload. Every chunk except the last one has to
+     * be at least 5 MB, which is the minimal part size of S3. The chunk is validated before its content is read, and
+     * the content is then streamed to Minio without being buffered. The session is not locked while the content is
+     * streamed, so its state can be queried meanwhile; a second chunk sent while one is in progress is rejected.
+     *
+     * @param sessionId the identifier of the session
+     * @param offset    the position of the chunk in the file, which must equal the committed offset
+     * @param length    the size of the chunk in bytes, or -1 if it is unknown
+     * @param data      the content of the chunk
+     * @return the state of the session after the chunk has been stored
+     * @throws UploadOffsetMismatchException  if the offset differs from the committed offset, e.g. because the chunk
+     *                                        was already stored before the connection dropped, or if another chunk
+     *                                        is being stored
+     * @throws InvalidUploadRequestException  if the length is unknown or does not fit the session
+     * @throws FileSizeLimitExceededException if the chunk is larger than the allowed size
+     * @throws IOException                    if the chunk could not be stored
+     */
+    public UploadSessionStatus uploadChunk(String sessionId, long offset, long length, InputStream data)
+            throws IOException {
+        var session = getSession(sessionId);
+        int partNumber;
+        MessageDigest digest;
+        synchronized (session) {
+            ensureActive(session);
+            if (session.chunkInProgress) {
+                throw new UploadOffsetMismatchException("Another chunk of the upload is being stored, the committed "
+                        + "offset is " + session.offset + ".", session.offset);
+            }
+            if (offset != session.offset) {
+                throw new UploadOffsetMismatchException("Chunk offset " + offset
+                        + " does not match the committed offset " + session.offset + ".", session.offset);
+            }
+            validateChunk(session, offset, length);
+
+            session.chunkInProgress = true;
+            session.lastActivity = Instant.now();
+            partNumber = session.parts.size() + 1;
+            // the digest of the session only takes the chunk once it is stored, so a failed chunk can be sent again
+            digest = copyOf(session.digest);
+        }
+
+        Part part;
+        try {
+            // a stalled client only holds up its own request, the session stays available to getStatus and abort
+            part = multipartClient.uploadPart(bucketName, session.fileName, session.uploadId, partNumber,
+                    new DigestInputStream(data, digest), length);
+        } catch (IOException | RuntimeException e) {
+            synchronized (session) {
+                session.chunkInProgress = false;
+                session.lastActivity = Instant.now();
+            }
+            throw e;
+        }
+
+        synchronized (session) {
+            session.chunkInProgress = false;
+            // the session may have been aborted while the chunk was streamed, which discards the part as well
+            ensureActive(session);
+            session.parts.add(part);
+            session.digest = digest;
+            session.offset = offset + length;
+            session.lastActivity = Instant.now();
+            logger.info("Stored chunk {} of upload session '{}', offset is now {} of {}", partNumber, sessionId,
+                    session.offset, session.size);
+            return session.status();
+        }
+    }
+
+    /**
+     * Completes a session once all chunks have been stored. The file becomes visible in Minio and is registered in
+     * the metadata service; if the registration fails, the file is deleted again.
+     *
+     * @param sessionId the identifier of the session
+     * @return a future of the result of the upload operation, completed once the file is registered
+     * @throws UploadOffsetMismatchException if not all chunks have been stored yet
+     * @throws IOException                   if the multipart upload could not be completed
+     */
+    public CompletableFuture<UploadResult> completeSession(String sessionId) throws IOException {
+        var session = getSession(sessionId);
+        synchronized (session) {
+            ensureActive(session);
+            if (session.offset != session.size) {
+                throw new UploadOffsetMismatchException("Upload is incomplete, " + session.offset + " of "
+                        + session.size + " bytes have been stored.", session.offset);
+            }
+
+            multipartClient.completeMultipartUpload(bucketName, session.fileName, session.uploadId,
+                    session.parts.toArray(Part[]::new));
+            sessions.remove(sessionId);
+        }
+
+        // chunks are stored strictly in order, so the digest has consumed the content of the whole file
+        minioService.setContentHash(session.fileName, ObjectStorage.toHex(session.digest));
+
+        var fileUrl = minioService.getPresignedUrl(session.fileName);
+        logger.info("Completed upload session '{}', file uploaded to Minio: {}", sessionId, fileUrl);
+        return fileUploadService.registerStoredFile(session.fileName, fileUrl);
+    }
+
+    /**
+     * Aborts a session and discards the chunks stored so far.
+     *
+     * @param sessionId the identifier of the session
+     * @throws IOException if the multipart upload could not be aborted
+     */
+    public void abortSession(String sessionId) throws IOException {
+        var session = getSession(sessionId);
+        synchronized (session) {
+            ensureActive(session);
+            sessions.remove(sessionId);
+            multipartClient.abortMultipartUpload(bucketName, session.fileName, session.uploadId);
+        }
+        logger.info("Aborted upload session '{}'", sessionId);
+    }
+
+    /**
+     * Aborts the sessions that have not received a chunk within the session TTL, so abandoned uploads do not keep
+     * their parts in storage.
+     */
+    @Scheduled(fixedDelayString = "${upload.session.cleanup.interval.ms:300000}")
+    public void abortExpiredSessions() {
+        var expiredBefore = Instant.now().minus(sessionTtl);
+        for (var session : sessions.values()) {
+            synchronized (session) {
+                // a session that is receiving a chunk is not abandoned, however long the chunk takes
+                if (session.chunkInProgress || session.lastActivity.isAfter(expiredBefore)
+                        || !sessions.remove(session.id, session)) {
+                    continue;
+                }
+            }
+            logger.info("Upload session '{}' for file '{}' has expired", session.id, session.fileName);
+            try {
+                multipartClient.abortMultipartUpload(bucketName, session.fileName, session.uploadId);
+            } catch (IOException e) {
+                logger.error("Failed to abort expired upload session '{}': {}", session.id, e.getMessage());
+            }
+        }
+    }
+
+    private UploadSession getSession(String sessionId) {
+        var session = sessions.get(sessionId);
+        if (session == null) {
+            throw new UploadSessionNotFoundException(sessionId);
+        }
+        return session;
+    }
+
+    // a chunk is checked against the session before any of its content is read
+    private void validateChunk(UploadSession session, long offset, long length) throws FileSizeLimitExceededException {
+        if (length < 0) {
+            throw new InvalidUploadRequestException("Chunk length is unknown, send the chunk with a Content-Length "
+                    + "header.");
+        }
+        if (length == 0) {
+            throw new InvalidUploadRequestException("Chunk must not be empty.");
+        }
+        if (length > maxChunkSize) {
+            throw new FileSizeLimitExceededException("Chunk size exceeds the maximum of " + maxChunkSize
+                    + " bytes.");
+        }
+
+        var end = offset + length;
+        if (end > session.size) {
+            throw new InvalidUploadRequestException("Chunk ends at " + end + ", after the end of the file at "
+                    + session.size + ".");
+        }
+        if (end < session.size && length < ObjectWriteArgs.MIN_MULTIPART_SIZE) {
+            throw new InvalidUploadRequestException("Every chunk except the last one must be at least "
+                    + ObjectWriteArgs.MIN_MULTIPART_SIZE + " bytes.");
+        }
+    }
+
+    private static MessageDigest copyOf(MessageDigest digest) {
+        try {
+            return (MessageDigest) digest.clone();
+        } catch (CloneNotSupportedException e) {
+            // the SHA-256 digests of the JDK providers can be cloned
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // a session may have been completed or aborted while the caller was waiting for its monitor
+    private void ensureActive(UploadSession session) {
+        if (sessions.get(session.id) != session) {
+            throw new UploadSessionNotFoundException(session.id);
+        }
+    }
+
+    // server-side state of one resumable upload; guarded by its own monitor, which is never held while a chunk is
+    // streamed
+    private static class UploadSession {
+
+        private final String id;
+        private final String fileName;
+        private final long size;
+        private final String uploadId;
+        private final List<Part> parts = new ArrayList<>();
+        private MessageDigest digest = ObjectStorage.newContentDigest();
+        private long offset;
+        private boolean chunkInProgress;
+        private Instant lastActivity = Instant.now();
+
+        UploadSession(String id, String fileName, long size, String uploadId) {
+            this.id = id;
+            this.fileName = fileName;
+            this.size = size;
+            this.uploadId = uploadId;
+        }
+
+        UploadSessionStatus status() {
+            return new UploadSessionStatus(id, fileName, size, offset);
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package org.yulia.filemanagement.fileuploadservice.storage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import org.yulia.filemanagement.fileuploadservice.dto.StoredObject;
+import org.yulia.filemanagement.fileuploadservice.exception.ObjectChangedException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.DigestInputStream;
+import java.time.ZoneId;
+import java.util.Properties;
+
+import static org.yulia.filemanagement.fileuploadservice.constants.InternalErrorMessages.BUCKET_NAME_EMPTY;
+
+/**
+ * Stores the objects in a directory of the local file system, for deployments where one disk is enough and running
+ * Minio is not worth it. Selected by the 'local-storage' profile.
+ * <p>
+ * The content of an object is stored in {@code <root>/<bucket>/<name>}, and its content type and hash in
+ * {@code <root>/.attributes/<bucket>/<name>.properties}; the metadata service reads the same layout. Objects are
+ * written through a FileChannel to a temporary file that is moved into place once it is complete, so readers never
+ * see a partial object. The hash of the content doubles as its ETag.
+ */
+@Service
+@Profile("local-storage")
+public class LocalFileStorage implements ObjectStorage {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocalFileStorage.class);
+
+    static final String ATTRIBUTES_DIRECTORY = ".attributes";
+    static final String CONTENT_TYPE_ATTRIBUTE = "content-type";
+    static final String CONTENT_HASH_ATTRIBUTE = "sha256";
+    private static final String TEMPORARY_DIRECTORY = ".tmp";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path bucketDirectory;
+    private final Path attributesDirectory;
+    private final Path temporaryDirectory;
+
+    public LocalFileStorage(@Value("${storage.local.root:data/storage}") String root,
+                            @Value("${minio.bucket-name}") String bucketName) throws IOException {
+        if (bucketName == null || bucketName.trim().isEmpty()) {
+            throw new IllegalArgumentException(BUCKET_NAME_EMPTY);
+        }
+        var rootDirectory = Path.of(root).toAbsolutePath().normalize();
+        this.bucketDirectory = rootDirectory.resolve(bucketName);
+        this.attributesDirectory = rootDirectory.resolve(ATTRIBUTES_DIRECTORY).resolve(bucketName);
+        // temporary files are kept under the same root, so moving them into place is an atomic rename
+        this.temporaryDirectory = rootDirectory.resolve(TEMPORARY_DIRECTORY);
+        Files.createDirectories(bucketDirectory);
+        Files.createDirectories(attributesDirectory);
+        Files.createDirectories(temporaryDirectory);
+        logger.info("Storing objects in {}", bucketDirectory);
+    }
+
+    /**
+     * {@inheritDoc}
+     * The content is written through a FileChannel and forced to the disk before the object becomes visible.
+     */
+    @Override
+    public StoredObject uploadObject(String filename, InputStream data, long size, String contentType)
+            throws IOException {
+        var target = contentPath(filename);
+        logger.info("Storing object '{}' in {}", filename, target);
+
+        var hashingData = new DigestInputStream(data, ObjectStorage.newContentDigest());
+        var temporary = Files.createTempFile(temporaryDirectory, "upload-", ".tmp");
+        long written = 0;
+        try {
+            try (var source = Channels.newChannel(hashingData);
+                 var channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                var buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+                while (source.read(buffer) != -1) {
+                    buffer.flip();
+                    while (buffer.hasRemaining()) {
+                        written += channel.write(buffer);
+                    }
+                    buffer.clear();
+                }
+                channel.force(true);
+            }
+            if (size >= 0 && written != size) {
+                throw new IOException("Expected " + size + " bytes of object '" + filename + "' but received "
+                        + written);
+            }
+            var contentHash = ObjectStorage.toHex(hashingData.getMessageDigest());
+            // the attributes are written first, so an object is never visible without them
+            writeAttributes(filename, contentType, contentHash);
+            Files.createDirectories(target.getParent());
+            Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            logger.info("Successfully stored object '{}'", filename);
+            return new StoredObject(getPresignedUrl(filename), written, contentType, contentHash, contentHash);
+        } catch (IOException e) {
+            logger.error("Error storing object '{}': {}", filename, e.getMessage());
+            throw e;
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    @Override
+    public String copyObject(String sourceName, String targetName) throws IOException {
+        var source = contentPath(sourceName);
+        var target = contentPath(targetName);
+        var temporary = Files.createTempFile(temporaryDirectory, "copy-", ".tmp");
+        try {
+            Files.copy(source, temporary, StandardCopyOption.REPLACE_EXISTING);
+            var attributes = readAttributes(sourceName);
+            writeAttributes(targetName, attributes.getProperty(CONTENT_TYPE_ATTRIBUTE),
+                    attributes.getProperty(CONTENT_HASH_ATTRIBUTE));
+            Files.createDirectories(target.getParent());
+            Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            logger.info("Copied object '{}' to '{}'", sourceName, targetName);
+        } catch (IOException e) {
+            logger.error("Error copying object '{}' to '{}': {}", sourceName, targetName, e.getMessage());
+            throw e;
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+        return getPresignedUrl(targetName);
+    }
+
+    @Override
+    public void setContentHash(String filename, String contentHash) {
+        try {
+            var attributes = readAttributes(filename);
+            writeAttributes(filename, attributes.getProperty(CONTENT_TYPE_ATTRIBUTE), contentHash);
+        } catch (IOException e) {
+            logger.warn("Failed to record content hash of object '{}': {}", filename, e.getMessage());
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * The URL is the file URL of the object, as there is no server in front of the directory.
+     */
+    @Override
+    public String getPresignedUrl(String filename) {
+        return contentPath(filename).toUri().toString();
+    }
+
+    @Override
+    public ObjectStat statObject(String filename) throws IOException {
+        var content = contentPath(filename);
+        var fileAttributes = Files.readAttributes(content, BasicFileAttributes.class);
+        if (!fileAttributes.isRegularFile()) {
+            throw new NoSuchFileException(content.toString());
+        }
+        var attributes = readAttributes(filename);
+        return new ObjectStat(filename, fileAttributes.size(), attributes.getProperty(CONTENT_TYPE_ATTRIBUTE),
+                attributes.getProperty(CONTENT_HASH_ATTRIBUTE),
+                fileAttributes.lastModifiedTime().toInstant().atZone(ZoneId.systemDefault()));
+    }
+
+    /**
+     * {@inheritDoc}
+     * The content is copied with FileChannel.transferTo. Downloads write to a channel over the servlet output stream,
+     * so the content still passes through a buffer in the heap.
+     */
+    @Override
+    public long transferTo(String filename, String etag, long offset, long length, WritableByteChannel target)
+            throws IOException {
+        try (var channel = FileChannel.open(contentPath(filename), StandardOpenOption.READ)) {
+            // The hash is the ETag. It is read after the file is opened: a new version has its attributes written
+            // before its content is moved into place, so once the opened file is that version, the hash is as well
+            if (etag != null && !etag.equals(readAttributes(filename).getProperty(CONTENT_HASH_ATTRIBUTE))) {
+                throw new ObjectChangedException(filename, etag);
+            }
+            if (offset < 0 || length < 0 || offset + length > channel.size()) {
+                throw new IllegalArgumentException("Range " + offset + "-" + (offset + length - 1)
+                        + " is outside of object '" + filename + "'");
+            }
+            long transferred = 0;
+            // transferTo may transfer less than requested, e.g. when a socket buffer is full
+            while (transferred < length) {
+                transferred += channel.transferTo(offset + transferred, length - transferred, target);
+            }
+            return transferred;
+        }
+    }
+
+    @Override
+    public void deleteObject(String filename) throws IOException {
+        try {
+            logger.info("Deleting object '{}'", filename);
+            Files.deleteIfExists(contentPath(filename));
+            Files.deleteIfExists(attributesPath(filename));
+            logger.info("Successfully deleted object '{}'", filename);
+        } catch (IOException e) {
+            logger.error("Error deleting object '{}': {}", filename, e.getMessage());
+            throw e;
+        }
+    }
+
+    private Path contentPath(String filename) {
+        return resolve(bucketDirectory, filename);
+    }
+
+    private Path attributesPath(String filename) {
+        return resolve(attributesDirectory, filename + ".properties");
+    }
+
+    // a name that would leave the directory, e.g. through "..", is rejected
+    private static Path resolve(Path directory, String name) {
+        if (name == null || name.isEmpty()) {
+            throw new IllegalArgumentException("Object name must not be empty");
+        }
+        var path = directory.resolve(name).normalize();
+        if (!path.startsWith(directory) || path.equals(directory)) {
+            throw new IllegalArgumentException("Invalid object name: " + name);
+        }
+        return path;
+    }
+
+    // an object stored without attributes has none, rather than failing to be read
+    private Properties readAttributes(String filename) throws IOException {
+        var attributes = new Properties();
+        try (Reader reader = Files.newBufferedReader(attributesPath(filename), StandardCharsets.UTF_8)) {
+            attributes.load(reader);
+        } catch (NoSuchFileException e) {
+            logger.debug("Object '{}' has no attributes", filename);
+        }
+        return attributes;
+    }
+
+    private void writeAttributes(String filename, String contentType, String contentHash) throws IOException {
+        var attributes = new Properties();
+        if (contentType != null) {
+            attributes.setProperty(CONTENT_TYPE_ATTRIBUTE, contentType);
+        }
+        if (contentHash != null) {
+            attributes.setProperty(CONTENT_HASH_ATTRIBUTE, contentHash);
+        }
+        var target = attributesPath(filename);
+        var temporary = Files.createTempFile(temporaryDirectory, "attributes-", ".tmp");
+        try {
+            try (Writer writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+                attributes.store(writer, null);
+            }
+            Files.createDirectories(target.getParent());
+            Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+}
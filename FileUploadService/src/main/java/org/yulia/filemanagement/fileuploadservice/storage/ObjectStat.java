@@ -0,0 +1,23 @@
+package org.yulia.filemanagement.fileuploadservice.storage;
+
+import java.time.ZonedDateTime;
+
+/**
+ * The attributes of an object in the storage.
+ */
+public record ObjectStat(
+        // Name of the object
+        String name,
+
+        // Size of the object in bytes
+        long size,
+
+        // Content type the object was stored with, or null if not known
+        String contentType,
+
+        // ETag of the object without surrounding quotes, or null if not known
+        String etag,
+
+        // Time the object was last modified
+        ZonedDateTime lastModified) {
+}
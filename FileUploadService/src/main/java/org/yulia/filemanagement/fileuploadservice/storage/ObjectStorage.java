@@ -0,0 +1,120 @@
+package org.yulia.filemanagement.fileuploadservice.storage;
+
+import org.yulia.filemanagement.fileuploadservice.dto.StoredObject;
+import org.yulia.filemanagement.fileuploadservice.exception.ObjectChangedException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.WritableByteChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Storage backend holding the content of the uploaded files. The backend is selected by profile: Minio by default,
+ * and a directory of the local file system with the 'local-storage' profile.
+ */
+public interface ObjectStorage {
+
+    /**
+     * Stores an object and returns the URL for accessing it, together with the attributes it was stored with. The
+     * content is hashed with SHA-256 while it is stored, and the hash is recorded with the object.
+     *
+     * @param filename    the name of the object
+     * @param data        the input stream of the content
+     * @param size        the size of the content, or -1 if it is unknown and the stream has to be read until its end
+     * @param contentType the content type of the object
+     * @return the URL for accessing the stored object, with its size, content type, content hash and, if the backend
+     * returned one, its ETag
+     * @throws IOException if the object could not be stored
+     */
+    StoredObject uploadObject(String filename, InputStream data, long size, String contentType) throws IOException;
+
+    /**
+     * Copies an object inside the storage, without transferring its content through this service, and returns the
+     * URL of the copy. The content hash of the source object is copied as well.
+     *
+     * @param sourceName the name of the existing object
+     * @param targetName the name of the copy
+     * @return the URL for accessing the copy
+     * @throws IOException if the object could not be copied, e.g. because the source does not exist
+     */
+    String copyObject(String sourceName, String targetName) throws IOException;
+
+    /**
+     * Records the SHA-256 hash of the content of an object. The hash is optional metadata, so a failure is logged and
+     * does not fail the upload.
+     *
+     * @param filename    the name of the object
+     * @param contentHash the SHA-256 hash of the content as a hex string
+     */
+    void setContentHash(String filename, String contentHash);
+
+    /**
+     * Returns the URL for downloading an object.
+     *
+     * @param filename the name of the object
+     * @return the URL for accessing the object
+     * @throws IOException if the URL could not be generated
+     */
+    String getPresignedUrl(String filename) throws IOException;
+
+    /**
+     * Returns the attributes of a stored object.
+     *
+     * @param filename the name of the object
+     * @return the attributes of the object
+     * @throws java.nio.file.NoSuchFileException if the object does not exist
+     * @throws IOException                       if the attributes could not be read
+     */
+    ObjectStat statObject(String filename) throws IOException;
+
+    /**
+     * Writes a range of the content of an object to a channel. If an ETag is given, the range is only read from the
+     * version of the object that has it, so the ranges of one download never mix two versions.
+     *
+     * @param filename the name of the object
+     * @param etag     the ETag the object must have, without surrounding quotes, or null to read the current version
+     * @param offset   the position of the first byte of the range
+     * @param length   the number of bytes in the range, which must lie within the object
+     * @param target   the channel to write to; it is not closed
+     * @return the number of bytes written
+     * @throws java.nio.file.NoSuchFileException if the object does not exist
+     * @throws ObjectChangedException            if the object no longer has the ETag; nothing has been written then
+     * @throws IOException                       if the content could not be read or written
+     */
+    long transferTo(String filename, String etag, long offset, long length, WritableByteChannel target)
+            throws IOException;
+
+    /**
+     * Deletes an object. Deleting an object that does not exist has no effect.
+     *
+     * @param filename the name of the object
+     * @throws IOException if the object could not be deleted
+     */
+    void deleteObject(String filename) throws IOException;
+
+    /**
+     * Creates the digest used for content hashes.
+     *
+     * @return a new SHA-256 digest
+     */
+    static MessageDigest newContentDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Formats a content hash the way it is stored with the objects and in the metadata service.
+     *
+     * @param digest the digest that has consumed the whole content
+     * @return the hash as a lowercase hex string
+     */
+    static String toHex(MessageDigest digest) {
+        return HexFormat.of().formatHex(digest.digest());
+    }
+}
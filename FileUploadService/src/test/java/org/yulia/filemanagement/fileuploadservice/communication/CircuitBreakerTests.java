@@ -0,0 +1,102 @@
+package org.yulia.filemanagement.fileuploadservice.communication;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CircuitBreakerTests {
+
+    @Test
+    void testOpensWhenFailureRateReachesThreshold() {
+        var breaker = new CircuitBreaker("test", 4, 4, 50, 60000, 1);
+
+        record(breaker, true, false, true);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        record(breaker, false);
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertEquals(CircuitBreaker.REJECTED, breaker.tryAcquirePermission());
+        assertEquals(1, breaker.getRejectedCalls());
+    }
+
+    @Test
+    void testOldOutcomesLeaveWindow() {
+        var breaker = new CircuitBreaker("test", 4, 4, 50, 60000, 1);
+
+        record(breaker, false, true, true);
+        assertEquals(-1f, breaker.getFailureRate());
+        record(breaker, true);
+        assertEquals(25f, breaker.getFailureRate());
+        // the failure is the oldest outcome and drops out of the window
+        record(breaker, true);
+        assertEquals(0f, breaker.getFailureRate());
+    }
+
+    @Test
+    void testSuccessfulProbesCloseBreaker() throws InterruptedException {
+        var breaker = new CircuitBreaker("test", 2, 2, 50, 50, 2);
+        record(breaker, false, false);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+        Thread.sleep(100);
+        var firstProbe = acquire(breaker);
+        var secondProbe = acquire(breaker);
+        // only the configured number of probes is let through
+        assertEquals(CircuitBreaker.REJECTED, breaker.tryAcquirePermission());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        breaker.onSuccess(firstProbe);
+        breaker.onSuccess(secondProbe);
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        acquire(breaker);
+    }
+
+    @Test
+    void testFailedProbeOpensBreakerAgain() throws InterruptedException {
+        var breaker = new CircuitBreaker("test", 2, 2, 50, 50, 2);
+        record(breaker, false, false);
+
+        Thread.sleep(100);
+        breaker.onFailure(acquire(breaker));
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertEquals(CircuitBreaker.REJECTED, breaker.tryAcquirePermission());
+    }
+
+    @Test
+    void testOutcomesOfEarlierGenerationsAreIgnored() throws InterruptedException {
+        var breaker = new CircuitBreaker("test", 2, 2, 50, 50, 1);
+        // a slow call is sent while the breaker is closed, then other calls open it
+        var slowCall = acquire(breaker);
+        record(breaker, false, false);
+
+        Thread.sleep(100);
+        var probe = acquire(breaker);
+        // the slow call completes while the probe is in flight and must not close the breaker
+        breaker.onSuccess(slowCall);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        breaker.onFailure(slowCall);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+
+        breaker.onSuccess(probe);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    private static long acquire(CircuitBreaker breaker) {
+        var permission = breaker.tryAcquirePermission();
+        assertNotEquals(CircuitBreaker.REJECTED, permission);
+        return permission;
+    }
+
+    // records one call per outcome, true meaning the call succeeded
+    private static void record(CircuitBreaker breaker, boolean... outcomes) {
+        for (var success : outcomes) {
+            var permission = acquire(breaker);
+            if (success) {
+                breaker.onSuccess(permission);
+            } else {
+                breaker.onFailure(permission);
+            }
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package org.yulia.filemanagement.fileuploadservice.communication;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.yulia.filemanagement.fileuploadservice.service.FileUploadService;
+import org.yulia.filemanagement.fileuploadservice.service.ObjectStatCache;
+import org.yulia.filemanagement.fileuploadservice.storage.ObjectStorage;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+
+// Compares the RestTemplate and the WebClient implementation of CommunicationService when FileUploadService registers
+// the files of 1000 concurrent uploads, on the same path uploads take in production. The metadata service is a local
+// stub that answers after a fixed latency; it delays the responses on a timer, so its own threads do not grow with
+// the load. With RestTemplate every registration holds a thread of the request pool until it is answered, with
+// WebClient the registrations are in flight on the event loop.
+// Run with ./gradlew :FileUploadService:benchmark
+@Tag("benchmark")
+public class CommunicationServiceBenchmarkTests {
+
+    private static final Logger logger = LoggerFactory.getLogger(CommunicationServiceBenchmarkTests.class);
+
+    private static final int CONCURRENT_UPLOADS = 1000;
+    private static final long METADATA_LATENCY_MS = 50;
+
+    private HttpServer server;
+    private ScheduledExecutorService responseTimer;
+    private ScheduledExecutorService retryExecutor;
+    private ExecutorService requestExecutor;
+    private String metadataServiceUrl;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        responseTimer = Executors.newScheduledThreadPool(4);
+        retryExecutor = Executors.newScheduledThreadPool(4);
+        requestExecutor = Executors.newFixedThreadPool(CONCURRENT_UPLOADS);
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), CONCURRENT_UPLOADS);
+        server.createContext("/api/metadata/register", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            responseTimer.schedule(() -> {
+                var body = "{\"message\":\"File registered successfully\"}".getBytes();
+                exchange.sendResponseHeaders(201, body.length);
+                exchange.getResponseBody().write(body);
+                exchange.close();
+                return null;
+            }, METADATA_LATENCY_MS, TimeUnit.MILLISECONDS);
+        });
+        server.setExecutor(Executors.newFixedThreadPool(4));
+        server.start();
+        metadataServiceUrl = "http://localhost:" + server.getAddress().getPort() + "/api/metadata";
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+        responseTimer.shutdownNow();
+        retryExecutor.shutdownNow();
+        requestExecutor.shutdownNow();
+    }
+
+    @Test
+    public void benchmarkThreadsAndLatencyByImplementation() throws Exception {
+        var guard = new MetadataServiceGuard(20, 10, 50, 10000, 3, CONCURRENT_UPLOADS, 10, 5);
+        var restTemplateService = new HTTPCommunicationService(new RestTemplate(), metadataServiceUrl, guard);
+        var webClientService = new WebClientCommunicationService(WebClient.builder(), metadataServiceUrl, guard);
+        var restTemplateUploads = uploadService(restTemplateService, Optional.empty());
+        var webClientUploads = uploadService(webClientService, Optional.of(webClientService));
+
+        // warm up both clients and the stub
+        registerWithThreads(restTemplateUploads, 50);
+        registerReactive(webClientUploads, 50);
+
+        logger.info(String.format("%-14s %-14s %-14s %-14s", "client", "peak threads", "p99 (ms)", "total (ms)"));
+        report("RestTemplate", () -> registerWithThreads(restTemplateUploads, CONCURRENT_UPLOADS));
+        report("WebClient", () -> registerReactive(webClientUploads, CONCURRENT_UPLOADS));
+    }
+
+    // the upload service as it is wired with the given client, without an outbox, batching or deduplication
+    private FileUploadService uploadService(CommunicationService communicationService,
+                                            Optional<ReactiveCommunicationService> reactiveCommunicationService) {
+        var retryScheduler = new RetryScheduler(retryExecutor, requestExecutor, 3, 100, 1000, 0.5, 0.2, 10);
+        return new FileUploadService(mock(ObjectStorage.class), Long.MAX_VALUE, communicationService,
+                reactiveCommunicationService, retryScheduler, Optional.empty(), Optional.empty(), Optional.empty(),
+                mock(ObjectStatCache.class), Runnable::run);
+    }
+
+    // runs one round and logs the additional threads it needed and the latencies of its registrations
+    private void report(String client, Round round) throws Exception {
+        var threads = ManagementFactory.getThreadMXBean();
+        var baseline = threads.getThreadCount();
+        threads.resetPeakThreadCount();
+
+        long start = System.nanoTime();
+        long[] latencies = round.run();
+        long total = (System.nanoTime() - start) / 1_000_000;
+
+        Arrays.sort(latencies);
+        long p99 = latencies[(int) Math.ceil(latencies.length * 0.99) - 1];
+        logger.info(String.format("%-14s %-14d %-14d %-14d", client, threads.getPeakThreadCount() - baseline, p99,
+                total));
+    }
+
+    // registers the files from one thread per upload, the way blocking request threads do, and returns the latency
+    // of every registration in milliseconds
+    private long[] registerWithThreads(FileUploadService service, int uploads) throws InterruptedException {
+        long[] latencies = new long[uploads];
+        var done = new CountDownLatch(uploads);
+        ExecutorService uploadThreads = Executors.newFixedThreadPool(uploads);
+        for (int i = 0; i < uploads; i++) {
+            int upload = i;
+            uploadThreads.execute(() -> {
+                long start = System.nanoTime();
+                var fileName = "file" + upload + ".txt";
+                service.registerStoredFile(fileName, "http://minio/" + fileName).join();
+                latencies[upload] = (System.nanoTime() - start) / 1_000_000;
+                done.countDown();
+            });
+        }
+        done.await();
+        uploadThreads.shutdown();
+        return latencies;
+    }
+
+    // starts all registrations from the calling thread and returns the latency of every registration in milliseconds
+    private long[] registerReactive(FileUploadService service, int uploads) throws Exception {
+        long[] latencies = new long[uploads];
+        var registrations = new CompletableFuture<?>[uploads];
+        for (int i = 0; i < uploads; i++) {
+            int upload = i;
+            var fileName = "file" + upload + ".txt";
+            long start = System.nanoTime();
+            registrations[upload] = service.registerStoredFile(fileName, "http://minio/" + fileName)
+                    .thenRun(() -> latencies[upload] = (System.nanoTime() - start) / 1_000_000);
+        }
+        CompletableFuture.allOf(registrations).get(1, TimeUnit.MINUTES);
+        return latencies;
+    }
+
+    @FunctionalInterface
+    private interface Round {
+        long[] run() throws Exception;
+    }
+}
@@ -1,24 +1,34 @@
 package org.yulia.filemanagement.fileuploadservice.communication;
 
 import org.junit.jupiter.api.BeforeEach;
+import org.json.JSONObject;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
+import org.yulia.filemanagement.fileuploadservice.dto.StoredObject;
 
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
@@ -38,7 +48,8 @@ public class HTTPCommunicationServiceTests {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
-        httpCommunicationService = new HTTPCommunicationService(restTemplate, metadataServiceUrl);
+        httpCommunicationService = new HTTPCommunicationService(restTemplate, metadataServiceUrl,
+                new MetadataServiceGuard(4, 4, 50, 60000, 1, 1, 1, 1));
     }
 
     @Test
@@ -55,6 +66,26 @@ public class HTTPCommunicationServiceTests {
         assert Objects.equals(response.getBody(), expectedResponse);
     }
 
+    @Test
+    public void testSendFileRegistration_AttributesAreSent() {
+        var storedObject = new StoredObject("http://example.com/file", 7, "text/plain", "etag", null);
+        when(restTemplate.postForEntity(any(String.class), any(), any(Class.class)))
+                .thenReturn(ResponseEntity.ok("{}"));
+
+        ResponseEntity<String> response = httpCommunicationService.sendFileRegistration(storedObject);
+
+        ArgumentCaptor<HttpEntity<String>> entityCaptor = ArgumentCaptor.forClass(HttpEntity.class);
+        verify(restTemplate).postForEntity(eq(metadataServiceUrl + "/register"), entityCaptor.capture(),
+                eq(String.class));
+        var body = new JSONObject(entityCaptor.getValue().getBody());
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("http://example.com/file", body.getString("fileUrl"));
+        assertEquals(7, body.getLong("fileSize"));
+        assertEquals("text/plain", body.getString("contentType"));
+        assertEquals("etag", body.getString("etag"));
+        assertFalse(body.has("contentHash"));
+    }
+
     @Test
     public void testSendFileUrl_Unsuccessful_5xxError() {
         String fileUrl = "http://example.com/file";
@@ -129,4 +160,83 @@ public class HTTPCommunicationServiceTests {
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode(), "Response status should be BAD_REQUEST");
     }
 
+
+    @Test
+    public void testSendFileUrls_ResultPerFile() {
+        String body = "{\"message\":\"Some files could not be registered\",\"data\":["
+                + "{\"fileUrl\":\"http://example.com/a\",\"fileName\":\"a\",\"status\":201,\"message\":\"ok\"},"
+                + "{\"fileUrl\":\"http://example.com/b\",\"fileName\":null,\"status\":400,\"message\":\"bad\"}]}";
+        when(restTemplate.postForEntity(eq(metadataServiceUrl + "/register/batch"), any(), eq(String.class)))
+                .thenReturn(new ResponseEntity<>(body, HttpStatus.MULTI_STATUS));
+
+        Map<String, ResponseEntity<String>> responses = httpCommunicationService.sendFileUrls(
+                List.of("http://example.com/a", "http://example.com/b", "http://example.com/c"));
+
+        assertEquals(HttpStatus.CREATED, responses.get("http://example.com/a").getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, responses.get("http://example.com/b").getStatusCode());
+        // a file without a result is reported as a server error, so it is retried
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, responses.get("http://example.com/c").getStatusCode());
+    }
+
+    @Test
+    public void testSendFileUrls_RequestFailureAppliesToEveryFile() {
+        when(restTemplate.postForEntity(any(String.class), any(), eq(String.class)))
+                .thenThrow(new RestClientException("Failed to communicate"));
+
+        Map<String, ResponseEntity<String>> responses = httpCommunicationService.sendFileUrls(
+                List.of("http://example.com/a", "http://example.com/b"));
+
+        assertEquals(2, responses.size());
+        responses.values().forEach(response ->
+                assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode()));
+    }
+
+    @Test
+    void testOpenCircuitBreakerFailsFastWithoutCallingMetadataService() {
+        when(restTemplate.postForEntity(any(String.class), any(), any(Class.class)))
+                .thenReturn(new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR));
+        for (int i = 0; i < 4; i++) {
+            httpCommunicationService.sendFileUrl("http://example.com/file");
+        }
+
+        ResponseEntity<String> response = httpCommunicationService.sendFileUrl("http://example.com/file");
+        httpCommunicationService.sendDeleteMessage("file");
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        verify(restTemplate, times(4)).postForEntity(any(String.class), any(), any(Class.class));
+        verify(restTemplate, never()).delete(anyString());
+    }
+
+    @Test
+    void testClientErrorsDoNotOpenCircuitBreaker() {
+        when(restTemplate.postForEntity(any(String.class), any(), any(Class.class)))
+                .thenReturn(new ResponseEntity<>(HttpStatus.BAD_REQUEST));
+        for (int i = 0; i < 5; i++) {
+            httpCommunicationService.sendFileUrl("http://example.com/file");
+        }
+
+        verify(restTemplate, times(5)).postForEntity(any(String.class), any(), any(Class.class));
+    }
+
+    @Test
+    void testBulkheadRejectsCallsOverLimitOfOperation() throws Exception {
+        var inFlight = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        when(restTemplate.exchange(anyString(), eq(HttpMethod.GET), any(), eq(String.class))).thenAnswer(invocation -> {
+            inFlight.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return ResponseEntity.ok("[]");
+        });
+        when(restTemplate.postForEntity(any(String.class), any(), any(Class.class)))
+                .thenReturn(new ResponseEntity<>(HttpStatus.CREATED));
+
+        var first = CompletableFuture.supplyAsync(() -> httpCommunicationService.getFiles(Map.of()));
+        assertTrue(inFlight.await(5, TimeUnit.SECONDS));
+
+        // the listing limit is used up, registrations have a bulkhead of their own
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, httpCommunicationService.getFiles(Map.of()).getStatusCode());
+        assertEquals(HttpStatus.CREATED, httpCommunicationService.sendFileUrl("http://example.com/file").getStatusCode());
+        release.countDown();
+        assertEquals(HttpStatus.OK, first.get(5, TimeUnit.SECONDS).getStatusCode());
+    }
 }
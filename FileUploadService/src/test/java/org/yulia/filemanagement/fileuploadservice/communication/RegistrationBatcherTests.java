@@ -0,0 +1,82 @@
+package org.yulia.filemanagement.fileuploadservice.communication;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RegistrationBatcherTests {
+
+    @Mock
+    private CommunicationService communicationService;
+
+    private RegistrationBatcher batcher;
+
+    @AfterEach
+    void tearDown() {
+        batcher.shutdown();
+    }
+
+    @Test
+    void testRegistrationsWithinWindowAreSentAsOneBatch() throws Exception {
+        batcher = new RegistrationBatcher(communicationService, 200, 50);
+        when(communicationService.sendFileUrls(List.of("http://minio/a.txt", "http://minio/b.txt"))).thenReturn(Map.of(
+                "http://minio/a.txt", ResponseEntity.status(HttpStatus.CREATED).build(),
+                "http://minio/b.txt", ResponseEntity.status(HttpStatus.BAD_REQUEST).build()));
+
+        var first = batcher.register("http://minio/a.txt");
+        var second = batcher.register("http://minio/b.txt");
+
+        assertEquals(HttpStatus.CREATED, first.get(5, TimeUnit.SECONDS).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, second.get(5, TimeUnit.SECONDS).getStatusCode());
+        verify(communicationService, never()).sendFileUrl(anyString());
+    }
+
+    @Test
+    void testFullBatchIsSentWithoutWaitingForWindow() throws Exception {
+        batcher = new RegistrationBatcher(communicationService, 60000, 2);
+        when(communicationService.sendFileUrls(anyList())).thenReturn(Map.of(
+                "http://minio/a.txt", ResponseEntity.ok().build(),
+                "http://minio/b.txt", ResponseEntity.ok().build()));
+
+        var first = batcher.register("http://minio/a.txt");
+        var second = batcher.register("http://minio/b.txt");
+
+        assertEquals(HttpStatus.OK, first.get(5, TimeUnit.SECONDS).getStatusCode());
+        assertEquals(HttpStatus.OK, second.get(5, TimeUnit.SECONDS).getStatusCode());
+    }
+
+    @Test
+    void testSingleRegistrationUsesSingleEndpoint() throws Exception {
+        batcher = new RegistrationBatcher(communicationService, 10, 50);
+        when(communicationService.sendFileUrl("http://minio/a.txt")).thenReturn(ResponseEntity.ok().build());
+
+        assertEquals(HttpStatus.OK, batcher.register("http://minio/a.txt").get(5, TimeUnit.SECONDS).getStatusCode());
+        verify(communicationService, never()).sendFileUrls(anyList());
+    }
+
+    @Test
+    void testFailedBatchFailsEveryRegistration() {
+        batcher = new RegistrationBatcher(communicationService, 200, 50);
+        when(communicationService.sendFileUrls(anyList())).thenThrow(new RuntimeException("Temporary network issue"));
+
+        var first = batcher.register("http://minio/a.txt");
+        var second = batcher.register("http://minio/b.txt");
+
+        assertThrows(CompletionException.class, first::join);
+        assertThrows(CompletionException.class, second::join);
+    }
+}
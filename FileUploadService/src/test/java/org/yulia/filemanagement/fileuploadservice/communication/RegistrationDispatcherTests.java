@@ -0,0 +1,78 @@
+package org.yulia.filemanagement.fileuploadservice.communication;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.yulia.filemanagement.fileuploadservice.dto.OutboxEntry;
+import org.yulia.filemanagement.fileuploadservice.service.MinioService;
+
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RegistrationDispatcherTests {
+
+    private static final OutboxEntry ENTRY = new OutboxEntry(1, "file1.txt", "http://minio/file1.txt");
+
+    @Mock
+    private RegistrationOutbox outbox;
+    @Mock
+    private CommunicationService communicationService;
+    @Mock
+    private MinioService minioService;
+
+    private RegistrationDispatcher dispatcher;
+
+    @BeforeEach
+    void setup() {
+        dispatcher = new RegistrationDispatcher(outbox, communicationService, minioService, 10, 60000, 60000);
+        // the outbox holds one entry and applies the filter of the dispatcher to it
+        when(outbox.pending(anyLong(), anyInt(), any())).thenAnswer(invocation -> Stream.of(ENTRY)
+                .filter(entry -> entry.id() > invocation.<Long>getArgument(0))
+                .filter(invocation.<Predicate<OutboxEntry>>getArgument(2))
+                .toList());
+    }
+
+    @Test
+    void testDeliveredRegistrationIsAcknowledged() throws Exception {
+        when(communicationService.sendFileUrl(ENTRY.fileUrl()))
+                .thenReturn(ResponseEntity.status(HttpStatus.CREATED).build());
+
+        assertEquals(1, dispatcher.dispatchPending());
+
+        verify(outbox).acknowledge(ENTRY.id());
+        verify(minioService, never()).deleteObject(anyString());
+    }
+
+    @Test
+    void testServerErrorIsRetriedAfterBackoff() throws Exception {
+        when(communicationService.sendFileUrl(ENTRY.fileUrl()))
+                .thenReturn(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build());
+
+        assertEquals(0, dispatcher.dispatchPending());
+        // the entry waits for its backoff, so the next run does not send it again
+        assertEquals(0, dispatcher.dispatchPending());
+
+        verify(communicationService, times(1)).sendFileUrl(ENTRY.fileUrl());
+        verify(outbox, never()).acknowledge(anyLong());
+    }
+
+    @Test
+    void testRejectedRegistrationIsRolledBack() throws Exception {
+        when(communicationService.sendFileUrl(ENTRY.fileUrl()))
+                .thenReturn(ResponseEntity.status(HttpStatus.BAD_REQUEST).build());
+
+        assertEquals(1, dispatcher.dispatchPending());
+
+        verify(minioService).deleteObject(ENTRY.fileName());
+        verify(communicationService).sendDeleteMessage(ENTRY.fileName());
+        verify(outbox).acknowledge(ENTRY.id());
+    }
+}
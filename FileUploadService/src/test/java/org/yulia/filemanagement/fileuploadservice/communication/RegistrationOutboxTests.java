@@ -0,0 +1,87 @@
+package org.yulia.filemanagement.fileuploadservice.communication;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.yulia.filemanagement.fileuploadservice.dto.OutboxEntry;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RegistrationOutboxTests {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testPendingRegistrationsSurviveRestart() throws IOException {
+        var journal = tempDir.resolve("outbox.log");
+        var outbox = new RegistrationOutbox(journal.toString(), 1000);
+        var first = outbox.append("file1.txt", "http://minio/file1.txt");
+        outbox.append("file2.txt", "http://minio/file2.txt");
+        outbox.acknowledge(first.id());
+        outbox.close();
+
+        var reopened = new RegistrationOutbox(journal.toString(), 1000);
+
+        assertEquals(List.of(new OutboxEntry(2, "file2.txt", "http://minio/file2.txt")), reopened.pending(10));
+        // ids are not reused after a restart
+        assertEquals(3, reopened.append("file3.txt", "http://minio/file3.txt").id());
+        reopened.close();
+    }
+
+    @Test
+    void testBatchIsTakenAfterLastEntryAndFiltered() throws IOException {
+        var outbox = new RegistrationOutbox(tempDir.resolve("outbox.log").toString(), 1000);
+        for (int i = 1; i <= 5; i++) {
+            outbox.append("file" + i + ".txt", "http://minio/file" + i + ".txt");
+        }
+
+        var batch = outbox.pending(1, 2, entry -> entry.id() != 3);
+
+        assertEquals(List.of("file2.txt", "file4.txt"), batch.stream().map(OutboxEntry::fileName).toList());
+        outbox.close();
+    }
+
+    @Test
+    void testTornRecordIsSkipped() throws IOException {
+        var journal = tempDir.resolve("outbox.log");
+        var outbox = new RegistrationOutbox(journal.toString(), 1000);
+        outbox.append("file1.txt", "http://minio/file1.txt");
+        outbox.close();
+        // a crash in the middle of an append leaves an incomplete last line
+        Files.writeString(journal, "{\"type\":\"REG\",\"id\":2,\"fileN", StandardCharsets.UTF_8,
+                StandardOpenOption.APPEND);
+
+        var reopened = new RegistrationOutbox(journal.toString(), 1000);
+        reopened.append("file3.txt", "http://minio/file3.txt");
+        reopened.close();
+
+        var recovered = new RegistrationOutbox(journal.toString(), 1000);
+        assertEquals(List.of("file1.txt", "file3.txt"),
+                recovered.pending(10).stream().map(OutboxEntry::fileName).toList());
+        recovered.close();
+    }
+
+    @Test
+    void testJournalIsCompactedAfterAcknowledgements() throws IOException {
+        var journal = tempDir.resolve("outbox.log");
+        var outbox = new RegistrationOutbox(journal.toString(), 2);
+        var first = outbox.append("file1.txt", "http://minio/file1.txt");
+        var second = outbox.append("file2.txt", "http://minio/file2.txt");
+        outbox.append("file3.txt", "http://minio/file3.txt");
+        outbox.acknowledge(first.id());
+        outbox.acknowledge(second.id());
+        outbox.close();
+
+        var lines = Files.readAllLines(journal, StandardCharsets.UTF_8);
+        assertEquals(1, lines.size());
+        assertTrue(lines.get(0).contains("file3.txt"));
+    }
+}
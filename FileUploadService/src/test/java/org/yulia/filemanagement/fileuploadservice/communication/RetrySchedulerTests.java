@@ -0,0 +1,176 @@
+package org.yulia.filemanagement.fileuploadservice.communication;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RetrySchedulerTests {
+
+    private ScheduledExecutorService executor;
+    private ExecutorService requestExecutor;
+
+    @BeforeEach
+    void setup() {
+        executor = Executors.newSingleThreadScheduledExecutor();
+        requestExecutor = Executors.newFixedThreadPool(2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+        requestExecutor.shutdownNow();
+    }
+
+    @Test
+    void testBlockingAttemptsRunOnRequestExecutor() throws Exception {
+        var scheduler = new RetryScheduler(executor, requestExecutor, 3, 10, 1000, 0.5, 0.2, 10);
+        var timerThread = executor.submit(Thread::currentThread).get();
+        List<Thread> threads = Collections.synchronizedList(new ArrayList<>());
+        var attempts = new AtomicInteger();
+
+        var response = scheduler.execute(() -> {
+            threads.add(Thread.currentThread());
+            return attempts.incrementAndGet() < 3
+                    ? ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build()
+                    : ResponseEntity.ok("done");
+        });
+
+        assertEquals(HttpStatus.OK, response.get(5, TimeUnit.SECONDS).getStatusCode());
+        assertEquals("done", response.get().getBody());
+        assertEquals(3, attempts.get());
+        assertFalse(threads.contains(Thread.currentThread()));
+        assertFalse(threads.contains(timerThread));
+    }
+
+    @Test
+    void testFullRequestExecutorReturnsServiceUnavailable() throws Exception {
+        Executor rejecting = command -> {
+            throw new RejectedExecutionException("queue is full");
+        };
+        var scheduler = new RetryScheduler(executor, rejecting, 3, 10, 1000, 0.5, 0.2, 10);
+        var attempts = new AtomicInteger();
+
+        var response = scheduler.execute(() -> {
+            attempts.incrementAndGet();
+            return ResponseEntity.ok("done");
+        });
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.get(5, TimeUnit.SECONDS).getStatusCode());
+        assertEquals(0, attempts.get());
+    }
+
+    @Test
+    void testClientErrorIsNotRetried() throws Exception {
+        var scheduler = new RetryScheduler(executor, requestExecutor, 3, 10, 1000, 0.5, 0.2, 10);
+        var attempts = new AtomicInteger();
+
+        var response = scheduler.execute(() -> {
+            attempts.incrementAndGet();
+            return ResponseEntity.badRequest().body("invalid");
+        });
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.get(5, TimeUnit.SECONDS).getStatusCode());
+        assertEquals(1, attempts.get());
+    }
+
+    @Test
+    void testExhaustedRetriesReturnServiceUnavailable() throws Exception {
+        var scheduler = new RetryScheduler(executor, requestExecutor, 3, 10, 1000, 0.5, 0.2, 10);
+        var attempts = new AtomicInteger();
+
+        var response = scheduler.execute(() -> {
+            attempts.incrementAndGet();
+            return ResponseEntity.status(HttpStatus.BAD_GATEWAY).build();
+        });
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.get(5, TimeUnit.SECONDS).getStatusCode());
+        assertEquals(3, attempts.get());
+    }
+
+    @Test
+    void testBackoffGrowsWithEveryAttempt() throws Exception {
+        var scheduler = new RetryScheduler(executor, requestExecutor, 3, 100, 1000, 0.5, 0.2, 10);
+        long startTime = System.nanoTime();
+
+        scheduler.execute(() -> ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build()).get(5,
+                TimeUnit.SECONDS);
+
+        // 100ms before the second attempt and 200ms before the third, each plus up to half of it as jitter
+        long durationMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+        assertTrue(durationMillis >= 300, "Expected at least 300ms of backoff, got " + durationMillis + "ms");
+    }
+
+    @Test
+    void testExhaustedBudgetStopsRetries() throws Exception {
+        var scheduler = new RetryScheduler(executor, requestExecutor, 3, 10, 1000, 0.5, 0, 0);
+        var attempts = new AtomicInteger();
+
+        var response = scheduler.execute(() -> {
+            attempts.incrementAndGet();
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        });
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.get(5, TimeUnit.SECONDS).getStatusCode());
+        assertEquals(1, attempts.get());
+    }
+
+    @Test
+    void testBudgetAllowsRetriesForShareOfRequests() throws Exception {
+        var scheduler = new RetryScheduler(executor, requestExecutor, 2, 1, 1, 0, 0.5, 0);
+        var attempts = new AtomicInteger();
+
+        // each request earns half a retry, so only every second failing request is retried
+        for (int i = 0; i < 4; i++) {
+            scheduler.execute(() -> {
+                attempts.incrementAndGet();
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+            }).get(5, TimeUnit.SECONDS);
+        }
+
+        assertEquals(6, attempts.get());
+    }
+
+    @Test
+    void testRequestExceptionCompletesExceptionally() {
+        var scheduler = new RetryScheduler(executor, requestExecutor, 3, 10, 1000, 0.5, 0.2, 10);
+
+        var response = scheduler.execute(() -> {
+            throw new IllegalStateException("connection refused");
+        });
+
+        var exception = assertThrows(CompletionException.class, response::join);
+        assertInstanceOf(IllegalStateException.class, exception.getCause());
+    }
+
+    @Test
+    void testAsyncRequestIsRetriedOnceCompleted() throws Exception {
+        var scheduler = new RetryScheduler(executor, requestExecutor, 3, 10, 1000, 0.5, 0.2, 10);
+        var attempts = new AtomicInteger();
+
+        var response = scheduler.executeAsync(() -> CompletableFuture.<ResponseEntity<String>>supplyAsync(
+                () -> attempts.incrementAndGet() < 2
+                        ? ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build()
+                        : ResponseEntity.ok("done"),
+                CompletableFuture.delayedExecutor(20, TimeUnit.MILLISECONDS)));
+
+        assertEquals("done", response.get(5, TimeUnit.SECONDS).getBody());
+        assertEquals(2, attempts.get());
+    }
+}
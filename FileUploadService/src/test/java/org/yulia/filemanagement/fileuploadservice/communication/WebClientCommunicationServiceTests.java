@@ -0,0 +1,156 @@
+package org.yulia.filemanagement.fileuploadservice.communication;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WebClientCommunicationServiceTests {
+
+    private HttpServer server;
+    private WebClientCommunicationService communicationService;
+
+    // the status and body the stub metadata service answers with, by path
+    private final Map<String, Integer> statuses = new ConcurrentHashMap<>();
+    private final Map<String, String> bodies = new ConcurrentHashMap<>();
+    private final Map<String, String> requests = new ConcurrentHashMap<>();
+    private final AtomicInteger requestCount = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/api/metadata", this::handle);
+        server.start();
+        communicationService = new WebClientCommunicationService(WebClient.builder(),
+                "http://localhost:" + server.getAddress().getPort() + "/api/metadata",
+                new MetadataServiceGuard(4, 4, 50, 60000, 1, 10, 10, 10));
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void testRegisterFileUrl_Successful() {
+        respond("/api/metadata/register", 201, "{\"message\":\"File registered successfully\"}");
+
+        var response = communicationService.registerFileUrl("http://minio/a.txt").block();
+
+        assertEquals(HttpStatus.CREATED, response.getStatusCode());
+        assertEquals("{\"message\":\"File registered successfully\"}", response.getBody());
+        assertEquals("{\"fileUrl\":\"http://minio/a.txt\"}", requests.get("POST /api/metadata/register"));
+    }
+
+    @Test
+    void testNothingIsSentBeforeSubscription() {
+        respond("/api/metadata/register", 201, "");
+
+        var response = communicationService.registerFileUrl("http://minio/a.txt");
+
+        assertEquals(0, requestCount.get());
+        assertEquals(HttpStatus.CREATED, response.block().getStatusCode());
+        assertEquals(1, requestCount.get());
+    }
+
+    @Test
+    void testServerErrorIsReportedAsInternalServerError() {
+        respond("/api/metadata/register", 503, "overloaded");
+
+        var response = communicationService.sendFileUrl("http://minio/a.txt");
+
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
+    }
+
+    @Test
+    void testUnreachableServiceIsReportedAsInternalServerError() {
+        server.stop(0);
+
+        var response = communicationService.sendFileUrl("http://minio/a.txt");
+
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
+    }
+
+    @Test
+    void testRegisterFileUrls_ResultPerFile() {
+        respond("/api/metadata/register/batch", 207, "{\"data\":[" +
+                "{\"fileUrl\":\"http://minio/a.txt\",\"status\":201,\"message\":\"ok\"}," +
+                "{\"fileUrl\":\"http://minio/b.txt\",\"status\":400,\"message\":\"invalid\"}]}");
+
+        Map<String, ResponseEntity<String>> responses =
+                communicationService.sendFileUrls(List.of("http://minio/a.txt", "http://minio/b.txt",
+                        "http://minio/c.txt"));
+
+        assertEquals(HttpStatus.CREATED, responses.get("http://minio/a.txt").getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, responses.get("http://minio/b.txt").getStatusCode());
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, responses.get("http://minio/c.txt").getStatusCode());
+    }
+
+    @Test
+    void testListFilesSendsQueryParameters() throws Exception {
+        respond("/api/metadata/files", 200, "{\"data\":[]}");
+
+        var response = communicationService.listFiles(Map.of("file_type", "pdf & doc")).toFuture()
+                .get(5, TimeUnit.SECONDS);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("file_type=pdf%20%26%20doc", requests.get("GET /api/metadata/files"));
+    }
+
+    @Test
+    void testDeleteFileEncodesFileName() {
+        respond("/api/metadata/delete", 200, "");
+
+        communicationService.deleteFile("report 1.txt").block();
+
+        assertEquals("fileName=report%201.txt", requests.get("DELETE /api/metadata/delete"));
+    }
+
+    @Test
+    void testOpenCircuitBreakerRejectsWithoutSending() {
+        respond("/api/metadata/register", 500, "");
+        for (int i = 0; i < 4; i++) {
+            communicationService.sendFileUrl("http://minio/a.txt");
+        }
+
+        var response = communicationService.sendFileUrl("http://minio/a.txt");
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        assertEquals(4, requestCount.get());
+    }
+
+    private void respond(String path, int status, String body) {
+        statuses.put(path, status);
+        bodies.put(path, body);
+    }
+
+    // records the request body, or the query for requests without a body, and answers with the configured response
+    private void handle(HttpExchange exchange) throws IOException {
+        requestCount.incrementAndGet();
+        var path = exchange.getRequestURI().getPath();
+        var body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+        requests.put(exchange.getRequestMethod() + " " + path,
+                body.isEmpty() ? String.valueOf(exchange.getRequestURI().getRawQuery()) : body);
+
+        var response = bodies.getOrDefault(path, "").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(statuses.getOrDefault(path, 404), response.length == 0 ? -1 : response.length);
+        exchange.getResponseBody().write(response);
+        exchange.close();
+    }
+}
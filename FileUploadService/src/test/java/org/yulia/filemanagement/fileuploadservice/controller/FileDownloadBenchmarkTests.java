@@ -0,0 +1,156 @@
+package org.yulia.filemanagement.fileuploadservice.controller;
+
+import io.minio.BucketExistsArgs;
+import io.minio.GetPresignedObjectUrlArgs;
+import io.minio.MakeBucketArgs;
+import io.minio.MinioClient;
+import io.minio.PutObjectArgs;
+import io.minio.http.Method;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+import org.yulia.filemanagement.fileuploadservice.communication.CommunicationService;
+
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Compares downloading a file through GET /api/files/{name}/content with downloading it from Minio through a
+// presigned URL, and measures how cheap a revalidation with If-None-Match is. Needs a Minio server, so it only runs
+// when MINIO_CONTRACT_URL is set. Run with ./gradlew :FileUploadService:benchmark
+@Tag("benchmark")
+@EnabledIfEnvironmentVariable(named = "MINIO_CONTRACT_URL", matches = ".+")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@TestPropertySource(locations = "classpath:application.properties",
+        properties = {"eureka.client.enabled=false", "minio.bucket-name=" + FileDownloadBenchmarkTests.BUCKET})
+public class FileDownloadBenchmarkTests {
+
+    static final String BUCKET = "download-benchmark";
+
+    private static final Logger logger = LoggerFactory.getLogger(FileDownloadBenchmarkTests.class);
+
+    private static final int RUNS = 15;
+
+    @DynamicPropertySource
+    static void minioProperties(DynamicPropertyRegistry registry) {
+        registry.add("minio.url", () -> System.getenv("MINIO_CONTRACT_URL"));
+        registry.add("minio.access-key",
+                () -> System.getenv().getOrDefault("MINIO_CONTRACT_ACCESS_KEY", "minioadmin"));
+        registry.add("minio.secret-key",
+                () -> System.getenv().getOrDefault("MINIO_CONTRACT_SECRET_KEY", "minioadmin"));
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @Value("${user.auth.username}")
+    private String username;
+
+    @Value("${user.auth.password}")
+    private String password;
+
+    @Autowired
+    private MinioClient minioClient;
+
+    @MockBean
+    private CommunicationService communicationService;
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    @Test
+    public void benchmarkDownloadThroughServiceAgainstPresignedUrl() throws Exception {
+        if (!minioClient.bucketExists(BucketExistsArgs.builder().bucket(BUCKET).build())) {
+            minioClient.makeBucket(MakeBucketArgs.builder().bucket(BUCKET).build());
+        }
+
+        logger.info(String.format("%-10s %-14s %-14s %-14s %-14s %-14s", "size (KB)", "presigned (ms)",
+                "presigned MB/s", "service (ms)", "service MB/s", "304 (ms)"));
+        for (int size : new int[]{64 * 1024, 1024 * 1024, 16 * 1024 * 1024}) {
+            var fileName = "benchmark-" + size + ".bin";
+            var content = new byte[size];
+            new Random(size).nextBytes(content);
+            minioClient.putObject(PutObjectArgs.builder()
+                    .bucket(BUCKET)
+                    .object(fileName)
+                    .stream(new ByteArrayInputStream(content), size, -1)
+                    .contentType("application/octet-stream")
+                    .build());
+
+            var presignedUrl = URI.create(minioClient.getPresignedObjectUrl(GetPresignedObjectUrlArgs.builder()
+                    .method(Method.GET)
+                    .bucket(BUCKET)
+                    .object(fileName)
+                    .build()));
+            var serviceUrl = URI.create("http://localhost:" + port + "/api/files/" + fileName + "/content");
+
+            // warm up both paths, and the stat cache of the service
+            var etag = download(serviceRequest(serviceUrl), size, 200).headers()
+                    .firstValue(HttpHeaders.ETAG).orElseThrow();
+            download(HttpRequest.newBuilder(presignedUrl), size, 200);
+
+            long presigned = median(() -> download(HttpRequest.newBuilder(presignedUrl), size, 200));
+            long service = median(() -> download(serviceRequest(serviceUrl), size, 200));
+            long notModified = median(() -> download(serviceRequest(serviceUrl)
+                    .header(HttpHeaders.IF_NONE_MATCH, etag), 0, 304));
+            logger.info(String.format("%-10d %-14.2f %-14.1f %-14.2f %-14.1f %-14.2f", size / 1024,
+                    presigned / 1e6, throughput(size, presigned), service / 1e6, throughput(size, service),
+                    notModified / 1e6));
+        }
+    }
+
+    // the service needs the user's credentials, while a presigned URL must not carry any
+    private HttpRequest.Builder serviceRequest(URI url) {
+        var credentials = Base64.getEncoder().encodeToString((username + ":" + password)
+                .getBytes(StandardCharsets.UTF_8));
+        return HttpRequest.newBuilder(url).header(HttpHeaders.AUTHORIZATION, "Basic " + credentials);
+    }
+
+    // performs one download and checks its status and the number of bytes received
+    private HttpResponse<byte[]> download(HttpRequest.Builder request, int expectedSize, int expectedStatus)
+            throws Exception {
+        var response = httpClient.send(request.GET().build(), HttpResponse.BodyHandlers.ofByteArray());
+        assertEquals(expectedStatus, response.statusCode());
+        assertEquals(expectedSize, response.body().length);
+        return response;
+    }
+
+    // runs a download RUNS times and returns the median duration in nanoseconds
+    private long median(Download download) throws Exception {
+        long[] timings = new long[RUNS];
+        for (int run = 0; run < RUNS; run++) {
+            long start = System.nanoTime();
+            download.run();
+            timings[run] = System.nanoTime() - start;
+        }
+        Arrays.sort(timings);
+        return timings[RUNS / 2];
+    }
+
+    private static double throughput(int size, long nanos) {
+        return size / (1024.0 * 1024.0) / (nanos / 1e9);
+    }
+
+    @FunctionalInterface
+    private interface Download {
+        void run() throws Exception;
+    }
+}
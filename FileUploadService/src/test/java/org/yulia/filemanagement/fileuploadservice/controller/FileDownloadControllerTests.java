@@ -0,0 +1,185 @@
+package org.yulia.filemanagement.fileuploadservice.controller;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.yulia.filemanagement.fileuploadservice.config.SecurityConfig;
+import org.yulia.filemanagement.fileuploadservice.exception.ObjectChangedException;
+import org.yulia.filemanagement.fileuploadservice.service.ObjectStatCache;
+import org.yulia.filemanagement.fileuploadservice.storage.ObjectStat;
+import org.yulia.filemanagement.fileuploadservice.storage.ObjectStorage;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+
+import static org.hamcrest.Matchers.startsWith;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(SpringExtension.class)
+@WebMvcTest(controllers = FileDownloadController.class)
+@TestPropertySource(locations = "classpath:application.properties")
+@Import({SecurityConfig.class, ObjectStatCache.class})
+public class FileDownloadControllerTests {
+
+    private static final byte[] CONTENT = "The quick brown fox jumps over the lazy dog".getBytes(StandardCharsets.UTF_8);
+    private static final String ETAG = "9e107d9d372bb6826bd81d3542a419d6";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private ObjectStorage objectStorage;
+
+    @Test
+    public void testDownloadOfWholeFile() throws Exception {
+        givenStoredFile("fox.txt");
+
+        mockMvc.perform(get("/api/files/fox.txt/content")
+                        .with(httpBasic("test_user", "test_password")))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + ETAG + "\""))
+                .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, CONTENT.length))
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, startsWith("text/plain")))
+                .andExpect(content().bytes(CONTENT));
+    }
+
+    @Test
+    public void testDownloadOfRange() throws Exception {
+        givenStoredFile("range.txt");
+
+        mockMvc.perform(get("/api/files/range.txt/content")
+                        .header(HttpHeaders.RANGE, "bytes=4-8")
+                        .with(httpBasic("test_user", "test_password")))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 4-8/" + CONTENT.length))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 5))
+                .andExpect(content().string("quick"));
+
+        verify(objectStorage).transferTo(eq("range.txt"), eq(ETAG), eq(4L), eq(5L), any());
+    }
+
+    @Test
+    public void testDownloadOfSuffixRange() throws Exception {
+        givenStoredFile("suffix.txt");
+
+        mockMvc.perform(get("/api/files/suffix.txt/content")
+                        .header(HttpHeaders.RANGE, "bytes=-3")
+                        .with(httpBasic("test_user", "test_password")))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE,
+                        "bytes " + (CONTENT.length - 3) + "-" + (CONTENT.length - 1) + "/" + CONTENT.length))
+                .andExpect(content().string("dog"));
+    }
+
+    @Test
+    public void testRangeOfOutdatedVersionIsIgnored() throws Exception {
+        givenStoredFile("if-range.txt");
+
+        mockMvc.perform(get("/api/files/if-range.txt/content")
+                        .header(HttpHeaders.RANGE, "bytes=4-8")
+                        .header(HttpHeaders.IF_RANGE, "\"outdated\"")
+                        .with(httpBasic("test_user", "test_password")))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(CONTENT));
+    }
+
+    @Test
+    public void testUnsatisfiableRangeIsRejected() throws Exception {
+        givenStoredFile("unsatisfiable.txt");
+
+        mockMvc.perform(get("/api/files/unsatisfiable.txt/content")
+                        .header(HttpHeaders.RANGE, "bytes=1000-")
+                        .with(httpBasic("test_user", "test_password")))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */" + CONTENT.length));
+
+        verify(objectStorage, never()).transferTo(anyString(), any(), anyLong(), anyLong(), any());
+    }
+
+    @Test
+    public void testMatchingETagIsAnsweredFromCache() throws Exception {
+        givenStoredFile("cached.txt");
+
+        for (int i = 0; i < 3; i++) {
+            mockMvc.perform(get("/api/files/cached.txt/content")
+                            .header(HttpHeaders.IF_NONE_MATCH, "\"" + ETAG + "\"")
+                            .with(httpBasic("test_user", "test_password")))
+                    .andExpect(status().isNotModified())
+                    .andExpect(header().string(HttpHeaders.ETAG, "\"" + ETAG + "\""));
+        }
+
+        verify(objectStorage, times(1)).statObject("cached.txt");
+        verify(objectStorage, never()).transferTo(anyString(), any(), anyLong(), anyLong(), any());
+    }
+
+    @Test
+    public void testFileReplacedDuringDownloadIsSentAsTheNewVersion() throws Exception {
+        var replacement = "A lazy dog".getBytes(StandardCharsets.UTF_8);
+        given(objectStorage.statObject("replaced.txt")).willReturn(
+                new ObjectStat("replaced.txt", CONTENT.length, "text/plain", ETAG, ZonedDateTime.now()),
+                new ObjectStat("replaced.txt", replacement.length, "text/plain", "replacement", ZonedDateTime.now()));
+        given(objectStorage.transferTo(eq("replaced.txt"), eq(ETAG), anyLong(), anyLong(), any()))
+                .willThrow(new ObjectChangedException("replaced.txt", ETAG));
+        doAnswer(invocation -> {
+            WritableByteChannel target = invocation.getArgument(4);
+            target.write(ByteBuffer.wrap(replacement));
+            return (long) replacement.length;
+        }).when(objectStorage).transferTo(eq("replaced.txt"), eq("replacement"), eq(0L), eq((long) replacement.length),
+                any());
+
+        mockMvc.perform(get("/api/files/replaced.txt/content")
+                        .with(httpBasic("test_user", "test_password")))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"replacement\""))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, replacement.length))
+                .andExpect(content().bytes(replacement));
+
+        verify(objectStorage, times(2)).statObject("replaced.txt");
+    }
+
+    @Test
+    public void testMissingFileIsNotFound() throws Exception {
+        given(objectStorage.statObject("missing.txt")).willThrow(new NoSuchFileException("missing.txt"));
+
+        mockMvc.perform(get("/api/files/missing.txt/content")
+                        .with(httpBasic("test_user", "test_password")))
+                .andExpect(status().isNotFound());
+    }
+
+    private void givenStoredFile(String fileName) throws Exception {
+        given(objectStorage.statObject(fileName)).willReturn(
+                new ObjectStat(fileName, CONTENT.length, "text/plain", ETAG, ZonedDateTime.now()));
+        doAnswer(invocation -> {
+            int offset = (int) invocation.getArgument(2, Long.class).longValue();
+            int length = (int) invocation.getArgument(3, Long.class).longValue();
+            WritableByteChannel target = invocation.getArgument(4);
+            target.write(ByteBuffer.wrap(Arrays.copyOfRange(CONTENT, offset, offset + length)));
+            return (long) length;
+        }).when(objectStorage).transferTo(eq(fileName), eq(ETAG), anyLong(), anyLong(), any());
+    }
+}
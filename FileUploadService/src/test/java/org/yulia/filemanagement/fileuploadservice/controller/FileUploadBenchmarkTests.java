@@ -0,0 +1,112 @@
+package org.yulia.filemanagement.fileuploadservice.controller;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMultipartHttpServletRequestBuilder;
+import org.yulia.filemanagement.fileuploadservice.communication.CommunicationService;
+import org.yulia.filemanagement.fileuploadservice.communication.RetryScheduler;
+import org.yulia.filemanagement.fileuploadservice.config.ExecutorConfig;
+import org.yulia.filemanagement.fileuploadservice.config.SecurityConfig;
+import org.yulia.filemanagement.fileuploadservice.dto.StoredObject;
+import org.yulia.filemanagement.fileuploadservice.service.FileUploadService;
+import org.yulia.filemanagement.fileuploadservice.service.MinioService;
+import org.yulia.filemanagement.fileuploadservice.service.ObjectStatCache;
+
+import java.util.Arrays;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Measures how the wall-clock time of one upload request scales with the number of files in it.
+// MinIO and the metadata service are replaced by mocks with a fixed latency, so the numbers show the effect of the
+// per-file fan-out only. Run with ./gradlew :FileUploadService:benchmark
+@Tag("benchmark")
+@WebMvcTest(controllers = FileUploadController.class)
+@TestPropertySource(locations = "classpath:application.properties",
+        properties = {"file.max.upload.count=10", "file.upload.parallelism=4"})
+@Import({SecurityConfig.class, ExecutorConfig.class, RetryScheduler.class, ObjectStatCache.class})
+public class FileUploadBenchmarkTests {
+
+    private static final Logger logger = LoggerFactory.getLogger(FileUploadBenchmarkTests.class);
+
+    private static final long MINIO_LATENCY_MS = 40;
+    private static final long METADATA_LATENCY_MS = 20;
+    private static final int RUNS = 5;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @SpyBean
+    private FileUploadService fileUploadService;
+
+    @MockBean
+    private MinioService minioService;
+
+    @MockBean
+    private CommunicationService communicationService;
+
+    @Test
+    public void benchmarkWallClockTimeByFileCount() throws Exception {
+        given(minioService.uploadObject(anyString(), any(), anyLong(), anyString())).willAnswer(invocation -> {
+            Thread.sleep(MINIO_LATENCY_MS);
+            return new StoredObject("https://minio.example.com/" + invocation.getArgument(0));
+        });
+        given(communicationService.sendFileUrl(anyString())).willAnswer(invocation -> {
+            Thread.sleep(METADATA_LATENCY_MS);
+            return ResponseEntity.status(HttpStatus.CREATED).body("{\"message\":\"File registered successfully\"}");
+        });
+
+        // warm up the MVC and security filter chain
+        upload(2);
+
+        logger.info(String.format("%-6s %-16s %-16s %-8s", "files", "sequential (ms)", "median (ms)", "speedup"));
+        for (int fileCount : new int[]{1, 2, 4, 8, 10}) {
+            long[] timings = new long[RUNS];
+            for (int run = 0; run < RUNS; run++) {
+                timings[run] = upload(fileCount);
+            }
+            Arrays.sort(timings);
+            long median = timings[RUNS / 2];
+            long sequential = fileCount * (MINIO_LATENCY_MS + METADATA_LATENCY_MS);
+            logger.info(String.format("%-6d %-16d %-16d %.2fx", fileCount, sequential, median,
+                    (double) sequential / Math.max(1, median)));
+        }
+    }
+
+    // performs one upload request with the given number of files and returns its duration in milliseconds
+    private long upload(int fileCount) throws Exception {
+        MockMultipartHttpServletRequestBuilder request = multipart("/api/files/upload");
+        for (int i = 0; i < fileCount; i++) {
+            request.file(new MockMultipartFile("file", "file" + i + ".txt", MediaType.TEXT_PLAIN_VALUE,
+                    ("content" + i).getBytes()));
+        }
+
+        long start = System.nanoTime();
+        var result = mockMvc.perform(request.with(httpBasic("test_user", "test_password")))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk());
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+}
@@ -11,11 +11,14 @@ import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
 import org.yulia.filemanagement.fileuploadservice.dto.UploadResult;
 import org.yulia.filemanagement.fileuploadservice.service.FileUploadService;
 
 import java.util.Optional;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
@@ -23,6 +26,7 @@ import java.util.concurrent.Future;
 import static org.hamcrest.Matchers.containsString;
 import static org.mockito.BDDMockito.given;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -53,9 +57,9 @@ public class FileUploadControllerTests {
                 Optional.of("File uploaded successfully")
         );
 
-        given(fileUploadService.uploadFile(file)).willReturn(mockResult);
+        given(fileUploadService.uploadFile(file)).willReturn(CompletableFuture.completedFuture(mockResult));
 
-        mockMvc.perform(multipart("/api/files/upload").file(file)
+        performAsync(multipart("/api/files/upload").file(file)
                         .with(httpBasic("test_user", "test_password")))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$[0].message").value("File uploaded successfully"));  // Adjust JSON path as
@@ -63,6 +67,30 @@ public class FileUploadControllerTests {
     }
 
 
+    @Test
+    public void testUploadWithPendingRegistrationIsAccepted() throws Exception {
+        MockMultipartFile file = new MockMultipartFile(
+                "file",
+                "test.txt",
+                MediaType.TEXT_PLAIN_VALUE,
+                "Hello World".getBytes());
+
+        UploadResult mockResult = new UploadResult(
+                true,
+                "File uploaded successfully, registration is in progress",
+                "File uploaded successfully, registration is in progress",
+                HttpStatus.ACCEPTED,
+                Optional.of("http://minio.example.com/test.txt")
+        );
+
+        given(fileUploadService.uploadFile(file)).willReturn(CompletableFuture.completedFuture(mockResult));
+
+        performAsync(multipart("/api/files/upload").file(file)
+                        .with(httpBasic("test_user", "test_password")))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$[0].status").value(202));
+    }
+
     @Test
     public void testUploadResultIsNull() throws Exception {
         MockMultipartFile file = new MockMultipartFile(
@@ -71,9 +99,9 @@ public class FileUploadControllerTests {
                 MediaType.TEXT_PLAIN_VALUE,
                 "Hello World".getBytes());
 
-        given(fileUploadService.uploadFile(file)).willReturn(null);
+        given(fileUploadService.uploadFile(file)).willReturn(CompletableFuture.completedFuture(null));
 
-        mockMvc.perform(multipart("/api/files/upload").file(file)
+        performAsync(multipart("/api/files/upload").file(file)
                         .with(httpBasic("test_user", "test_password")))
                 .andExpect(status().isInternalServerError())
                 .andExpect(jsonPath("$[0].fileName").value("test.txt")) // Check file name in the response
@@ -98,9 +126,9 @@ public class FileUploadControllerTests {
                 Optional.empty()
         );
 
-        given(fileUploadService.uploadFile(file)).willReturn(mockResult);
+        given(fileUploadService.uploadFile(file)).willReturn(CompletableFuture.completedFuture(mockResult));
 
-        mockMvc.perform(multipart("/api/files/upload").file(file)
+        performAsync(multipart("/api/files/upload").file(file)
                         .with(httpBasic("test_user", "test_password")))
                 .andExpect(status().isInternalServerError())
                 .andExpect(jsonPath("$[0].fileName").value("test.txt")) // Check file name in the response
@@ -126,9 +154,9 @@ public class FileUploadControllerTests {
                 Optional.of("File upload successfully")
         );
 
-        given(fileUploadService.uploadFile(file)).willReturn(mockResult);
+        given(fileUploadService.uploadFile(file)).willReturn(CompletableFuture.completedFuture(mockResult));
 
-        mockMvc.perform(multipart("/api/files/upload").file(file)
+        performAsync(multipart("/api/files/upload").file(file)
                         .with(httpBasic("test_user", "test_password")))
                 .andExpect(status().isInternalServerError())
                 .andExpect(jsonPath("$[0].fileName").value("test.txt")) // Check file name in the response
@@ -153,9 +181,9 @@ public class FileUploadControllerTests {
                 Optional.empty()
         );
 
-        given(fileUploadService.uploadFile(file)).willReturn(mockResult);
+        given(fileUploadService.uploadFile(file)).willReturn(CompletableFuture.completedFuture(mockResult));
 
-        mockMvc.perform(multipart("/api/files/upload").file(file)
+        performAsync(multipart("/api/files/upload").file(file)
                         .with(httpBasic("test_user", "test_password")))
                 .andExpect(status().isBadRequest())
                 .andExpect(jsonPath("$[0].fileName").value("test.txt")) // Verifying file name in response
@@ -179,9 +207,9 @@ public class FileUploadControllerTests {
                 Optional.empty()
         );
 
-        given(fileUploadService.uploadFile(file)).willReturn(mockResult);
+        given(fileUploadService.uploadFile(file)).willReturn(CompletableFuture.completedFuture(mockResult));
 
-        mockMvc.perform(multipart("/api/files/upload").file(file)
+        performAsync(multipart("/api/files/upload").file(file)
                         .with(httpBasic("test_user", "test_password")))
                 .andExpect(status().isInternalServerError())
                 .andExpect(jsonPath("$[0].fileName").value("test.txt")) // Check file name in the response
@@ -206,9 +234,9 @@ public class FileUploadControllerTests {
                 Optional.empty()
         );
 
-        given(fileUploadService.uploadFile(file)).willReturn(mockResult);
+        given(fileUploadService.uploadFile(file)).willReturn(CompletableFuture.completedFuture(mockResult));
 
-        mockMvc.perform(multipart("/api/files/upload").file(file)
+        performAsync(multipart("/api/files/upload").file(file)
                         .with(httpBasic("test_user", "test_password")))
                 .andExpect(status().isInternalServerError())
                 .andExpect(jsonPath("$[0].fileName").value("test.txt")) // Check file name in the response
@@ -240,20 +268,20 @@ public class FileUploadControllerTests {
                 HttpStatus.OK, java.util.Optional.of("second.txt"));
 
         // Setup mocks
-        given(fileUploadService.uploadFile(firstFile)).willReturn(firstResult);
-        given(fileUploadService.uploadFile(secondFile)).willReturn(secondResult);
+        given(fileUploadService.uploadFile(firstFile)).willReturn(CompletableFuture.completedFuture(firstResult));
+        given(fileUploadService.uploadFile(secondFile)).willReturn(CompletableFuture.completedFuture(secondResult));
 
         // Executor for parallel execution
         try (ExecutorService executor = Executors.newFixedThreadPool(2)) {
 
             // Callable tasks for each file upload
-            Callable<MvcResult> uploadFirstFile = () -> mockMvc.perform(multipart("/api/files/upload")
+            Callable<MvcResult> uploadFirstFile = () -> performAsync(multipart("/api/files/upload")
                             .file(firstFile)
                             .with(httpBasic("test_user", "test_password")))
                     .andExpect(status().isOk())
                     .andReturn();
 
-            Callable<MvcResult> uploadSecondFile = () -> mockMvc.perform(multipart("/api/files/upload")
+            Callable<MvcResult> uploadSecondFile = () -> performAsync(multipart("/api/files/upload")
                             .file(secondFile)
                             .with(httpBasic("test_user", "test_password")))
                     .andExpect(status().isOk())
@@ -279,7 +307,7 @@ public class FileUploadControllerTests {
     public void testUploadFiles_EmptyFile_ReturnsBadRequest() throws Exception {
         MockMultipartFile emptyFile = new MockMultipartFile("file", "empty.txt", "text/plain", new byte[0]);
 
-        mockMvc.perform(multipart("/api/files/upload")
+        performAsync(multipart("/api/files/upload")
                         .file(emptyFile)
                         .contentType(MediaType.MULTIPART_FORM_DATA)
                         .with(httpBasic("test_user", "test_password")))
@@ -307,7 +335,7 @@ public class FileUploadControllerTests {
         MockMultipartFile file3 = new MockMultipartFile("file", "file3.txt", "text/plain", "content3".getBytes());
         MockMultipartFile file4 = new MockMultipartFile("file", "file4.txt", "text/plain", "content4".getBytes());
 
-        mockMvc.perform(multipart("/api/files/upload")
+        performAsync(multipart("/api/files/upload")
                         .file(file1)
                         .file(file2)
                         .file(file3)
@@ -318,7 +346,9 @@ public class FileUploadControllerTests {
                 .andExpect(content().string(containsString("Please limit file upload quantity to 3 files.")));
     }
 
-
-
+    // the upload endpoints answer with a future, whose result MockMvc only writes to the response on an async dispatch
+    private ResultActions performAsync(RequestBuilder requestBuilder) throws Exception {
+        var result = mockMvc.perform(requestBuilder).andExpect(request().asyncStarted()).andReturn();
+        return mockMvc.perform(asyncDispatch(result));
+    }
 }
-
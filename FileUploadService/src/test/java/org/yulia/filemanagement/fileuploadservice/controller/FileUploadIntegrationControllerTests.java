@@ -16,10 +16,19 @@ import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
 import org.yulia.filemanagement.fileuploadservice.communication.CommunicationService;
+import org.yulia.filemanagement.fileuploadservice.communication.RetryScheduler;
+import org.yulia.filemanagement.fileuploadservice.config.AppConfig;
+import org.yulia.filemanagement.fileuploadservice.config.ExecutorConfig;
 import org.yulia.filemanagement.fileuploadservice.config.SecurityConfig;
+import org.yulia.filemanagement.fileuploadservice.dto.StoredObject;
 import org.yulia.filemanagement.fileuploadservice.service.FileUploadService;
+import org.yulia.filemanagement.fileuploadservice.service.MinioMultipartClient;
 import org.yulia.filemanagement.fileuploadservice.service.MinioService;
+import org.yulia.filemanagement.fileuploadservice.service.ObjectStatCache;
+import org.yulia.filemanagement.fileuploadservice.service.UploadSessionService;
 
 import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.mockito.ArgumentMatchers.any;
@@ -28,21 +37,36 @@ import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.*;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import org.junit.jupiter.params.provider.Arguments;
+import com.jayway.jsonpath.JsonPath;
+import io.minio.messages.Part;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Stream;
 
 // this test set is for testing cases of multiple file uploads. Checking how statuses are handled between
 // FileUploadController and FileUploadService in case of different failures
 @ExtendWith(SpringExtension.class)
-@WebMvcTest(controllers = FileUploadController.class)
+@WebMvcTest(controllers = {FileUploadController.class, UploadSessionController.class})
 @TestPropertySource(locations = "classpath:application.properties")
-@Import(SecurityConfig.class)
+@Import({SecurityConfig.class, ExecutorConfig.class, AppConfig.class, UploadSessionService.class,
+        RetryScheduler.class, ObjectStatCache.class})
 public class FileUploadIntegrationControllerTests {
 
     @Autowired
@@ -57,13 +81,16 @@ public class FileUploadIntegrationControllerTests {
     @MockBean
     private CommunicationService communicationService;
 
+    @MockBean
+    private MinioMultipartClient multipartClient;
+
     @Test
     public void testSuccessfulUploadOfThreeFiles() throws Exception {
         // Mock successful interactions with MinioService
         given(minioService.uploadObject(anyString(), any(), anyLong(), anyString()))
-                .willReturn("https://minio.example.com/file1")
-                .willReturn("https://minio.example.com/file2")
-                .willReturn("https://minio.example.com/file3");
+                .willReturn(new StoredObject("https://minio.example.com/file1"))
+                .willReturn(new StoredObject("https://minio.example.com/file2"))
+                .willReturn(new StoredObject("https://minio.example.com/file3"));
 
         // Mock successful metadata service response
         given(communicationService.sendFileUrl(anyString()))
@@ -87,7 +114,7 @@ public class FileUploadIntegrationControllerTests {
                 "content3".getBytes());
 
         // Perform the upload test
-        mockMvc.perform(multipart("/api/files/upload")
+        performAsync(multipart("/api/files/upload")
                         .file(file1).file(file2).file(file3)
                         .with(httpBasic("test_user", "test_password")))
                 .andExpect(status().isOk())
@@ -126,7 +153,7 @@ public class FileUploadIntegrationControllerTests {
         given(minioService.uploadObject(anyString(), any(), anyLong(), anyString()))
                 .willThrow(new RuntimeException("Upload failed"));
 
-        mockMvc.perform(multipart("/api/files/upload")
+        performAsync(multipart("/api/files/upload")
                         .file(file1).file(file2).file(file3)
                         .with(httpBasic("test_user", "test_password")))
                 .andExpect(status().isInternalServerError())  // Проверяем, что статус 500
@@ -151,9 +178,9 @@ public class FileUploadIntegrationControllerTests {
     public void testUploadThreeFilesAllCommunicationErrors(int receivedStatus, int expectedStatus) throws Exception {
         // Mock successful interactions with MinioService
         given(minioService.uploadObject(anyString(), any(), anyLong(), anyString()))
-                .willReturn("https://minio.example.com/file1")
-                .willReturn("https://minio.example.com/file2")
-                .willReturn("https://minio.example.com/file3");
+                .willReturn(new StoredObject("https://minio.example.com/file1"))
+                .willReturn(new StoredObject("https://minio.example.com/file2"))
+                .willReturn(new StoredObject("https://minio.example.com/file3"));
 
         // Mock failed metadata service response with received status
         given(communicationService.sendFileUrl(anyString()))
@@ -165,7 +192,7 @@ public class FileUploadIntegrationControllerTests {
         MockMultipartFile file3 = new MockMultipartFile("file", "file3.txt", MediaType.TEXT_PLAIN_VALUE, "content3".getBytes());
 
         // Perform the upload test
-        mockMvc.perform(multipart("/api/files/upload")
+        performAsync(multipart("/api/files/upload")
                         .file(file1).file(file2).file(file3)
                         .with(httpBasic("test_user", "test_password")))
                 .andExpect(status().is(expectedStatus)) // Checking for the expected general response status
@@ -191,11 +218,13 @@ public class FileUploadIntegrationControllerTests {
         MockMultipartFile failFile4xx = new MockMultipartFile("file", "fail4xx.txt", MediaType.TEXT_PLAIN_VALUE, "fail content 4xx".getBytes());
         MockMultipartFile failFile5xx = new MockMultipartFile("file", "fail5xx.txt", MediaType.TEXT_PLAIN_VALUE, "fail content 5xx".getBytes());
 
-        // Mock successful Minio uploads
-        given(minioService.uploadObject(anyString(), any(), anyLong(), anyString()))
-                .willReturn("http://minio.com/success.txt")
-                .willReturn("http://minio.com/fail4xx.txt")
-                .willReturn("http://minio.com/fail5xx.txt");
+        // Mock successful Minio uploads, keyed by file name since the files are processed concurrently
+        given(minioService.uploadObject(eq("success.txt"), any(), anyLong(), anyString()))
+                .willReturn(new StoredObject("http://minio.com/success.txt"));
+        given(minioService.uploadObject(eq("fail4xx.txt"), any(), anyLong(), anyString()))
+                .willReturn(new StoredObject("http://minio.com/fail4xx.txt"));
+        given(minioService.uploadObject(eq("fail5xx.txt"), any(), anyLong(), anyString()))
+                .willReturn(new StoredObject("http://minio.com/fail5xx.txt"));
 
         // Mock CommunicationService interactions
         given(communicationService.sendFileUrl("http://minio.com/success.txt")).willReturn(ResponseEntity.ok("Uploaded"));
@@ -203,7 +232,7 @@ public class FileUploadIntegrationControllerTests {
         given(communicationService.sendFileUrl("http://minio.com/fail5xx.txt")).willReturn(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("{\"error\":\"Server error\"}"));
 
         // Perform the upload test
-        mockMvc.perform(multipart("/api/files/upload")
+        performAsync(multipart("/api/files/upload")
                         .file(successFile).file(failFile4xx).file(failFile5xx)
                         .with(httpBasic("test_user", "test_password"))
                         .contentType(MediaType.MULTIPART_FORM_DATA))
@@ -233,14 +262,14 @@ public class FileUploadIntegrationControllerTests {
         MockMultipartFile failedFile = new MockMultipartFile("file", "fail.txt", MediaType.TEXT_PLAIN_VALUE, "failing content".getBytes());
 
         // Minio upload interactions
-        given(minioService.uploadObject(eq("success.txt"), any(), anyLong(), anyString())).willReturn("http://minio.com/success.txt");
+        given(minioService.uploadObject(eq("success.txt"), any(), anyLong(), anyString())).willReturn(new StoredObject("http://minio.com/success.txt"));
         given(minioService.uploadObject(eq("fail.txt"), any(), anyLong(), anyString())).willThrow(new IOException("Upload failed"));
 
         // Communication Service interaction
         given(communicationService.sendFileUrl("http://minio.com/success.txt")).willReturn(ResponseEntity.ok("Uploaded successfully"));
 
         // Execute the multipart upload test
-        mockMvc.perform(multipart("/api/files/upload").file(successFile).file(failedFile)
+        performAsync(multipart("/api/files/upload").file(successFile).file(failedFile)
                         .contentType(MediaType.MULTIPART_FORM_DATA)
                         .with(httpBasic("test_user", "test_password")))
                 .andExpect(status().isMultiStatus())
@@ -254,4 +283,179 @@ public class FileUploadIntegrationControllerTests {
         verify(communicationService, times(1)).sendFileUrl("http://minio.com/success.txt");
         verify(communicationService, never()).sendDeleteMessage(anyString());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testUploadThreeFilesProcessedConcurrently() throws Exception {
+        // Every upload waits until all three are in flight, which only succeeds if the files are processed in parallel
+        CyclicBarrier barrier = new CyclicBarrier(3);
+        given(minioService.uploadObject(anyString(), any(), anyLong(), anyString())).willAnswer(invocation -> {
+            barrier.await(5, TimeUnit.SECONDS);
+            return new StoredObject("https://minio.example.com/" + invocation.getArgument(0));
+        });
+        given(communicationService.sendFileUrl(anyString()))
+                .willReturn(ResponseEntity.status(HttpStatus.CREATED).body("{\"message\":\"File registered successfully\"}"));
+
+        MockMultipartFile file1 = new MockMultipartFile("file", "file1.txt", MediaType.TEXT_PLAIN_VALUE, "content1".getBytes());
+        MockMultipartFile file2 = new MockMultipartFile("file", "file2.txt", MediaType.TEXT_PLAIN_VALUE, "content2".getBytes());
+        MockMultipartFile file3 = new MockMultipartFile("file", "file3.txt", MediaType.TEXT_PLAIN_VALUE, "content3".getBytes());
+
+        performAsync(multipart("/api/files/upload")
+                        .file(file1).file(file2).file(file3)
+                        .with(httpBasic("test_user", "test_password")))
+                .andExpect(status().isOk())
+                // results keep the order in which the files were sent
+                .andExpect(jsonPath("$[0].fileName").value("file1.txt"))
+                .andExpect(jsonPath("$[1].fileName").value("file2.txt"))
+                .andExpect(jsonPath("$[2].fileName").value("file3.txt"));
+
+        verify(communicationService).sendFileUrl("https://minio.example.com/file1.txt");
+        verify(communicationService).sendFileUrl("https://minio.example.com/file2.txt");
+        verify(communicationService).sendFileUrl("https://minio.example.com/file3.txt");
+    }
+
+    @Test
+    public void testStreamingUploadOfTwoFiles() throws Exception {
+        given(minioService.uploadObject(anyString(), any(), anyLong(), anyString())).willAnswer(invocation -> {
+            invocation.getArgument(1, InputStream.class).readAllBytes();
+            return new StoredObject("https://minio.example.com/" + invocation.getArgument(0));
+        });
+        given(communicationService.sendFileUrl(anyString()))
+                .willReturn(ResponseEntity.status(HttpStatus.CREATED).body("{\"message\":\"File registered successfully\"}"));
+
+        byte[] body = multipartBody(
+                new String[]{"file1.txt", "content1"},
+                new String[]{"file2.txt", "content2"});
+
+        performAsync(post("/api/files/upload/stream")
+                        .contentType("multipart/form-data; boundary=" + BOUNDARY)
+                        .content(body)
+                        .with(httpBasic("test_user", "test_password")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].fileName").value("file1.txt"))
+                .andExpect(jsonPath("$[0].message").value("File uploaded successfully"))
+                .andExpect(jsonPath("$[1].fileName").value("file2.txt"))
+                .andExpect(jsonPath("$[1].status").value(200));
+
+        // the size is unknown while streaming, so the object is uploaded with size -1
+        verify(minioService).uploadObject(eq("file1.txt"), any(), eq(-1L), eq(MediaType.TEXT_PLAIN_VALUE));
+        verify(minioService).uploadObject(eq("file2.txt"), any(), eq(-1L), eq(MediaType.TEXT_PLAIN_VALUE));
+        verify(communicationService).sendFileUrl("https://minio.example.com/file1.txt");
+        verify(communicationService).sendFileUrl("https://minio.example.com/file2.txt");
+    }
+
+    @Test
+    public void testStreamingUploadTooLargeAndEmptyFiles() throws Exception {
+        given(minioService.uploadObject(anyString(), any(), anyLong(), anyString())).willAnswer(invocation -> {
+            invocation.getArgument(1, InputStream.class).readAllBytes();
+            return new StoredObject("https://minio.example.com/" + invocation.getArgument(0));
+        });
+
+        // the test limit is 1024 bytes
+        byte[] body = multipartBody(
+                new String[]{"too-large.txt", "x".repeat(2048)},
+                new String[]{"empty.txt", ""});
+
+        performAsync(post("/api/files/upload/stream")
+                        .contentType("multipart/form-data; boundary=" + BOUNDARY)
+                        .content(body)
+                        .with(httpBasic("test_user", "test_password")))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$[0].status").value(413))
+                .andExpect(jsonPath("$[0].message").value("File size exceeds the maximum limit."))
+                .andExpect(jsonPath("$[1].status").value(400))
+                .andExpect(jsonPath("$[1].message").value("The file is empty. Please select a non-empty file to upload."));
+
+        verify(minioService, never()).uploadObject(eq("empty.txt"), any(), anyLong(), anyString());
+        verify(communicationService, never()).sendFileUrl(anyString());
+    }
+
+    @Test
+    public void testResumableUploadIsResumedAtCommittedOffset() throws Exception {
+        given(multipartClient.createMultipartUpload(anyString(), eq("resumable.txt"), eq(MediaType.TEXT_PLAIN_VALUE)))
+                .willReturn("upload-1");
+        given(multipartClient.uploadPart(anyString(), eq("resumable.txt"), eq("upload-1"), eq(1), any(), eq(7L)))
+                .willReturn(new Part(1, "etag-1"));
+        given(minioService.getPresignedUrl("resumable.txt")).willReturn("https://minio.example.com/resumable.txt");
+        given(communicationService.sendFileUrl(anyString()))
+                .willReturn(ResponseEntity.status(HttpStatus.CREATED).body("{\"message\":\"File registered successfully\"}"));
+
+        String response = mockMvc.perform(post("/api/files/upload/sessions")
+                        .param("file_name", "resumable.txt")
+                        .param("size", "7")
+                        .param("content_type", MediaType.TEXT_PLAIN_VALUE)
+                        .with(httpBasic("test_user", "test_password")))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.offset").value(0))
+                .andReturn().getResponse().getContentAsString();
+        String sessionPath = "/api/files/upload/sessions/" + JsonPath.read(response, "$.sessionId");
+
+        // a chunk sent at the wrong offset is rejected with the committed offset, so the client can resume there
+        mockMvc.perform(put(sessionPath).param("offset", "3").content("content")
+                        .with(httpBasic("test_user", "test_password")))
+                .andExpect(status().isConflict())
+                .andExpect(header().string("Upload-Offset", "0"));
+
+        mockMvc.perform(put(sessionPath).param("offset", "0").content("content")
+                        .with(httpBasic("test_user", "test_password")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.offset").value(7));
+
+        mockMvc.perform(get(sessionPath).with(httpBasic("test_user", "test_password")))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Upload-Offset", "7"));
+
+        performAsync(post(sessionPath + "/complete").with(httpBasic("test_user", "test_password")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].fileName").value("resumable.txt"))
+                .andExpect(jsonPath("$[0].message").value("File uploaded successfully"));
+
+        verify(multipartClient).completeMultipartUpload(anyString(), eq("resumable.txt"), eq("upload-1"), any());
+        verify(communicationService).sendFileUrl("https://minio.example.com/resumable.txt");
+
+        // the completed session is gone
+        mockMvc.perform(get(sessionPath).with(httpBasic("test_user", "test_password")))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void testAbortResumableUpload() throws Exception {
+        given(multipartClient.createMultipartUpload(anyString(), anyString(), anyString())).willReturn("upload-2");
+
+        String response = mockMvc.perform(post("/api/files/upload/sessions")
+                        .param("file_name", "aborted.txt")
+                        .param("size", "100")
+                        .with(httpBasic("test_user", "test_password")))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        String sessionPath = "/api/files/upload/sessions/" + JsonPath.read(response, "$.sessionId");
+
+        mockMvc.perform(post(sessionPath + "/complete").with(httpBasic("test_user", "test_password")))
+                .andExpect(status().isConflict());
+        mockMvc.perform(delete(sessionPath).with(httpBasic("test_user", "test_password")))
+                .andExpect(status().isNoContent());
+
+        verify(multipartClient).abortMultipartUpload(anyString(), eq("aborted.txt"), eq("upload-2"));
+        verify(communicationService, never()).sendFileUrl(anyString());
+    }
+
+    // the upload endpoints answer with a future, whose result MockMvc only writes to the response on an async dispatch
+    private ResultActions performAsync(RequestBuilder requestBuilder) throws Exception {
+        var result = mockMvc.perform(requestBuilder).andExpect(request().asyncStarted()).andReturn();
+        return mockMvc.perform(asyncDispatch(result));
+    }
+
+    private static final String BOUNDARY = "streaming-test-boundary";
+
+    // builds a raw multipart/form-data body from (file name, content) pairs sent as 'file' parts
+    private static byte[] multipartBody(String[]... files) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        for (String[] file : files) {
+            body.write(("--" + BOUNDARY + "\r\n" +
+                    "Content-Disposition: form-data; name=\"file\"; filename=\"" + file[0] + "\"\r\n" +
+                    "Content-Type: " + MediaType.TEXT_PLAIN_VALUE + "\r\n\r\n" +
+                    file[1] + "\r\n").getBytes(StandardCharsets.UTF_8));
+        }
+        body.write(("--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.UTF_8));
+        return body.toByteArray();
+    }
+}
@@ -0,0 +1,87 @@
+package org.yulia.filemanagement.fileuploadservice.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.yulia.filemanagement.fileuploadservice.communication.CommunicationService;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ContentDeduplicatorTests {
+
+    // SHA-256 of "content"
+    private static final String CONTENT_HASH = "ed7002b439e9ac845f22357d822bac1444730fbdb6016d3ec9432297b9ec9f73";
+
+    @Mock
+    private MinioService minioService;
+    @Mock
+    private CommunicationService communicationService;
+
+    private ContentDeduplicator contentDeduplicator;
+
+    @BeforeEach
+    void setup() {
+        contentDeduplicator = new ContentDeduplicator(minioService, communicationService);
+    }
+
+    @Test
+    void testSameFileIsNotUploadedAgain() throws IOException {
+        givenStoredFiles("{\"data\":[{\"fileName\":\"file.txt\"}]}");
+        when(minioService.getPresignedUrl("file.txt")).thenReturn("http://minio/file.txt");
+
+        assertEquals(Optional.of("http://minio/file.txt"), store("file.txt"));
+        verify(minioService, never()).copyObject(anyString(), anyString());
+    }
+
+    @Test
+    void testSameContentUnderOtherNameIsCopied() throws IOException {
+        givenStoredFiles("{\"data\":[{\"fileName\":\"original.txt\"}]}");
+        when(minioService.copyObject("original.txt", "copy.txt")).thenReturn("http://minio/copy.txt");
+
+        assertEquals(Optional.of("http://minio/copy.txt"), store("copy.txt"));
+    }
+
+    @Test
+    void testNewContentHasToBeUploaded() throws IOException {
+        givenStoredFiles("{\"data\":[]}");
+
+        assertEquals(Optional.empty(), store("file.txt"));
+        verifyNoInteractions(minioService);
+    }
+
+    @Test
+    void testFailedCopyFallsBackToUpload() throws IOException {
+        givenStoredFiles("{\"data\":[{\"fileName\":\"deleted.txt\"}]}");
+        when(minioService.copyObject("deleted.txt", "file.txt")).thenThrow(new IOException("Object does not exist"));
+
+        assertEquals(Optional.empty(), store("file.txt"));
+    }
+
+    @Test
+    void testUnavailableMetadataServiceFallsBackToUpload() throws IOException {
+        when(communicationService.getFiles(Map.of("content_hash", CONTENT_HASH)))
+                .thenReturn(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("{\"error\":\"down\"}"));
+
+        assertEquals(Optional.empty(), store("file.txt"));
+        verifyNoInteractions(minioService);
+    }
+
+    private void givenStoredFiles(String body) {
+        when(communicationService.getFiles(Map.of("content_hash", CONTENT_HASH))).thenReturn(ResponseEntity.ok(body));
+    }
+
+    private Optional<String> store(String fileName) throws IOException {
+        return contentDeduplicator.storeDuplicate(fileName, new ByteArrayInputStream("content".getBytes()));
+    }
+}
@@ -1,5 +1,6 @@
 package org.yulia.filemanagement.fileuploadservice.service;
 
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -20,15 +21,24 @@ import org.springframework.web.client.RestTemplate;
 import org.springframework.web.multipart.MultipartFile;
 import org.yulia.filemanagement.fileuploadservice.communication.CommunicationService;
 import org.yulia.filemanagement.fileuploadservice.communication.HTTPCommunicationService;
+import org.yulia.filemanagement.fileuploadservice.communication.MetadataServiceGuard;
+import org.yulia.filemanagement.fileuploadservice.communication.ReactiveCommunicationService;
+import org.yulia.filemanagement.fileuploadservice.communication.RegistrationBatcher;
+import org.yulia.filemanagement.fileuploadservice.communication.RegistrationOutbox;
+import org.yulia.filemanagement.fileuploadservice.communication.RetryScheduler;
+import org.yulia.filemanagement.fileuploadservice.dto.StoredObject;
 import org.yulia.filemanagement.fileuploadservice.dto.UploadResult;
+import reactor.core.publisher.Mono;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -42,20 +52,43 @@ class FileUploadServiceTests {
     private MinioService minioService;
     @Mock
     private CommunicationService communicationService;
+    @Mock
+    private RegistrationOutbox registrationOutbox;
+    @Mock
+    private RegistrationBatcher registrationBatcher;
+    @Mock
+    private ReactiveCommunicationService reactiveCommunicationService;
+    @Mock
+    private ContentDeduplicator contentDeduplicator;
+    @Mock
+    private ObjectStatCache objectStatCache;
 
     private FileUploadService fileUploadService;
 
     private AutoCloseable closeable;
 
+    private ScheduledExecutorService retryExecutor;
+    private RetryScheduler retryScheduler;
+    private final MetadataServiceGuard metadataServiceGuard = new MetadataServiceGuard(20, 10, 50, 10000, 3, 20, 10, 5);
+
     @BeforeEach
     void setup() throws IOException {
-        fileUploadService = new FileUploadService(minioService, 1024L, communicationService, 3, 100L);
+        retryExecutor = Executors.newSingleThreadScheduledExecutor();
+        retryScheduler = new RetryScheduler(retryExecutor, Runnable::run, 3, 100L, 30000L, 0.5, 0.2, 10);
+        fileUploadService = new FileUploadService(minioService, 1024L, communicationService,
+                Optional.empty(), retryScheduler, Optional.empty(), Optional.empty(),
+                Optional.empty(), objectStatCache, Runnable::run);
         lenient().when(minioService.uploadObject(anyString(), any(), anyLong(), anyString()))
-                .thenReturn("http://mockurl.com/filename.txt");
+                .thenReturn(new StoredObject("http://mockurl.com/filename.txt"));
         lenient().when(communicationService.sendFileUrl(anyString()))
                 .thenReturn(ResponseEntity.ok("URL Sent Successfully"));
     }
 
+    @AfterEach
+    void tearDown() {
+        retryExecutor.shutdownNow();
+    }
+
     @ParameterizedTest
     @ValueSource(ints = {0, 500, 1024})
         // checking valid sizes
@@ -63,7 +96,7 @@ class FileUploadServiceTests {
         InputStream mockInputStream = new ByteArrayInputStream(new byte[fileSize]);
         MockMultipartFile file = new MockMultipartFile("file", "filename.txt", "text/plain",
                 mockInputStream.readAllBytes());
-        UploadResult result = fileUploadService.uploadFile(file);
+        UploadResult result = fileUploadService.uploadFile(file).join();
 
         // Assert success and correct URL
         assertNotNull(result);
@@ -74,9 +107,104 @@ class FileUploadServiceTests {
         verify(communicationService, times(1)).sendFileUrl("http://mockurl.com/filename.txt");
     }
 
+    @Test
+    void testUploadFile_AsyncRegistrationIsAccepted() throws Exception {
+        fileUploadService = new FileUploadService(minioService, 1024L, communicationService,
+                Optional.empty(), retryScheduler, Optional.of(registrationOutbox), Optional.empty(),
+                Optional.empty(), objectStatCache, Runnable::run);
+        MockMultipartFile file = new MockMultipartFile("file", "filename.txt", "text/plain", "content".getBytes());
+
+        UploadResult result = fileUploadService.uploadFile(file).join();
+
+        assertTrue(result.success());
+        assertEquals(HttpStatus.ACCEPTED, result.status());
+        assertEquals("http://mockurl.com/filename.txt", result.fileUrl().orElseThrow());
+        verify(registrationOutbox).append("filename.txt", "http://mockurl.com/filename.txt");
+        verify(communicationService, never()).sendFileUrl(anyString());
+    }
+
+    @Test
+    void testUploadFile_AsyncRegistrationFailureDeletesFile() throws Exception {
+        fileUploadService = new FileUploadService(minioService, 1024L, communicationService,
+                Optional.empty(), retryScheduler, Optional.of(registrationOutbox), Optional.empty(),
+                Optional.empty(), objectStatCache, Runnable::run);
+        when(registrationOutbox.append(anyString(), anyString())).thenThrow(new IOException("Disk full"));
+        MockMultipartFile file = new MockMultipartFile("file", "filename.txt", "text/plain", "content".getBytes());
+
+        UploadResult result = fileUploadService.uploadFile(file).join();
+
+        assertFalse(result.success());
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, result.status());
+        verify(minioService).deleteObject("filename.txt");
+        verify(communicationService, never()).sendFileUrl(anyString());
+    }
+
+    @Test
+    void testUploadFile_BatchedRegistration() throws Exception {
+        fileUploadService = new FileUploadService(minioService, 1024L, communicationService,
+                Optional.empty(), retryScheduler, Optional.empty(), Optional.of(registrationBatcher),
+                Optional.empty(), objectStatCache, Runnable::run);
+        when(registrationBatcher.register("http://mockurl.com/filename.txt"))
+                .thenReturn(CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.CREATED).build()));
+        MockMultipartFile file = new MockMultipartFile("file", "filename.txt", "text/plain", "content".getBytes());
+
+        UploadResult result = fileUploadService.uploadFile(file).join();
+
+        assertTrue(result.success());
+        assertEquals(HttpStatus.OK, result.status());
+        verify(communicationService, never()).sendFileUrl(anyString());
+    }
+
+    @Test
+    void testUploadFile_ReactiveRegistration() throws Exception {
+        fileUploadService = new FileUploadService(minioService, 1024L, communicationService,
+                Optional.of(reactiveCommunicationService), retryScheduler, Optional.empty(), Optional.empty(),
+                Optional.empty(), objectStatCache, Runnable::run);
+        when(reactiveCommunicationService.registerFile(new StoredObject("http://mockurl.com/filename.txt")))
+                .thenReturn(Mono.just(ResponseEntity.status(HttpStatus.CREATED).build()));
+        MockMultipartFile file = new MockMultipartFile("file", "filename.txt", "text/plain", "content".getBytes());
+
+        UploadResult result = fileUploadService.uploadFile(file).join();
+
+        assertTrue(result.success());
+        assertEquals(HttpStatus.OK, result.status());
+        verify(communicationService, never()).sendFileUrl(anyString());
+    }
+
+    @Test
+    void testUploadFile_DuplicateContentIsNotUploaded() throws Exception {
+        fileUploadService = new FileUploadService(minioService, 1024L, communicationService,
+                Optional.empty(), retryScheduler, Optional.empty(), Optional.empty(),
+                Optional.of(contentDeduplicator), objectStatCache, Runnable::run);
+        when(contentDeduplicator.storeDuplicate(eq("filename.txt"), any()))
+                .thenReturn(Optional.of("http://mockurl.com/filename.txt"));
+        MockMultipartFile file = new MockMultipartFile("file", "filename.txt", "text/plain", "content".getBytes());
+
+        UploadResult result = fileUploadService.uploadFile(file).join();
+
+        assertTrue(result.success());
+        verify(minioService, never()).uploadObject(anyString(), any(), anyLong(), anyString());
+        verify(communicationService).sendFileUrl("http://mockurl.com/filename.txt");
+    }
+
+    @Test
+    void testUploadFile_StoredAttributesAreSentWithRegistration() throws Exception {
+        var storedObject = new StoredObject("http://mockurl.com/filename.txt", 7, "text/plain", "etag", "hash");
+        when(minioService.uploadObject(anyString(), any(), anyLong(), anyString())).thenReturn(storedObject);
+        when(communicationService.sendFileRegistration(storedObject))
+                .thenReturn(ResponseEntity.ok("URL Sent Successfully"));
+        MockMultipartFile file = new MockMultipartFile("file", "filename.txt", "text/plain", "content".getBytes());
+
+        UploadResult result = fileUploadService.uploadFile(file).join();
+
+        assertTrue(result.success());
+        verify(communicationService).sendFileRegistration(storedObject);
+        verify(communicationService, never()).sendFileUrl(anyString());
+    }
+
     @Test
     void testUploadFile_NullFile(){
-        Optional<UploadResult> resultOptional = Optional.ofNullable(fileUploadService.uploadFile(null));
+        Optional<UploadResult> resultOptional = Optional.ofNullable(fileUploadService.uploadFile(null).join());
 
         // Assert failure and correct error messages
         assertTrue(resultOptional.isPresent(), "Result should be present");
@@ -95,7 +223,7 @@ class FileUploadServiceTests {
         MultipartFile file = mock(MultipartFile.class);
         when(file.getSize()).thenReturn(-1L); // set up negative file size
 
-        UploadResult result = fileUploadService.uploadFile(file);
+        UploadResult result = fileUploadService.uploadFile(file).join();
 
         // Assert failure and correct error messages
         assertFalse(result.success(), "Upload should fail");
@@ -110,7 +238,7 @@ class FileUploadServiceTests {
         MockMultipartFile file = new MockMultipartFile("file", "too-large.txt", "text/plain", new byte[2048]); //
         // File size exceeds max limit
 
-        UploadResult result = fileUploadService.uploadFile(file);
+        UploadResult result = fileUploadService.uploadFile(file).join();
 
         // Assert failure and correct error messages
         assertNotNull(result);
@@ -145,12 +273,14 @@ class FileUploadServiceTests {
         RestTemplate restTemplate = new RestTemplate();
         MockRestServiceServer mockServer = MockRestServiceServer.createServer(restTemplate);
         CommunicationService customCommunicationService = new HTTPCommunicationService(restTemplate, "http://metadata" +
-                ".url");
-        fileUploadService = new FileUploadService(minioService, 1024L, customCommunicationService, 3, 100L);
+                ".url", metadataServiceGuard);
+        fileUploadService = new FileUploadService(minioService, 1024L, customCommunicationService,
+                Optional.empty(), retryScheduler, Optional.empty(), Optional.empty(),
+                Optional.empty(), objectStatCache, Runnable::run);
 
         MultipartFile file = new MockMultipartFile("file", "filename.txt", "text/plain", "content".getBytes());
-        when(minioService.uploadObject(anyString(), any(), anyLong(), anyString())).thenReturn("http://mockurl" +
-                ".com/file");
+        when(minioService.uploadObject(anyString(), any(), anyLong(), anyString()))
+                .thenReturn(new StoredObject("http://mockurl.com/file"));
 
         // Expect POST request for file upload attempt
         mockServer.expect(ExpectedCount.times(3), MockRestRequestMatchers.requestTo("http://metadata.url/register"))
@@ -166,7 +296,7 @@ class FileUploadServiceTests {
         doNothing().when(minioService).deleteObject(anyString());
 
         long startTime = System.nanoTime();
-        UploadResult result = fileUploadService.uploadFile(file);
+        UploadResult result = fileUploadService.uploadFile(file).join();
         long endTime = System.nanoTime();
 
         long durationMillis = TimeUnit.NANOSECONDS.toMillis(endTime - startTime);
@@ -186,12 +316,14 @@ class FileUploadServiceTests {
         RestTemplate restTemplate = new RestTemplate();
         MockRestServiceServer mockServer = MockRestServiceServer.createServer(restTemplate);
         CommunicationService customCommunicationService = new HTTPCommunicationService(restTemplate, "http://metadata"
-                + ".url");
-        fileUploadService = new FileUploadService(minioService, 1024L, customCommunicationService, 3, 100L);
+                + ".url", metadataServiceGuard);
+        fileUploadService = new FileUploadService(minioService, 1024L, customCommunicationService,
+                Optional.empty(), retryScheduler, Optional.empty(), Optional.empty(),
+                Optional.empty(), objectStatCache, Runnable::run);
 
         MultipartFile file = new MockMultipartFile("file", "filename.txt", "text/plain", "content".getBytes());
-        when(minioService.uploadObject(anyString(), any(), anyLong(), anyString())).thenReturn("http://mockurl" +
-                ".com/file");
+        when(minioService.uploadObject(anyString(), any(), anyLong(), anyString()))
+                .thenReturn(new StoredObject("http://mockurl.com/file"));
 
         // First two attempts return error
         mockServer.expect(ExpectedCount.times(1), MockRestRequestMatchers.requestTo("http://metadata.url/register")).andExpect(MockRestRequestMatchers.method(HttpMethod.POST)).andRespond(MockRestResponseCreators.withStatus(HttpStatus.INTERNAL_SERVER_ERROR).body("Error " + "processing request"));
@@ -202,7 +334,7 @@ class FileUploadServiceTests {
         mockServer.expect(ExpectedCount.times(1), MockRestRequestMatchers.requestTo("http://metadata.url/register")).andExpect(MockRestRequestMatchers.method(HttpMethod.POST)).andRespond(MockRestResponseCreators.withSuccess());
 
         long startTime = System.currentTimeMillis();
-        UploadResult result = fileUploadService.uploadFile(file);
+        UploadResult result = fileUploadService.uploadFile(file).join();
         long endTime = System.currentTimeMillis();
 
         // Assert success and correct messages
@@ -221,12 +353,31 @@ class FileUploadServiceTests {
     }
 
     @Test
-    void testUploadFile_TwoFilesSimultaneously() throws InterruptedException, IOException {
+    void testUploadFile_RetryDoesNotHoldCallingThread() {
+        when(communicationService.sendFileUrl(anyString()))
+                .thenReturn(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build())
+                .thenReturn(ResponseEntity.ok("URL Sent Successfully"));
+        MockMultipartFile file = new MockMultipartFile("file", "filename.txt", "text/plain", "content".getBytes());
+
+        CompletableFuture<UploadResult> future = fileUploadService.uploadFile(file);
+
+        // the first attempt has failed and the retry waits for its backoff on the retry timer
+        assertFalse(future.isDone());
+        UploadResult result = future.join();
+        assertTrue(result.success());
+        assertEquals(HttpStatus.OK, result.status());
+        verify(communicationService, times(2)).sendFileUrl("http://mockurl.com/filename.txt");
+    }
+
+    @Test
+    void testUploadFile_TwoFilesSimultaneously()throws InterruptedException, IOException {
         RestTemplate restTemplate = new RestTemplate();
         MockRestServiceServer mockServer = MockRestServiceServer.createServer(restTemplate);
         CommunicationService customCommunicationService = new HTTPCommunicationService(restTemplate, "http://metadata"
-                + ".url");
-        fileUploadService = new FileUploadService(minioService, 1024L, customCommunicationService, 3, 100L);
+                + ".url", metadataServiceGuard);
+        fileUploadService = new FileUploadService(minioService, 1024L, customCommunicationService,
+                Optional.empty(), retryScheduler, Optional.empty(), Optional.empty(),
+                Optional.empty(), objectStatCache, Runnable::run);
 
         // Setup MockRestServiceServer for successful responses
         mockServer.expect(ExpectedCount.manyTimes(),
@@ -240,12 +391,12 @@ class FileUploadServiceTests {
 
         // Upload files simultaneously
         executor.execute(() -> {
-            fileUploadService.uploadFile(file1);
+            fileUploadService.uploadFile(file1).join();
             latch.countDown();
         });
 
         executor.execute(() -> {
-            fileUploadService.uploadFile(file2);
+            fileUploadService.uploadFile(file2).join();
             latch.countDown();
         });
 
@@ -269,7 +420,7 @@ class FileUploadServiceTests {
         MockMultipartFile file = new MockMultipartFile("file", "filename.txt", "text/plain",
                 mockInputStream.readAllBytes());
 
-        UploadResult result = fileUploadService.uploadFile(file);
+        UploadResult result = fileUploadService.uploadFile(file).join();
 
         // Assert failure and correct error messages
         assertNotNull(result);
@@ -289,15 +440,15 @@ class FileUploadServiceTests {
     @Test
     void testUploadFile_DuplicateUpload() throws Exception {
         // Mock MinioService to simulate successful upload of initial file
-        when(minioService.uploadObject(anyString(), any(), anyLong(), anyString())).thenReturn("http://mockurl" +
-                ".com/filename.txt");
+        when(minioService.uploadObject(anyString(), any(), anyLong(), anyString()))
+                .thenReturn(new StoredObject("http://mockurl.com/filename.txt"));
 
         // First upload
         InputStream mockInputStream1 = new ByteArrayInputStream(new byte[1024]); // Example file size
         MockMultipartFile file1 = new MockMultipartFile("file", "filename.txt", "text/plain",
                 mockInputStream1.readAllBytes());
 
-        UploadResult result1 = fileUploadService.uploadFile(file1);
+        UploadResult result1 = fileUploadService.uploadFile(file1).join();
 
         // Assert success and correct URL for first upload
         assertNotNull(result1);
@@ -313,7 +464,7 @@ class FileUploadServiceTests {
         MockMultipartFile file2 = new MockMultipartFile("file", "filename.txt", "text/plain",
                 mockInputStream2.readAllBytes());
 
-        UploadResult result2 = fileUploadService.uploadFile(file2);
+        UploadResult result2 = fileUploadService.uploadFile(file2).join();
 
         // Assert success and correct URL for second upload
         assertNotNull(result2);
@@ -1,11 +1,14 @@
 package org.yulia.filemanagement.fileuploadservice.service;
 
+import io.minio.CopyObjectArgs;
 import io.minio.GetPresignedObjectUrlArgs;
 import io.minio.MinioClient;
 import io.minio.PutObjectArgs;
 import io.minio.RemoveObjectArgs;
+import io.minio.SetObjectTagsArgs;
 import io.minio.http.Method;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -14,6 +17,7 @@ import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.web.multipart.MultipartFile;
 import org.yulia.filemanagement.fileuploadservice.communication.CommunicationService;
+import org.yulia.filemanagement.fileuploadservice.dto.StoredObject;
 import org.yulia.filemanagement.fileuploadservice.exception.MinioServiceUnavailableException;
 
 import java.io.ByteArrayInputStream;
@@ -38,6 +42,9 @@ public class MinioServiceTests {
     @MockBean
     private CommunicationService mockCommunicationService;
 
+    @MockBean
+    private ParallelMultipartUploader mockMultipartUploader;
+
     @Autowired
     private MinioService minioService;
 
@@ -67,11 +74,44 @@ public class MinioServiceTests {
 
         when(mockMinioClient.getPresignedObjectUrl(urlArgs)).thenReturn(expectedUrl);
 
-        String resultUrl = minioService.uploadObject(filename, data, size, contentType);
-        assertEquals(expectedUrl, resultUrl);
+        StoredObject storedObject = minioService.uploadObject(filename, data, size, contentType);
+        assertEquals(expectedUrl, storedObject.fileUrl());
+        assertEquals(size, storedObject.size());
+        assertEquals(contentType, storedObject.contentType());
     }
 
 
+    @Test
+    void testUploadRecordsContentHash() throws Exception {
+        // the client reads the stream like Minio would, so the content passes through the digest
+        when(mockMinioClient.putObject(any(PutObjectArgs.class))).thenAnswer(invocation -> {
+            invocation.getArgument(0, PutObjectArgs.class).stream().readAllBytes();
+            return null;
+        });
+
+        minioService.uploadObject("hashed.txt", new ByteArrayInputStream("content".getBytes()), 7, "text/plain");
+
+        var tagsCaptor = ArgumentCaptor.forClass(SetObjectTagsArgs.class);
+        verify(mockMinioClient).setObjectTags(tagsCaptor.capture());
+        assertEquals("hashed.txt", tagsCaptor.getValue().object());
+        assertEquals("ed7002b439e9ac845f22357d822bac1444730fbdb6016d3ec9432297b9ec9f73",
+                tagsCaptor.getValue().tags().get().get(MinioService.CONTENT_HASH_TAG));
+    }
+
+    @Test
+    void testCopyObjectIsServerSide() throws Exception {
+        when(mockMinioClient.getPresignedObjectUrl(any())).thenReturn("http://example.com/copy.txt");
+
+        String url = minioService.copyObject("original.txt", "copy.txt");
+
+        var copyCaptor = ArgumentCaptor.forClass(CopyObjectArgs.class);
+        verify(mockMinioClient).copyObject(copyCaptor.capture());
+        assertEquals("copy.txt", copyCaptor.getValue().object());
+        assertEquals("original.txt", copyCaptor.getValue().source().object());
+        assertEquals("http://example.com/copy.txt", url);
+        verify(mockMinioClient, never()).putObject(any());
+    }
+
     @Test
     public void testUploadWithSpecialCharactersInFilename() throws Exception {
         MultipartFile file = new MockMultipartFile("file", "na@me#test$.txt", "text/plain", "content".getBytes());
@@ -120,7 +160,8 @@ public class MinioServiceTests {
         };
 
         MinioClient mockMinioClient = mock(MinioClient.class);
-        MinioService minioServiceWithMock = new MinioService(mockMinioClient, "test-bucket");
+        MinioService minioServiceWithMock = new MinioService(mockMinioClient, mockMultipartUploader, "test-bucket",
+                Long.MAX_VALUE);
 
         doThrow(new IOException("Stream is corrupted")).when(mockMinioClient).putObject(any(PutObjectArgs.class));
 
@@ -186,6 +227,28 @@ public class MinioServiceTests {
         assertThat(exception.getMessage()).contains("Service unavailable");
     }
 
+    @Test
+    public void testLargeObjectUsesMultipartUpload() throws Exception {
+        InputStream data = new ByteArrayInputStream(new byte[16]);
+        long size = 6 * 1024 * 1024;
+
+        minioService.uploadObject("large.bin", data, size, "application/octet-stream");
+
+        verify(mockMultipartUploader).upload(bucketName, "large.bin", data, "application/octet-stream");
+        verify(mockMinioClient, never()).putObject(any(PutObjectArgs.class));
+        verify(mockMinioClient).getPresignedObjectUrl(any(GetPresignedObjectUrlArgs.class));
+    }
+
+    @Test
+    public void testObjectOfUnknownSizeUsesMultipartUpload() throws Exception {
+        InputStream data = new ByteArrayInputStream("streamed".getBytes());
+
+        minioService.uploadObject("streamed.txt", data, -1, "text/plain");
+
+        verify(mockMultipartUploader).upload(bucketName, "streamed.txt", data, "text/plain");
+        verify(mockMinioClient, never()).putObject(any(PutObjectArgs.class));
+    }
+
     @Test
     void testSuccessfulDelete() throws Exception {
         String filename = "testfile.txt";
@@ -230,7 +293,8 @@ public class MinioServiceTests {
     @Test
     void testUploadWithInvalidBucketName() throws Exception {
         String invalidBucketName = " ";
-        MinioService minioServiceWithInvalidBucket = new MinioService(mockMinioClient, invalidBucketName);
+        MinioService minioServiceWithInvalidBucket = new MinioService(mockMinioClient,
+                mockMultipartUploader, invalidBucketName, Long.MAX_VALUE);
         String filename = "testfile.txt";
         InputStream data = new ByteArrayInputStream("file content".getBytes());
         long size = 12;
@@ -244,7 +308,8 @@ public class MinioServiceTests {
     @Test
     void testDeleteWithInvalidBucketName() throws Exception {
         String invalidBucketName = " ";
-        MinioService minioServiceWithInvalidBucket = new MinioService(mockMinioClient, invalidBucketName);
+        MinioService minioServiceWithInvalidBucket = new MinioService(mockMinioClient,
+                mockMultipartUploader, invalidBucketName, Long.MAX_VALUE);
         String filename = "testfile.txt";
 
         IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () ->
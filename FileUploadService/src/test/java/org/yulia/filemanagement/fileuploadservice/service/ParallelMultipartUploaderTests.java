@@ -0,0 +1,125 @@
+package org.yulia.filemanagement.fileuploadservice.service;
+
+import io.minio.MinioClient;
+import io.minio.PutObjectArgs;
+import io.minio.messages.Part;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ParallelMultipartUploaderTests {
+
+    private static final int PART_SIZE = 5 * 1024 * 1024;
+    private static final String BUCKET = "test-bucket";
+
+    @Mock
+    private MinioClient minioClient;
+    @Mock
+    private MinioMultipartClient multipartClient;
+
+    private ExecutorService partExecutor;
+    private ParallelMultipartUploader uploader;
+
+    @BeforeEach
+    void setup() {
+        partExecutor = Executors.newFixedThreadPool(3);
+        uploader = new ParallelMultipartUploader(minioClient, multipartClient, partExecutor, PART_SIZE, 3);
+    }
+
+    @AfterEach
+    void tearDown() {
+        partExecutor.shutdownNow();
+    }
+
+    @Test
+    void testSmallObjectIsUploadedWithSingleRequest() throws Exception {
+        uploader.upload(BUCKET, "small.txt", new ByteArrayInputStream("content".getBytes()), "text/plain");
+
+        verify(minioClient).putObject(any(PutObjectArgs.class));
+        verifyNoInteractions(multipartClient);
+    }
+
+    @Test
+    void testLargeObjectIsUploadedInOrderedParts() throws Exception {
+        when(multipartClient.createMultipartUpload(BUCKET, "large.bin", "application/octet-stream"))
+                .thenReturn("upload-1");
+        when(multipartClient.uploadPart(eq(BUCKET), eq("large.bin"), eq("upload-1"), anyInt(), any(), anyLong()))
+                .thenAnswer(invocation -> new Part(invocation.getArgument(3), "etag-" + invocation.getArgument(3)));
+
+        var data = new byte[2 * PART_SIZE + 10];
+        uploader.upload(BUCKET, "large.bin", new ByteArrayInputStream(data), "application/octet-stream");
+
+        verify(multipartClient).uploadPart(eq(BUCKET), eq("large.bin"), eq("upload-1"), eq(1), any(),
+                eq((long) PART_SIZE));
+        verify(multipartClient).uploadPart(eq(BUCKET), eq("large.bin"), eq("upload-1"), eq(3), any(), eq(10L));
+        var partsCaptor = ArgumentCaptor.forClass(Part[].class);
+        verify(multipartClient).completeMultipartUpload(eq(BUCKET), eq("large.bin"), eq("upload-1"),
+                partsCaptor.capture());
+        var parts = partsCaptor.getValue();
+        assertEquals(3, parts.length);
+        for (int i = 0; i < parts.length; i++) {
+            assertEquals(i + 1, parts[i].partNumber());
+        }
+        verify(multipartClient, never()).abortMultipartUpload(anyString(), anyString(), anyString());
+        verifyNoInteractions(minioClient);
+    }
+
+    @Test
+    void testPartsAreUploadedConcurrently() throws Exception {
+        when(multipartClient.createMultipartUpload(anyString(), anyString(), anyString())).thenReturn("upload-1");
+        var allPartsStarted = new CountDownLatch(3);
+        when(multipartClient.uploadPart(anyString(), anyString(), anyString(), anyInt(), any(), anyLong()))
+                .thenAnswer(invocation -> {
+                    allPartsStarted.countDown();
+                    assertTrue(allPartsStarted.await(5, TimeUnit.SECONDS), "parts were uploaded one by one");
+                    return new Part(invocation.getArgument(3), "etag");
+                });
+
+        uploader.upload(BUCKET, "large.bin", new ByteArrayInputStream(new byte[3 * PART_SIZE]), "text/plain");
+
+        verify(multipartClient).completeMultipartUpload(anyString(), anyString(), anyString(), any());
+    }
+
+    @Test
+    void testFailedPartAbortsUpload() throws Exception {
+        when(multipartClient.createMultipartUpload(anyString(), anyString(), anyString())).thenReturn("upload-1");
+        when(multipartClient.uploadPart(anyString(), anyString(), anyString(), anyInt(), any(), anyLong()))
+                .thenAnswer(invocation -> {
+                    if ((int) invocation.getArgument(3) == 2) {
+                        throw new IOException("Network interruption");
+                    }
+                    return new Part(invocation.getArgument(3), "etag");
+                });
+
+        Exception exception = assertThrows(IOException.class, () -> uploader.upload(BUCKET, "large.bin",
+                new ByteArrayInputStream(new byte[4 * PART_SIZE]), "text/plain"));
+
+        assertThat(exception.getMessage()).contains("Network interruption");
+        verify(multipartClient).abortMultipartUpload(BUCKET, "large.bin", "upload-1");
+        verify(multipartClient, never()).completeMultipartUpload(anyString(), anyString(), anyString(), any());
+    }
+
+    @Test
+    void testTooSmallPartSizeIsRejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new ParallelMultipartUploader(minioClient, multipartClient, partExecutor, 1024, 3));
+    }
+}
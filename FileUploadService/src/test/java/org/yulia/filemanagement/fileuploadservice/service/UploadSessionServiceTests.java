@@ -0,0 +1,222 @@
+package org.yulia.filemanagement.fileuploadservice.service;
+
+import io.minio.messages.Part;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.yulia.filemanagement.fileuploadservice.dto.UploadResult;
+import org.yulia.filemanagement.fileuploadservice.exception.FileSizeLimitExceededException;
+import org.yulia.filemanagement.fileuploadservice.exception.InvalidUploadRequestException;
+import org.yulia.filemanagement.fileuploadservice.exception.UploadOffsetMismatchException;
+import org.yulia.filemanagement.fileuploadservice.exception.UploadSessionNotFoundException;
+import org.yulia.filemanagement.fileuploadservice.storage.ObjectStorage;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UploadSessionServiceTests {
+
+    private static final int MB = 1024 * 1024;
+    private static final String BUCKET = "test-bucket";
+
+    @Mock
+    private MinioMultipartClient multipartClient;
+    @Mock
+    private MinioService minioService;
+    @Mock
+    private FileUploadService fileUploadService;
+
+    private UploadSessionService uploadSessionService;
+
+    @BeforeEach
+    void setup() throws IOException {
+        uploadSessionService = new UploadSessionService(multipartClient, minioService, fileUploadService, BUCKET,
+                20L * MB, 8L * MB, 60);
+        lenient().when(multipartClient.createMultipartUpload(eq(BUCKET), anyString(), anyString()))
+                .thenReturn("upload-1");
+        lenient().when(multipartClient.uploadPart(eq(BUCKET), anyString(), eq("upload-1"), anyInt(), any(), anyLong()))
+                .thenAnswer(invocation -> {
+                    invocation.<InputStream>getArgument(4).readAllBytes();
+                    return new Part(invocation.getArgument(3), "etag");
+                });
+    }
+
+    @Test
+    void testChunksAreStoredAsPartsAndCompleted() throws IOException {
+        var session = uploadSessionService.createSession("large.bin", 6L * MB, "application/octet-stream");
+        UploadResult registered = new UploadResult(true, "File uploaded successfully", "File uploaded successfully",
+                HttpStatus.OK, Optional.of("http://mockurl.com/large.bin"));
+        when(minioService.getPresignedUrl("large.bin")).thenReturn("http://mockurl.com/large.bin");
+        when(fileUploadService.registerStoredFile("large.bin", "http://mockurl.com/large.bin")).thenReturn(CompletableFuture.completedFuture(registered));
+
+        var afterFirst = uploadSessionService.uploadChunk(session.sessionId(), 0, 5 * MB, chunk(5 * MB));
+        var afterSecond = uploadSessionService.uploadChunk(session.sessionId(), 5L * MB, MB, chunk(MB));
+        var result = uploadSessionService.completeSession(session.sessionId()).join();
+
+        assertEquals(5L * MB, afterFirst.offset());
+        assertEquals(6L * MB, afterSecond.offset());
+        assertSame(registered, result);
+        var partsCaptor = ArgumentCaptor.forClass(Part[].class);
+        verify(multipartClient).completeMultipartUpload(eq(BUCKET), eq("large.bin"), eq("upload-1"),
+                partsCaptor.capture());
+        assertEquals(2, partsCaptor.getValue().length);
+        assertEquals(2, partsCaptor.getValue()[1].partNumber());
+        var digest = ObjectStorage.newContentDigest();
+        digest.update(new byte[6 * MB]);
+        verify(minioService).setContentHash("large.bin", ObjectStorage.toHex(digest));
+        assertThrows(UploadSessionNotFoundException.class, () -> uploadSessionService.getStatus(session.sessionId()));
+    }
+
+    @Test
+    void testChunkAtWrongOffsetReportsCommittedOffset() throws IOException {
+        var session = uploadSessionService.createSession("file.bin", 6L * MB, "application/octet-stream");
+        uploadSessionService.uploadChunk(session.sessionId(), 0, 5 * MB, chunk(5 * MB));
+
+        // the client resends the first chunk because the response to it was lost
+        var exception = assertThrows(UploadOffsetMismatchException.class,
+                () -> uploadSessionService.uploadChunk(session.sessionId(), 0, 5 * MB, chunk(5 * MB)));
+
+        assertEquals(5L * MB, exception.getCommittedOffset());
+        verify(multipartClient, times(1)).uploadPart(anyString(), anyString(), anyString(), anyInt(), any(), anyLong());
+    }
+
+    @Test
+    void testChunkBelowMinimalPartSizeIsRejectedUnlessLast() throws IOException {
+        var session = uploadSessionService.createSession("file.bin", 6L * MB, "application/octet-stream");
+
+        assertThrows(InvalidUploadRequestException.class,
+                () -> uploadSessionService.uploadChunk(session.sessionId(), 0, MB, chunk(MB)));
+        assertEquals(0, uploadSessionService.getStatus(session.sessionId()).offset());
+    }
+
+    @Test
+    void testChunkLargerThanLimitIsRejected() throws IOException {
+        var session = uploadSessionService.createSession("file.bin", 20L * MB, "application/octet-stream");
+
+        assertThrows(FileSizeLimitExceededException.class,
+                () -> uploadSessionService.uploadChunk(session.sessionId(), 0, 9 * MB, chunk(9 * MB)));
+        verify(multipartClient, never()).uploadPart(anyString(), anyString(), anyString(), anyInt(), any(), anyLong());
+    }
+
+    @Test
+    void testChunkIsValidatedBeforeItsContentIsRead() throws IOException {
+        var session = uploadSessionService.createSession("file.bin", 6L * MB, "application/octet-stream");
+        var body = chunk(5 * MB);
+
+        assertThrows(UploadOffsetMismatchException.class,
+                () -> uploadSessionService.uploadChunk(session.sessionId(), MB, 5 * MB, body));
+        assertThrows(InvalidUploadRequestException.class,
+                () -> uploadSessionService.uploadChunk(session.sessionId(), 0, -1, body));
+
+        assertEquals(5 * MB, body.available());
+        verify(multipartClient, never()).uploadPart(anyString(), anyString(), anyString(), anyInt(), any(), anyLong());
+    }
+
+    @Test
+    void testFailedChunkCanBeSentAgain() throws IOException {
+        var session = uploadSessionService.createSession("file.bin", 6L * MB, "application/octet-stream");
+        when(multipartClient.uploadPart(eq(BUCKET), eq("file.bin"), eq("upload-1"), eq(1), any(), anyLong()))
+                .thenAnswer(invocation -> {
+                    // the connection drops after half of the chunk has been read
+                    invocation.<InputStream>getArgument(4).readNBytes(MB);
+                    throw new IOException("Connection reset");
+                })
+                .thenAnswer(invocation -> {
+                    invocation.<InputStream>getArgument(4).readAllBytes();
+                    return new Part(1, "etag");
+                });
+
+        assertThrows(IOException.class, () -> uploadSessionService.uploadChunk(session.sessionId(), 0, 6L * MB,
+                chunk(6 * MB)));
+        var status = uploadSessionService.uploadChunk(session.sessionId(), 0, 6L * MB, chunk(6 * MB));
+
+        assertEquals(6L * MB, status.offset());
+        when(minioService.getPresignedUrl("file.bin")).thenReturn("http://mockurl.com/file.bin");
+        when(fileUploadService.registerStoredFile(anyString(), anyString()))
+                .thenReturn(CompletableFuture.completedFuture(null));
+        uploadSessionService.completeSession(session.sessionId()).join();
+        var digest = ObjectStorage.newContentDigest();
+        digest.update(new byte[6 * MB]);
+        verify(minioService).setContentHash("file.bin", ObjectStorage.toHex(digest));
+    }
+
+    @Test
+    void testStalledChunkDoesNotBlockSession() throws Exception {
+        var session = uploadSessionService.createSession("file.bin", 6L * MB, "application/octet-stream");
+        var uploading = new CountDownLatch(1);
+        var resume = new CountDownLatch(1);
+        when(multipartClient.uploadPart(eq(BUCKET), eq("file.bin"), eq("upload-1"), eq(1), any(), anyLong()))
+                .thenAnswer(invocation -> {
+                    // the client stops sending in the middle of the chunk
+                    uploading.countDown();
+                    assertTrue(resume.await(5, TimeUnit.SECONDS));
+                    invocation.<InputStream>getArgument(4).readAllBytes();
+                    return new Part(1, "etag");
+                });
+        var stalled = CompletableFuture.supplyAsync(() -> {
+            try {
+                return uploadSessionService.uploadChunk(session.sessionId(), 0, 6L * MB, chunk(6 * MB));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        assertTrue(uploading.await(5, TimeUnit.SECONDS));
+
+        // the client queries the offset to resume, and its retry is rejected while the stalled chunk is in progress
+        var status = CompletableFuture.supplyAsync(() -> uploadSessionService.getStatus(session.sessionId()))
+                .get(1, TimeUnit.SECONDS);
+        assertEquals(0, status.offset());
+        var exception = assertThrows(UploadOffsetMismatchException.class,
+                () -> uploadSessionService.uploadChunk(session.sessionId(), 0, 6L * MB, chunk(6 * MB)));
+        assertEquals(0, exception.getCommittedOffset());
+
+        resume.countDown();
+        assertEquals(6L * MB, stalled.get(5, TimeUnit.SECONDS).offset());
+        assertEquals(6L * MB, uploadSessionService.getStatus(session.sessionId()).offset());
+    }
+
+    @Test
+    void testFileLargerThanLimitIsRejected() {
+        assertThrows(FileSizeLimitExceededException.class,
+                () -> uploadSessionService.createSession("huge.bin", 21L * MB, "application/octet-stream"));
+    }
+
+    @Test
+    void testIncompleteSessionCannotBeCompleted() throws IOException {
+        var session = uploadSessionService.createSession("file.bin", 6L * MB, "application/octet-stream");
+
+        assertThrows(UploadOffsetMismatchException.class,
+                () -> uploadSessionService.completeSession(session.sessionId()));
+        verify(multipartClient, never()).completeMultipartUpload(anyString(), anyString(), anyString(), any());
+    }
+
+    @Test
+    void testExpiredSessionsAreAborted() throws IOException {
+        uploadSessionService = new UploadSessionService(multipartClient, minioService, fileUploadService, BUCKET,
+                20L * MB, 8L * MB, 0);
+        var session = uploadSessionService.createSession("abandoned.bin", 6L * MB, "application/octet-stream");
+
+        uploadSessionService.abortExpiredSessions();
+
+        verify(multipartClient).abortMultipartUpload(BUCKET, "abandoned.bin", "upload-1");
+        assertThrows(UploadSessionNotFoundException.class, () -> uploadSessionService.getStatus(session.sessionId()));
+    }
+
+    private static ByteArrayInputStream chunk(int size) {
+        return new ByteArrayInputStream(new byte[size]);
+    }
+}
@@ -0,0 +1,56 @@
+package org.yulia.filemanagement.fileuploadservice.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LocalFileStorageContractTests extends ObjectStorageContractTests {
+
+    @TempDir
+    private Path root;
+
+    private LocalFileStorage storage;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        storage = new LocalFileStorage(root.toString(), "test-bucket");
+    }
+
+    @Override
+    protected ObjectStorage storage() {
+        return storage;
+    }
+
+    @Test
+    void whenObjectIsStored_thenItIsWrittenInTheSharedLayout() throws Exception {
+        storage.uploadObject("notes.txt", new ByteArrayInputStream(new byte[]{1, 2, 3}), 3, "text/plain");
+
+        assertTrue(Files.exists(root.resolve("test-bucket").resolve("notes.txt")));
+        var attributes = Files.readString(root.resolve(".attributes/test-bucket/notes.txt.properties"));
+        assertTrue(attributes.contains("content-type=text/plain"));
+        assertEquals(3, Files.size(root.resolve("test-bucket").resolve("notes.txt")));
+    }
+
+    @Test
+    void whenStreamIsShorterThanTheSize_thenNothingIsStored() {
+        assertThrows(IOException.class, () ->
+                storage.uploadObject("short.txt", new ByteArrayInputStream(new byte[]{1, 2}), 3, "text/plain"));
+
+        assertFalse(Files.exists(root.resolve("test-bucket").resolve("short.txt")));
+    }
+
+    @Test
+    void whenNameLeavesTheBucket_thenThrowsIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class, () -> storage.statObject("../outside.txt"));
+    }
+}
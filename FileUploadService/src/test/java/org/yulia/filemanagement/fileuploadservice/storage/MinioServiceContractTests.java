@@ -0,0 +1,58 @@
+package org.yulia.filemanagement.fileuploadservice.storage;
+
+import io.minio.BucketExistsArgs;
+import io.minio.ListObjectsArgs;
+import io.minio.MakeBucketArgs;
+import io.minio.MinioClient;
+import io.minio.RemoveObjectArgs;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.yulia.filemanagement.fileuploadservice.service.MinioMultipartClient;
+import org.yulia.filemanagement.fileuploadservice.service.MinioService;
+import org.yulia.filemanagement.fileuploadservice.service.ParallelMultipartUploader;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs the storage contract against a real Minio server, which is only available when MINIO_CONTRACT_URL is set. The
+ * bucket is emptied before every test.
+ */
+@EnabledIfEnvironmentVariable(named = "MINIO_CONTRACT_URL", matches = ".+")
+class MinioServiceContractTests extends ObjectStorageContractTests {
+
+    private static final String BUCKET = "storage-contract-tests";
+
+    private ExecutorService partExecutor;
+    private MinioService storage;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        var minioClient = MinioClient.builder()
+                .endpoint(System.getenv("MINIO_CONTRACT_URL"))
+                .credentials(System.getenv().getOrDefault("MINIO_CONTRACT_ACCESS_KEY", "minioadmin"),
+                        System.getenv().getOrDefault("MINIO_CONTRACT_SECRET_KEY", "minioadmin"))
+                .build();
+        if (!minioClient.bucketExists(BucketExistsArgs.builder().bucket(BUCKET).build())) {
+            minioClient.makeBucket(MakeBucketArgs.builder().bucket(BUCKET).build());
+        }
+        for (var result : minioClient.listObjects(ListObjectsArgs.builder().bucket(BUCKET).recursive(true).build())) {
+            minioClient.removeObject(RemoveObjectArgs.builder().bucket(BUCKET).object(result.get().objectName()).build());
+        }
+        partExecutor = Executors.newFixedThreadPool(2);
+        var uploader = new ParallelMultipartUploader(minioClient, new MinioMultipartClient(minioClient), partExecutor,
+                5 * 1024 * 1024, 2);
+        storage = new MinioService(minioClient, uploader, BUCKET, 16 * 1024 * 1024);
+    }
+
+    @AfterEach
+    void tearDown() {
+        partExecutor.shutdownNow();
+    }
+
+    @Override
+    protected ObjectStorage storage() {
+        return storage;
+    }
+}
@@ -0,0 +1,121 @@
+package org.yulia.filemanagement.fileuploadservice.storage;
+
+import org.junit.jupiter.api.Test;
+import org.yulia.filemanagement.fileuploadservice.exception.ObjectChangedException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * The behavior every storage backend has to provide. Each backend runs these tests through a subclass that supplies
+ * an empty storage.
+ */
+abstract class ObjectStorageContractTests {
+
+    private static final byte[] CONTENT = "The quick brown fox jumps over the lazy dog".getBytes(StandardCharsets.UTF_8);
+
+    protected abstract ObjectStorage storage();
+
+    @Test
+    void whenObjectIsStored_thenItsAttributesAreReturnedAndCanBeRead() throws Exception {
+        var storedObject = storage().uploadObject("fox.txt", new ByteArrayInputStream(CONTENT), CONTENT.length,
+                "text/plain");
+
+        assertNotNull(storedObject.fileUrl());
+        assertFalse(storedObject.fileUrl().isBlank());
+        assertEquals(CONTENT.length, storedObject.size());
+        assertEquals("text/plain", storedObject.contentType());
+        assertEquals(sha256(CONTENT), storedObject.contentHash());
+        var stat = storage().statObject("fox.txt");
+        assertEquals("fox.txt", stat.name());
+        assertEquals(CONTENT.length, stat.size());
+        assertEquals("text/plain", stat.contentType());
+        assertNotNull(stat.etag());
+        assertNotNull(stat.lastModified());
+    }
+
+    @Test
+    void whenSizeIsUnknown_thenTheStreamIsStoredUntilItsEnd() throws Exception {
+        var storedObject = storage().uploadObject("unknown.txt", new ByteArrayInputStream(CONTENT), -1,
+                "text/plain");
+
+        assertEquals(CONTENT.length, storedObject.size());
+        assertEquals(sha256(CONTENT), storedObject.contentHash());
+        assertArrayEquals(CONTENT, read("unknown.txt", 0, CONTENT.length));
+    }
+
+    @Test
+    void whenRangeIsTransferred_thenOnlyItsBytesAreWritten() throws Exception {
+        storage().uploadObject("fox.txt", new ByteArrayInputStream(CONTENT), CONTENT.length, "text/plain");
+
+        assertArrayEquals(CONTENT, read("fox.txt", 0, CONTENT.length));
+        assertArrayEquals("quick".getBytes(StandardCharsets.UTF_8), read("fox.txt", 4, 5));
+        assertArrayEquals("dog".getBytes(StandardCharsets.UTF_8), read("fox.txt", CONTENT.length - 3, 3));
+    }
+
+    @Test
+    void whenObjectIsReplaced_thenReadsPinnedToTheOldETagAreRefused() throws Exception {
+        storage().uploadObject("fox.txt", new ByteArrayInputStream(CONTENT), CONTENT.length, "text/plain");
+        var oldETag = storage().statObject("fox.txt").etag();
+        var replacement = "A lazy dog".getBytes(StandardCharsets.UTF_8);
+        storage().uploadObject("fox.txt", new ByteArrayInputStream(replacement), replacement.length, "text/plain");
+        var newETag = storage().statObject("fox.txt").etag();
+
+        var output = new ByteArrayOutputStream();
+        assertThrows(ObjectChangedException.class,
+                () -> storage().transferTo("fox.txt", oldETag, 0, 5, Channels.newChannel(output)));
+        assertEquals(0, output.size());
+        storage().transferTo("fox.txt", newETag, 0, replacement.length, Channels.newChannel(output));
+        assertArrayEquals(replacement, output.toByteArray());
+    }
+
+    @Test
+    void whenObjectIsCopied_thenTheCopyHasTheSameContent() throws Exception {
+        storage().uploadObject("fox.txt", new ByteArrayInputStream(CONTENT), CONTENT.length, "text/plain");
+
+        var url = storage().copyObject("fox.txt", "copy.txt");
+
+        assertNotNull(url);
+        assertEquals(CONTENT.length, storage().statObject("copy.txt").size());
+        assertArrayEquals(CONTENT, read("copy.txt", 0, CONTENT.length));
+    }
+
+    @Test
+    void whenSourceOfCopyIsMissing_thenThrowsIOException() {
+        assertThrows(IOException.class, () -> storage().copyObject("missing.txt", "copy.txt"));
+    }
+
+    @Test
+    void whenObjectIsDeleted_thenItIsMissing() throws Exception {
+        storage().uploadObject("fox.txt", new ByteArrayInputStream(CONTENT), CONTENT.length, "text/plain");
+
+        storage().deleteObject("fox.txt");
+        storage().deleteObject("fox.txt");
+
+        assertThrows(NoSuchFileException.class, () -> storage().statObject("fox.txt"));
+        assertThrows(NoSuchFileException.class, () -> read("fox.txt", 0, 1));
+    }
+
+    private byte[] read(String filename, long offset, long length) throws Exception {
+        var output = new ByteArrayOutputStream();
+        var transferred = storage().transferTo(filename, null, offset, length, Channels.newChannel(output));
+        assertEquals(length, transferred);
+        return output.toByteArray();
+    }
+
+    private static String sha256(byte[] content) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+    }
+}